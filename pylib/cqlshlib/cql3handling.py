@@ -44,6 +44,7 @@ class Cql3ParsingRuleSet(CqlParsingRuleSet):
     columnfamily_layout_options = (
         ('allow_auto_snapshot', None),
         ('bloom_filter_fp_chance', None),
+        ('bloom_filter_type', None),
         ('comment', None),
         ('gc_grace_seconds', None),
         ('incremental_backups', None),
@@ -56,6 +57,8 @@ class Cql3ParsingRuleSet(CqlParsingRuleSet):
         ('memtable_flush_period_in_ms', None),
         ('cdc', None),
         ('read_repair', None),
+        ('row_bloom_filter', None),
+        ('durable_writes', None),
     )
 
     columnfamily_layout_map_options = (
@@ -524,6 +527,8 @@ def cf_prop_val_completer(ctxt, cass):
         return ["'<obsolete_option>'"]
     if this_opt == 'bloom_filter_fp_chance':
         return [Hint('<float_between_0_and_1>')]
+    if this_opt == 'bloom_filter_type':
+        return [Hint('<\'standard\'|\'blocked\'>')]
     if this_opt in ('min_compaction_threshold', 'max_compaction_threshold',
                     'gc_grace_seconds', 'min_index_interval', 'max_index_interval'):
         return [Hint('<integer>')]
@@ -535,6 +540,10 @@ def cf_prop_val_completer(ctxt, cass):
         return [Hint('<boolean>')]
     if this_opt == 'incremental_backups':
         return [Hint('<boolean>')]
+    if this_opt == 'row_bloom_filter':
+        return [Hint('<boolean>')]
+    if this_opt == 'durable_writes':
+        return [Hint('<boolean>')]
     return [Hint('<option_value>')]
 
 
@@ -735,6 +744,7 @@ syntax_rules += r'''
                           ( "PER" "PARTITION" "LIMIT" perPartitionLimit=<wholenumber> )?
                           ( "LIMIT" limit=<wholenumber> )?
                           ( "ALLOW" "FILTERING" )?
+                          ( "BYPASS" "CACHE" )?
                     ;
 <whereClause> ::= <relation> ( "AND" <relation> )*
                 ;
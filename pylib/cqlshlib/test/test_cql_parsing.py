@@ -166,6 +166,18 @@ class TestCqlParsing(TestCase):
                                   ('ALLOW', 'reserved_identifier'),
                                   ('FILTERING', 'identifier')])
 
+        parsed = parse_cqlsh_statements('SELECT * FROM tab ALLOW FILTERING BYPASS CACHE')
+        self.assertSequenceEqual(tokens_with_types(parsed),
+                                 [('SELECT', 'reserved_identifier'),
+                                  ('*', 'star'),
+                                  ('FROM', 'reserved_identifier'),
+                                  ('tab', 'identifier'),
+                                  ('ALLOW', 'reserved_identifier'),
+                                  ('FILTERING', 'identifier'),
+                                  # 'bypass' and 'cache' are not reserved keywords
+                                  ('BYPASS', 'identifier'),
+                                  ('CACHE', 'identifier')])
+
     def test_parse_insert(self):
         parsed = parse_cqlsh_statements('INSERT INTO mytable (x) VALUES (2);')
         self.assertSequenceEqual(tokens_with_types(parsed),
@@ -669,7 +669,7 @@ class TestCqlshCompletion(CqlshCompletionCase):
                             immediate='ITH ')
         self.trycompletions(prefix + ' new_table (col_a int PRIMARY KEY) WITH ',
                             choices=['allow_auto_snapshot',
-                                     'bloom_filter_fp_chance', 'compaction',
+                                     'bloom_filter_fp_chance', 'bloom_filter_type', 'compaction',
                                      'compression',
                                      'default_time_to_live', 'gc_grace_seconds',
                                      'incremental_backups',
@@ -678,10 +678,11 @@ class TestCqlshCompletion(CqlshCompletionCase):
                                      'memtable_flush_period_in_ms',
                                      'CLUSTERING',
                                      'COMPACT', 'caching', 'comment',
-                                     'min_index_interval', 'speculative_retry', 'additional_write_policy', 'cdc', 'read_repair'])
+                                     'min_index_interval', 'speculative_retry', 'additional_write_policy', 'cdc', 'read_repair',
+                                     'row_bloom_filter', 'durable_writes'])
         self.trycompletions(prefix + ' new_table (col_a int PRIMARY KEY) WITH ',
                             choices=['allow_auto_snapshot',
-                                     'bloom_filter_fp_chance', 'compaction',
+                                     'bloom_filter_fp_chance', 'bloom_filter_type', 'compaction',
                                      'compression',
                                      'default_time_to_live', 'gc_grace_seconds',
                                      'incremental_backups',
@@ -690,7 +691,8 @@ class TestCqlshCompletion(CqlshCompletionCase):
                                      'memtable_flush_period_in_ms',
                                      'CLUSTERING',
                                      'COMPACT', 'caching', 'comment',
-                                     'min_index_interval', 'speculative_retry', 'additional_write_policy', 'cdc', 'read_repair'])
+                                     'min_index_interval', 'speculative_retry', 'additional_write_policy', 'cdc', 'read_repair',
+                                     'row_bloom_filter', 'durable_writes'])
         self.trycompletions(prefix + ' new_table (col_a int PRIMARY KEY) WITH bloom_filter_fp_chance ',
                             immediate='= ')
         self.trycompletions(prefix + ' new_table (col_a int PRIMARY KEY) WITH bloom_filter_fp_chance = ',
@@ -731,7 +733,7 @@ class TestCqlshCompletion(CqlshCompletionCase):
                             choices=[';', 'AND'])
         self.trycompletions(prefix + " new_table (col_a int PRIMARY KEY) WITH compaction = "
                             + "{'class': 'SizeTieredCompactionStrategy'} AND ",
-                            choices=['allow_auto_snapshot', 'bloom_filter_fp_chance', 'compaction',
+                            choices=['allow_auto_snapshot', 'bloom_filter_fp_chance', 'bloom_filter_type', 'compaction',
                                      'compression',
                                      'default_time_to_live', 'gc_grace_seconds',
                                      'incremental_backups',
@@ -740,7 +742,8 @@ class TestCqlshCompletion(CqlshCompletionCase):
                                      'memtable_flush_period_in_ms',
                                      'CLUSTERING',
                                      'COMPACT', 'caching', 'comment',
-                                     'min_index_interval', 'speculative_retry', 'additional_write_policy', 'cdc', 'read_repair'])
+                                     'min_index_interval', 'speculative_retry', 'additional_write_policy', 'cdc', 'read_repair',
+                                     'row_bloom_filter', 'durable_writes'])
         self.trycompletions(prefix + " new_table (col_a int PRIMARY KEY) WITH compaction = "
                             + "{'class': 'TimeWindowCompactionStrategy', '",
                             choices=['compaction_window_unit', 'compaction_window_size',
@@ -193,6 +193,7 @@ This package contains extra tools for working with Cassandra clusters.
 
 %files tools
 %attr(755,root,root) %{_bindir}/sstablepartitions
+%attr(755,root,root) %{_bindir}/sstablecompactionsim
 %attr(755,root,root) %{_bindir}/sstabledump
 %attr(755,root,root) %{_bindir}/compaction-stress
 %attr(755,root,root) %{_bindir}/sstableexpiredblockers
@@ -121,6 +121,8 @@ K_ASC:         A S C;
 K_DESC:        D E S C;
 K_ALLOW:       A L L O W;
 K_FILTERING:   F I L T E R I N G;
+K_BYPASS:      B Y P A S S;
+K_CACHE:       C A C H E;
 K_IF:          I F;
 K_IS:          I S;
 K_CONTAINS:    C O N T A I N S;
@@ -259,6 +259,7 @@ selectStatement returns [SelectStatement.RawStatement expr]
         List<Selectable.Raw> groups = new ArrayList<>();
         boolean allowFiltering = false;
         boolean isJson = false;
+        boolean bypassCache = false;
     }
     : K_SELECT
         // json is a valid column name. By consequence, we need to resolve the ambiguity for "json - json"
@@ -270,12 +271,14 @@ selectStatement returns [SelectStatement.RawStatement expr]
       ( K_PER K_PARTITION K_LIMIT rows=intValue { perPartitionLimit = rows; } )?
       ( K_LIMIT rows=intValue { limit = rows; } )?
       ( K_ALLOW K_FILTERING  { allowFiltering = true; } )?
+      ( K_BYPASS K_CACHE     { bypassCache = true; } )?
       {
           SelectStatement.Parameters params = new SelectStatement.Parameters(orderings,
                                                                              groups,
                                                                              $sclause.isDistinct,
                                                                              allowFiltering,
-                                                                             isJson);
+                                                                             isJson,
+                                                                             bypassCache);
           WhereClause where = wclause == null ? WhereClause.empty() : wclause.build();
           $expr = new SelectStatement.RawStatement(cf, params, $sclause.selectors, where, limit, perPartitionLimit);
       }
@@ -1961,6 +1964,8 @@ basic_unreserved_keyword returns [String str]
         | K_MAP
         | K_LIST
         | K_FILTERING
+        | K_BYPASS
+        | K_CACHE
         | K_PERMISSION
         | K_PERMISSIONS
         | K_KEYSPACES
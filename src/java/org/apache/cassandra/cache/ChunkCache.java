@@ -21,8 +21,13 @@
 package org.apache.cassandra.cache;
 
 import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import javax.annotation.concurrent.NotThreadSafe;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Throwables;
 import com.google.common.collect.Iterables;
 
@@ -31,15 +36,25 @@ import com.github.benmanes.caffeine.cache.Caffeine;
 import com.github.benmanes.caffeine.cache.LoadingCache;
 import com.github.benmanes.caffeine.cache.RemovalCause;
 import com.github.benmanes.caffeine.cache.RemovalListener;
+import io.netty.util.concurrent.FastThreadLocal;
 import org.apache.cassandra.concurrent.ImmediateExecutor;
+import org.apache.cassandra.config.Config;
 import org.apache.cassandra.config.DatabaseDescriptor;
+import org.apache.cassandra.io.sstable.Component;
 import org.apache.cassandra.io.sstable.CorruptSSTableException;
+import org.apache.cassandra.io.sstable.Descriptor;
+import org.apache.cassandra.io.sstable.format.SSTableFormat;
 import org.apache.cassandra.io.util.ChannelProxy;
 import org.apache.cassandra.io.util.ChunkReader;
+import org.apache.cassandra.io.util.File;
 import org.apache.cassandra.io.util.FileHandle;
 import org.apache.cassandra.io.util.Rebufferer;
 import org.apache.cassandra.io.util.RebuffererFactory;
+import org.apache.cassandra.io.util.WrappingRebufferer;
 import org.apache.cassandra.metrics.ChunkCacheMetrics;
+import org.apache.cassandra.metrics.ChunkCacheMetrics.TableChunkCacheMetrics;
+import org.apache.cassandra.utils.Clock;
+import org.apache.cassandra.utils.Pair;
 import org.apache.cassandra.utils.memory.BufferPool;
 import org.apache.cassandra.utils.memory.BufferPools;
 
@@ -50,17 +65,85 @@ public class ChunkCache implements CacheLoader<ChunkCache.Key, ChunkCache.Buffer
     public static final boolean roundUp = DatabaseDescriptor.getFileCacheRoundUp();
 
     private static boolean enabled = DatabaseDescriptor.getFileCacheEnabled() && cacheSize > 0;
-    public static final ChunkCache instance = enabled ? new ChunkCache(BufferPools.forChunkCache()) : null;
+    public static final ChunkCache instance = enabled ? new ChunkCache(BufferPools.forChunkCache(), DatabaseDescriptor.getFileCacheEvictionPolicy()) : null;
 
     private final BufferPool bufferPool;
 
-    private final LoadingCache<Key, Buffer> cache;
+    private final Store store;
     public final ChunkCacheMetrics metrics;
 
+    // The open cached handles on each file. An sstable gets new handles over its lifetime (e.g. when it is opened
+    // early, then as final), so the chunks of a file are only dropped once its last handle is closed. The chunks read
+    // through early opened handles are not shared with the later handles, see Key, and are dropped once a handle
+    // seeing more of the file is opened.
+    private final ConcurrentMap<String, OpenFile> openFiles = new ConcurrentHashMap<>();
+
+    // Counts of the current thread: the number of data file chunks served from the cache to it, which compactions use
+    // to tell which of the partitions they rewrite were hot, and the number of chunks it loaded, which tells the
+    // caching rebufferer whether a chunk it got from the cache was a miss.
+    private static final int DATA_HITS = 0;
+    private static final int LOADS = 1;
+    private static final FastThreadLocal<long[]> countsOnThread = new FastThreadLocal<long[]>()
+    {
+        @Override
+        protected long[] initialValue()
+        {
+            return new long[2];
+        }
+    };
+
+    private static final class OpenFile
+    {
+        final int handles;
+        // the length of the file seen by the latest handle, which is the longest
+        final long length;
+
+        OpenFile(int handles, long length)
+        {
+            this.handles = handles;
+            this.length = length;
+        }
+    }
+
+    /**
+     * The map holding the cached chunks, whose implementation decides which of them to evict when the cache is full.
+     */
+    private interface Store
+    {
+        /**
+         * Returns whether the chunk is cached. Unlike {@link #get}, does not count as an access to the chunk.
+         */
+        boolean contains(Key key);
+
+        /**
+         * Returns the chunk, loading it through {@link ChunkCache#load} if it is not cached.
+         */
+        Buffer get(Key key);
+
+        void invalidate(Key key);
+
+        void invalidateIf(Predicate<Key> predicate);
+
+        void invalidateAll();
+
+        int size();
+
+        long weightedSize();
+    }
+
+    /**
+     * The key of a chunk, shared by all the readers of the same file.
+     * <p>
+     * The readers of an sstable opened early only cover the part of its files written so far, and the last chunk
+     * they read may be incomplete, or even hold data that is still going to be overwritten for compressed files.
+     * Readers only share chunks with the readers seeing the same length of the file, so that such chunks are never
+     * served to the readers opened once more of the file is written.
+     */
     static class Key
     {
         final ChunkReader file;
         final String path;
+        final long fileLength;
         final long position;
 
         public Key(ChunkReader file, long position)
@@ -69,6 +152,7 @@ public class ChunkCache implements CacheLoader<ChunkCache.Key, ChunkCache.Buffer
             this.file = file;
             this.position = position;
             this.path = file.channel().filePath();
+            this.fileLength = file.fileLength();
         }
 
         public int hashCode()
@@ -77,6 +161,7 @@ public class ChunkCache implements CacheLoader<ChunkCache.Key, ChunkCache.Buffer
             int result = 1;
             result = prime * result + path.hashCode();
             result = prime * result + file.getClass().hashCode();
+            result = prime * result + Long.hashCode(fileLength);
             result = prime * result + Long.hashCode(position);
             return result;
         }
@@ -90,6 +175,7 @@ public class ChunkCache implements CacheLoader<ChunkCache.Key, ChunkCache.Buffer
 
             Key other = (Key) obj;
             return (position == other.position)
+                    && fileLength == other.fileLength
                     && file.getClass() == other.file.getClass()
                     && path.equals(other.path);
         }
@@ -100,6 +186,8 @@ public class ChunkCache implements CacheLoader<ChunkCache.Key, ChunkCache.Buffer
         private final ByteBuffer buffer;
         private final long offset;
         private final AtomicInteger references;
+        // Set once the chunk has been served from the cache, as opposed to only by the read that loaded it.
+        private volatile boolean hit;
 
         public Buffer(ByteBuffer buffer, long offset)
         {
@@ -143,37 +231,59 @@ public class ChunkCache implements CacheLoader<ChunkCache.Key, ChunkCache.Buffer
         }
     }
 
-    private ChunkCache(BufferPool pool)
+    private ChunkCache(BufferPool pool, Config.FileCacheEvictionPolicy evictionPolicy)
     {
         bufferPool = pool;
         metrics = new ChunkCacheMetrics(this);
-        cache = Caffeine.newBuilder()
-                        .maximumWeight(cacheSize)
-                        .executor(ImmediateExecutor.INSTANCE)
-                        .weigher((key, buffer) -> ((Buffer) buffer).buffer.capacity())
-                        .removalListener(this)
-                        .recordStats(() -> metrics)
-                        .build(this);
+        switch (evictionPolicy)
+        {
+            case caffeine:
+                store = new CaffeineStore();
+                break;
+            case s3fifo:
+                store = new S3FifoStore();
+                break;
+            default:
+                throw new AssertionError("Unknown chunk cache eviction policy " + evictionPolicy);
+        }
     }
 
     @Override
     public Buffer load(Key key)
     {
+        long start = Clock.Global.nanoTime();
         ByteBuffer buffer = bufferPool.get(key.file.chunkSize(), key.file.preferredBufferType());
         assert buffer != null;
-        key.file.readChunk(key.position, buffer);
+        try
+        {
+            key.file.readChunk(key.position, buffer);
+        }
+        catch (Throwable t)
+        {
+            bufferPool.put(buffer);
+            throw t;
+        }
+        metrics.recordLoadSuccess(Clock.Global.nanoTime() - start);
+        countsOnThread.get()[LOADS]++;
         return new Buffer(buffer, key.position);
     }
 
     @Override
     public void onRemoval(Key key, Buffer buffer, RemovalCause cause)
     {
+        onRemoval(buffer, cause.wasEvicted());
+    }
+
+    private void onRemoval(Buffer buffer, boolean evicted)
+    {
+        if (evicted && !buffer.hit)
+            metrics.recordOneHitWonder();
         buffer.release();
     }
 
     public void clear()
     {
-        cache.invalidateAll();
+        store.invalidateAll();
     }
 
     public RebuffererFactory wrap(ChunkReader file)
@@ -197,9 +307,85 @@ public class ChunkCache implements CacheLoader<ChunkCache.Key, ChunkCache.Buffer
         ((CachingRebufferer) dfile.rebuffererFactory()).invalidate(position);
     }
 
+    @VisibleForTesting
+    public boolean isCached(FileHandle dfile, long position)
+    {
+        if (!(dfile.rebuffererFactory() instanceof CachingRebufferer))
+            return false;
+
+        CachingRebufferer rebufferer = (CachingRebufferer) dfile.rebuffererFactory();
+        return store.contains(new Key(rebufferer.source, position & rebufferer.alignmentMask));
+    }
+
     public void invalidateFile(String fileName)
     {
-        cache.invalidateAll(Iterables.filter(cache.asMap().keySet(), x -> x.path.equals(fileName)));
+        store.invalidateIf(x -> x.path.equals(fileName));
+    }
+
+    private void openFile(String path, long length)
+    {
+        long[] previousLength = { length };
+        openFiles.compute(path, (p, f) -> {
+            if (f == null)
+                return new OpenFile(1, length);
+            previousLength[0] = f.length;
+            return new OpenFile(f.handles + 1, Math.max(f.length, length));
+        });
+        // the chunks read through the handles seeing less of the file are not shared with this one
+        if (previousLength[0] < length)
+            store.invalidateIf(x -> x.path.equals(path) && x.fileLength < length);
+    }
+
+    private void closeFile(String path, long length)
+    {
+        OpenFile open = openFiles.computeIfPresent(path, (p, f) -> f.handles == 1 ? null : new OpenFile(f.handles - 1, f.length));
+        if (open == null)
+            invalidateFile(path);
+        else if (open.length > length)
+            // drop the chunks read through this handle since a handle seeing more of the file was opened
+            store.invalidateIf(x -> x.path.equals(path) && x.fileLength == length);
+    }
+
+    /**
+     * Loads the chunks of the given file covering the given range of (uncompressed) positions into the cache, unless
+     * the file is not read through the cache.
+     */
+    public void warm(FileHandle file, long start, long end)
+    {
+        if (!(file.rebuffererFactory() instanceof CachingRebufferer))
+            return;
+
+        CachingRebufferer rebufferer = (CachingRebufferer) file.rebuffererFactory();
+        end = Math.min(end, file.dataLength());
+        for (long position = start & rebufferer.alignmentMask; position < end; position -= rebufferer.alignmentMask)
+        {
+            rebufferer.prefetch(position);
+            metrics.recordWarmed();
+        }
+    }
+
+    /**
+     * Returns the number of sstable data chunks served from the cache to the current thread so far. Comparing the
+     * values returned before and after reading some data tells whether any of it was cached.
+     */
+    public static long dataHitsOnCurrentThread()
+    {
+        return countsOnThread.get()[DATA_HITS];
+    }
+
+    /**
+     * Wraps a rebufferer of the given file that bypasses the cache, so that its reads still count the data chunks
+     * that are cached as hits of the current thread, see {@link #dataHitsOnCurrentThread}, without them counting as
+     * accesses for the eviction policy.
+     *
+     * @param cached the cached rebufferer factory of the file, which is returned unwrapped if the file is not cached
+     * @param uncached the rebufferer reading the same file as {@code cached}, in chunks of the same or a larger size
+     */
+    public static Rebufferer countingDataHits(RebuffererFactory cached, Rebufferer uncached)
+    {
+        if (!(cached instanceof CachingRebufferer) || !((CachingRebufferer) cached).isDataFile)
+            return uncached;
+        return ((CachingRebufferer) cached).new HitCountingRebufferer(uncached);
     }
 
     // TODO: Invalidate caches for obsoleted/MOVED_START tables?
@@ -211,14 +397,21 @@ public class ChunkCache implements CacheLoader<ChunkCache.Key, ChunkCache.Buffer
     class CachingRebufferer implements Rebufferer, RebuffererFactory
     {
         private final ChunkReader source;
+        private final TableChunkCacheMetrics tableMetrics;
+        private final boolean isDataFile;
         final long alignmentMask;
 
         public CachingRebufferer(ChunkReader file)
         {
             source = file;
+            Pair<Descriptor, Component> component = sstableComponent(file.channel().file());
+            tableMetrics = component == null ? null : metrics.forTable(component.left.ksname, component.left.cfname);
+            isDataFile = component != null && component.right.type == SSTableFormat.Components.Types.DATA;
             int chunkSize = file.chunkSize();
             assert Integer.bitCount(chunkSize) == 1 : String.format("%d must be a power of two", chunkSize);
             alignmentMask = -chunkSize;
+            // last, so that the file is only counted as open if this rebufferer is created, and then closed
+            openFile(file.channel().filePath(), file.fileLength());
         }
 
         @Override
@@ -226,12 +419,25 @@ public class ChunkCache implements CacheLoader<ChunkCache.Key, ChunkCache.Buffer
         {
             try
             {
-                long pageAlignedPos = position & alignmentMask;
+                Key key = new Key(source, position & alignmentMask);
+                // a chunk is a miss if this thread had to load it, and a hit if it was cached or loaded by another one
+                long[] counts = countsOnThread.get();
+                long loads = counts[LOADS];
                 Buffer buf;
                 do
-                    buf = cache.get(new Key(source, pageAlignedPos)).reference();
+                    buf = store.get(key).reference();
                 while (buf == null);
 
+                if (counts[LOADS] != loads)
+                {
+                    metrics.recordMiss(tableMetrics);
+                    return buf;
+                }
+
+                buf.hit = true;
+                metrics.recordHit(tableMetrics);
+                if (isDataFile)
+                    counts[DATA_HITS]++;
                 return buf;
             }
             catch (Throwable t)
@@ -243,10 +449,17 @@ public class ChunkCache implements CacheLoader<ChunkCache.Key, ChunkCache.Buffer
             }
         }
 
+        @Override
+        public void prefetch(long position)
+        {
+            // Loading is all we need; the cache holds the only reference to the buffer until a reader asks for it.
+            store.get(new Key(source, position & alignmentMask));
+        }
+
         public void invalidate(long position)
         {
             long pageAlignedPos = position & alignmentMask;
-            cache.invalidate(new Key(source, pageAlignedPos));
+            store.invalidate(new Key(source, pageAlignedPos));
         }
 
         @Override
@@ -258,7 +471,14 @@ public class ChunkCache implements CacheLoader<ChunkCache.Key, ChunkCache.Buffer
         @Override
         public void close()
         {
-            source.close();
+            try
+            {
+                closeFile(source.channel().filePath(), source.fileLength());
+            }
+            finally
+            {
+                source.close();
+            }
         }
 
         @Override
@@ -290,6 +510,36 @@ public class ChunkCache implements CacheLoader<ChunkCache.Key, ChunkCache.Buffer
         {
             return "CachingRebufferer:" + source;
         }
+
+        /**
+         * See {@link #countingDataHits}. The buffers returned end with the cached chunk they start in, so that hits
+         * are counted as the reads move through the chunks, rather than all at once for the larger chunks read.
+         */
+        @NotThreadSafe
+        class HitCountingRebufferer extends WrappingRebufferer
+        {
+            private long lastCounted = -1;
+
+            HitCountingRebufferer(Rebufferer wrapped)
+            {
+                super(wrapped);
+            }
+
+            @Override
+            public BufferHolder rebuffer(long position)
+            {
+                super.rebuffer(position);
+                long chunk = position & alignmentMask;
+                buffer.limit((int) Math.min(buffer.limit(), chunk - alignmentMask - offset));
+                if (chunk != lastCounted)
+                {
+                    lastCounted = chunk;
+                    if (store.contains(new Key(source, chunk)))
+                        countsOnThread.get()[DATA_HITS]++;
+                }
+                return this;
+            }
+        }
     }
 
     @Override
@@ -307,14 +557,143 @@ public class ChunkCache implements CacheLoader<ChunkCache.Key, ChunkCache.Buffer
     @Override
     public int size()
     {
-        return cache.asMap().size();
+        return store.size();
     }
 
     @Override
     public long weightedSize()
     {
-        return cache.policy().eviction()
-                .map(policy -> policy.weightedSize().orElseGet(cache::estimatedSize))
-                .orElseGet(cache::estimatedSize);
+        return store.weightedSize();
+    }
+
+    /**
+     * Returns the sstable descriptor and component of the given file, or null if it is not an sstable component.
+     */
+    private static Pair<Descriptor, Component> sstableComponent(File file)
+    {
+        try
+        {
+            return Descriptor.fromFileWithComponent(file, false);
+        }
+        catch (IllegalArgumentException e)
+        {
+            return null;
+        }
+    }
+
+    /**
+     * Caffeine's W-TinyLFU cache. Hits and misses are recorded by the caching rebufferer rather than through
+     * Caffeine's stats, so that both stores report them the same way.
+     */
+    private class CaffeineStore implements Store
+    {
+        private final LoadingCache<Key, Buffer> cache;
+
+        CaffeineStore()
+        {
+            cache = Caffeine.newBuilder()
+                            .maximumWeight(cacheSize)
+                            .executor(ImmediateExecutor.INSTANCE)
+                            .weigher((key, buffer) -> ((Buffer) buffer).buffer.capacity())
+                            .removalListener(ChunkCache.this)
+                            .build(ChunkCache.this);
+        }
+
+        @Override
+        public boolean contains(Key key)
+        {
+            return cache.asMap().containsKey(key);
+        }
+
+        @Override
+        public Buffer get(Key key)
+        {
+            return cache.get(key);
+        }
+
+        @Override
+        public void invalidate(Key key)
+        {
+            cache.invalidate(key);
+        }
+
+        @Override
+        public void invalidateIf(Predicate<Key> predicate)
+        {
+            cache.invalidateAll(Iterables.filter(cache.asMap().keySet(), predicate::test));
+        }
+
+        @Override
+        public void invalidateAll()
+        {
+            cache.invalidateAll();
+        }
+
+        @Override
+        public int size()
+        {
+            return cache.asMap().size();
+        }
+
+        @Override
+        public long weightedSize()
+        {
+            return cache.policy().eviction()
+                    .map(policy -> policy.weightedSize().orElseGet(cache::estimatedSize))
+                    .orElseGet(cache::estimatedSize);
+        }
+    }
+
+    /**
+     * Lock-free S3-FIFO cache, see {@link S3FifoCache}.
+     */
+    private class S3FifoStore implements Store
+    {
+        private final S3FifoCache<Key, Buffer> cache = new S3FifoCache<>(cacheSize,
+                                                                         ChunkCache.this::load,
+                                                                         buffer -> buffer.buffer.capacity(),
+                                                                         (key, buffer, evicted) -> onRemoval(buffer, evicted));
+
+        @Override
+        public boolean contains(Key key)
+        {
+            return cache.containsKey(key);
+        }
+
+        @Override
+        public Buffer get(Key key)
+        {
+            return cache.get(key);
+        }
+
+        @Override
+        public void invalidate(Key key)
+        {
+            cache.invalidate(key);
+        }
+
+        @Override
+        public void invalidateIf(Predicate<Key> predicate)
+        {
+            cache.invalidateIf(predicate);
+        }
+
+        @Override
+        public void invalidateAll()
+        {
+            cache.invalidateAll();
+        }
+
+        @Override
+        public int size()
+        {
+            return cache.size();
+        }
+
+        @Override
+        public long weightedSize()
+        {
+            return cache.weightedSize();
+        }
     }
-}
\ No newline at end of file
+}
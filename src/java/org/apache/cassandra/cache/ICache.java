@@ -34,6 +34,15 @@ public interface ICache<K, V> extends CacheSize
 
     public V get(K key);
 
+    /**
+     * Like {@link #get}, but lets the cache return a value read in place from its own memory, which the caller must
+     * then close once done with it if it is {@link AutoCloseable}.
+     */
+    default V getDirect(K key)
+    {
+        return get(key);
+    }
+
     public void remove(K key);
 
     public void clear();
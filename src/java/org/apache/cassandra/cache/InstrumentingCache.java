@@ -64,6 +64,17 @@ public class InstrumentingCache<K, V>
         return v;
     }
 
+    public V getDirect(K key)
+    {
+        metrics.requests.mark();
+        V v = map.getDirect(key);
+        if (v != null)
+            metrics.hits.mark();
+        else
+            metrics.misses.mark();
+        return v;
+    }
+
     public V getInternal(K key)
     {
         return map.get(key);
@@ -24,11 +24,15 @@ import java.util.Iterator;
 import org.apache.cassandra.config.DatabaseDescriptor;
 import org.apache.cassandra.db.TypeSizes;
 import org.apache.cassandra.db.partitions.CachedPartition;
+import org.apache.cassandra.db.partitions.SerializedCachedPartition;
 import org.apache.cassandra.io.util.DataInputBuffer;
 import org.apache.cassandra.io.util.DataOutputBuffer;
 import org.apache.cassandra.io.util.DataOutputBufferFixed;
+import org.apache.cassandra.io.util.FileUtils;
 import org.apache.cassandra.io.util.RebufferingInputStream;
 import org.apache.cassandra.schema.TableId;
+import org.apache.cassandra.utils.Throwables;
+import org.caffinitas.ohc.DirectValueAccess;
 import org.caffinitas.ohc.OHCache;
 import org.caffinitas.ohc.OHCacheBuilder;
 
@@ -36,22 +40,25 @@ public class OHCProvider implements CacheProvider<RowCacheKey, IRowCacheEntry>
 {
     public ICache<RowCacheKey, IRowCacheEntry> create()
     {
+        boolean inPlaceReads = DatabaseDescriptor.getRowCacheInPlaceReads();
         OHCacheBuilder<RowCacheKey, IRowCacheEntry> builder = OHCacheBuilder.newBuilder();
         builder.capacity(DatabaseDescriptor.getRowCacheSizeInMiB() * 1024 * 1024)
                .keySerializer(KeySerializer.instance)
-               .valueSerializer(ValueSerializer.instance)
+               .valueSerializer(inPlaceReads ? InPlaceValueSerializer.instance : ValueSerializer.instance)
                .throwOOME(true);
 
-        return new OHCacheAdapter(builder.build());
+        return new OHCacheAdapter(builder.build(), inPlaceReads);
     }
 
     private static class OHCacheAdapter implements ICache<RowCacheKey, IRowCacheEntry>
     {
         private final OHCache<RowCacheKey, IRowCacheEntry> ohCache;
+        private final boolean inPlaceReads;
 
-        public OHCacheAdapter(OHCache<RowCacheKey, IRowCacheEntry> ohCache)
+        public OHCacheAdapter(OHCache<RowCacheKey, IRowCacheEntry> ohCache, boolean inPlaceReads)
         {
             this.ohCache = ohCache;
+            this.inPlaceReads = inPlaceReads;
         }
 
         public long capacity()
@@ -84,6 +91,37 @@ public class OHCProvider implements CacheProvider<RowCacheKey, IRowCacheEntry>
             return ohCache.get(key);
         }
 
+        /**
+         * With in-place reads, returns the partitions as {@link SerializedCachedPartition}s reading the memory of the
+         * cache, which is only released once they are closed.
+         */
+        public IRowCacheEntry getDirect(RowCacheKey key)
+        {
+            if (!inPlaceReads)
+                return get(key);
+
+            DirectValueAccess access = ohCache.getDirect(key);
+            if (access == null)
+                return null;
+
+            try
+            {
+                ByteBuffer buffer = access.buffer().duplicate();
+                boolean isSentinel = buffer.get() != 0;
+                if (!isSentinel)
+                    return SerializedCachedPartition.open(buffer, access);
+
+                RowCacheSentinel sentinel = new RowCacheSentinel(buffer.getLong());
+                access.close();
+                return sentinel;
+            }
+            catch (Throwable t)
+            {
+                FileUtils.closeQuietly(access);
+                throw Throwables.unchecked(t);
+            }
+        }
+
         public void remove(RowCacheKey key)
         {
             ohCache.remove(key);
@@ -213,4 +251,61 @@ public class OHCProvider implements CacheProvider<RowCacheKey, IRowCacheEntry>
             return size;
         }
     }
+
+    /**
+     * Serializes the partitions in the format of {@link SerializedCachedPartition}, to be read in place.
+     */
+    private static class InPlaceValueSerializer implements org.caffinitas.ohc.CacheSerializer<IRowCacheEntry>
+    {
+        private static final InPlaceValueSerializer instance = new InPlaceValueSerializer();
+
+        public void serialize(IRowCacheEntry entry, ByteBuffer buf)
+        {
+            assert entry != null;
+            try (DataOutputBufferFixed out = new DataOutputBufferFixed(buf))
+            {
+                boolean isSentinel = entry instanceof RowCacheSentinel;
+                out.writeBoolean(isSentinel);
+                if (isSentinel)
+                    out.writeLong(((RowCacheSentinel) entry).sentinelId);
+                else
+                    SerializedCachedPartition.serializer.serialize((CachedPartition) entry, out);
+            }
+            catch (IOException e)
+            {
+                throw new RuntimeException(e);
+            }
+        }
+
+        /**
+         * Copies the entry on the heap, as {@code buf} is only valid during the call.
+         */
+        public IRowCacheEntry deserialize(ByteBuffer buf)
+        {
+            try
+            {
+                boolean isSentinel = buf.get() != 0;
+                if (isSentinel)
+                    return new RowCacheSentinel(buf.getLong());
+
+                ByteBuffer copy = ByteBuffer.allocate(buf.remaining());
+                copy.put(buf).flip();
+                return SerializedCachedPartition.open(copy, null);
+            }
+            catch (IOException e)
+            {
+                throw new RuntimeException(e);
+            }
+        }
+
+        public int serializedSize(IRowCacheEntry entry)
+        {
+            long size = TypeSizes.sizeof(true);
+            if (entry instanceof RowCacheSentinel)
+                size += TypeSizes.sizeof(((RowCacheSentinel) entry).sentinelId);
+            else
+                size += SerializedCachedPartition.serializer.serializedSize((CachedPartition) entry);
+            return Math.toIntExact(size);
+        }
+    }
 }
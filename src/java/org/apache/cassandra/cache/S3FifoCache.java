@@ -0,0 +1,374 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.cassandra.cache;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
+
+/**
+ * A weighted, loading cache implementing the S3-FIFO eviction policy.
+ * <p>
+ * Entries are admitted into a small FIFO queue, sized at a tenth of the capacity. Entries reaching the head of the
+ * small queue without having been accessed since they were loaded are evicted, and their key's hash is remembered
+ * in a ghost queue; entries that were accessed move to the main FIFO queue. Keys found in the ghost queue when
+ * loaded go directly to the main queue. The main queue is managed as a CLOCK: entries reaching its head are
+ * re-inserted at the tail as long as they have been accessed since they last passed, up to a small maximum count.
+ * <p>
+ * This makes the cache resistant to scans: entries read only once, as in a full table scan, never leave the small
+ * queue and only ever displace each other, while the working set held in the main queue is left alone.
+ * <p>
+ * Lookups are a single concurrent map read and a relaxed frequency increment. Insertion and eviction only use
+ * lock-free queues and atomic state transitions, so that concurrent readers never wait for each other except when
+ * loading the same key, which is done only once.
+ */
+public class S3FifoCache<K, V>
+{
+    private static final int MAX_FREQUENCY = 3;
+    // Least number of invalidated entries left in the queues before they are purged, to not purge small caches
+    // on every invalidation.
+    private static final int MIN_PURGE_THRESHOLD = 64;
+
+    private static final int SMALL = 0;
+    private static final int MAIN = 1;
+    private static final int REMOVED = 2;
+
+    public interface RemovalListener<K, V>
+    {
+        /**
+         * Called once for each entry leaving the cache.
+         *
+         * @param evicted true if the entry was evicted to make space, false if it was explicitly invalidated
+         */
+        void onRemoval(K key, V value, boolean evicted);
+    }
+
+    private static final class Node<K, V>
+    {
+        private static final AtomicIntegerFieldUpdater<Node> stateUpdater = AtomicIntegerFieldUpdater.newUpdater(Node.class, "state");
+
+        final K key;
+        final V value;
+        final int weight;
+        volatile int state;
+        // Updated racily: a lost increment or decrement only makes the eviction decision slightly less precise.
+        volatile int frequency;
+
+        Node(K key, V value, int weight, int state)
+        {
+            this.key = key;
+            this.value = value;
+            this.weight = weight;
+            this.state = state;
+        }
+
+        boolean transition(int from, int to)
+        {
+            return stateUpdater.compareAndSet(this, from, to);
+        }
+
+        void onAccess()
+        {
+            int f = frequency;
+            if (f < MAX_FREQUENCY)
+                frequency = f + 1;
+        }
+    }
+
+    private final long maxWeight;
+    private final long maxSmallWeight;
+    private final Function<K, V> loader;
+    private final ToIntFunction<V> weigher;
+    private final RemovalListener<K, V> removalListener;
+
+    private final ConcurrentHashMap<K, Node<K, V>> map = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<Node<K, V>> small = new ConcurrentLinkedQueue<>();
+    private final ConcurrentLinkedQueue<Node<K, V>> main = new ConcurrentLinkedQueue<>();
+    private final AtomicLong weight = new AtomicLong();
+    private final AtomicLong smallWeight = new AtomicLong();
+
+    // Hashes of keys recently evicted from the small queue, bounded by the number of entries in the cache.
+    private final ConcurrentLinkedQueue<Integer> ghost = new ConcurrentLinkedQueue<>();
+    private final Map<Integer, Boolean> ghostSet = new ConcurrentHashMap<>();
+    private final AtomicInteger ghostLength = new AtomicInteger();
+
+    // Entries invalidated since the queues were last purged, which may still be in their queue.
+    private final AtomicInteger invalidatedInQueues = new AtomicInteger();
+    private final AtomicBoolean purging = new AtomicBoolean();
+
+    public S3FifoCache(long maxWeight, Function<K, V> loader, ToIntFunction<V> weigher, RemovalListener<K, V> removalListener)
+    {
+        Preconditions.checkArgument(maxWeight > 0, "Cache capacity must be positive");
+        this.maxWeight = maxWeight;
+        this.maxSmallWeight = Math.max(1, maxWeight / 10);
+        this.loader = loader;
+        this.weigher = weigher;
+        this.removalListener = removalListener;
+    }
+
+    /**
+     * Returns the value cached for the given key, or null if there is none. Counts as an access to the entry.
+     */
+    public V getIfPresent(K key)
+    {
+        Node<K, V> node = map.get(key);
+        if (node == null)
+            return null;
+
+        node.onAccess();
+        return node.value;
+    }
+
+    /**
+     * Returns whether a value is cached for the given key. Does not count as an access to the entry.
+     */
+    public boolean containsKey(K key)
+    {
+        return map.containsKey(key);
+    }
+
+    /**
+     * Returns the value cached for the given key, loading it if it is not present. Concurrent calls for the same
+     * absent key wait for a single load. A call that loads the value does not count as an access to the new entry.
+     */
+    public V get(K key)
+    {
+        V value = getIfPresent(key);
+        if (value != null)
+            return value;
+
+        Node<K, V> node = map.computeIfAbsent(key, this::admit);
+        evictIfNeeded();
+        return node.value;
+    }
+
+    private Node<K, V> admit(K key)
+    {
+        V value = loader.apply(key);
+        int w = weigher.applyAsInt(value);
+        boolean seenRecently = ghostSet.remove(key.hashCode()) != null;
+        Node<K, V> node = new Node<>(key, value, w, seenRecently ? MAIN : SMALL);
+        weight.addAndGet(w);
+        if (seenRecently)
+            main.add(node);
+        else
+        {
+            smallWeight.addAndGet(w);
+            small.add(node);
+        }
+        return node;
+    }
+
+    public void invalidate(K key)
+    {
+        Node<K, V> node = map.remove(key);
+        if (node != null && remove(node, false))
+            maybePurgeQueues();
+    }
+
+    public void invalidateIf(Predicate<K> predicate)
+    {
+        for (K key : map.keySet())
+        {
+            if (predicate.test(key))
+                invalidate(key);
+        }
+    }
+
+    public void invalidateAll()
+    {
+        invalidateIf(k -> true);
+    }
+
+    public int size()
+    {
+        return map.size();
+    }
+
+    public long weightedSize()
+    {
+        return weight.get();
+    }
+
+    public long capacity()
+    {
+        return maxWeight;
+    }
+
+    @VisibleForTesting
+    long smallWeightedSize()
+    {
+        return smallWeight.get();
+    }
+
+    @VisibleForTesting
+    int queuedSize()
+    {
+        return small.size() + main.size();
+    }
+
+    /**
+     * Invalidated entries stay in their queue until they reach its head, which may not happen for a long time if
+     * the cache is not full, e.g. when the entries of the files of a dropped table are invalidated. Once more
+     * entries were invalidated since the last purge than there are live ones, removes them from the queues, so that
+     * the queues stay within twice the number of entries and the cost of a purge is amortized over invalidations.
+     */
+    private void maybePurgeQueues()
+    {
+        if (invalidatedInQueues.incrementAndGet() <= Math.max(map.size(), MIN_PURGE_THRESHOLD))
+            return;
+
+        if (!purging.compareAndSet(false, true))
+            return;
+
+        try
+        {
+            invalidatedInQueues.set(0);
+            small.removeIf(node -> node.state == REMOVED);
+            main.removeIf(node -> node.state == REMOVED);
+        }
+        finally
+        {
+            purging.set(false);
+        }
+    }
+
+    /**
+     * Marks the node removed, unless that was already done by a concurrent eviction or invalidation, and releases
+     * its weight. The node is left in its queue and is skipped when it reaches the head, or purged from it by
+     * {@link #maybePurgeQueues} if it was invalidated.
+     */
+    private boolean remove(Node<K, V> node, boolean evicted)
+    {
+        while (true)
+        {
+            int state = node.state;
+            if (state == REMOVED)
+                return false;
+
+            if (node.transition(state, REMOVED))
+            {
+                if (state == SMALL)
+                    smallWeight.addAndGet(-node.weight);
+                weight.addAndGet(-node.weight);
+                removalListener.onRemoval(node.key, node.value, evicted);
+                return true;
+            }
+        }
+    }
+
+    private void evictIfNeeded()
+    {
+        while (weight.get() > maxWeight)
+        {
+            boolean evicted = smallWeight.get() >= maxSmallWeight || main.isEmpty()
+                              ? evictFromSmall() || evictFromMain()
+                              : evictFromMain() || evictFromSmall();
+            if (!evicted)
+                return;
+        }
+    }
+
+    private boolean evictFromSmall()
+    {
+        Node<K, V> node;
+        while ((node = small.poll()) != null)
+        {
+            if (node.state != SMALL)
+                continue;
+
+            if (node.frequency > 0)
+            {
+                if (node.transition(SMALL, MAIN))
+                {
+                    smallWeight.addAndGet(-node.weight);
+                    node.frequency = 0;
+                    main.add(node);
+                    // Moving to the main queue frees nothing, so go on unless main now has to make room.
+                    if (smallWeight.get() < maxSmallWeight)
+                        return evictFromMain();
+                }
+            }
+            else if (evict(node))
+            {
+                addGhost(node.key.hashCode());
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean evictFromMain()
+    {
+        Node<K, V> node;
+        while ((node = main.poll()) != null)
+        {
+            if (node.state != MAIN)
+                continue;
+
+            int f = node.frequency;
+            if (f > 0)
+            {
+                node.frequency = f - 1;
+                main.add(node);
+            }
+            else if (evict(node))
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean evict(Node<K, V> node)
+    {
+        if (!remove(node, true))
+            return false;
+
+        map.remove(node.key, node);
+        return true;
+    }
+
+    private void addGhost(int hash)
+    {
+        if (ghostSet.putIfAbsent(hash, Boolean.TRUE) != null)
+            return;
+
+        ghost.add(hash);
+        if (ghostLength.incrementAndGet() > Math.max(map.size(), 1))
+        {
+            Integer oldest = ghost.poll();
+            if (oldest != null)
+            {
+                ghostLength.decrementAndGet();
+                ghostSet.remove(oldest);
+            }
+        }
+    }
+}
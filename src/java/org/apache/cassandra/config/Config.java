@@ -186,6 +186,11 @@ public class Config
     public int concurrent_reads = 32;
     public int concurrent_writes = 32;
     public int concurrent_counter_writes = 32;
+    /**
+     * Whether the concurrent increments of the same counters are summed and applied at once by the counter leader,
+     * rather than each reading and writing the counters in turn.
+     */
+    public volatile boolean counter_write_coalescing_enabled = false;
     public int concurrent_materialized_view_writes = 32;
     public int available_processors = -1;
 
@@ -195,6 +200,11 @@ public class Config
     @Replaces(oldName = "memtable_offheap_space_in_mb", converter = Converters.MEBIBYTES_DATA_STORAGE_INT, deprecated = true)
     public DataStorageSpec.IntMebibytesBound memtable_offheap_space;
     public Float memtable_cleanup_threshold = null;
+    /**
+     * How the memtable to flush is chosen when the memtable cleanup threshold is reached, see
+     * {@link org.apache.cassandra.db.memtable.MemtableFlushScheduler}.
+     */
+    public MemtableFlushSchedulerType memtable_flush_scheduler = MemtableFlushSchedulerType.largest;
 
     public static class MemtableOptions
     {
@@ -338,6 +348,16 @@ public class Config
     public volatile Integer concurrent_compactors;
     @Replaces(oldName = "compaction_throughput_mb_per_sec", converter = Converters.MEBIBYTES_PER_SECOND_DATA_RATE, deprecated = true)
     public volatile DataRateSpec.LongBytesPerSecondBound compaction_throughput = new DataRateSpec.LongBytesPerSecondBound("64MiB/s");
+    /**
+     * Whether compaction_throughput is replaced by a throughput adjusted between compaction_throughput_adaptive_min
+     * and compaction_throughput_adaptive_max from the read latencies, the pending compactions and the disk usage.
+     * The streaming throughputs are then scaled down along with it.
+     */
+    public volatile boolean compaction_throughput_adaptive_enabled = false;
+    public volatile DataRateSpec.LongBytesPerSecondBound compaction_throughput_adaptive_min = new DataRateSpec.LongBytesPerSecondBound("16MiB/s");
+    public volatile DataRateSpec.LongBytesPerSecondBound compaction_throughput_adaptive_max = new DataRateSpec.LongBytesPerSecondBound("256MiB/s");
+    /** The 99th percentile of the read latencies above which the adaptive compaction throughput is lowered. */
+    public volatile DurationSpec.LongMicrosecondsBound compaction_throughput_adaptive_target_read_latency = new DurationSpec.LongMicrosecondsBound("20ms");
     @Replaces(oldName = "min_free_space_per_drive_in_mb", converter = Converters.MEBIBYTES_DATA_STORAGE_INT, deprecated = true)
     public DataStorageSpec.IntMebibytesBound min_free_space_per_drive = new DataStorageSpec.IntMebibytesBound("50MiB");
 
@@ -392,12 +412,27 @@ public class Config
     public DurationSpec.IntMillisecondsBound commitlog_sync_group_window = new DurationSpec.IntMillisecondsBound("0ms");
     @Replaces(oldName = "commitlog_sync_period_in_ms", converter = Converters.MILLIS_DURATION_INT, deprecated = true)
     public DurationSpec.IntMillisecondsBound commitlog_sync_period = new DurationSpec.IntMillisecondsBound("0ms");
+    /**
+     * When in {@link CommitLogSync#adaptive} mode, the latency the commit log syncs should add to the writes, at the
+     * 99th percentile. The group window is sized from it, the recent sync latencies and the arrival rate of the writes.
+     */
+    public DurationSpec.LongMicrosecondsBound commitlog_sync_adaptive_target_latency = new DurationSpec.LongMicrosecondsBound("5ms");
     @Replaces(oldName = "commitlog_segment_size_in_mb", converter = Converters.MEBIBYTES_DATA_STORAGE_INT, deprecated = true)
     public DataStorageSpec.IntMebibytesBound commitlog_segment_size = new DataStorageSpec.IntMebibytesBound("32MiB");
     public ParameterizedClass commitlog_compression;
     public FlushCompression flush_compression = FlushCompression.fast;
+    /**
+     * Number of threads compressing and writing the chunks of flushed sstables while the flush writers serialize the
+     * following ones. -1 means min(4, available processors), 0 compresses each chunk on the flush writer itself.
+     */
+    public int flush_compression_threads = -1;
     public int commitlog_max_compression_buffers_in_pool = 3;
     public DiskAccessMode commitlog_disk_access_mode = DiskAccessMode.legacy;
+    /**
+     * Number of zero-filled segment files kept ready for new commit log segments. The files of discarded segments are
+     * recycled into it rather than deleted. 0 disables recycling.
+     */
+    public int commitlog_recycled_segments = 0;
     @Replaces(oldName = "periodic_commitlog_sync_lag_block_in_ms", converter = Converters.MILLIS_DURATION_INT, deprecated = true)
     public DurationSpec.IntMillisecondsBound periodic_commitlog_sync_lag_block;
     public TransparentDataEncryptionOptions transparent_data_encryption_options = new TransparentDataEncryptionOptions();
@@ -466,6 +501,11 @@ public class Config
     public volatile DurationSpec.IntSecondsBound key_cache_save_period = new DurationSpec.IntSecondsBound("4h");
 
     public String row_cache_class_name = "org.apache.cassandra.cache.OHCProvider";
+    /**
+     * Whether OHCProvider stores partitions in a format that reads query in place, deserializing only the rows and
+     * columns they select, rather than deserializing the whole partition on every hit.
+     */
+    public boolean row_cache_in_place_reads = false;
     @Replaces(oldName = "row_cache_size_in_mb", converter = Converters.MEBIBYTES_DATA_STORAGE_LONG, deprecated = true)
     public DataStorageSpec.LongMebibytesBound row_cache_size = new DataStorageSpec.LongMebibytesBound("0MiB");
     @Replaces(oldName = "row_cache_save_period", converter = Converters.SECONDS_CUSTOM_DURATION)
@@ -505,6 +545,53 @@ public class Config
      */
     public Boolean file_cache_round_up;
 
+    /**
+     * Number of threads used to read sstable chunks into the chunk cache ahead of a single-partition read that has to
+     * merge several sstables, so that the per-sstable reads are issued in parallel rather than one after the other.
+     * Set to 0 (the default) to disable. Has no effect when the chunk cache is disabled.
+     */
+    public int async_chunk_read_threads = 0;
+
+    /**
+     * Eviction policy of the chunk cache. {@code caffeine} (the default) uses Caffeine's W-TinyLFU, {@code s3fifo}
+     * a lock-free S3-FIFO cache that protects frequently read chunks from being displaced by scans.
+     */
+    public FileCacheEvictionPolicy file_cache_eviction_policy = FileCacheEvictionPolicy.caffeine;
+
+    /**
+     * Size of the blocks read from sstables by reads that bypass the chunk cache, such as range scans requesting it,
+     * repair validation and sstable verification. The blocks of compressed sstables hold as many whole compressed
+     * chunks as fit. Does not apply to memory-mapped sstables.
+     */
+    public DataStorageSpec.IntKibibytesBound uncached_read_ahead_size = new DataStorageSpec.IntKibibytesBound("256KiB");
+
+    /**
+     * Number of chunks read ahead, on background threads, by the sequential reads that bypass the chunk cache, so that
+     * several reads are in flight per file. Compactions read their inputs bypassing the chunk cache when this is
+     * enabled, and uncached_read_ahead_size is capped at the size of the buffers of the pool. Set to 0 (the default) to
+     * disable.
+     */
+    public int uncached_read_ahead_chunks = 0;
+
+    /**
+     * Number of threads performing the reads ahead of uncached_read_ahead_chunks, which bounds the number of these
+     * reads in flight on the node.
+     */
+    public int uncached_read_ahead_threads = 8;
+
+    /**
+     * Whether the data of the sstables written by memtable flushes is loaded into the chunk cache before they are
+     * made visible to reads, so that reads of recently written data do not miss the cache after each flush.
+     */
+    public volatile boolean file_cache_warm_on_flush = false;
+
+    /**
+     * Whether the data of the sstables written by compactions is loaded into the chunk cache before they replace
+     * their inputs, for the partitions whose input data was read from the chunk cache during the compaction, or whose
+     * key was in the key cache for one of the inputs.
+     */
+    public volatile boolean file_cache_warm_on_compaction = false;
+
     /** @deprecated See CASSANDRA-15358 */
     @Deprecated(since = "4.0")
     public boolean buffer_pool_use_heap_if_exhausted;
@@ -1142,7 +1229,14 @@ public class Config
     {
         periodic,
         batch,
-        group
+        group,
+        adaptive
+    }
+
+    public enum MemtableFlushSchedulerType
+    {
+        largest,
+        adaptive
     }
 
     public enum FlushCompression
@@ -1226,6 +1320,12 @@ public class Config
         spinning
     }
 
+    public enum FileCacheEvictionPolicy
+    {
+        caffeine,
+        s3fifo
+    }
+
     public enum RepairCommandPoolFullStrategy
     {
         queue,
@@ -521,6 +521,18 @@ public class DatabaseDescriptor
             }
             logger.debug("Syncing log with a group window of {}", conf.commitlog_sync_period.toString());
         }
+        else if (conf.commitlog_sync == CommitLogSync.adaptive)
+        {
+            if (conf.commitlog_sync_adaptive_target_latency.toMicroseconds() == 0)
+            {
+                throw new ConfigurationException("Missing value for commitlog_sync_adaptive_target_latency.", false);
+            }
+            else if (conf.commitlog_sync_period.toMilliseconds() != 0)
+            {
+                throw new ConfigurationException("Adaptive sync specified, but commitlog_sync_period found. Only specify commitlog_sync_adaptive_target_latency when using adaptive sync", false);
+            }
+            logger.debug("Syncing log with an adaptive group window targeting a latency of {}", conf.commitlog_sync_adaptive_target_latency);
+        }
         else
         {
             if (conf.commitlog_sync_period.toMilliseconds() == 0)
@@ -1028,6 +1040,14 @@ public class DatabaseDescriptor
         {
             throw new ConfigurationException("Invalid value of compaction_throughput: " + conf.compaction_throughput.toString(), false);
         }
+
+        if (conf.compaction_throughput_adaptive_min.toBytesPerSecond() <= 0 ||
+            conf.compaction_throughput_adaptive_max.toBytesPerSecond() < conf.compaction_throughput_adaptive_min.toBytesPerSecond())
+        {
+            throw new ConfigurationException(String.format("Invalid adaptive compaction throughput bounds %s-%s, the minimum " +
+                                                           "should be positive and not larger than the maximum",
+                                                           conf.compaction_throughput_adaptive_min, conf.compaction_throughput_adaptive_max), false);
+        }
     }
 
     @VisibleForTesting
@@ -1460,13 +1480,8 @@ public class DatabaseDescriptor
 
         if (providedDiskAccessMode == DiskAccessMode.auto)
         {
-            if (compressOrEncrypt)
-                providedDiskAccessMode = DiskAccessMode.legacy;
-            else
-            {
-                providedDiskAccessMode = directIOSupported && conf.disk_optimization_strategy == Config.DiskOptimizationStrategy.ssd ? DiskAccessMode.direct
-                                                                                                                                     : DiskAccessMode.legacy;
-            }
+            providedDiskAccessMode = directIOSupported && conf.disk_optimization_strategy == Config.DiskOptimizationStrategy.ssd ? DiskAccessMode.direct
+                                                                                                                                 : DiskAccessMode.legacy;
         }
 
         if (providedDiskAccessMode == DiskAccessMode.legacy)
@@ -1481,7 +1496,7 @@ public class DatabaseDescriptor
     {
         boolean compressOrEncrypt = getCommitLogCompression() != null || (getEncryptionContext() != null && getEncryptionContext().isEnabled());
 
-        if (compressOrEncrypt && diskAccessMode != DiskAccessMode.standard)
+        if (compressOrEncrypt && diskAccessMode != DiskAccessMode.standard && diskAccessMode != DiskAccessMode.direct)
         {
             throw new ConfigurationException("commitlog_disk_access_mode = " + diskAccessMode + " is not supported with compression or encryption. Please use 'auto' when unsure.", false);
         }
@@ -2315,6 +2330,16 @@ public class DatabaseDescriptor
         conf.concurrent_counter_writes = concurrent_counter_writes;
     }
 
+    public static boolean getCounterWriteCoalescingEnabled()
+    {
+        return conf.counter_write_coalescing_enabled;
+    }
+
+    public static void setCounterWriteCoalescingEnabled(boolean enabled)
+    {
+        conf.counter_write_coalescing_enabled = enabled;
+    }
+
     public static int getConcurrentViewWriters()
     {
         return conf.concurrent_materialized_view_writes;
@@ -2385,6 +2410,46 @@ public class DatabaseDescriptor
         conf.compaction_throughput = new DataRateSpec.LongBytesPerSecondBound(value, MEBIBYTES_PER_SECOND);
     }
 
+    public static boolean getCompactionThroughputAdaptiveEnabled()
+    {
+        return conf.compaction_throughput_adaptive_enabled;
+    }
+
+    public static void setCompactionThroughputAdaptiveEnabled(boolean enabled)
+    {
+        conf.compaction_throughput_adaptive_enabled = enabled;
+    }
+
+    public static double getCompactionThroughputAdaptiveMinBytesPerSec()
+    {
+        return conf.compaction_throughput_adaptive_min.toBytesPerSecond();
+    }
+
+    public static double getCompactionThroughputAdaptiveMaxBytesPerSec()
+    {
+        return conf.compaction_throughput_adaptive_max.toBytesPerSecond();
+    }
+
+    public static void setCompactionThroughputAdaptiveBoundsMebibytesPerSec(int min, int max)
+    {
+        if (min <= 0 || max < min)
+            throw new IllegalArgumentException(String.format("Invalid adaptive compaction throughput bounds %d-%d MiB/s, " +
+                                                             "the minimum should be positive and not larger than the maximum", min, max));
+
+        conf.compaction_throughput_adaptive_min = new DataRateSpec.LongBytesPerSecondBound(min, MEBIBYTES_PER_SECOND);
+        conf.compaction_throughput_adaptive_max = new DataRateSpec.LongBytesPerSecondBound(max, MEBIBYTES_PER_SECOND);
+    }
+
+    public static long getCompactionThroughputAdaptiveTargetReadLatency(TimeUnit unit)
+    {
+        return conf.compaction_throughput_adaptive_target_read_latency.to(unit);
+    }
+
+    public static void setCompactionThroughputAdaptiveTargetReadLatency(long micros)
+    {
+        conf.compaction_throughput_adaptive_target_read_latency = new DurationSpec.LongMicrosecondsBound(micros);
+    }
+
     public static int getConcurrentValidations()
     {
         return conf.concurrent_validations;
@@ -2666,6 +2731,18 @@ public class DatabaseDescriptor
         conf.flush_compression = compression;
     }
 
+    public static int getFlushCompressionThreads()
+    {
+        return conf.flush_compression_threads < 0 ? Math.min(4, FBUtilities.getAvailableProcessors())
+                                                  : conf.flush_compression_threads;
+    }
+
+    @VisibleForTesting
+    public static void setFlushCompressionThreads(int threads)
+    {
+        conf.flush_compression_threads = threads;
+    }
+
     /**
      * Maximum number of buffers in the compression pool. The default value is 3, it should not be set lower than that
      * (one segment in compression, one written to, one in reserve); delays in compression may cause the log to use
@@ -2676,6 +2753,17 @@ public class DatabaseDescriptor
         return conf.commitlog_max_compression_buffers_in_pool;
     }
 
+    public static int getCommitLogRecycledSegments()
+    {
+        return conf.commitlog_recycled_segments;
+    }
+
+    @VisibleForTesting
+    public static void setCommitLogRecycledSegments(int recycledSegments)
+    {
+        conf.commitlog_recycled_segments = recycledSegments;
+    }
+
     public static void setCommitLogMaxCompressionBuffersPerPool(int buffers)
     {
         conf.commitlog_max_compression_buffers_in_pool = buffers;
@@ -3051,6 +3139,16 @@ public class DatabaseDescriptor
         conf.commitlog_sync_group_window = new DurationSpec.IntMillisecondsBound(windowMillis);
     }
 
+    public static long getCommitLogSyncAdaptiveTargetLatency(TimeUnit unit)
+    {
+        return conf.commitlog_sync_adaptive_target_latency.to(unit);
+    }
+
+    public static void setCommitLogSyncAdaptiveTargetLatency(long latencyMicros)
+    {
+        conf.commitlog_sync_adaptive_target_latency = new DurationSpec.LongMicrosecondsBound(latencyMicros);
+    }
+
     public static int getNativeTransportReceiveQueueCapacityInBytes()
     {
         return conf.native_transport_receive_queue_capacity.toBytes();
@@ -3607,6 +3705,57 @@ public class DatabaseDescriptor
         return conf.file_cache_round_up;
     }
 
+    public static int getAsyncChunkReadThreads()
+    {
+        return conf.async_chunk_read_threads;
+    }
+
+    public static Config.FileCacheEvictionPolicy getFileCacheEvictionPolicy()
+    {
+        return conf.file_cache_eviction_policy;
+    }
+
+    public static int getUncachedReadAheadSize()
+    {
+        return conf.uncached_read_ahead_size.toBytes();
+    }
+
+    public static int getUncachedReadAheadChunks()
+    {
+        return conf.uncached_read_ahead_chunks;
+    }
+
+    @VisibleForTesting
+    public static void setUncachedReadAheadChunks(int chunks)
+    {
+        conf.uncached_read_ahead_chunks = chunks;
+    }
+
+    public static int getUncachedReadAheadThreads()
+    {
+        return conf.uncached_read_ahead_threads;
+    }
+
+    public static boolean getFileCacheWarmOnFlush()
+    {
+        return conf.file_cache_warm_on_flush;
+    }
+
+    public static void setFileCacheWarmOnFlush(boolean warm)
+    {
+        conf.file_cache_warm_on_flush = warm;
+    }
+
+    public static boolean getFileCacheWarmOnCompaction()
+    {
+        return conf.file_cache_warm_on_compaction;
+    }
+
+    public static void setFileCacheWarmOnCompaction(boolean warm)
+    {
+        conf.file_cache_warm_on_compaction = warm;
+    }
+
     public static DiskOptimizationStrategy getDiskOptimizationStrategy()
     {
         return diskOptimizationStrategy;
@@ -3698,6 +3847,17 @@ public class DatabaseDescriptor
         return conf.row_cache_class_name;
     }
 
+    public static boolean getRowCacheInPlaceReads()
+    {
+        return conf.row_cache_in_place_reads;
+    }
+
+    @VisibleForTesting
+    public static void setRowCacheInPlaceReads(boolean inPlaceReads)
+    {
+        conf.row_cache_in_place_reads = inPlaceReads;
+    }
+
     public static long getRowCacheSizeInMiB()
     {
         return conf.row_cache_size.toMebibytes();
@@ -3911,6 +4071,16 @@ public class DatabaseDescriptor
         return conf.memtable_cleanup_threshold;
     }
 
+    public static Config.MemtableFlushSchedulerType getMemtableFlushScheduler()
+    {
+        return conf.memtable_flush_scheduler;
+    }
+
+    public static void setMemtableFlushScheduler(Config.MemtableFlushSchedulerType scheduler)
+    {
+        conf.memtable_flush_scheduler = scheduler;
+    }
+
     public static Map<String, InheritingClass> getMemtableConfigurations()
     {
         if (conf == null || conf.memtable == null)
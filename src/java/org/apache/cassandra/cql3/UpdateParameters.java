@@ -20,6 +20,8 @@ package org.apache.cassandra.cql3;
 import java.nio.ByteBuffer;
 import java.util.Map;
 
+import io.netty.util.concurrent.FastThreadLocal;
+
 import org.apache.cassandra.db.guardrails.Guardrails;
 import org.apache.cassandra.schema.ColumnMetadata;
 import org.apache.cassandra.schema.TableMetadata;
@@ -56,6 +58,13 @@ public class UpdateParameters
     // The builder currently in use. Will alias either staticBuilder or regularBuilder, which are themselves built lazily.
     private Row.Builder builder;
 
+    // Whether the row builders are taken from, and kept in, the thread-local scratch builders below, so that writes of a
+    // single row don't allocate new builders. Rows must then be built before another update is built by the thread.
+    private final boolean reuseBuilders;
+
+    private static final FastThreadLocal<Row.Builder> scratchStaticBuilder = new FastThreadLocal<>();
+    private static final FastThreadLocal<Row.Builder> scratchRegularBuilder = new FastThreadLocal<>();
+
     public UpdateParameters(TableMetadata metadata,
                             RegularAndStaticColumns updatedColumns,
                             ClientState clientState,
@@ -65,6 +74,20 @@ public class UpdateParameters
                             int ttl,
                             Map<DecoratedKey, Partition> prefetchedRows)
     throws InvalidRequestException
+    {
+        this(metadata, updatedColumns, clientState, options, timestamp, nowInSec, ttl, prefetchedRows, false);
+    }
+
+    public UpdateParameters(TableMetadata metadata,
+                            RegularAndStaticColumns updatedColumns,
+                            ClientState clientState,
+                            QueryOptions options,
+                            long timestamp,
+                            long nowInSec,
+                            int ttl,
+                            Map<DecoratedKey, Partition> prefetchedRows,
+                            boolean reuseBuilders)
+    throws InvalidRequestException
     {
         this.metadata = metadata;
         this.updatedColumns = updatedColumns;
@@ -78,6 +101,7 @@ public class UpdateParameters
         this.deletionTime = DeletionTime.build(timestamp, nowInSec);
 
         this.prefetchedRows = prefetchedRows;
+        this.reuseBuilders = reuseBuilders;
 
         // We use MIN_VALUE internally to mean the absence of of timestamp (in Selection, in sstable stats, ...), so exclude
         // it to avoid potential confusion.
@@ -103,19 +127,31 @@ public class UpdateParameters
         if (clustering == Clustering.STATIC_CLUSTERING)
         {
             if (staticBuilder == null)
-                staticBuilder = BTreeRow.unsortedBuilder();
+                staticBuilder = reuseBuilders ? scratchBuilder(scratchStaticBuilder) : BTreeRow.unsortedBuilder();
             builder = staticBuilder;
         }
         else
         {
             if (regularBuilder == null)
-                regularBuilder = BTreeRow.unsortedBuilder();
+                regularBuilder = reuseBuilders ? scratchBuilder(scratchRegularBuilder) : BTreeRow.unsortedBuilder();
             builder = regularBuilder;
         }
 
         builder.newRow(clustering);
     }
 
+    private static Row.Builder scratchBuilder(FastThreadLocal<Row.Builder> scratch)
+    {
+        Row.Builder builder = scratch.get();
+        // a builder still holding a row was left by a write which failed before building it
+        if (builder == null || builder.clustering() != null)
+        {
+            builder = BTreeRow.unsortedBuilder();
+            scratch.set(builder);
+        }
+        return builder;
+    }
+
     public Clustering<?> currentClustering()
     {
         return builder.clustering();
@@ -20,6 +20,7 @@ package org.apache.cassandra.cql3.statements;
 import java.nio.ByteBuffer;
 import java.util.*;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.HashMultiset;
 import com.google.common.collect.Iterables;
 import org.slf4j.Logger;
@@ -736,20 +737,39 @@ public abstract class ModificationStatement implements CQLStatement.SingleKeyspa
      *
      * @return list of the mutations
      */
-    private List<? extends IMutation> getMutations(ClientState state,
-                                                   QueryOptions options,
-                                                   boolean local,
-                                                   long timestamp,
-                                                   long nowInSeconds,
-                                                   long queryStartNanoTime)
+    @VisibleForTesting
+    public List<? extends IMutation> getMutations(ClientState state,
+                                                  QueryOptions options,
+                                                  boolean local,
+                                                  long timestamp,
+                                                  long nowInSeconds,
+                                                  long queryStartNanoTime)
     {
         List<ByteBuffer> keys = buildPartitionKeyNames(options, state);
+        if (keys.size() == 1)
+        {
+            IMutation mutation = getSingleRowMutation(keys.get(0), state, options, timestamp, nowInSeconds);
+            if (mutation != null)
+                return Collections.singletonList(mutation);
+        }
+
         HashMultiset<ByteBuffer> perPartitionKeyCounts = HashMultiset.create(keys);
         SingleTableUpdatesCollector collector = new SingleTableUpdatesCollector(metadata, updatedColumns, perPartitionKeyCounts);
         addUpdates(collector, keys, state, options, local, timestamp, nowInSeconds, queryStartNanoTime);
         return collector.toMutations();
     }
 
+    /**
+     * Builds the mutation of a statement writing a single row, like {@link #getMutations} would, but without collecting
+     * the updates per partition. Only implemented by the statements which can write a single row.
+     *
+     * @return the mutation, or null if the statement does not write a single row with these options
+     */
+    protected IMutation getSingleRowMutation(ByteBuffer key, ClientState state, QueryOptions options, long timestamp, long nowInSeconds)
+    {
+        return null;
+    }
+
     final void addUpdates(UpdatesCollector collector,
                           List<ByteBuffer> keys,
                           ClientState state,
@@ -406,7 +406,10 @@ public class SelectStatement implements CQLStatement.SingleKeyspaceCqlStatement
             if (restrictions.isKeyRange() && restrictions.usesSecondaryIndexing() && !SchemaConstants.isLocalSystemKeyspace(table.keyspace))
                 Guardrails.nonPartitionRestrictedIndexQueryEnabled.ensureEnabled(state);
 
-            return getRangeCommand(options, state, columnFilter, limit, nowInSec);
+            ReadQuery query = getRangeCommand(options, state, columnFilter, limit, nowInSec);
+            if (parameters.bypassCache)
+                query.bypassCache();
+            return query;
         }
 
         return getSliceCommands(options, state, columnFilter, limit, nowInSec);
@@ -1256,6 +1259,9 @@ public class SelectStatement implements CQLStatement.SingleKeyspaceCqlStatement
            }
 
             checkNeedsFiltering(table, restrictions);
+            // single-partition reads only read a few chunks, which is what the chunk cache is for
+            checkFalse(parameters.bypassCache && !restrictions.isKeyRange() && !restrictions.usesSecondaryIndexing(),
+                       "BYPASS CACHE is only supported by range queries, not by queries selecting specific partitions");
 
             return new SelectStatement(table,
                                        bindVariables,
@@ -1636,18 +1642,30 @@ public class SelectStatement implements CQLStatement.SingleKeyspaceCqlStatement
         public final boolean isDistinct;
         public final boolean allowFiltering;
         public final boolean isJson;
+        public final boolean bypassCache;
 
         public Parameters(List<Ordering.Raw> orderings,
                           List<Selectable.Raw> groups,
                           boolean isDistinct,
                           boolean allowFiltering,
                           boolean isJson)
+        {
+            this(orderings, groups, isDistinct, allowFiltering, isJson, false);
+        }
+
+        public Parameters(List<Ordering.Raw> orderings,
+                          List<Selectable.Raw> groups,
+                          boolean isDistinct,
+                          boolean allowFiltering,
+                          boolean isJson,
+                          boolean bypassCache)
         {
             this.orderings = orderings;
             this.groups = groups;
             this.isDistinct = isDistinct;
             this.allowFiltering = allowFiltering;
             this.isJson = isJson;
+            this.bypassCache = bypassCache;
         }
     }
 
@@ -17,9 +17,11 @@
  */
 package org.apache.cassandra.cql3.statements;
 
+import java.nio.ByteBuffer;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.NavigableSet;
 
 import org.apache.cassandra.audit.AuditLogContext;
 import org.apache.cassandra.audit.AuditLogEntryType;
@@ -30,8 +32,14 @@ import org.apache.cassandra.cql3.restrictions.StatementRestrictions;
 import org.apache.cassandra.cql3.terms.Constants;
 import org.apache.cassandra.cql3.terms.Term;
 import org.apache.cassandra.db.Clustering;
+import org.apache.cassandra.db.DecoratedKey;
+import org.apache.cassandra.db.IMutation;
+import org.apache.cassandra.db.Mutation;
 import org.apache.cassandra.db.Slice;
+import org.apache.cassandra.db.commitlog.CommitLogSegment;
 import org.apache.cassandra.db.partitions.PartitionUpdate;
+import org.apache.cassandra.db.rows.Row;
+import org.apache.cassandra.net.MessagingService;
 import org.apache.cassandra.schema.ColumnMetadata;
 import org.apache.cassandra.schema.TableMetadata;
 import org.apache.cassandra.service.ClientState;
@@ -40,6 +48,7 @@ import org.apache.cassandra.utils.Pair;
 import org.apache.commons.lang3.builder.ToStringBuilder;
 import org.apache.commons.lang3.builder.ToStringStyle;
 
+import static org.apache.cassandra.config.CassandraRelevantProperties.SINGLE_ROW_WRITE_FAST_PATH;
 import static org.apache.cassandra.cql3.statements.RequestValidations.checkContainsNoDuplicates;
 import static org.apache.cassandra.cql3.statements.RequestValidations.checkFalse;
 
@@ -51,6 +60,14 @@ public class UpdateStatement extends ModificationStatement
 {
     private static final Constants.Value EMPTY = new Constants.Value(ByteBufferUtil.EMPTY_BYTE_BUFFER);
 
+    private static final boolean singleRowWriteFastPath = SINGLE_ROW_WRITE_FAST_PATH.getBoolean();
+
+    /**
+     * Whether the statement writes a single row of a single partition, without conditions nor read-before-write, in
+     * which case its mutation is built directly, see {@link #getSingleRowMutation}.
+     */
+    private final boolean isSingleRowWrite;
+
     private UpdateStatement(StatementType type,
                             VariableSpecifications bindVariables,
                             TableMetadata metadata,
@@ -60,50 +77,104 @@ public class UpdateStatement extends ModificationStatement
                             Attributes attrs)
     {
         super(type, bindVariables, metadata, operations, restrictions, conditions, attrs);
+        this.isSingleRowWrite = singleRowWriteFastPath
+                                && type.isInsert()
+                                && !hasConditions()
+                                && !requiresRead()
+                                && !metadata.isCounter()
+                                && !metadata.isVirtual();
     }
 
     @Override
     public void addUpdateForKey(PartitionUpdate.Builder updateBuilder, Clustering<?> clustering, UpdateParameters params)
     {
         if (updatesRegularRows())
-        {
-            params.newRow(clustering);
-
-            // We update the row timestamp only on INSERT (#6782)
-            // Further, COMPACT tables semantic differs from "CQL3" ones in that a row exists only if it has
-            // a non-null column, so we don't want to set the row timestamp for them.
-            if (type.isInsert() && !metadata.isCompactTable())
-                params.addPrimaryKeyLivenessInfo();
+            updateBuilder.add(buildRow(updateBuilder.partitionKey(), clustering, params));
 
-            List<Operation> updates = getRegularOperations();
+        if (updatesStaticRow())
+            updateBuilder.add(buildRow(updateBuilder.partitionKey(), Clustering.STATIC_CLUSTERING, params));
+    }
 
-            // For compact table, we don't accept an insert/update that only sets the PK unless the is no
-            // declared non-PK columns (which we recognize because in that case
-            // the compact value is of type "EmptyType").
-            if (metadata().isCompactTable() && updates.isEmpty())
-            {
-                TableMetadata.CompactTableMetadata metadata = (TableMetadata.CompactTableMetadata) metadata();
-                RequestValidations.checkTrue(metadata.hasEmptyCompactValue(),
-                                             "Column %s is mandatory for this COMPACT STORAGE table",
-                                             metadata.compactValueColumn);
+    // builds the rows with the row builders kept by the thread, see UpdateParameters
+    @Override
+    protected IMutation getSingleRowMutation(ByteBuffer key, ClientState state, QueryOptions options, long timestamp, long nowInSeconds)
+    {
+        if (!isSingleRowWrite)
+            return null;
 
-                updates = Collections.singletonList(new Constants.Setter(metadata.compactValueColumn, EMPTY));
-            }
+        Clustering<?> clustering = Clustering.EMPTY;
+        if (getRestrictions().hasClusteringColumnsRestrictions())
+        {
+            NavigableSet<Clustering<?>> clusterings = createClustering(options, state);
+            if (clusterings.size() != 1)
+                return null;
+            clustering = clusterings.first();
+            clustering.validate();
+        }
 
-            for (int i = 0, isize = updates.size(); i < isize; i++)
-                updates.get(i).execute(updateBuilder.partitionKey(), params);
+        Validation.validateKey(metadata(), key);
+        DecoratedKey dk = metadata().partitioner.decorateKey(key);
+        UpdateParameters params = new UpdateParameters(metadata(),
+                                                       updatedColumns(),
+                                                       state,
+                                                       options,
+                                                       getTimestamp(timestamp, options),
+                                                       nowInSeconds,
+                                                       getTimeToLive(options),
+                                                       null,
+                                                       true);
+
+        Row row = updatesRegularRows() ? buildRow(dk, clustering, params) : null;
+        Row staticRow = updatesStaticRow() ? buildRow(dk, Clustering.STATIC_CLUSTERING, params) : null;
+        PartitionUpdate update = PartitionUpdate.singleRowWrite(metadata(),
+                                                                dk,
+                                                                updatedColumns(),
+                                                                row == null || row.isEmpty() ? null : row,
+                                                                staticRow == null || staticRow.isEmpty() ? null : staticRow);
+
+        Mutation mutation = new Mutation(update);
+        mutation.validateIndexedColumns();
+        mutation.validateSize(MessagingService.current_version, CommitLogSegment.ENTRY_OVERHEAD_SIZE);
+        return mutation;
+    }
 
-            updateBuilder.add(params.buildRow());
-        }
+    private Row buildRow(DecoratedKey key, Clustering<?> clustering, UpdateParameters params)
+    {
+        params.newRow(clustering);
 
-        if (updatesStaticRow())
+        if (clustering == Clustering.STATIC_CLUSTERING)
         {
-            params.newRow(Clustering.STATIC_CLUSTERING);
             List<Operation> staticOps = getStaticOperations();
             for (int i = 0, isize = staticOps.size(); i < isize; i++)
-                staticOps.get(i).execute(updateBuilder.partitionKey(), params);
-            updateBuilder.add(params.buildRow());
+                staticOps.get(i).execute(key, params);
+            return params.buildRow();
         }
+
+        // We update the row timestamp only on INSERT (#6782)
+        // Further, COMPACT tables semantic differs from "CQL3" ones in that a row exists only if it has
+        // a non-null column, so we don't want to set the row timestamp for them.
+        if (type.isInsert() && !metadata.isCompactTable())
+            params.addPrimaryKeyLivenessInfo();
+
+        List<Operation> updates = getRegularOperations();
+
+        // For compact table, we don't accept an insert/update that only sets the PK unless the is no
+        // declared non-PK columns (which we recognize because in that case
+        // the compact value is of type "EmptyType").
+        if (metadata().isCompactTable() && updates.isEmpty())
+        {
+            TableMetadata.CompactTableMetadata metadata = (TableMetadata.CompactTableMetadata) metadata();
+            RequestValidations.checkTrue(metadata.hasEmptyCompactValue(),
+                                         "Column %s is mandatory for this COMPACT STORAGE table",
+                                         metadata.compactValueColumn);
+
+            updates = Collections.singletonList(new Constants.Setter(metadata.compactValueColumn, EMPTY));
+        }
+
+        for (int i = 0, isize = updates.size(); i < isize; i++)
+            updates.get(i).execute(key, params);
+
+        return params.buildRow();
     }
 
     @Override
@@ -34,6 +34,7 @@ import org.apache.cassandra.schema.TableParams;
 import org.apache.cassandra.schema.TableParams.Option;
 import org.apache.cassandra.service.reads.SpeculativeRetryPolicy;
 import org.apache.cassandra.service.reads.repair.ReadRepairStrategy;
+import org.apache.cassandra.utils.BloomFilterType;
 
 import static java.lang.String.format;
 import static org.apache.cassandra.schema.TableParams.Option.*;
@@ -151,6 +152,15 @@ public final class TableAttributes extends PropertyDefinitions
         if (hasOption(READ_REPAIR))
             builder.readRepair(ReadRepairStrategy.fromString(getString(READ_REPAIR)));
 
+        if (hasOption(BLOOM_FILTER_TYPE))
+            builder.bloomFilterType(BloomFilterType.fromString(getString(BLOOM_FILTER_TYPE)));
+
+        if (hasOption(ROW_BLOOM_FILTER))
+            builder.rowBloomFilter(getBoolean(ROW_BLOOM_FILTER));
+
+        if (hasOption(DURABLE_WRITES))
+            builder.durableWrites(getBoolean(DURABLE_WRITES));
+
         return builder.build();
     }
 
@@ -71,7 +71,7 @@ public class CassandraKeyspaceWriteHandler implements KeyspaceWriteHandler
         boolean noneSkipCommitlog = true;
         for (PartitionUpdate update : mutation.getPartitionUpdates())
         {
-            if (update.metadata().params.memtable.factory().writesShouldSkipCommitLog())
+            if (skipsCommitLog(update))
                 noneSkipCommitlog = false;
             else
                 allSkipCommitlog = false;
@@ -86,7 +86,7 @@ public class CassandraKeyspaceWriteHandler implements KeyspaceWriteHandler
                 Set<TableId> ids = new HashSet<>();
                 for (PartitionUpdate update : mutation.getPartitionUpdates())
                 {
-                    if (update.metadata().params.memtable.factory().writesShouldSkipCommitLog())
+                    if (skipsCommitLog(update))
                         ids.add(update.metadata().id);
                 }
                 mutation = mutation.without(ids);
@@ -99,6 +99,13 @@ public class CassandraKeyspaceWriteHandler implements KeyspaceWriteHandler
         return CommitLog.instance.add(mutation);
     }
 
+    private boolean skipsCommitLog(PartitionUpdate update)
+    {
+        // the updates of unknown tables are logged, and then skipped when the mutation is applied
+        TableId id = update.metadata().id;
+        return keyspace.hasColumnFamilyStore(id) && keyspace.getColumnFamilyStore(id).writesShouldSkipCommitLog();
+    }
+
     private WriteContext createEmptyContext()
     {
         OpOrder.Group group = null;
@@ -72,6 +72,7 @@ import com.google.common.util.concurrent.RateLimiter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import org.apache.cassandra.cache.ChunkCache;
 import org.apache.cassandra.cache.CounterCacheKey;
 import org.apache.cassandra.cache.IRowCacheEntry;
 import org.apache.cassandra.cache.RowCacheKey;
@@ -642,9 +643,22 @@ public class ColumnFamilyStore implements ColumnFamilyStoreMBean, Memtable.Owner
         return dataPaths;
     }
 
+    /**
+     * @return true if the writes to this table are left out of the commit log, because the table disables durable
+     * writes or its memtable asks for it; any of its entries found in the commit log predate that and are not replayed
+     */
     public boolean writesShouldSkipCommitLog()
     {
-        return memtableFactory.writesShouldSkipCommitLog();
+        return !metadata().params.durableWrites || memtableFactory.writesShouldSkipCommitLog();
+    }
+
+    /**
+     * @return true if the commit log holds the writes to this table until they are flushed, i.e. if neither the
+     * keyspace nor the table leave them out of it, and the memtable does not persist them itself
+     */
+    private boolean commitLogHoldsWrites()
+    {
+        return keyspace.getMetadata().params.durableWrites && !writesShouldSkipCommitLog() && !memtableWritesAreDurable();
     }
 
     public boolean memtableWritesAreDurable()
@@ -750,6 +764,8 @@ public class ColumnFamilyStore implements ColumnFamilyStoreMBean, Memtable.Owner
 
         // unregister metrics
         metric.release();
+        if (ChunkCache.instance != null)
+            ChunkCache.instance.metrics.releaseTable(keyspace.getName(), name);
     }
 
 
@@ -2738,7 +2754,7 @@ public class ColumnFamilyStore implements ColumnFamilyStoreMBean, Memtable.Owner
         final CommitLogPosition replayAfter;
 
         if (!noSnapshot &&
-               ((keyspace.getMetadata().params.durableWrites && !memtableWritesAreDurable())  // need to clear dirty regions
+               (commitLogHoldsWrites()  // need to clear dirty regions
                || isAutoSnapshotEnabled()))
         {
             replayAfter = forceBlockingFlush(FlushReason.TRUNCATE);
@@ -2812,7 +2828,7 @@ public class ColumnFamilyStore implements ColumnFamilyStoreMBean, Memtable.Owner
 
     public void unloadCf()
     {
-        if (keyspace.getMetadata().params.durableWrites && !memtableWritesAreDurable())  // need to clear dirty regions
+        if (commitLogHoldsWrites())  // need to clear dirty regions
             forceBlockingFlush(ColumnFamilyStore.FlushReason.DROP);
         else
             FBUtilities.waitOnFuture(dumpMemtable());
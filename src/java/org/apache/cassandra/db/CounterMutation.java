@@ -19,14 +19,20 @@ package org.apache.cassandra.db;
 
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.locks.Lock;
+import java.util.function.BiConsumer;
 import java.util.function.Supplier;
 
 import com.google.common.base.Function;
 import com.google.common.base.Objects;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Iterators;
+import com.google.common.collect.Lists;
 import com.google.common.collect.PeekingIterator;
 import com.google.common.util.concurrent.Striped;
 
@@ -46,6 +52,7 @@ import org.apache.cassandra.service.CacheService;
 import org.apache.cassandra.tracing.Tracing;
 import org.apache.cassandra.utils.*;
 import org.apache.cassandra.utils.btree.BTreeSet;
+import org.apache.cassandra.utils.concurrent.AsyncPromise;
 
 import static java.util.concurrent.TimeUnit.*;
 import static org.apache.cassandra.net.MessagingService.VERSION_40;
@@ -59,6 +66,12 @@ public class CounterMutation implements IMutation
 
     private static final Striped<Lock> LOCKS = Striped.lazyWeakLock(DatabaseDescriptor.getConcurrentCounterWriters() * 1024);
 
+    /**
+     * The groups of counter mutations waiting for the counter locks, when counter_write_coalescing_enabled is set.
+     * A group is removed from the map once its leader holds the locks, so later mutations start a new group.
+     */
+    private static final ConcurrentMap<CoalescingKey, CoalescedMutations> COALESCED_MUTATIONS = new ConcurrentHashMap<>();
+
     private final Mutation mutation;
     private final ConsistencyLevel consistency;
 
@@ -129,26 +142,147 @@ public class CounterMutation implements IMutation
      */
     public Mutation applyCounterMutation() throws WriteTimeoutException
     {
-        Mutation.PartitionUpdateCollector resultBuilder = new Mutation.PartitionUpdateCollector(getKeyspaceName(), key());
+        return applyCounterMutation(null, null);
+    }
+
+    /**
+     * Applies the counter mutation like {@link #applyCounterMutation()}, then replicates the resulting mutation with
+     * the given function, which is passed the callbacks of the writes it is replicated for.
+     * <p>
+     * The counter mutations coalesced together all result in the same mutation, which is only replicated once: the
+     * leader of the group replicates it with the callbacks of all the mutations of the group that are replicated,
+     * while the others return without replicating it. These callbacks must then be of the same type, which they are
+     * as all the replicated counter mutations are replicated by {@link org.apache.cassandra.service.StorageProxy}.
+     *
+     * @param callback the callback of this mutation, passed to {@code replicate}
+     * @param replicate the function replicating the resulting mutation, or null if it is not replicated
+     * @return the applied resulting Mutation
+     */
+    public <C> Mutation applyCounterMutation(C callback, BiConsumer<Mutation, List<C>> replicate) throws WriteTimeoutException
+    {
+        if (DatabaseDescriptor.getCounterWriteCoalescingEnabled() && isCoalescable())
+            return applyCoalesced(callback, replicate);
+
         Keyspace keyspace = Keyspace.open(getKeyspaceName());
 
         List<Lock> locks = new ArrayList<>();
+        Mutation result;
         Tracing.trace("Acquiring counter locks");
         try
         {
             grabCounterLocks(keyspace, locks);
-            for (PartitionUpdate upd : getPartitionUpdates())
-                resultBuilder.add(processModifications(upd));
+            result = applyLocked();
+        }
+        finally
+        {
+            for (Lock lock : locks)
+                lock.unlock();
+        }
 
-            Mutation result = resultBuilder.build();
-            result.apply();
-            return result;
+        if (replicate != null)
+            replicate.accept(result, Collections.singletonList(callback));
+        return result;
+    }
+
+    /**
+     * Applies the counter mutation together with the concurrent ones incrementing the same counters.
+     * <p>
+     * The first mutation of a group is its leader: it grabs the counter locks, while the mutations incrementing the
+     * same counters join the group, then applies the sum of their increments at once, reading the current values of
+     * the counters only once. The other mutations of the group wait for the leader, and return the same resulting
+     * mutation, which holds the new values of the counters, and which the leader replicates for the whole group.
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private <C> Mutation applyCoalesced(C callback, BiConsumer<Mutation, List<C>> replicate) throws WriteTimeoutException
+    {
+        long startTime = nanoTime();
+        CoalescingKey coalescingKey = new CoalescingKey(getKeyspaceName(), key(), Lists.newArrayList(getCounterLockKeys()));
+        CoalescedMutations group = COALESCED_MUTATIONS.compute(coalescingKey, (k, current) -> {
+            if (current == null)
+                current = new CoalescedMutations();
+            current.add(this, callback, (BiConsumer) replicate);
+            return current;
+        });
+
+        if (group.mutations.get(0) != this)
+            return group.await(this, startTime);
+
+        Keyspace keyspace = Keyspace.open(getKeyspaceName());
+        List<Lock> locks = new ArrayList<>();
+        Mutation result;
+        Tracing.trace("Acquiring counter locks");
+        try
+        {
+            try
+            {
+                grabCounterLocks(keyspace, locks);
+            }
+            finally
+            {
+                // closes the group: the mutations arriving from now on will wait for the locks in a new group
+                COALESCED_MUTATIONS.remove(coalescingKey, group);
+            }
+
+            CounterMutation merged = this;
+            if (group.mutations.size() > 1)
+            {
+                Tracing.trace("Coalescing {} counter mutations", group.mutations.size());
+                merged = new CounterMutation(Mutation.merge(Lists.transform(group.mutations, CounterMutation::getMutation)), consistency);
+            }
+            result = merged.applyLocked();
+            group.result.trySuccess(result);
+        }
+        catch (Throwable t)
+        {
+            group.result.tryFailure(t);
+            throw t;
         }
         finally
         {
             for (Lock lock : locks)
                 lock.unlock();
         }
+
+        // the group was closed when the leader got the locks, so its callbacks are all known by now
+        if (group.replicate != null)
+            group.replicate.accept(result, group.callbacks);
+        return result;
+    }
+
+    /**
+     * Whether the mutation only increments counters, so that it can be merged with other increments of the same
+     * counters. Deletions are applied on their own, and so are the values which are not counter updates (see
+     * {@link CounterContext#createUpdate}), as merging them would not sum them.
+     */
+    private boolean isCoalescable()
+    {
+        for (PartitionUpdate update : getPartitionUpdates())
+        {
+            if (!update.deletionInfo().isLive())
+                return false;
+            for (Row row : update)
+            {
+                if (!row.deletion().isLive())
+                    return false;
+                for (Cell<?> cell : row.cells())
+                {
+                    if (cell.isTombstone() || !CounterContext.instance().isUpdate(cell.buffer()))
+                        return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private Mutation applyLocked()
+    {
+        Mutation.PartitionUpdateCollector resultBuilder = new Mutation.PartitionUpdateCollector(getKeyspaceName(), key());
+        for (PartitionUpdate upd : getPartitionUpdates())
+            resultBuilder.add(processModifications(upd));
+
+        Mutation result = resultBuilder.build();
+        result.apply();
+        return result;
     }
 
     public void apply()
@@ -331,6 +465,91 @@ public class CounterMutation implements IMutation
         return DatabaseDescriptor.getCounterWriteRpcTimeout(unit);
     }
 
+    /**
+     * Identifies the mutations incrementing the same counters, through the keys of their counter locks.
+     */
+    private static final class CoalescingKey
+    {
+        private final String keyspace;
+        private final DecoratedKey key;
+        private final List<Object> lockKeys;
+
+        private CoalescingKey(String keyspace, DecoratedKey key, List<Object> lockKeys)
+        {
+            this.keyspace = keyspace;
+            this.key = key;
+            this.lockKeys = lockKeys;
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (this == o)
+                return true;
+            if (!(o instanceof CoalescingKey))
+                return false;
+            CoalescingKey that = (CoalescingKey) o;
+            return keyspace.equals(that.keyspace) && key.equals(that.key) && lockKeys.equals(that.lockKeys);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return Objects.hashCode(keyspace, key, lockKeys);
+        }
+    }
+
+    private static final class CoalescedMutations
+    {
+        // only modified while the group is in COALESCED_MUTATIONS, under its lock
+        private final List<CounterMutation> mutations = new ArrayList<>(2);
+        // the callbacks of the replicated mutations, and the function replicating the result for all of them
+        private final List<Object> callbacks = new ArrayList<>(2);
+        private BiConsumer<Mutation, List<Object>> replicate;
+        private final AsyncPromise<Mutation> result = new AsyncPromise<>();
+
+        private void add(CounterMutation mutation, Object callback, BiConsumer<Mutation, List<Object>> replicate)
+        {
+            mutations.add(mutation);
+            if (replicate == null)
+                return;
+            callbacks.add(callback);
+            if (this.replicate == null)
+                this.replicate = replicate;
+        }
+
+        private Mutation await(CounterMutation mutation, long startTime) throws WriteTimeoutException
+        {
+            Tracing.trace("Waiting for coalesced counter mutations");
+            long timeout = mutation.getTimeout(NANOSECONDS) - (nanoTime() - startTime);
+            try
+            {
+                return result.get(timeout, NANOSECONDS);
+            }
+            catch (InterruptedException e)
+            {
+                // the write is reported as timed out, but whoever interrupted the thread must still see it
+                Thread.currentThread().interrupt();
+                throw timeout(mutation);
+            }
+            catch (TimeoutException e)
+            {
+                throw timeout(mutation);
+            }
+            catch (ExecutionException e)
+            {
+                throw Throwables.cleaned(e);
+            }
+        }
+
+        private static WriteTimeoutException timeout(CounterMutation mutation)
+        {
+            ConsistencyLevel consistency = mutation.consistency();
+            AbstractReplicationStrategy replicationStrategy = Keyspace.open(mutation.getKeyspaceName()).getReplicationStrategy();
+            return new WriteTimeoutException(WriteType.COUNTER, consistency, 0, consistency.blockFor(replicationStrategy));
+        }
+    }
+
     private int serializedSize40;
     private int serializedSize50;
     private int serializedSize51;
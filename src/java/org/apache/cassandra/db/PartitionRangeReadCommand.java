@@ -208,102 +208,112 @@ public class PartitionRangeReadCommand extends ReadCommand implements PartitionR
         // DataLimits.CQLGroupByLimits.GroupByAwareCounter assumes that if GroupingState.hasClustering(), then we're in
         // the middle of a group, but we can't make that assumption if we query and range "in advance" of where we are
         // on the ring.
-        return create(serializedAtEpoch(),
-                      isDigestQuery(),
-                      digestVersion(),
-                      acceptsTransient(),
-                      metadata(),
-                      nowInSec(),
-                      columnFilter(),
-                      rowFilter(),
-                      isRangeContinuation ? limits() : limits().withoutState(),
-                      dataRange().forSubRange(range),
-                      indexQueryPlan(),
-                      isTrackingWarnings());
+        return maybeBypassCache(create(serializedAtEpoch(),
+                                       isDigestQuery(),
+                                       digestVersion(),
+                                       acceptsTransient(),
+                                       metadata(),
+                                       nowInSec(),
+                                       columnFilter(),
+                                       rowFilter(),
+                                       isRangeContinuation ? limits() : limits().withoutState(),
+                                       dataRange().forSubRange(range),
+                                       indexQueryPlan(),
+                                       isTrackingWarnings()));
     }
 
     public PartitionRangeReadCommand copy()
     {
-        return create(serializedAtEpoch(),
-                      isDigestQuery(),
-                      digestVersion(),
-                      acceptsTransient(),
-                      metadata(),
-                      nowInSec(),
-                      columnFilter(),
-                      rowFilter(),
-                      limits(),
-                      dataRange(),
-                      indexQueryPlan(),
-                      isTrackingWarnings());
+        return maybeBypassCache(create(serializedAtEpoch(),
+                                       isDigestQuery(),
+                                       digestVersion(),
+                                       acceptsTransient(),
+                                       metadata(),
+                                       nowInSec(),
+                                       columnFilter(),
+                                       rowFilter(),
+                                       limits(),
+                                       dataRange(),
+                                       indexQueryPlan(),
+                                       isTrackingWarnings()));
     }
 
     @Override
     protected PartitionRangeReadCommand copyAsDigestQuery()
     {
-        return create(serializedAtEpoch(),
-                      true,
-                      digestVersion(),
-                      false,
-                      metadata(),
-                      nowInSec(),
-                      columnFilter(),
-                      rowFilter(),
-                      limits(),
-                      dataRange(),
-                      indexQueryPlan(),
-                      isTrackingWarnings());
+        return maybeBypassCache(create(serializedAtEpoch(),
+                                       true,
+                                       digestVersion(),
+                                       false,
+                                       metadata(),
+                                       nowInSec(),
+                                       columnFilter(),
+                                       rowFilter(),
+                                       limits(),
+                                       dataRange(),
+                                       indexQueryPlan(),
+                                       isTrackingWarnings()));
     }
 
     @Override
     protected PartitionRangeReadCommand copyAsTransientQuery()
     {
-        return create(serializedAtEpoch(),
-                      false,
-                      0,
-                      true,
-                      metadata(),
-                      nowInSec(),
-                      columnFilter(),
-                      rowFilter(),
-                      limits(),
-                      dataRange(),
-                      indexQueryPlan(),
-                      isTrackingWarnings());
+        return maybeBypassCache(create(serializedAtEpoch(),
+                                       false,
+                                       0,
+                                       true,
+                                       metadata(),
+                                       nowInSec(),
+                                       columnFilter(),
+                                       rowFilter(),
+                                       limits(),
+                                       dataRange(),
+                                       indexQueryPlan(),
+                                       isTrackingWarnings()));
     }
 
     @Override
     public PartitionRangeReadCommand withUpdatedLimit(DataLimits newLimits)
     {
-        return create(serializedAtEpoch(),
-                      isDigestQuery(),
-                      digestVersion(),
-                      acceptsTransient(),
-                      metadata(),
-                      nowInSec(),
-                      columnFilter(),
-                      rowFilter(),
-                      newLimits,
-                      dataRange(),
-                      indexQueryPlan(),
-                      isTrackingWarnings());
+        return maybeBypassCache(create(serializedAtEpoch(),
+                                       isDigestQuery(),
+                                       digestVersion(),
+                                       acceptsTransient(),
+                                       metadata(),
+                                       nowInSec(),
+                                       columnFilter(),
+                                       rowFilter(),
+                                       newLimits,
+                                       dataRange(),
+                                       indexQueryPlan(),
+                                       isTrackingWarnings()));
     }
 
     @Override
     public PartitionRangeReadCommand withUpdatedLimitsAndDataRange(DataLimits newLimits, DataRange newDataRange)
     {
-        return create(serializedAtEpoch(),
-                      isDigestQuery(),
-                      digestVersion(),
-                      acceptsTransient(),
-                      metadata(),
-                      nowInSec(),
-                      columnFilter(),
-                      rowFilter(),
-                      newLimits,
-                      newDataRange,
-                      indexQueryPlan(),
-                      isTrackingWarnings());
+        return maybeBypassCache(create(serializedAtEpoch(),
+                                       isDigestQuery(),
+                                       digestVersion(),
+                                       acceptsTransient(),
+                                       metadata(),
+                                       nowInSec(),
+                                       columnFilter(),
+                                       rowFilter(),
+                                       newLimits,
+                                       newDataRange,
+                                       indexQueryPlan(),
+                                       isTrackingWarnings()));
+    }
+
+    /**
+     * The cache bypass hint is not part of the serialized command, so it has to be carried over to copies explicitly.
+     */
+    private PartitionRangeReadCommand maybeBypassCache(PartitionRangeReadCommand copy)
+    {
+        if (isBypassingCache())
+            copy.bypassCache();
+        return copy;
     }
 
     public long getTimeout(TimeUnit unit)
@@ -331,6 +341,8 @@ public class PartitionRangeReadCommand extends ReadCommand implements PartitionR
     {
         ColumnFamilyStore.ViewFragment view = cfs.select(View.selectLive(dataRange().keyRange()));
         Tracing.trace("Executing seq scan across {} sstables for {}", view.sstables.size(), dataRange().keyRange().getString(metadata().partitionKeyType));
+        if (isBypassingCache())
+            Tracing.trace("Bypassing the chunk cache");
 
         // fetch data from current memtable, historical memtables, and SSTables in the correct order.
         InputCollector<UnfilteredPartitionIterator> inputCollector = iteratorsForRange(view, controller);
@@ -354,7 +366,7 @@ public class PartitionRangeReadCommand extends ReadCommand implements PartitionR
                 if (!intersects && !hasPartitionLevelDeletions && !hasRequiredStatics)
                     continue;
 
-                UnfilteredPartitionIterator iter = sstable.partitionIterator(columnFilter(), dataRange(), readCountUpdater);
+                UnfilteredPartitionIterator iter = sstable.partitionIterator(columnFilter(), dataRange(), readCountUpdater, isBypassingCache());
                 inputCollector.addSSTableIterator(sstable, RTBoundValidator.validate(iter, RTBoundValidator.Stage.SSTABLE, false));
 
                 if (!sstable.isRepaired())
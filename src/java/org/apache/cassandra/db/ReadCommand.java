@@ -111,6 +111,7 @@ public abstract class ReadCommand extends AbstractReadQuery
     private int digestVersion;
 
     private boolean trackWarnings;
+    private boolean bypassCache;
 
     @Nullable
     private final Index.QueryPlan indexQueryPlan;
@@ -262,6 +263,17 @@ public abstract class ReadCommand extends AbstractReadQuery
         return trackWarnings;
     }
 
+    @Override
+    public void bypassCache()
+    {
+        bypassCache = true;
+    }
+
+    public boolean isBypassingCache()
+    {
+        return bypassCache;
+    }
+
     /**
      * Index query plan chosen for this query. Can be null.
      *
@@ -815,6 +827,8 @@ public abstract class ReadCommand extends AbstractReadQuery
                                    : Message.outWithFlag(verb(), this, MessageFlag.CALL_BACK_ON_FAILURE);
         if (trackWarnings)
             msg = msg.withFlag(MessageFlag.TRACK_WARNINGS);
+        if (bypassCache)
+            msg = msg.withFlag(MessageFlag.BYPASS_CACHE);
         return msg;
     }
 
@@ -66,6 +66,8 @@ public class ReadCommandVerbHandler implements IVerbHandler<ReadCommand>
 
         if (message.trackWarnings())
             command.trackWarnings();
+        if (message.bypassCache())
+            command.bypassCache();
 
         ReadResponse response;
         try (ReadExecutionController controller = command.executionController(message.trackRepairedData());
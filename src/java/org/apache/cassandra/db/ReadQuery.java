@@ -257,6 +257,14 @@ public interface ReadQuery
     {
     }
 
+    /**
+     * Requests the query to read sstables without going through, or populating, the chunk cache. This is a hint,
+     * honoured by range queries, meant for large scans that would otherwise evict the data cached for point reads.
+     */
+    default void bypassCache()
+    {
+    }
+
     /**
      * The query is a top-k query if the query has an {@link org.apache.cassandra.index.Index.QueryPlan} that
      * supports top-k ordering.
@@ -67,7 +67,9 @@ import org.apache.cassandra.exceptions.RequestExecutionException;
 import org.apache.cassandra.index.Index;
 import org.apache.cassandra.io.sstable.SSTableReadsListener;
 import org.apache.cassandra.io.sstable.format.SSTableReader;
+import org.apache.cassandra.io.util.AsyncChunkReader;
 import org.apache.cassandra.io.util.DataInputPlus;
+import org.apache.cassandra.io.util.FileUtils;
 import org.apache.cassandra.io.util.DataOutputPlus;
 import org.apache.cassandra.metrics.TableMetrics;
 import org.apache.cassandra.net.Verb;
@@ -513,7 +515,7 @@ public class SinglePartitionReadCommand extends ReadCommand implements SinglePar
         // Attempt a sentinel-read-cache sequence.  if a write invalidates our sentinel, we'll return our
         // (now potentially obsolete) data, but won't cache it. see CASSANDRA-3862
         // TODO: don't evict entire partitions on writes (#2864)
-        IRowCacheEntry cached = CacheService.instance.rowCache.get(key);
+        IRowCacheEntry cached = CacheService.instance.rowCache.getDirect(key);
         if (cached != null)
         {
             if (cached instanceof RowCacheSentinel)
@@ -524,14 +526,28 @@ public class SinglePartitionReadCommand extends ReadCommand implements SinglePar
                 return queryMemtableAndDisk(cfs, executionController);
             }
 
+            // a partition read in place in the cache memory must be closed to release it
             CachedPartition cachedPartition = (CachedPartition)cached;
-            if (cfs.isFilterFullyCoveredBy(clusteringIndexFilter(), limits(), cachedPartition, nowInSec(), metadata().enforceStrictLiveness()))
+            AutoCloseable release = cached instanceof AutoCloseable ? (AutoCloseable) cached : null;
+            try
+            {
+                if (cfs.isFilterFullyCoveredBy(clusteringIndexFilter(), limits(), cachedPartition, nowInSec(), metadata().enforceStrictLiveness()))
+                {
+                    cfs.metric.rowCacheHit.inc();
+                    Tracing.trace("Row cache hit");
+                    UnfilteredRowIterator unfilteredRowIterator = clusteringIndexFilter().getUnfilteredRowIterator(columnFilter(), cachedPartition);
+                    cfs.metric.updateSSTableIterated(0);
+                    if (release != null)
+                    {
+                        unfilteredRowIterator = closing(unfilteredRowIterator, release);
+                        release = null;
+                    }
+                    return unfilteredRowIterator;
+                }
+            }
+            finally
             {
-                cfs.metric.rowCacheHit.inc();
-                Tracing.trace("Row cache hit");
-                UnfilteredRowIterator unfilteredRowIterator = clusteringIndexFilter().getUnfilteredRowIterator(columnFilter(), cachedPartition);
-                cfs.metric.updateSSTableIterated(0);
-                return unfilteredRowIterator;
+                FileUtils.closeQuietly(release);
             }
 
             cfs.metric.rowCacheHitOutOfRange.inc();
@@ -640,6 +656,18 @@ public class SinglePartitionReadCommand extends ReadCommand implements SinglePar
         return queryMemtableAndDisk(cfs, executionController);
     }
 
+    private static UnfilteredRowIterator closing(UnfilteredRowIterator iterator, AutoCloseable resource)
+    {
+        return Transformation.apply(iterator, new Transformation<>()
+        {
+            @Override
+            protected void onClose()
+            {
+                FileUtils.closeQuietly(resource);
+            }
+        });
+    }
+
     /**
      * Queries both memtable and sstables to fetch the result of this query.
      * <p>
@@ -737,6 +765,10 @@ public class SinglePartitionReadCommand extends ReadCommand implements SinglePar
             if (controller.isTrackingRepairedStatus())
                 Tracing.trace("Collecting data from sstables and tracking repaired status");
 
+            AsyncChunkReader asyncReader = AsyncChunkReader.instance;
+            if (asyncReader != null && view.sstables.size() > 1)
+                prefetchFromSSTables(asyncReader, view.sstables, mostRecentPartitionTombstone);
+
             for (SSTableReader sstable : view.sstables)
             {
                 // if we've already seen a partition tombstone with a timestamp greater
@@ -829,10 +861,40 @@ public class SinglePartitionReadCommand extends ReadCommand implements SinglePar
         }
     }
 
+    /**
+     * Submits asynchronous reads of the partition for all the sstables the loop in
+     * {@link #queryMemtableAndDiskInternal} is expected to open, so that their disk reads proceed in parallel instead
+     * of one sstable at a time. This is a best-effort hint: tombstones found along the way may still let that loop stop
+     * before reaching some of the prefetched sstables.
+     */
+    private void prefetchFromSSTables(AsyncChunkReader asyncReader, List<SSTableReader> sstables, long mostRecentPartitionTombstone)
+    {
+        int submitted = 0;
+        for (SSTableReader sstable : sstables)
+        {
+            if (sstable.getMaxTimestamp() < mostRecentPartitionTombstone)
+                break;
+
+            if (intersects(sstable) || hasRequiredStatics(sstable) || hasPartitionLevelDeletions(sstable))
+            {
+                sstable.prefetchPartition(asyncReader, partitionKey());
+                submitted++;
+            }
+        }
+
+        Tracing.trace("Submitted asynchronous reads for {} sstables", submitted);
+    }
+
     @Override
     protected boolean intersects(SSTableReader sstable)
     {
-        return clusteringIndexFilter().intersects(sstable.metadata().comparator, sstable.getSSTableMetadata().coveredClustering);
+        ClusteringIndexFilter filter = clusteringIndexFilter();
+        if (!filter.intersects(sstable.metadata().comparator, sstable.getSSTableMetadata().coveredClustering))
+            return false;
+
+        // when selecting specific rows, the row filter of the sstable may tell it holds none of them
+        return filter.kind() != ClusteringIndexFilter.Kind.NAMES
+               || sstable.mayContainAnyRow(partitionKey(), ((ClusteringIndexNamesFilter) filter).requestedRows());
     }
 
     private UnfilteredRowIteratorWithLowerBound makeRowIteratorWithLowerBound(ColumnFamilyStore cfs,
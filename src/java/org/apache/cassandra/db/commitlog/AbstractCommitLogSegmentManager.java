@@ -18,22 +18,28 @@
 package org.apache.cassandra.db.commitlog;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.BooleanSupplier;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Strings;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.codahale.metrics.Timer.Context;
+import com.sun.nio.file.ExtendedOpenOption;
 import net.nicoulaj.compilecommand.annotations.DontInline;
 import org.apache.cassandra.concurrent.Interruptible;
 import org.apache.cassandra.concurrent.Interruptible.TerminateException;
@@ -48,7 +54,9 @@ import org.apache.cassandra.io.util.SimpleCachedBufferPool;
 import org.apache.cassandra.schema.Schema;
 import org.apache.cassandra.schema.TableId;
 import org.apache.cassandra.schema.TableMetadata;
+import org.apache.cassandra.utils.ByteBufferUtil;
 import org.apache.cassandra.utils.FBUtilities;
+import org.apache.cassandra.utils.SyncUtil;
 import org.apache.cassandra.utils.concurrent.Future;
 import org.apache.cassandra.utils.concurrent.FutureCombiner;
 import org.apache.cassandra.utils.concurrent.ImmediateFuture;
@@ -70,6 +78,10 @@ public abstract class AbstractCommitLogSegmentManager
 {
     static final Logger logger = LoggerFactory.getLogger(AbstractCommitLogSegmentManager.class);
 
+    static final String RECYCLED_FILE_PREFIX = "RecycledCommitLog-";
+    private static final int ZERO_FILL_BUFFER_SIZE = 1 << 20;
+    private static final AtomicLong nextRecycledFileId = new AtomicLong();
+
     /**
      * Segment that is ready to be used. The management thread fills this and blocks until consumed.
      *
@@ -105,13 +117,21 @@ public abstract class AbstractCommitLogSegmentManager
     @VisibleForTesting
     Interruptible executor;
     private final CommitLog commitLog;
-    private final BooleanSupplier managerThreadWaitCondition = () -> (availableSegment == null && !atSegmentBufferLimit());
+    private final BooleanSupplier managerThreadWaitCondition = () -> (availableSegment == null && !atSegmentBufferLimit()) || needsRecycledFile();
     private final WaitQueue managerThreadWaitQueue = newWaitQueue();
 
     private volatile CommitLogSegment.Builder segmentBuilder;
 
     private volatile SimpleCachedBufferPool bufferPool;
 
+    /**
+     * The files of discarded segments, waiting to be zero-filled by the management thread, and the zero-filled files
+     * ready to be reused by new segments. See commitlog_recycled_segments.
+     */
+    private final Queue<File> filesToRecycle = new ConcurrentLinkedQueue<>();
+    private final Queue<File> recycledFiles = new ConcurrentLinkedQueue<>();
+    private int recycledFileBlockSize;
+
     AbstractCommitLogSegmentManager(final CommitLog commitLog, String storageDirectory)
     {
         this.commitLog = commitLog;
@@ -122,12 +142,12 @@ public abstract class AbstractCommitLogSegmentManager
     {
         if (config.useEncryption())
         {
-            assert config.diskAccessMode == DiskAccessMode.standard;
+            assert config.diskAccessMode == DiskAccessMode.standard || config.diskAccessMode == DiskAccessMode.direct;
             return new EncryptedSegment.EncryptedSegmentBuilder(this);
         }
         else if (config.useCompression())
         {
-            assert config.diskAccessMode == DiskAccessMode.standard;
+            assert config.diskAccessMode == DiskAccessMode.standard || config.diskAccessMode == DiskAccessMode.direct;
             return new CompressedSegment.CompressedSegmentBuilder(this);
         }
         else if (config.diskAccessMode == DiskAccessMode.direct)
@@ -154,6 +174,11 @@ public abstract class AbstractCommitLogSegmentManager
         this.segmentBuilder = createSegmentBuilder(commitLog.configuration);
         this.bufferPool = segmentBuilder.createBufferPool();
 
+        // the recycled files left by a previous run may not have been completely zeroed
+        deleteRecycledFiles();
+        if (recycledSegmentsTarget() > 0)
+            recycledFileBlockSize = recycledFileBlockSize();
+
         AllocatorRunnable allocator = new AllocatorRunnable();
         executor = executorFactory().infiniteLoop("COMMIT-LOG-ALLOCATOR", allocator, SAFE, NON_DAEMON, SYNCHRONIZED);
         // for simplicity, ensure the first segment is allocated before continuing
@@ -178,26 +203,32 @@ public abstract class AbstractCommitLogSegmentManager
                         return;
 
                     case NORMAL:
-                        assert availableSegment == null;
                         // synchronized to prevent thread interrupts while performing IO operations and also
                         // clear interrupted status to prevent ClosedByInterruptException in createSegment
 
                         synchronized (this)
                         {
                             interrupted = Thread.interrupted();
-                            logger.trace("No segments in reserve; creating a fresh one");
-                            availableSegment = createSegment();
-
-                            segmentPrepared.signalAll();
-                            Thread.yield();
-
-                            if (availableSegment == null && !atSegmentBufferLimit())
-                                // Writing threads need another segment now.
-                                return;
-
-                            // Writing threads are not waiting for new segments, we can spend time on other tasks.
-                            // flush old Cfs if we're full
-                            maybeFlushToReclaim();
+                            if (availableSegment == null)
+                            {
+                                logger.trace("No segments in reserve; creating a fresh one");
+                                availableSegment = createSegment();
+
+                                segmentPrepared.signalAll();
+                                Thread.yield();
+
+                                if (availableSegment == null && !atSegmentBufferLimit())
+                                    // Writing threads need another segment now.
+                                    return;
+
+                                // Writing threads are not waiting for new segments, we can spend time on other tasks.
+                                // flush old Cfs if we're full
+                                maybeFlushToReclaim();
+                            }
+
+                            // one file at a time, so that a segment is created as soon as writing threads need it
+                            if (needsRecycledFile())
+                                prepareRecycledFile();
                         }
                 }
             }
@@ -238,6 +269,168 @@ public abstract class AbstractCommitLogSegmentManager
         }
     }
 
+    private int recycledSegmentsTarget()
+    {
+        // the segment files hard-linked by CDC, or possibly by the archive command, must not be overwritten
+        if (DatabaseDescriptor.isCDCEnabled() || !Strings.isNullOrEmpty(commitLog.archiver.archiveCommand))
+            return 0;
+        return DatabaseDescriptor.getCommitLogRecycledSegments();
+    }
+
+    /**
+     * @return the block size to zero-fill the recycled files with direct I/O, so that they don't fill the page cache,
+     * or 0 if it is not supported by the file system
+     */
+    private int recycledFileBlockSize()
+    {
+        try
+        {
+            return FileUtils.getBlockSize(new File(storageDirectory));
+        }
+        catch (RuntimeException e)
+        {
+            logger.warn("Unable to determine block size for commit log directory, recycled segment files will be zero-filled without direct I/O: {}", e.getMessage());
+            return 0;
+        }
+    }
+
+    private boolean needsRecycledFile()
+    {
+        return !filesToRecycle.isEmpty() || recycledFiles.size() < recycledSegmentsTarget();
+    }
+
+    private File newRecycledFile()
+    {
+        return new File(storageDirectory, RECYCLED_FILE_PREFIX + nextRecycledFileId.incrementAndGet() + ".log");
+    }
+
+    /**
+     * Zero-fills a discarded segment file or, if there is none and not enough files are ready, a new one, and makes
+     * it available to the next segment.
+     */
+    private void prepareRecycledFile() throws IOException
+    {
+        File file = filesToRecycle.poll();
+        if (file == null)
+            file = newRecycledFile();
+
+        long length = file.length();
+        try
+        {
+            zeroFill(file);
+        }
+        catch (Throwable t)
+        {
+            file.tryDelete();
+            addSize(-length);
+            throw t;
+        }
+        addSize(file.length() - length);
+        recycledFiles.add(file);
+    }
+
+    private void zeroFill(File file) throws IOException
+    {
+        long length = Math.max(file.length(), DatabaseDescriptor.getCommitLogSegmentSize());
+        FileChannel channel = openRecycledFile(file);
+        boolean direct = recycledFileBlockSize > 0;
+        ByteBuffer allocated = ByteBuffer.allocateDirect(ZERO_FILL_BUFFER_SIZE + recycledFileBlockSize);
+        try (channel)
+        {
+            ByteBuffer zeroes = direct ? allocated.alignedSlice(recycledFileBlockSize) : allocated;
+            zeroes.limit(ZERO_FILL_BUFFER_SIZE);
+            ByteBufferUtil.writeZeroes(zeroes.duplicate(), ZERO_FILL_BUFFER_SIZE);
+            long position = 0;
+            while (position < length)
+            {
+                ByteBuffer toWrite = zeroes.duplicate();
+                if (length - position < ZERO_FILL_BUFFER_SIZE)
+                    toWrite.limit(direct ? (int) ((length - position + recycledFileBlockSize - 1) & -recycledFileBlockSize)
+                                         : (int) (length - position));
+                position += channel.write(toWrite, position);
+            }
+            SyncUtil.force(channel, true);
+        }
+        finally
+        {
+            FileUtils.clean(allocated);
+        }
+    }
+
+    private FileChannel openRecycledFile(File file) throws IOException
+    {
+        if (recycledFileBlockSize > 0)
+        {
+            try
+            {
+                return FileChannel.open(file.toPath(), StandardOpenOption.WRITE, StandardOpenOption.CREATE, ExtendedOpenOption.DIRECT);
+            }
+            catch (IOException | UnsupportedOperationException e)
+            {
+                // some file systems, like tmpfs, report a block size but don't support O_DIRECT
+                logger.warn("Unable to open {} with direct I/O, recycled segment files will be zero-filled without it: {}", file, e.getMessage());
+                recycledFileBlockSize = 0;
+            }
+        }
+        return FileChannel.open(file.toPath(), StandardOpenOption.WRITE, StandardOpenOption.CREATE);
+    }
+
+    /**
+     * Renames a zero-filled file, if one is ready, to the file of a new segment, which will then write over it.
+     */
+    void reuseRecycledFile(File segmentFile)
+    {
+        File recycled = recycledFiles.poll();
+        if (recycled == null)
+            return;
+
+        // the new segment counts the space it uses itself
+        long length = recycled.length();
+        recycled.move(segmentFile);
+        addSize(-length);
+        wakeManager();
+    }
+
+    /**
+     * Deletes the file of a segment which is no longer needed or, if fewer than commitlog_recycled_segments files are
+     * kept for new segments, queues it to be zero-filled and reused. The kept files count against
+     * commitlog_total_space, and are deleted instead if the commit log would exceed it.
+     */
+    void recycleOrDelete(File segmentFile)
+    {
+        long length = segmentFile.length();
+        if (filesToRecycle.size() + recycledFiles.size() < recycledSegmentsTarget() && unusedCapacity() >= length)
+        {
+            File recycled = newRecycledFile();
+            segmentFile.move(recycled);
+            addSize(length);
+            filesToRecycle.add(recycled);
+            wakeManager();
+        }
+        else
+        {
+            FileUtils.deleteWithConfirm(segmentFile);
+        }
+    }
+
+    private void deleteRecycledFiles()
+    {
+        filesToRecycle.clear();
+        recycledFiles.clear();
+        File[] files = new File(storageDirectory).tryList((dir, name) -> name.startsWith(RECYCLED_FILE_PREFIX));
+        if (files != null)
+        {
+            for (File file : files)
+                FileUtils.deleteWithConfirm(file);
+        }
+    }
+
+    @VisibleForTesting
+    int recycledFileCount()
+    {
+        return recycledFiles.size();
+    }
+
     private boolean atSegmentBufferLimit()
     {
         return bufferPool != null && bufferPool.atLimit();
@@ -422,7 +615,7 @@ public abstract class AbstractCommitLogSegmentManager
     {
         // (don't decrease managed size, since this was never a "live" segment)
         logger.trace("(Unopened) segment {} is no longer needed and will be deleted now", file);
-        FileUtils.deleteWithConfirm(file);
+        recycleOrDelete(file);
     }
 
     /**
@@ -482,9 +675,10 @@ public abstract class AbstractCommitLogSegmentManager
                 {
                     final ColumnFamilyStore cfs = Keyspace.open(metadata.keyspace).getColumnFamilyStore(dirtyTableId);
 
-                    if (cfs.memtableWritesAreDurable())
+                    if (cfs.memtableWritesAreDurable() || cfs.writesShouldSkipCommitLog())
                     {
-                        // The memtable does not need this data to be preserved (we only wrote it for PITR and CDC)
+                        // The memtable does not need this data to be preserved (we only wrote it for PITR and CDC, or
+                        // before the table disabled durable writes)
                         segment.markClean(dirtyTableId, CommitLogPosition.NONE, segment.getCurrentCommitLogPosition());
                     }
                     else
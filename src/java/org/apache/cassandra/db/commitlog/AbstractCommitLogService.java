@@ -190,6 +190,7 @@ public abstract class AbstractCommitLogService
                         lastSyncedAt = pollStarted;
                         syncComplete.signalAll();
                         syncCount++;
+                        onDiskSync(clock.now() - pollStarted);
                     }
                     else
                     {
@@ -287,6 +288,15 @@ public abstract class AbstractCommitLogService
 
     protected abstract void maybeWaitForSync(Allocation alloc);
 
+    /**
+     * Called by the sync thread after each sync to disk, once the waiting writers have been signalled.
+     *
+     * @param durationNanos the time spent syncing
+     */
+    protected void onDiskSync(long durationNanos)
+    {
+    }
+
     /**
      * Request an additional sync cycle without blocking.
      */
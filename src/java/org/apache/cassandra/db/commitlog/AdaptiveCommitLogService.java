@@ -0,0 +1,137 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.db.commitlog;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.Uninterruptibles;
+
+import org.apache.cassandra.config.DatabaseDescriptor;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static org.apache.cassandra.config.CassandraRelevantProperties.BATCH_COMMIT_LOG_SYNC_INTERVAL;
+import static org.apache.cassandra.utils.Clock.Global.nanoTime;
+
+/**
+ * A commitlog service that, like {@link GroupCommitLogService}, will block returning an ACK back to the coordinator
+ * until the commit log segment is flushed, but sizes the window between flushes itself.
+ * <p>
+ * The first writer waiting for a flush holds the group open for the window, then requests the flush; the writers
+ * arriving in the meantime share it. A writer may arrive just as a flush starts, and wait for it, the window and the
+ * next flush, so the window is the target latency less twice the 99th percentile of the recent flush latencies. No
+ * window is used when fewer than one other writer is expected to arrive during it, as it would only add latency: the
+ * service then behaves like {@link BatchCommitLogService}.
+ */
+public class AdaptiveCommitLogService extends AbstractCommitLogService
+{
+    /**
+     * Like in batch mode, the flushes are triggered explicitly by the writers, see {@link BatchCommitLogService}.
+     */
+    private static final int POLL_TIME_MILLIS = BATCH_COMMIT_LOG_SYNC_INTERVAL.getInt();
+
+    /** The number of recent flush latencies the window is sized from. */
+    @VisibleForTesting
+    static final int SYNC_SAMPLES = 128;
+
+    /** The weight of the last flush interval in the arrival rate of the writers. */
+    private static final double RATE_SMOOTHING = 0.2;
+
+    private final long targetLatencyNanos;
+
+    // the latencies of the recent flushes and the arrival rate of the writers, only accessed by the sync thread
+    private final long[] syncLatencies = new long[SYNC_SAMPLES];
+    private final long[] sortedLatencies = new long[SYNC_SAMPLES];
+    private long syncs;
+    private long lastSyncAt = nanoTime();
+    private long lastArrivals;
+    private double arrivalsPerNano;
+
+    private final AtomicLong arrivals = new AtomicLong();
+    private final AtomicBoolean groupOpen = new AtomicBoolean();
+    private volatile long windowNanos;
+
+    public AdaptiveCommitLogService(CommitLog commitLog)
+    {
+        super(commitLog, "ADAPTIVE-COMMIT-LOG-WRITER", POLL_TIME_MILLIS);
+        this.targetLatencyNanos = DatabaseDescriptor.getCommitLogSyncAdaptiveTargetLatency(NANOSECONDS);
+    }
+
+    protected void maybeWaitForSync(CommitLogSegment.Allocation alloc)
+    {
+        // wait until record has been safely persisted to disk
+        pending.incrementAndGet();
+        arrivals.incrementAndGet();
+        long window = windowNanos;
+        if (window == 0)
+        {
+            requestExtraSync();
+        }
+        else if (groupOpen.compareAndSet(false, true))
+        {
+            // the writers arriving while the group is open are flushed by the sync requested below
+            Uninterruptibles.sleepUninterruptibly(window, NANOSECONDS);
+            groupOpen.set(false);
+            requestExtraSync();
+        }
+        alloc.awaitDiskSync(commitLog.metrics.waitingOnCommit);
+        pending.decrementAndGet();
+    }
+
+    @Override
+    protected void onDiskSync(long durationNanos)
+    {
+        syncLatencies[(int) (syncs++ % SYNC_SAMPLES)] = durationNanos;
+        int samples = (int) Math.min(syncs, SYNC_SAMPLES);
+        System.arraycopy(syncLatencies, 0, sortedLatencies, 0, samples);
+        Arrays.sort(sortedLatencies, 0, samples);
+        long p99 = sortedLatencies[(int) Math.ceil(samples * 0.99) - 1];
+
+        long now = nanoTime();
+        long currentArrivals = arrivals.get();
+        double rate = (currentArrivals - lastArrivals) / (double) Math.max(1, now - lastSyncAt);
+        arrivalsPerNano = syncs == 1 ? rate : RATE_SMOOTHING * rate + (1 - RATE_SMOOTHING) * arrivalsPerNano;
+        lastArrivals = currentArrivals;
+        lastSyncAt = now;
+
+        windowNanos = window(targetLatencyNanos, p99, arrivalsPerNano);
+    }
+
+    /**
+     * @param targetLatencyNanos the latency the flushes should add to the writes
+     * @param syncLatencyNanos the 99th percentile of the recent flush latencies
+     * @param arrivalsPerNano the arrival rate of the writers
+     * @return the time the first writer of a group should wait for other writers before requesting a flush
+     */
+    @VisibleForTesting
+    static long window(long targetLatencyNanos, long syncLatencyNanos, double arrivalsPerNano)
+    {
+        long window = targetLatencyNanos - 2 * syncLatencyNanos;
+        if (window <= 0 || arrivalsPerNano * window < 1)
+            return 0;
+        return window;
+    }
+
+    @VisibleForTesting
+    long windowNanos()
+    {
+        return windowNanos;
+    }
+}
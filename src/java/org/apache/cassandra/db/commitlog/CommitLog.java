@@ -123,6 +123,9 @@ public class CommitLog implements CommitLogMBean
             case group:
                 executor = new GroupCommitLogService(this);
                 break;
+            case adaptive:
+                executor = new AdaptiveCommitLogService(this);
+                break;
             default:
                 throw new IllegalArgumentException("Unknown commitlog service type: " + DatabaseDescriptor.getCommitLogSync());
         }
@@ -222,7 +225,7 @@ public class CommitLog implements CommitLogMBean
     public int recoverFiles(File... clogs) throws IOException
     {
         CommitLogReplayer replayer = CommitLogReplayer.construct(this, getLocalHostId());
-        replayer.replayFiles(clogs);
+        replayer.replayFiles(clogs, CommitLogReplayer.replayParallelism());
         return replayer.blockForWrites();
     }
 
@@ -20,7 +20,10 @@ package org.apache.cassandra.db.commitlog;
 
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Predicate;
@@ -33,10 +36,12 @@ import org.apache.cassandra.io.util.File;
 import org.apache.commons.lang3.StringUtils;
 
 import org.apache.cassandra.utils.concurrent.Future;
+import org.apache.cassandra.utils.concurrent.UncheckedInterruptedException;
 import org.cliffc.high_scale_lib.NonBlockingHashSet;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import org.apache.cassandra.concurrent.ExecutorPlus;
 import org.apache.cassandra.concurrent.Stage;
 import org.apache.cassandra.config.DatabaseDescriptor;
 import org.apache.cassandra.db.ColumnFamilyStore;
@@ -47,18 +52,23 @@ import org.apache.cassandra.db.partitions.PartitionUpdate;
 import org.apache.cassandra.io.sstable.format.SSTableReader;
 import org.apache.cassandra.io.util.FileUtils;
 import org.apache.cassandra.io.util.RandomAccessReader;
+import org.apache.cassandra.metrics.CommitLogMetrics;
 import org.apache.cassandra.schema.Schema;
 import org.apache.cassandra.schema.SchemaConstants;
 import org.apache.cassandra.schema.TableId;
 import org.apache.cassandra.schema.TableMetadataRef;
 import org.apache.cassandra.utils.FBUtilities;
+import org.apache.cassandra.utils.Throwables;
 import org.apache.cassandra.utils.WrappedRunnable;
 
 import static java.lang.String.format;
+import static org.apache.cassandra.concurrent.ExecutorFactory.Global.executorFactory;
 import static org.apache.cassandra.config.CassandraRelevantProperties.COMMITLOG_IGNORE_REPLAY_ERRORS;
 import static org.apache.cassandra.config.CassandraRelevantProperties.COMMITLOG_MAX_OUTSTANDING_REPLAY_BYTES;
 import static org.apache.cassandra.config.CassandraRelevantProperties.COMMITLOG_MAX_OUTSTANDING_REPLAY_COUNT;
+import static org.apache.cassandra.config.CassandraRelevantProperties.COMMITLOG_REPLAY_PARALLELISM;
 import static org.apache.cassandra.config.CassandraRelevantProperties.COMMIT_LOG_REPLAY_LIST;
+import static org.apache.cassandra.utils.Clock.Global.nanoTime;
 
 public class CommitLogReplayer implements CommitLogReadHandler
 {
@@ -70,17 +80,21 @@ public class CommitLogReplayer implements CommitLogReadHandler
     private static final int MAX_OUTSTANDING_REPLAY_COUNT = COMMITLOG_MAX_OUTSTANDING_REPLAY_COUNT.getInt();
 
     private final Set<Keyspace> keyspacesReplayed;
-    private final Queue<Future<Integer>> futures;
+    // Used to throttle speed of replay of mutations if we pass the max outstanding count
+    private final OutstandingMutations outstanding;
 
     private final AtomicInteger replayedCount;
     private final Map<TableId, IntervalSet<CommitLogPosition>> cfPersisted;
     private final CommitLogPosition globalPosition;
 
-    // Used to throttle speed of replay of mutations if we pass the max outstanding count
-    private long pendingMutationBytes = 0;
+    // mutations skipped by the readers of segments replayed in parallel
+    private final Map<TableId, AtomicInteger> invalidMutations = new HashMap<>();
+    private final LongAdder replayedBytes = new LongAdder();
+    private long replayStartNanos;
 
     private final ReplayFilter replayFilter;
     private final CommitLogArchiver archiver;
+    private final CommitLogMetrics metrics;
 
     @VisibleForTesting
     protected boolean sawCDCMutation;
@@ -94,13 +108,14 @@ public class CommitLogReplayer implements CommitLogReadHandler
                       ReplayFilter replayFilter)
     {
         this.keyspacesReplayed = new NonBlockingHashSet<>();
-        this.futures = new ArrayDeque<>();
+        this.outstanding = new OutstandingMutations(MAX_OUTSTANDING_REPLAY_COUNT, MAX_OUTSTANDING_REPLAY_BYTES);
         // count the number of replayed mutation. We don't really care about atomicity, but we need it to be a reference.
         this.replayedCount = new AtomicInteger();
         this.cfPersisted = cfPersisted;
         this.globalPosition = globalPosition;
         this.replayFilter = replayFilter;
         this.archiver = commitLog.archiver;
+        this.metrics = commitLog.metrics;
         this.commitLogReader = new CommitLogReader();
     }
 
@@ -136,7 +151,13 @@ public class CommitLogReplayer implements CommitLogReadHandler
 
             IntervalSet<CommitLogPosition> filter;
             final CommitLogPosition snapshotPosition = commitLog.archiver.snapshotCommitLogPosition;
-            if (snapshotPosition == CommitLogPosition.NONE)
+            if (cfs.writesShouldSkipCommitLog())
+            {
+                // The table's writes skip the commit log and are lost on restart. Any found in the log were written
+                // before durable writes were disabled, and are not replayed either.
+                filter = new IntervalSet<>(CommitLogPosition.NONE, commitLog.getCurrentPosition());
+            }
+            else if (snapshotPosition == CommitLogPosition.NONE)
             {
                 // normal path: snapshot position is not explicitly specified, find it from sstables
                 if (!cfs.memtableWritesAreDurable())
@@ -178,15 +199,46 @@ public class CommitLogReplayer implements CommitLogReadHandler
 
     public void replayPath(File file, boolean tolerateTruncation) throws IOException
     {
+        markReplayStart();
         sawCDCMutation = false;
         commitLogReader.readCommitLogSegment(this, file, globalPosition, CommitLogReader.ALL_MUTATIONS, tolerateTruncation);
         if (sawCDCMutation)
             handleCDCReplayCompletion(file);
     }
 
+    /**
+     * The number of commit log segments to decode concurrently, set with {@code cassandra.commitlog_replay_parallelism}.
+     */
+    static int replayParallelism()
+    {
+        return COMMITLOG_REPLAY_PARALLELISM.getInt(Math.max(1, FBUtilities.getAvailableProcessors() / 2));
+    }
+
     public void replayFiles(File[] clogs) throws IOException
     {
+        replayFiles(clogs, 1);
+    }
+
+    /**
+     * Replays the given segments, decoding up to {@code parallelism} of them concurrently.
+     * <p>
+     * The order in which the mutations are applied does not matter, as they are reconciled by timestamp, and each
+     * segment is filtered against the per-table persisted intervals independently. The segments replayed in parallel
+     * are read with their own {@link CommitLogReader} and throttled with their share of the outstanding mutations
+     * limits, so that the mutations waiting to be applied stay within the same limits. Each reader has its own
+     * buffers though, for the mutations and the decompressed or decrypted sections of its segment, so the memory
+     * used to decode the segments does grow with the parallelism.
+     */
+    public void replayFiles(File[] clogs, int parallelism) throws IOException
+    {
+        markReplayStart();
         List<File> filteredLogs = CommitLogReader.filterCommitLogFiles(clogs);
+        if (parallelism > 1 && filteredLogs.size() > 1)
+        {
+            replayInParallel(filteredLogs, parallelism);
+            return;
+        }
+
         int i = 0;
         for (File file: filteredLogs)
         {
@@ -199,6 +251,60 @@ public class CommitLogReplayer implements CommitLogReadHandler
     }
 
 
+    private void replayInParallel(List<File> filteredLogs, int parallelism) throws IOException
+    {
+        parallelism = Math.min(parallelism, filteredLogs.size());
+        logger.info("Replaying {} commit log segments with {} threads", filteredLogs.size(), parallelism);
+        ExecutorPlus executor = executorFactory().pooled("CommitLogReplay", parallelism);
+        try
+        {
+            List<Future<SegmentReplay>> replays = new ArrayList<>(filteredLogs.size());
+            for (int i = 0; i < filteredLogs.size(); i++)
+            {
+                SegmentReplay replay = new SegmentReplay(filteredLogs.get(i), i == filteredLogs.size() - 1, parallelism);
+                replays.add(executor.submit(replay::replay));
+            }
+
+            // CDC completion and the invalid mutations are handled in segment order, on this thread
+            for (Future<SegmentReplay> future : replays)
+            {
+                SegmentReplay replay = waitForSegment(future);
+                for (Map.Entry<TableId, AtomicInteger> entry : replay.reader.getInvalidMutations())
+                    invalidMutations.computeIfAbsent(entry.getKey(), id -> new AtomicInteger()).addAndGet(entry.getValue().get());
+                if (replay.sawCDCMutation)
+                    handleCDCReplayCompletion(replay.file);
+            }
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+
+    private static SegmentReplay waitForSegment(Future<SegmentReplay> future) throws IOException
+    {
+        try
+        {
+            return future.get();
+        }
+        catch (InterruptedException e)
+        {
+            throw new UncheckedInterruptedException(e);
+        }
+        catch (ExecutionException e)
+        {
+            if (e.getCause() instanceof IOException)
+                throw (IOException) e.getCause();
+            throw Throwables.unchecked(e.getCause());
+        }
+    }
+
+    private void markReplayStart()
+    {
+        if (replayStartNanos == 0)
+            replayStartNanos = nanoTime();
+    }
+
     /**
      * Upon replay completion, CDC needs to hard-link files in the CDC folder and calculate index files so consumers can
      * begin their work.
@@ -234,14 +340,25 @@ public class CommitLogReplayer implements CommitLogReadHandler
     public int blockForWrites()
     {
         for (Map.Entry<TableId, AtomicInteger> entry : commitLogReader.getInvalidMutations())
+            invalidMutations.computeIfAbsent(entry.getKey(), id -> new AtomicInteger()).addAndGet(entry.getValue().get());
+        for (Map.Entry<TableId, AtomicInteger> entry : invalidMutations.entrySet())
             logger.warn("Skipped {} mutations from unknown (probably removed) CF with id {}", entry.getValue(), entry.getKey());
 
         // wait for all the writes to finish on the mutation stage
-        FBUtilities.waitOnFutures(futures);
+        outstanding.waitForAll();
         logger.trace("Finished waiting on mutations from recovery");
+        if (replayStartNanos != 0)
+        {
+            long elapsed = nanoTime() - replayStartNanos;
+            metrics.markReplay(replayedCount.get(), replayedBytes.sum(), elapsed);
+            logger.info("Replayed {} mutations ({}) in {} ms ({}/s)",
+                        replayedCount.get(),
+                        FBUtilities.prettyPrintMemory(replayedBytes.sum()),
+                        TimeUnit.NANOSECONDS.toMillis(elapsed),
+                        FBUtilities.prettyPrintMemory(metrics.replayThroughput.getValue()));
+        }
 
         // flush replayed keyspaces
-        futures.clear();
         boolean flushingSystem = false;
 
         List<Future<?>> futures = new ArrayList<Future<?>>();
@@ -506,20 +623,8 @@ public class CommitLogReplayer implements CommitLogReadHandler
         if (DatabaseDescriptor.isCDCEnabled() && m.trackedByCDC())
             sawCDCMutation = true;
 
-        pendingMutationBytes += size;
-        futures.offer(mutationInitiator.initiateMutation(m,
-                                                         desc.id,
-                                                         size,
-                                                         entryLocation,
-                                                         this));
-        // If there are finished mutations, or too many outstanding bytes/mutations
-        // drain the futures in the queue
-        while (futures.size() > MAX_OUTSTANDING_REPLAY_COUNT
-               || pendingMutationBytes > MAX_OUTSTANDING_REPLAY_BYTES
-               || (!futures.isEmpty() && futures.peek().isDone()))
-        {
-            pendingMutationBytes -= FBUtilities.waitOnFuture(futures.poll());
-        }
+        replayedBytes.add(size);
+        outstanding.add(mutationInitiator.initiateMutation(m, desc.id, size, entryLocation, this), size);
     }
 
     public boolean shouldSkipSegmentOnError(CommitLogReadException exception) throws IOException
@@ -547,6 +652,90 @@ public class CommitLogReplayer implements CommitLogReadHandler
         shouldSkipSegmentOnError(exception);
     }
 
+    /**
+     * Replays a single segment on the replay executor, with its own reader and share of the outstanding mutations.
+     */
+    private class SegmentReplay implements CommitLogReadHandler
+    {
+        private final File file;
+        private final boolean tolerateTruncation;
+        private final CommitLogReader reader = new CommitLogReader();
+        private final OutstandingMutations outstanding;
+        private boolean sawCDCMutation;
+
+        SegmentReplay(File file, boolean tolerateTruncation, int parallelism)
+        {
+            this.file = file;
+            this.tolerateTruncation = tolerateTruncation;
+            this.outstanding = new OutstandingMutations(Math.max(1, MAX_OUTSTANDING_REPLAY_COUNT / parallelism),
+                                                        Math.max(1, MAX_OUTSTANDING_REPLAY_BYTES / parallelism));
+        }
+
+        SegmentReplay replay() throws IOException
+        {
+            reader.readCommitLogSegment(this, file, globalPosition, tolerateTruncation);
+            outstanding.waitForAll();
+            return this;
+        }
+
+        public boolean shouldSkipSegmentOnError(CommitLogReadException exception) throws IOException
+        {
+            return CommitLogReplayer.this.shouldSkipSegmentOnError(exception);
+        }
+
+        public void handleUnrecoverableError(CommitLogReadException exception) throws IOException
+        {
+            CommitLogReplayer.this.handleUnrecoverableError(exception);
+        }
+
+        public void handleMutation(Mutation m, int size, int entryLocation, CommitLogDescriptor desc)
+        {
+            if (DatabaseDescriptor.isCDCEnabled() && m.trackedByCDC())
+                sawCDCMutation = true;
+
+            replayedBytes.add(size);
+            outstanding.add(mutationInitiator.initiateMutation(m, desc.id, size, entryLocation, CommitLogReplayer.this), size);
+        }
+    }
+
+    /**
+     * The mutations submitted to the mutation stage by a reader, limited in number and size.
+     */
+    private static class OutstandingMutations
+    {
+        private final Queue<Future<Integer>> futures = new ArrayDeque<>();
+        private final int maxCount;
+        private final long maxBytes;
+        private long pendingBytes;
+
+        OutstandingMutations(int maxCount, long maxBytes)
+        {
+            this.maxCount = maxCount;
+            this.maxBytes = maxBytes;
+        }
+
+        void add(Future<Integer> future, int size)
+        {
+            pendingBytes += size;
+            futures.offer(future);
+            // If there are finished mutations, or too many outstanding bytes/mutations
+            // drain the futures in the queue
+            while (futures.size() > maxCount
+                   || pendingBytes > maxBytes
+                   || (!futures.isEmpty() && futures.peek().isDone()))
+            {
+                pendingBytes -= FBUtilities.waitOnFuture(futures.poll());
+            }
+        }
+
+        void waitForAll()
+        {
+            FBUtilities.waitOnFutures(futures);
+            futures.clear();
+            pendingBytes = 0;
+        }
+    }
+
     @SuppressWarnings("serial")
     public static class CommitLogReplayException extends IOException
     {
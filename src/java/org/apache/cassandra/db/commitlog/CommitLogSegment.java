@@ -155,6 +155,7 @@ public abstract class CommitLogSegment
                                              manager.getConfiguration().getCompressorClass(),
                                              manager.getConfiguration().getEncryptionContext());
         logFile = new File(manager.storageDirectory, descriptor.fileName());
+        manager.reuseRecycledFile(logFile);
 
         try
         {
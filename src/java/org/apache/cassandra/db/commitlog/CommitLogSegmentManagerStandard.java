@@ -19,7 +19,6 @@
 package org.apache.cassandra.db.commitlog;
 
 import org.apache.cassandra.db.Mutation;
-import org.apache.cassandra.io.util.FileUtils;
 
 public class CommitLogSegmentManagerStandard extends AbstractCommitLogSegmentManager
 {
@@ -31,9 +30,9 @@ public class CommitLogSegmentManagerStandard extends AbstractCommitLogSegmentMan
     public void discard(CommitLogSegment segment, boolean delete)
     {
         segment.close();
-        if (delete)
-            FileUtils.deleteWithConfirm(segment.logFile);
         addSize(-segment.onDiskSize());
+        if (delete)
+            recycleOrDelete(segment.logFile);
     }
 
     /**
@@ -21,7 +21,6 @@ import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
 import java.nio.file.Path;
-import java.nio.file.StandardOpenOption;
 
 import net.openhft.chronicle.core.util.ThrowingFunction;
 import org.apache.cassandra.config.DatabaseDescriptor;
@@ -48,9 +47,9 @@ public class CompressedSegment extends FileDirectSegment
     /**
      * Constructs a new segment file.
      */
-    CompressedSegment(AbstractCommitLogSegmentManager manager, ThrowingFunction<Path, FileChannel, IOException> channelFactory)
+    CompressedSegment(AbstractCommitLogSegmentManager manager, ThrowingFunction<Path, FileChannel, IOException> channelFactory, int fsBlockSize)
     {
-        super(manager, channelFactory);
+        super(manager, channelFactory, fsBlockSize);
         this.compressor = manager.getConfiguration().getCompressor();
     }
 
@@ -77,11 +76,11 @@ public class CompressedSegment extends FileDirectSegment
 
             // Only one thread can be here at a given time.
             // Protected by synchronization on CommitLogSegment.sync().
-            writeSyncMarker(id, compressedBuffer, 0, (int) channel.position(), (int) channel.position() + compressedBuffer.remaining());
+            writeSyncMarker(id, compressedBuffer, 0, (int) output.position(), (int) output.position() + compressedBuffer.remaining());
             manager.addSize(compressedBuffer.limit());
-            channel.write(compressedBuffer);
-            assert channel.position() - lastWrittenPos == compressedBuffer.limit();
-            lastWrittenPos = channel.position();
+            output.write(compressedBuffer);
+            assert output.position() - lastWrittenPos == compressedBuffer.limit();
+            lastWrittenPos = output.position();
         }
         catch (Exception e)
         {
@@ -97,16 +96,18 @@ public class CompressedSegment extends FileDirectSegment
 
     protected static class CompressedSegmentBuilder extends CommitLogSegment.Builder
     {
+        private final int fsBlockSize;
+
         public CompressedSegmentBuilder(AbstractCommitLogSegmentManager segmentManager)
         {
             super(segmentManager);
+            this.fsBlockSize = directIOBlockSize(segmentManager);
         }
 
         @Override
         public CompressedSegment build()
         {
-            return new CompressedSegment(segmentManager,
-                                         path -> FileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.READ, StandardOpenOption.CREATE));
+            return new CompressedSegment(segmentManager, channelFactory(fsBlockSize), fsBlockSize);
         }
 
         @Override
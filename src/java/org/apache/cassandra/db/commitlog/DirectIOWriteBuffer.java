@@ -0,0 +1,178 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.cassandra.db.commitlog;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
+
+import org.apache.cassandra.io.util.FileUtils;
+import org.apache.cassandra.utils.ByteBufferUtil;
+
+/**
+ * Collects the sections written by a {@link FileDirectSegment} in a block-aligned buffer, so that they can be written
+ * to a file opened for direct I/O, which only accepts writes of whole blocks from aligned memory.
+ * <p>
+ * The buffer starts at the beginning of the last block which has not been completely written to the file. That block
+ * is written padded with zeros, which the commit log reader takes for the end of the segment, and written again with
+ * the following sections on the next {@link #writeTo}.
+ * <p>
+ * Like the channel it stands for, it is only used by the thread syncing the segment.
+ */
+final class DirectIOWriteBuffer implements SeekableByteChannel
+{
+    private final int blockSize;
+
+    // the allocated buffer, kept to be released, and its aligned slice
+    private ByteBuffer allocated;
+    private ByteBuffer buffer;
+
+    // the file position of the start of the buffer, always aligned
+    private long bufferStart;
+    private long position;
+    // the end of what has been written so far; everything after it in the buffer is zero
+    private long end;
+
+    DirectIOWriteBuffer(int blockSize, int initialCapacity)
+    {
+        assert Integer.highestOneBit(blockSize) == blockSize : "blockSize must be a power of 2";
+        this.blockSize = blockSize;
+        allocate(initialCapacity);
+    }
+
+    private void allocate(int capacity)
+    {
+        capacity = align(capacity);
+        allocated = ByteBuffer.allocateDirect(capacity + blockSize - 1);
+        buffer = allocated.alignedSlice(blockSize);
+        buffer.limit(capacity);
+    }
+
+    private int align(long size)
+    {
+        return Math.toIntExact((size + blockSize - 1) & -blockSize);
+    }
+
+    private void ensureCapacity(long filePosition)
+    {
+        if (filePosition - bufferStart <= buffer.capacity())
+            return;
+
+        ByteBuffer oldAllocated = allocated;
+        ByteBuffer old = buffer;
+        allocate(Math.toIntExact(Math.max(filePosition - bufferStart, 2L * old.capacity())));
+        copy(old, 0, (int) (end - bufferStart), buffer, 0);
+        FileUtils.clean(oldAllocated);
+    }
+
+    @Override
+    public int write(ByteBuffer src)
+    {
+        int length = src.remaining();
+        ensureCapacity(position + length);
+        ByteBuffer dest = buffer.duplicate();
+        dest.position((int) (position - bufferStart));
+        dest.put(src);
+        position += length;
+        end = Math.max(end, position);
+        return length;
+    }
+
+    @Override
+    public long position()
+    {
+        return position;
+    }
+
+    @Override
+    public SeekableByteChannel position(long newPosition)
+    {
+        if (newPosition < bufferStart)
+            throw new IllegalArgumentException(String.format("Cannot seek to %d, before the unwritten data at %d", newPosition, bufferStart));
+        position = newPosition;
+        return this;
+    }
+
+    @Override
+    public long size()
+    {
+        return end;
+    }
+
+    /**
+     * Writes all the data not completely written yet to the given channel, padding the last block with zeros.
+     *
+     * @return the file position up to which the channel has been written
+     */
+    long writeTo(FileChannel channel) throws IOException
+    {
+        int endOffset = (int) (end - bufferStart);
+        ByteBuffer toWrite = buffer.duplicate();
+        toWrite.position(0).limit(align(endOffset));
+        long filePosition = bufferStart;
+        while (toWrite.hasRemaining())
+            filePosition += channel.write(toWrite, filePosition);
+
+        // keep the incomplete last block at the start of the buffer, and clear what came after it
+        int lastBlockOffset = endOffset & -blockSize;
+        if (lastBlockOffset > 0)
+        {
+            int remainder = endOffset - lastBlockOffset;
+            copy(buffer, lastBlockOffset, endOffset, buffer, 0);
+            ByteBufferUtil.writeZeroes(buffer.duplicate().position(remainder), endOffset - remainder);
+            bufferStart += lastBlockOffset;
+        }
+        return filePosition;
+    }
+
+    private static void copy(ByteBuffer src, int srcStart, int srcEnd, ByteBuffer dest, int destStart)
+    {
+        ByteBuffer from = src.duplicate();
+        from.limit(srcEnd).position(srcStart);
+        ByteBuffer to = dest.duplicate();
+        to.position(destStart);
+        to.put(from);
+    }
+
+    @Override
+    public int read(ByteBuffer dst)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public SeekableByteChannel truncate(long size)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean isOpen()
+    {
+        return buffer != null;
+    }
+
+    @Override
+    public void close()
+    {
+        FileUtils.clean(allocated);
+        allocated = buffer = null;
+    }
+}
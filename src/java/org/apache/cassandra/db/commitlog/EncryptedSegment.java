@@ -21,7 +21,6 @@ import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
 import java.nio.file.Path;
-import java.nio.file.StandardOpenOption;
 import java.util.Map;
 import javax.crypto.Cipher;
 
@@ -69,9 +68,9 @@ public class EncryptedSegment extends FileDirectSegment
     private final EncryptionContext encryptionContext;
     private final Cipher cipher;
 
-    public EncryptedSegment(AbstractCommitLogSegmentManager manager, ThrowingFunction<Path, FileChannel, IOException> channelFactory)
+    public EncryptedSegment(AbstractCommitLogSegmentManager manager, ThrowingFunction<Path, FileChannel, IOException> channelFactory, int fsBlockSize)
     {
-        super(manager, channelFactory);
+        super(manager, channelFactory, fsBlockSize);
         this.encryptionContext = manager.getConfiguration().getEncryptionContext();
 
         try
@@ -113,7 +112,7 @@ public class EncryptedSegment extends FileDirectSegment
 
             // save space for the sync marker at the beginning of this section
             final long syncMarkerPosition = lastWrittenPos;
-            channel.position(syncMarkerPosition + ENCRYPTED_SECTION_HEADER_SIZE);
+            output.position(syncMarkerPosition + ENCRYPTED_SECTION_HEADER_SIZE);
 
             // loop over the segment data in encryption buffer sized chunks
             while (contentStart < nextMarker)
@@ -125,13 +124,13 @@ public class EncryptedSegment extends FileDirectSegment
                 buffer = EncryptionUtils.compress(slice, buffer, true, compressor);
 
                 // reuse the same buffer for the input and output of the encryption operation
-                buffer = EncryptionUtils.encryptAndWrite(buffer, channel, true, cipher);
+                buffer = EncryptionUtils.encryptAndWrite(buffer, output, true, cipher);
 
                 contentStart += nextBlockSize;
                 manager.addSize(buffer.limit() + ENCRYPTED_BLOCK_HEADER_SIZE);
             }
 
-            lastWrittenPos = channel.position();
+            lastWrittenPos = output.position();
 
             // rewind to the beginning of the section and write out the sync marker
             buffer.position(0).limit(ENCRYPTED_SECTION_HEADER_SIZE);
@@ -140,8 +139,8 @@ public class EncryptedSegment extends FileDirectSegment
             buffer.rewind();
             manager.addSize(buffer.limit());
 
-            channel.position(syncMarkerPosition);
-            channel.write(buffer);
+            output.position(syncMarkerPosition);
+            output.write(buffer);
         }
         catch (Exception e)
         {
@@ -156,17 +155,18 @@ public class EncryptedSegment extends FileDirectSegment
 
     protected static class EncryptedSegmentBuilder extends CommitLogSegment.Builder
     {
+        private final int fsBlockSize;
 
         public EncryptedSegmentBuilder(AbstractCommitLogSegmentManager segmentManager)
         {
             super(segmentManager);
+            this.fsBlockSize = directIOBlockSize(segmentManager);
         }
 
         @Override
         public EncryptedSegment build()
         {
-            return new EncryptedSegment(segmentManager,
-                                        path ->  FileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.READ, StandardOpenOption.CREATE));
+            return new EncryptedSegment(segmentManager, channelFactory(fsBlockSize), fsBlockSize);
         }
 
         @Override
@@ -20,23 +20,64 @@ package org.apache.cassandra.db.commitlog;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 
+import com.sun.nio.file.ExtendedOpenOption;
 import net.openhft.chronicle.core.util.ThrowingFunction;
 import org.apache.cassandra.io.FSWriteError;
+import org.apache.cassandra.io.util.File;
+import org.apache.cassandra.io.util.FileUtils;
 import org.apache.cassandra.utils.SyncUtil;
 
 /**
  * Writes to the backing commit log file only on sync, allowing transformations of the mutations,
  * such as compression or encryption, before writing out to disk.
+ * <p>
+ * The transformed sections are written to {@link #output}, which is either the segment channel or, with direct I/O,
+ * a {@link DirectIOWriteBuffer} written to the channel on flush.
  */
 public abstract class FileDirectSegment extends CommitLogSegment
 {
+    private static final int INITIAL_DIRECT_IO_BUFFER_SIZE = 1 << 16;
+
     volatile long lastWrittenPos = 0;
 
-    FileDirectSegment(AbstractCommitLogSegmentManager manager, ThrowingFunction<Path, FileChannel, IOException> channelFactory)
+    final SeekableByteChannel output;
+    private final DirectIOWriteBuffer directIOBuffer;
+
+    /**
+     * @param fsBlockSize the block size of the file system when the channel is opened for direct I/O, 0 otherwise
+     */
+    FileDirectSegment(AbstractCommitLogSegmentManager manager, ThrowingFunction<Path, FileChannel, IOException> channelFactory, int fsBlockSize)
     {
         super(manager, channelFactory);
+        if (fsBlockSize > 0)
+        {
+            directIOBuffer = new DirectIOWriteBuffer(fsBlockSize, Math.max(fsBlockSize, INITIAL_DIRECT_IO_BUFFER_SIZE));
+            output = directIOBuffer;
+        }
+        else
+        {
+            directIOBuffer = null;
+            output = channel;
+        }
+    }
+
+    /**
+     * @return the block size to align the writes to, or 0 if the segments of the manager are not written with direct I/O
+     */
+    static int directIOBlockSize(AbstractCommitLogSegmentManager manager)
+    {
+        return manager.getConfiguration().isDirectIOEnabled() ? FileUtils.getBlockSize(new File(manager.storageDirectory)) : 0;
+    }
+
+    static ThrowingFunction<Path, FileChannel, IOException> channelFactory(int fsBlockSize)
+    {
+        if (fsBlockSize > 0)
+            return path -> FileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.READ, StandardOpenOption.CREATE, ExtendedOpenOption.DIRECT);
+        return path -> FileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.READ, StandardOpenOption.CREATE);
     }
 
     @Override
@@ -45,7 +86,10 @@ public abstract class FileDirectSegment extends CommitLogSegment
         super.writeLogHeader();
         try
         {
-            channel.write((ByteBuffer) buffer.duplicate().flip());
+            output.write((ByteBuffer) buffer.duplicate().flip());
+            // like DirectIOSegment, let the allocator thread write the first block rather than the syncer
+            if (directIOBuffer != null)
+                directIOBuffer.writeTo(channel);
             manager.addSize(lastWrittenPos = buffer.position());
         }
         catch (IOException e)
@@ -60,6 +104,8 @@ public abstract class FileDirectSegment extends CommitLogSegment
         try
         {
             manager.getBufferPool().releaseBuffer(buffer);
+            if (directIOBuffer != null)
+                directIOBuffer.close();
             super.internalClose();
         }
         finally
@@ -73,6 +119,8 @@ public abstract class FileDirectSegment extends CommitLogSegment
     {
         try
         {
+            if (directIOBuffer != null)
+                directIOBuffer.writeTo(channel);
             SyncUtil.force(channel, true);
         }
         catch (Exception e)
@@ -46,6 +46,7 @@ import org.apache.cassandra.io.sstable.Descriptor;
 import org.apache.cassandra.io.sstable.ISSTableScanner;
 import org.apache.cassandra.io.sstable.SSTableMultiWriter;
 import org.apache.cassandra.io.sstable.SimpleSSTableMultiWriter;
+import org.apache.cassandra.io.sstable.format.ExcludedPartitions;
 import org.apache.cassandra.io.sstable.format.SSTableReader;
 import org.apache.cassandra.io.sstable.metadata.MetadataCollector;
 import org.apache.cassandra.io.sstable.metadata.StatsMetadata;
@@ -71,12 +72,15 @@ public abstract class AbstractCompactionStrategy
     protected static final long DEFAULT_TOMBSTONE_COMPACTION_INTERVAL = 86400;
     protected static final boolean DEFAULT_UNCHECKED_TOMBSTONE_COMPACTION_OPTION = false;
     protected static final boolean DEFAULT_LOG_ALL_OPTION = false;
+    protected static final boolean DEFAULT_INCREMENTAL_TOMBSTONE_COMPACTION_OPTION = false;
 
     protected static final String TOMBSTONE_THRESHOLD_OPTION = "tombstone_threshold";
     protected static final String TOMBSTONE_COMPACTION_INTERVAL_OPTION = "tombstone_compaction_interval";
     // disable range overlap check when deciding if an SSTable is candidate for tombstone compaction (CASSANDRA-6563)
     protected static final String UNCHECKED_TOMBSTONE_COMPACTION_OPTION = "unchecked_tombstone_compaction";
     protected static final String LOG_ALL_OPTION = "log_all";
+    // rewrite only the partitions with droppable tombstones in single sstable tombstone compactions
+    protected static final String INCREMENTAL_TOMBSTONE_COMPACTION_OPTION = "incremental_tombstone_compaction";
     protected static final String COMPACTION_ENABLED = "enabled";
     public static final String ONLY_PURGE_REPAIRED_TOMBSTONES = "only_purge_repaired_tombstones";
 
@@ -86,6 +90,7 @@ public abstract class AbstractCompactionStrategy
     protected float tombstoneThreshold;
     protected long tombstoneCompactionInterval;
     protected boolean uncheckedTombstoneCompaction;
+    protected boolean incrementalTombstoneCompaction;
     protected boolean disableTombstoneCompactions = false;
     protected boolean logAll = true;
 
@@ -122,6 +127,8 @@ public abstract class AbstractCompactionStrategy
             uncheckedTombstoneCompaction = optionValue == null ? DEFAULT_UNCHECKED_TOMBSTONE_COMPACTION_OPTION : Boolean.parseBoolean(optionValue);
             optionValue = options.get(LOG_ALL_OPTION);
             logAll = optionValue == null ? DEFAULT_LOG_ALL_OPTION : Boolean.parseBoolean(optionValue);
+            optionValue = options.get(INCREMENTAL_TOMBSTONE_COMPACTION_OPTION);
+            incrementalTombstoneCompaction = optionValue == null ? DEFAULT_INCREMENTAL_TOMBSTONE_COMPACTION_OPTION : Boolean.parseBoolean(optionValue);
         }
         catch (ConfigurationException e)
         {
@@ -129,6 +136,7 @@ public abstract class AbstractCompactionStrategy
             tombstoneThreshold = DEFAULT_TOMBSTONE_THRESHOLD;
             tombstoneCompactionInterval = DEFAULT_TOMBSTONE_COMPACTION_INTERVAL;
             uncheckedTombstoneCompaction = DEFAULT_UNCHECKED_TOMBSTONE_COMPACTION_OPTION;
+            incrementalTombstoneCompaction = DEFAULT_INCREMENTAL_TOMBSTONE_COMPACTION_OPTION;
         }
 
         directories = cfs.getDirectories();
@@ -255,12 +263,21 @@ public abstract class AbstractCompactionStrategy
      * LeveledCompactionStrategy for instance).
      */
     public ScannerList getScanners(Collection<SSTableReader> sstables, Collection<Range<Token>> ranges)
+    {
+        return getScanners(sstables, ranges, false);
+    }
+
+    /**
+     * Like {@link #getScanners(Collection, Collection)}, optionally creating scanners that read the sstables without
+     * going through the chunk cache.
+     */
+    public ScannerList getScanners(Collection<SSTableReader> sstables, Collection<Range<Token>> ranges, boolean bypassCache)
     {
         ArrayList<ISSTableScanner> scanners = new ArrayList<>();
         try
         {
             for (SSTableReader sstable : sstables)
-                scanners.add(sstable.getScanner(ranges));
+                scanners.add(sstable.getScanner(ranges, bypassCache));
         }
         catch (Throwable t)
         {
@@ -405,6 +422,11 @@ public abstract class AbstractCompactionStrategy
            return false;
 
         double droppableRatio = sstable.getEstimatedDroppableTombstoneRatio(gcBefore);
+        // the tombstones that were droppable at the last incremental tombstone compaction of the sstable have been
+        // rewritten elsewhere, or could not be purged
+        ExcludedPartitions excluded = sstable.getExcludedPartitions();
+        if (excluded != null)
+            droppableRatio -= sstable.getEstimatedDroppableTombstoneRatio(excluded.gcBefore);
         if (droppableRatio <= tombstoneThreshold)
             return false;
 
@@ -497,6 +519,13 @@ public abstract class AbstractCompactionStrategy
             }
         }
 
+        String incremental = options.get(INCREMENTAL_TOMBSTONE_COMPACTION_OPTION);
+        if (incremental != null)
+        {
+            if (!incremental.equalsIgnoreCase("true") && !incremental.equalsIgnoreCase("false"))
+                throw new ConfigurationException(String.format("'%s' should be either 'true' or 'false', not '%s'", INCREMENTAL_TOMBSTONE_COMPACTION_OPTION, incremental));
+        }
+
         String compactionEnabled = options.get(COMPACTION_ENABLED);
         if (compactionEnabled != null)
         {
@@ -511,6 +540,7 @@ public abstract class AbstractCompactionStrategy
         uncheckedOptions.remove(TOMBSTONE_COMPACTION_INTERVAL_OPTION);
         uncheckedOptions.remove(UNCHECKED_TOMBSTONE_COMPACTION_OPTION);
         uncheckedOptions.remove(LOG_ALL_OPTION);
+        uncheckedOptions.remove(INCREMENTAL_TOMBSTONE_COMPACTION_OPTION);
         uncheckedOptions.remove(COMPACTION_ENABLED);
         uncheckedOptions.remove(ONLY_PURGE_REPAIRED_TOMBSTONES);
         uncheckedOptions.remove(CompactionParams.Option.PROVIDE_OVERLAPPING_TOMBSTONES.toString());
@@ -187,7 +187,7 @@ public abstract class AbstractStrategyHolder
 
     public abstract void replaceSSTables(GroupedSSTableContainer removed, GroupedSSTableContainer added);
 
-    public abstract List<ISSTableScanner> getScanners(GroupedSSTableContainer sstables, Collection<Range<Token>> ranges);
+    public abstract List<ISSTableScanner> getScanners(GroupedSSTableContainer sstables, Collection<Range<Token>> ranges, boolean bypassCache);
 
 
     public abstract SSTableMultiWriter createSSTableMultiWriter(Descriptor descriptor,
@@ -168,6 +168,12 @@ public class CompactionManager implements CompactionManagerMBean, ICompactionMan
     // own pool to prevent either scenario.
     private final SecondaryIndexExecutor secondaryIndexExecutor = new SecondaryIndexExecutor();
 
+    // Compactions split into sub-ranges by CompactionTask compact one sub-range in their own thread and submit the
+    // others here, so that the executor threads are never waiting on each other.
+    private final CompactionExecutor subtaskExecutor = new CompactionExecutor(getConcurrentCompactors(), "CompactionSubtaskExecutor", Integer.MAX_VALUE);
+    // The threads of the subtask executor reserved by the running compactions, see reserveSubtaskThreads.
+    private final AtomicInteger reservedSubtaskThreads = new AtomicInteger();
+
     private final CompactionMetrics metrics = new CompactionMetrics(executor, validationExecutor, viewBuildExecutor, secondaryIndexExecutor);
 
     @VisibleForTesting
@@ -193,7 +199,7 @@ public class CompactionManager implements CompactionManagerMBean, ICompactionMan
      */
     public RateLimiter getRateLimiter()
     {
-        setRateInBytes(DatabaseDescriptor.getCompactionThroughputBytesPerSec());
+        setRateInBytes(CompactionThroughputController.instance.getCompactionThroughputBytesPerSec());
         return compactionRateLimiter;
     }
 
@@ -308,6 +314,7 @@ public class CompactionManager implements CompactionManagerMBean, ICompactionMan
         viewBuildExecutor.shutdown();
         cacheCleanupExecutor.shutdown();
         secondaryIndexExecutor.shutdown();
+        subtaskExecutor.shutdown();
 
         // interrupt compactions and validations
         for (Holder compactionHolder : active.getCompactions())
@@ -319,7 +326,7 @@ public class CompactionManager implements CompactionManagerMBean, ICompactionMan
         // compaction tasks are interrupted above, so it shuold be fairy quick
         // until not interrupted tasks to complete.
         for (ExecutorService exec : Arrays.asList(executor, validationExecutor, viewBuildExecutor,
-                                                  cacheCleanupExecutor, secondaryIndexExecutor))
+                                                  cacheCleanupExecutor, secondaryIndexExecutor, subtaskExecutor))
         {
             try
             {
@@ -1935,6 +1942,43 @@ public class CompactionManager implements CompactionManagerMBean, ICompactionMan
         return submitIndexBuild(builder, active);
     }
 
+    /**
+     * Reserves up to the given number of threads to compact the sub-ranges of a compaction split by
+     * {@link CompactionTask}, so that the threads compacting in the compaction executor and in the subtask executor
+     * together stay within concurrent_compactors. As the compactions starting later in the compaction executor do not
+     * wait for the reserved threads, this only holds for the compactions running when the threads are reserved: the
+     * total may exceed concurrent_compactors until the reserved threads are released.
+     *
+     * @return the number of threads reserved, possibly none, to release with {@link #releaseSubtaskThreads}
+     */
+    @VisibleForTesting
+    public int reserveSubtaskThreads(int wanted)
+    {
+        while (true)
+        {
+            int reserved = reservedSubtaskThreads.get();
+            int available = executor.getCorePoolSize() - executor.getActiveTaskCount() - reserved;
+            int granted = Math.max(0, Math.min(wanted, available));
+            if (granted == 0 || reservedSubtaskThreads.compareAndSet(reserved, reserved + granted))
+                return granted;
+        }
+    }
+
+    @VisibleForTesting
+    public void releaseSubtaskThreads(int threads)
+    {
+        reservedSubtaskThreads.addAndGet(-threads);
+    }
+
+    /**
+     * Submits the compaction of one of the sub-ranges of a compaction split by {@link CompactionTask}, which must have
+     * {@link #reserveSubtaskThreads reserved} a thread for it.
+     */
+    Future<Void> submitCompactionSubtask(Callable<Void> subtask)
+    {
+        return subtaskExecutor.submitIfRunning(subtask, "compaction subtask");
+    }
+
     public Future<?> submitCacheWrite(final AutoSavingCache.Writer writer)
     {
         return submitCacheWrite(writer, active);
@@ -2248,6 +2292,7 @@ public class CompactionManager implements CompactionManagerMBean, ICompactionMan
     public void setConcurrentCompactors(int value)
     {
         adjustCoreSize(executor, value);
+        adjustCoreSize(subtaskExecutor, value);
     }
 
     public void setConcurrentValidations()
@@ -0,0 +1,859 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.cassandra.db.compaction;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import com.google.common.annotations.VisibleForTesting;
+
+import org.apache.cassandra.db.compaction.unified.Controller;
+import org.apache.cassandra.schema.CompactionParams;
+import org.apache.cassandra.utils.Pair;
+
+/**
+ * A model of the compactions performed by the compaction strategies, used to estimate the write amplification, space
+ * amplification and number of sstables per read that a strategy and its options would lead to over a synthetic write
+ * stream, without touching any data.
+ * <p>
+ * SSTables are described only by the portion of the token ring they cover, their size, their timestamps and their
+ * level, and data is assumed to be spread uniformly over the ring. Each flush writes a given amount of data over the
+ * whole ring. Overwrites are modelled with a data set of a fixed size: writing w bytes over a portion of the ring that
+ * holds k bytes of distinct data leaves k * (1 - exp(-w / k)) bytes of it, so that compacting overlapping sstables
+ * drops the data they share. Without a data set size all writes are distinct. Tombstones, expiration and the hotness
+ * of the sstables are not modelled.
+ * <p>
+ * The choice of the compactions replays the logic of the strategies, reusing their sizing methods where they can be
+ * used without a table: {@link SizeTieredCompactionStrategy#getBuckets}, {@link LeveledManifest#maxBytesForLevel},
+ * {@link TimeWindowCompactionStrategy#getWindowBoundsInMillis} and the UCS {@link Controller}. Compactions are run
+ * to completion after each flush, as if compaction kept up with the writes.
+ */
+public class CompactionSimulation
+{
+    /** Upper bound on the compactions run after each flush, in case a strategy never settles. */
+    private static final int MAX_COMPACTIONS_PER_FLUSH = 1000;
+
+    public enum Strategy
+    {
+        STCS(SizeTieredCompactionStrategy.class),
+        LCS(LeveledCompactionStrategy.class),
+        TWCS(TimeWindowCompactionStrategy.class),
+        UCS(UnifiedCompactionStrategy.class);
+
+        public final Class<? extends AbstractCompactionStrategy> strategyClass;
+
+        Strategy(Class<? extends AbstractCompactionStrategy> strategyClass)
+        {
+            this.strategyClass = strategyClass;
+        }
+
+        /**
+         * @param name the short name of the strategy, or the simple or full name of its class
+         */
+        public static Strategy fromString(String name)
+        {
+            for (Strategy strategy : values())
+            {
+                if (strategy.name().equalsIgnoreCase(name)
+                    || strategy.strategyClass.getSimpleName().equals(name)
+                    || strategy.strategyClass.getName().equals(name))
+                    return strategy;
+            }
+            throw new IllegalArgumentException("Unknown compaction strategy " + name);
+        }
+    }
+
+    /**
+     * An sstable of the model. The covered token range is expressed in fractions of the ring, the timestamps in the
+     * timestamp resolution of the table, which is microseconds unless configured otherwise for TWCS.
+     */
+    public static final class SSTable
+    {
+        public final double first;
+        public final double last;
+        public final double size;
+        public final long minTimestamp;
+        public final long maxTimestamp;
+        public final int level;
+
+        // the bytes written to produce the sstable, which may be larger than its size because of overwrites,
+        // or NaN when not known yet
+        final double writes;
+
+        public SSTable(double first, double last, double size, long minTimestamp, long maxTimestamp, int level)
+        {
+            this(first, last, size, Double.NaN, minTimestamp, maxTimestamp, level);
+        }
+
+        private SSTable(double first, double last, double size, double writes, long minTimestamp, long maxTimestamp, int level)
+        {
+            assert 0 <= first && first <= last && last <= 1 : first + ", " + last;
+            this.first = first;
+            this.last = last;
+            this.size = size;
+            this.writes = writes;
+            this.minTimestamp = minTimestamp;
+            this.maxTimestamp = maxTimestamp;
+            this.level = level;
+        }
+
+        public double span()
+        {
+            return last - first;
+        }
+
+        /**
+         * The size of the sstable relative to the portion of the ring it covers, as computed by {@link ShardManager}.
+         */
+        double density()
+        {
+            double span = span();
+            return size / (span >= ShardManager.MINIMUM_TOKEN_COVERAGE ? span : 1.0);
+        }
+
+        // ranges are end-exclusive, so that adjacent sstables do not overlap, unless they cover a single position
+        boolean covers(double position)
+        {
+            return first <= position && (position < last || position == first);
+        }
+
+        boolean overlaps(SSTable other)
+        {
+            return Math.max(first, other.first) < Math.min(last, other.last) || covers(other.first) || other.covers(first);
+        }
+
+        private SSTable part(double first, double last, int level)
+        {
+            double fraction = span() > 0 ? (last - first) / span() : 1;
+            return new SSTable(first, last, size * fraction, writes * fraction, minTimestamp, maxTimestamp, level);
+        }
+
+        @Override
+        public String toString()
+        {
+            return String.format("SSTable[%.4f, %.4f], L%d, %.0f bytes", first, last, level, size);
+        }
+    }
+
+    /**
+     * The synthetic write stream: a number of flushes of a given size at a given interval, and the size of the
+     * data set they overwrite, or 0 if all writes are distinct.
+     */
+    public static final class Workload
+    {
+        public final int flushes;
+        public final long flushSize;
+        public final long flushIntervalMillis;
+        public final double datasetSize;
+
+        public Workload(int flushes, long flushSize, long flushIntervalMillis, double datasetSize)
+        {
+            this.flushes = flushes;
+            this.flushSize = flushSize;
+            this.flushIntervalMillis = flushIntervalMillis;
+            this.datasetSize = datasetSize;
+        }
+
+        /**
+         * The size of the distinct data of a portion of the ring after the given bytes were written to it.
+         */
+        double sizeAfterWrites(double writes, double span)
+        {
+            if (datasetSize <= 0)
+                return writes;
+            double capacity = datasetSize * span;
+            return capacity > 0 ? -capacity * Math.expm1(-writes / capacity) : Math.min(writes, datasetSize);
+        }
+
+        /**
+         * The inverse of {@link #sizeAfterWrites}, used for the sstables of the initial state.
+         */
+        double writesForSize(double size, double span)
+        {
+            double capacity = datasetSize * span;
+            if (datasetSize <= 0 || size >= capacity)
+                return size;
+            return -capacity * Math.log1p(-size / capacity);
+        }
+    }
+
+    public static final class Result
+    {
+        public final Strategy strategy;
+        public final double writeAmplification;
+        public final double meanSpaceAmplification;
+        public final double maxSpaceAmplification;
+        public final double meanSSTablesPerRead;
+        public final int maxSSTablesPerRead;
+        public final int compactions;
+        public final int sstables;
+        public final double liveSize;
+
+        Result(Strategy strategy,
+               double writeAmplification,
+               double meanSpaceAmplification,
+               double maxSpaceAmplification,
+               double meanSSTablesPerRead,
+               int maxSSTablesPerRead,
+               int compactions,
+               int sstables,
+               double liveSize)
+        {
+            this.strategy = strategy;
+            this.writeAmplification = writeAmplification;
+            this.meanSpaceAmplification = meanSpaceAmplification;
+            this.maxSpaceAmplification = maxSpaceAmplification;
+            this.meanSSTablesPerRead = meanSSTablesPerRead;
+            this.maxSSTablesPerRead = maxSSTablesPerRead;
+            this.compactions = compactions;
+            this.sstables = sstables;
+            this.liveSize = liveSize;
+        }
+
+        @Override
+        public String toString()
+        {
+            return String.format("%s: WA %.2f, SA %.2f (max %.2f), sstables per read %.2f (max %d), %d compactions, %d sstables",
+                                 strategy, writeAmplification, meanSpaceAmplification, maxSpaceAmplification,
+                                 meanSSTablesPerRead, maxSSTablesPerRead, compactions, sstables);
+        }
+    }
+
+    /**
+     * Simulates the given strategy from the given initial sstables over the given workload.
+     *
+     * @param options the compaction options of the table, as given to the strategy
+     */
+    public static Result simulate(Strategy strategy, Map<String, String> options, Collection<SSTable> initial, Workload workload)
+    {
+        Policy policy;
+        switch (strategy)
+        {
+            case STCS:
+                policy = new SizeTiered(options);
+                break;
+            case LCS:
+                policy = new Leveled(options);
+                break;
+            case TWCS:
+                policy = new TimeWindow(options);
+                break;
+            case UCS:
+                policy = new Unified(options, workload.flushSize);
+                break;
+            default:
+                throw new AssertionError(strategy);
+        }
+        return new Run(strategy, policy, initial, workload).run();
+    }
+
+    /**
+     * The expected number of sstables a read of a random key has to look into, i.e. the sum of the spans.
+     */
+    @VisibleForTesting
+    static double meanOverlap(Collection<SSTable> sstables)
+    {
+        double overlap = 0;
+        for (SSTable sstable : sstables)
+            overlap += sstable.span();
+        return overlap;
+    }
+
+    /**
+     * The maximum number of sstables covering any position of the ring, and the first position where it is reached.
+     */
+    @VisibleForTesting
+    static Pair<Integer, Double> maxOverlap(Collection<SSTable> sstables)
+    {
+        // ends are processed before the starts at the same position, and the ends of the sstables covering
+        // a single position after them
+        final int END = 0, START = 1, POINT_END = 2;
+        List<double[]> events = new ArrayList<>(sstables.size() * 2);
+        for (SSTable sstable : sstables)
+        {
+            events.add(new double[]{ sstable.first, START });
+            events.add(new double[]{ sstable.last, sstable.span() > 0 ? END : POINT_END });
+        }
+        events.sort(Comparator.<double[]>comparingDouble(e -> e[0]).thenComparingDouble(e -> e[1]));
+
+        int overlap = 0, max = 0;
+        double position = 0;
+        for (double[] event : events)
+        {
+            if (event[1] == START)
+            {
+                if (++overlap > max)
+                {
+                    max = overlap;
+                    position = event[0];
+                }
+            }
+            else
+            {
+                --overlap;
+            }
+        }
+        return Pair.create(max, position);
+    }
+
+    private static double totalSize(Collection<SSTable> sstables)
+    {
+        double size = 0;
+        for (SSTable sstable : sstables)
+            size += sstable.size;
+        return size;
+    }
+
+    private static List<SSTable> overlapping(Collection<SSTable> candidates, Collection<SSTable> sstables)
+    {
+        List<SSTable> overlapping = new ArrayList<>();
+        for (SSTable sstable : sstables)
+        {
+            for (SSTable candidate : candidates)
+            {
+                if (sstable.overlaps(candidate))
+                {
+                    overlapping.add(sstable);
+                    break;
+                }
+            }
+        }
+        return overlapping;
+    }
+
+    private static List<SSTable> byAge(Collection<SSTable> sstables)
+    {
+        List<SSTable> sorted = new ArrayList<>(sstables);
+        sorted.sort(Comparator.comparingLong(s -> s.maxTimestamp));
+        return sorted;
+    }
+
+    private static int threshold(Map<String, String> options, CompactionParams.Option option, int defaultValue)
+    {
+        String value = options.get(option.toString());
+        return value == null ? defaultValue : Integer.parseInt(value);
+    }
+
+    /**
+     * Splits an sstable in parts of equal span that are at most the given size.
+     */
+    private static List<SSTable> splitBySize(SSTable sstable, int level, double maxSize)
+    {
+        int parts = (int) Math.min(Math.ceil(sstable.size / maxSize), Integer.MAX_VALUE);
+        if (parts <= 1 || sstable.span() == 0)
+            return Collections.singletonList(sstable.part(sstable.first, sstable.last, level));
+
+        List<SSTable> split = new ArrayList<>(parts);
+        double start = sstable.first;
+        for (int i = 1; i <= parts; i++)
+        {
+            double end = i == parts ? sstable.last : sstable.first + sstable.span() * i / parts;
+            split.add(sstable.part(start, end, level));
+            start = end;
+        }
+        return split;
+    }
+
+    /**
+     * Splits an sstable at the boundaries of the given number of shards of equal span.
+     */
+    private static List<SSTable> splitByShards(SSTable sstable, int shards)
+    {
+        if (shards <= 1 || sstable.span() == 0)
+            return Collections.singletonList(sstable);
+
+        List<SSTable> split = new ArrayList<>();
+        double start = sstable.first;
+        for (long shard = (long) (sstable.first * shards); start < sstable.last; shard++)
+        {
+            double end = Math.min(sstable.last, (double) (shard + 1) / shards);
+            if (end > start)
+                split.add(sstable.part(start, end, sstable.level));
+            start = Math.max(start, end);
+        }
+        return split;
+    }
+
+    /**
+     * A compaction of the model: the input sstables, and how to split the result of their merge in output sstables.
+     */
+    private static final class Compaction
+    {
+        final Collection<SSTable> inputs;
+        final Function<SSTable, List<SSTable>> outputs;
+
+        Compaction(Collection<SSTable> inputs, Function<SSTable, List<SSTable>> outputs)
+        {
+            this.inputs = inputs;
+            this.outputs = outputs;
+        }
+    }
+
+    /**
+     * The choice of the compactions of a strategy.
+     */
+    private interface Policy
+    {
+        /**
+         * @return the next compaction to run on the given live sstables, or null if there is none
+         */
+        Compaction next(List<SSTable> live);
+
+        default List<SSTable> flushed(SSTable sstable)
+        {
+            return Collections.singletonList(sstable);
+        }
+
+        default TimeUnit timestampResolution()
+        {
+            return TimeUnit.MICROSECONDS;
+        }
+    }
+
+    private static class SizeTiered implements Policy
+    {
+        final SizeTieredCompactionStrategyOptions options;
+        final int minThreshold;
+        final int maxThreshold;
+
+        SizeTiered(Map<String, String> options)
+        {
+            this.options = new SizeTieredCompactionStrategyOptions(options);
+            this.minThreshold = threshold(options, CompactionParams.Option.MIN_THRESHOLD, CompactionParams.DEFAULT_MIN_THRESHOLD);
+            this.maxThreshold = threshold(options, CompactionParams.Option.MAX_THRESHOLD, CompactionParams.DEFAULT_MAX_THRESHOLD);
+        }
+
+        @Override
+        public Compaction next(List<SSTable> live)
+        {
+            List<SSTable> bucket = mostInterestingBucket(live);
+            return bucket.isEmpty() ? null : new Compaction(bucket, Collections::singletonList);
+        }
+
+        /**
+         * As {@link SizeTieredCompactionStrategy#mostInterestingBucket}, without reads to tell the hotness of the
+         * sstables: the bucket of the smallest sstables wins.
+         */
+        List<SSTable> mostInterestingBucket(Collection<SSTable> sstables)
+        {
+            List<Pair<SSTable, Long>> pairs = new ArrayList<>(sstables.size());
+            for (SSTable sstable : sstables)
+                pairs.add(Pair.create(sstable, (long) sstable.size));
+
+            List<SSTable> best = Collections.emptyList();
+            double bestAverageSize = Double.MAX_VALUE;
+            for (List<SSTable> bucket : SizeTieredCompactionStrategy.getBuckets(pairs, options.bucketHigh, options.bucketLow, options.minSSTableSize))
+            {
+                if (bucket.size() < minThreshold)
+                    continue;
+
+                bucket.sort(Comparator.comparingDouble(s -> s.size));
+                List<SSTable> trimmed = bucket.subList(0, Math.min(bucket.size(), maxThreshold));
+                double averageSize = totalSize(trimmed) / trimmed.size();
+                if (averageSize < bestAverageSize)
+                {
+                    best = trimmed;
+                    bestAverageSize = averageSize;
+                }
+            }
+            return best;
+        }
+    }
+
+    private static class Leveled implements Policy
+    {
+        final SizeTiered l0SizeTiered;
+        final int maxThreshold;
+        final long maxSSTableSize;
+        final int fanout;
+
+        // the start of the last sstable compacted from each level, to compact them round-robin as the manifest does
+        final double[] lastCompacted = new double[LeveledGenerations.MAX_LEVEL_COUNT];
+
+        Leveled(Map<String, String> options)
+        {
+            this.l0SizeTiered = new SizeTiered(options);
+            this.maxThreshold = l0SizeTiered.maxThreshold;
+            this.maxSSTableSize = Long.parseLong(options.getOrDefault(LeveledCompactionStrategy.SSTABLE_SIZE_OPTION, "160")) << 20;
+            this.fanout = Integer.parseInt(options.getOrDefault(LeveledCompactionStrategy.LEVEL_FANOUT_SIZE_OPTION,
+                                                                Integer.toString(LeveledCompactionStrategy.DEFAULT_LEVEL_FANOUT_SIZE)));
+            Arrays.fill(lastCompacted, -1);
+        }
+
+        @Override
+        public Compaction next(List<SSTable> live)
+        {
+            List<List<SSTable>> levels = new ArrayList<>(LeveledGenerations.MAX_LEVEL_COUNT);
+            for (int i = 0; i < LeveledGenerations.MAX_LEVEL_COUNT; i++)
+                levels.add(new ArrayList<>());
+            for (SSTable sstable : live)
+                levels.get(Math.min(sstable.level, LeveledGenerations.MAX_LEVEL_COUNT - 1)).add(sstable);
+
+            // as LeveledManifest#getCompactionCandidates: if L0 is too far behind, size-tier it before anything else
+            List<SSTable> l0Compaction = levels.get(0).size() > LeveledManifest.MAX_COMPACTING_L0
+                                         ? l0SizeTiered.mostInterestingBucket(levels.get(0))
+                                         : Collections.emptyList();
+
+            for (int i = levels.size() - 2; i > 0; i--)
+            {
+                List<SSTable> level = levels.get(i);
+                if (level.isEmpty())
+                    continue;
+
+                double score = totalSize(level) / LeveledManifest.maxBytesForLevel(i, fanout, maxSSTableSize);
+                if (score > 1.001)
+                {
+                    if (!l0Compaction.isEmpty())
+                        return new Compaction(l0Compaction, Collections::singletonList);
+
+                    SSTable sstable = nextInLevel(i, level);
+                    List<SSTable> candidates = new ArrayList<>(overlapping(Collections.singleton(sstable), levels.get(i + 1)));
+                    candidates.add(sstable);
+                    return compaction(candidates, i + 1);
+                }
+            }
+
+            List<SSTable> candidates = l0Candidates(levels.get(0), levels.get(1));
+            if (candidates.size() < 2)
+                return l0Compaction.isEmpty() ? null : new Compaction(l0Compaction, Collections::singletonList);
+
+            // as LeveledManifest#getNextLevel
+            int minLevel = Integer.MAX_VALUE, maxLevel = Integer.MIN_VALUE;
+            for (SSTable candidate : candidates)
+            {
+                minLevel = Math.min(minLevel, candidate.level);
+                maxLevel = Math.max(maxLevel, candidate.level);
+            }
+            int nextLevel = minLevel == 0 && maxLevel == 0 && totalSize(candidates) < maxSSTableSize
+                            ? 0
+                            : minLevel == maxLevel ? maxLevel + 1 : maxLevel;
+            return compaction(candidates, nextLevel);
+        }
+
+        private Compaction compaction(Collection<SSTable> candidates, int level)
+        {
+            return new Compaction(candidates, merged -> splitBySize(merged, level, maxSSTableSize));
+        }
+
+        private SSTable nextInLevel(int index, List<SSTable> level)
+        {
+            level.sort(Comparator.comparingDouble(s -> s.first));
+            SSTable next = level.get(0);
+            for (SSTable sstable : level)
+            {
+                if (sstable.first > lastCompacted[index])
+                {
+                    next = sstable;
+                    break;
+                }
+            }
+            lastCompacted[index] = next.first;
+            return next;
+        }
+
+        /**
+         * As LeveledManifest#getCandidatesFor(0): the oldest L0 sstables and the ones overlapping them, up to
+         * max_threshold, with the overlapping L1 sstables if they make more than an sstable's worth of data.
+         */
+        private List<SSTable> l0Candidates(List<SSTable> l0, List<SSTable> l1)
+        {
+            Set<SSTable> candidates = new LinkedHashSet<>();
+            List<SSTable> remaining = byAge(l0);
+            for (SSTable sstable : byAge(l0))
+            {
+                if (candidates.contains(sstable))
+                    continue;
+
+                List<SSTable> overlapped = overlapping(Collections.singleton(sstable), remaining);
+                candidates.addAll(overlapped);
+                remaining.removeAll(overlapped);
+
+                if (candidates.size() > maxThreshold)
+                {
+                    candidates = new LinkedHashSet<>(byAge(candidates).subList(0, maxThreshold));
+                    break;
+                }
+            }
+
+            if (totalSize(candidates) > maxSSTableSize)
+                candidates.addAll(overlapping(candidates, l1));
+            return new ArrayList<>(candidates);
+        }
+    }
+
+    private static class TimeWindow implements Policy
+    {
+        final TimeWindowCompactionStrategyOptions options;
+        final SizeTiered newestWindow;
+
+        TimeWindow(Map<String, String> options)
+        {
+            this.options = new TimeWindowCompactionStrategyOptions(options);
+            this.newestWindow = new SizeTiered(options);
+        }
+
+        @Override
+        public TimeUnit timestampResolution()
+        {
+            return options.timestampResolution;
+        }
+
+        @Override
+        public Compaction next(List<SSTable> live)
+        {
+            TreeMap<Long, List<SSTable>> windows = new TreeMap<>(Comparator.reverseOrder());
+            for (SSTable sstable : live)
+            {
+                long window = TimeWindowCompactionStrategy.getWindowBoundsInMillis(options.sstableWindowUnit,
+                                                                                   options.sstableWindowSize,
+                                                                                   options.timestampResolution.toMillis(sstable.maxTimestamp)).left;
+                windows.computeIfAbsent(window, w -> new ArrayList<>()).add(sstable);
+            }
+
+            // as TimeWindowCompactionStrategy#newestBucket: size-tier the newest window, compact older ones entirely
+            boolean newest = true;
+            for (List<SSTable> window : windows.values())
+            {
+                if (newest)
+                {
+                    List<SSTable> bucket = newestWindow.mostInterestingBucket(window);
+                    if (!bucket.isEmpty())
+                        return new Compaction(bucket, Collections::singletonList);
+                    newest = false;
+                }
+                else if (window.size() >= 2)
+                {
+                    window.sort(Comparator.comparingDouble(s -> s.size));
+                    List<SSTable> trimmed = window.subList(0, Math.min(window.size(), newestWindow.maxThreshold));
+                    return new Compaction(trimmed, Collections::singletonList);
+                }
+            }
+            return null;
+        }
+    }
+
+    private static class Unified implements Policy
+    {
+        final Controller controller;
+
+        Unified(Map<String, String> options, long flushSize)
+        {
+            // there is no table to observe the flushes of
+            Map<String, String> controllerOptions = new HashMap<>(options);
+            controllerOptions.putIfAbsent(Controller.FLUSH_SIZE_OVERRIDE_OPTION, flushSize + "B");
+            this.controller = Controller.fromOptions(null, controllerOptions);
+        }
+
+        @Override
+        public List<SSTable> flushed(SSTable sstable)
+        {
+            return shard(sstable);
+        }
+
+        private List<SSTable> shard(SSTable sstable)
+        {
+            return splitByShards(sstable, controller.getNumShards(sstable.density()));
+        }
+
+        @Override
+        public Compaction next(List<SSTable> live)
+        {
+            // as UnifiedCompactionStrategy#chooseCompactionPick: the level with the highest overlap above its
+            // threshold, the lowest one on ties
+            List<SSTable> selected = null;
+            int selectedOverlap = -1;
+            for (Pair<Integer, List<SSTable>> level : formLevels(live))
+            {
+                Pair<Integer, Double> overlap = maxOverlap(level.right);
+                if (overlap.left < controller.getThreshold(level.left) || overlap.left <= selectedOverlap)
+                    continue;
+
+                selectedOverlap = overlap.left;
+                selected = new ArrayList<>();
+                for (SSTable sstable : level.right)
+                {
+                    if (sstable.covers(overlap.right))
+                        selected.add(sstable);
+                }
+            }
+            if (selected == null)
+                return null;
+
+            if (selected.size() > controller.maxSSTablesToCompact())
+                selected = byAge(selected).subList(0, controller.maxSSTablesToCompact());
+            return new Compaction(selected, this::shard);
+        }
+
+        /**
+         * As UnifiedCompactionStrategy#formLevels, on the whole ring.
+         */
+        private List<Pair<Integer, List<SSTable>>> formLevels(List<SSTable> live)
+        {
+            List<SSTable> sorted = new ArrayList<>(live);
+            sorted.sort(Comparator.comparingDouble(SSTable::density));
+
+            List<Pair<Integer, List<SSTable>>> levels = new ArrayList<>();
+            int index = 0;
+            double maxDensity = controller.getMaxLevelDensity(0, controller.getBaseSstableSize(controller.getFanout(0)));
+            List<SSTable> level = new ArrayList<>();
+            for (SSTable sstable : sorted)
+            {
+                while (sstable.density() >= maxDensity && index < UnifiedCompactionStrategy.MAX_LEVELS - 1)
+                {
+                    levels.add(Pair.create(index, level));
+                    level = new ArrayList<>();
+                    maxDensity = controller.getMaxLevelDensity(++index, maxDensity);
+                }
+                level.add(sstable);
+            }
+            levels.add(Pair.create(index, level));
+            return levels;
+        }
+    }
+
+    private static final class Run
+    {
+        final Strategy strategy;
+        final Policy policy;
+        final Workload workload;
+        final List<SSTable> live = new ArrayList<>();
+
+        double writes;
+        double flushedBytes;
+        double compactedBytes;
+        int compactions;
+
+        double maxSpaceAmplification;
+        double spaceAmplificationSum;
+        double overlapSum;
+        int maxOverlap;
+
+        Run(Strategy strategy, Policy policy, Collection<SSTable> initial, Workload workload)
+        {
+            this.strategy = strategy;
+            this.policy = policy;
+            this.workload = workload;
+            for (SSTable sstable : initial)
+            {
+                double sstableWrites = workload.writesForSize(sstable.size, sstable.span());
+                live.add(new SSTable(sstable.first, sstable.last, sstable.size, sstableWrites,
+                                     sstable.minTimestamp, sstable.maxTimestamp, sstable.level));
+                writes += sstableWrites;
+            }
+        }
+
+        Result run()
+        {
+            TimeUnit resolution = policy.timestampResolution();
+            long now = 0;
+            for (SSTable sstable : live)
+                now = Math.max(now, resolution.toMillis(sstable.maxTimestamp));
+
+            for (int i = 0; i < workload.flushes; i++)
+            {
+                long start = now;
+                now += workload.flushIntervalMillis;
+                writes += workload.flushSize;
+                SSTable flushed = new SSTable(0, 1, workload.sizeAfterWrites(workload.flushSize, 1), workload.flushSize,
+                                              resolution.convert(start, TimeUnit.MILLISECONDS),
+                                              resolution.convert(now, TimeUnit.MILLISECONDS),
+                                              0);
+                for (SSTable sstable : policy.flushed(flushed))
+                {
+                    live.add(sstable);
+                    flushedBytes += sstable.size;
+                }
+                observeSpace(totalSize(live));
+
+                for (int c = 0; c < MAX_COMPACTIONS_PER_FLUSH; c++)
+                {
+                    Compaction compaction = policy.next(live);
+                    if (compaction == null)
+                        break;
+                    compact(compaction);
+                }
+
+                double total = totalSize(live);
+                spaceAmplificationSum += total / logicalSize();
+                overlapSum += meanOverlap(live);
+                maxOverlap = Math.max(maxOverlap, maxOverlap(live).left);
+            }
+
+            int samples = Math.max(1, workload.flushes);
+            return new Result(strategy,
+                              flushedBytes > 0 ? (flushedBytes + compactedBytes) / flushedBytes : 1,
+                              spaceAmplificationSum / samples,
+                              maxSpaceAmplification,
+                              overlapSum / samples,
+                              maxOverlap,
+                              compactions,
+                              live.size(),
+                              totalSize(live));
+        }
+
+        private void compact(Compaction compaction)
+        {
+            double first = 1, last = 0, size = 0, compactionWrites = 0;
+            long minTimestamp = Long.MAX_VALUE, maxTimestamp = Long.MIN_VALUE;
+            for (SSTable input : compaction.inputs)
+            {
+                first = Math.min(first, input.first);
+                last = Math.max(last, input.last);
+                size += input.size;
+                compactionWrites += input.writes;
+                minTimestamp = Math.min(minTimestamp, input.minTimestamp);
+                maxTimestamp = Math.max(maxTimestamp, input.maxTimestamp);
+            }
+            // the inputs may not be spread over the whole span of the output, it cannot be larger than them
+            double mergedSize = Math.min(size, workload.sizeAfterWrites(compactionWrites, last - first));
+            SSTable merged = new SSTable(first, last, mergedSize, compactionWrites, minTimestamp, maxTimestamp, 0);
+
+            List<SSTable> outputs = compaction.outputs.apply(merged);
+            double outputSize = totalSize(outputs);
+            // the inputs are only deleted once the compaction completes
+            observeSpace(totalSize(live) + outputSize);
+
+            live.removeAll(compaction.inputs);
+            live.addAll(outputs);
+            compactedBytes += outputSize;
+            compactions++;
+        }
+
+        private void observeSpace(double total)
+        {
+            maxSpaceAmplification = Math.max(maxSpaceAmplification, total / logicalSize());
+        }
+
+        private double logicalSize()
+        {
+            return workload.sizeAfterWrites(writes, 1);
+        }
+    }
+}
@@ -183,7 +183,7 @@ public class CompactionStrategyHolder extends AbstractStrategyHolder
     }
 
     @Override
-    public List<ISSTableScanner> getScanners(GroupedSSTableContainer sstables, Collection<Range<Token>> ranges)
+    public List<ISSTableScanner> getScanners(GroupedSSTableContainer sstables, Collection<Range<Token>> ranges, boolean bypassCache)
     {
         List<ISSTableScanner> scanners = new ArrayList<>(strategies.size());
         for (int i = 0; i < strategies.size(); i++)
@@ -191,7 +191,7 @@ public class CompactionStrategyHolder extends AbstractStrategyHolder
             if (sstables.isGroupEmpty(i))
                 continue;
 
-            scanners.addAll(strategies.get(i).getScanners(sstables.getGroup(i), ranges).scanners);
+            scanners.addAll(strategies.get(i).getScanners(sstables.getGroup(i), ranges, bypassCache).scanners);
         }
         return scanners;
     }
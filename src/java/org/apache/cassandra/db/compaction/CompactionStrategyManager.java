@@ -957,6 +957,11 @@ public class CompactionStrategyManager implements INotificationConsumer
      * @return
      */
     public AbstractCompactionStrategy.ScannerList maybeGetScanners(Collection<SSTableReader> sstables,  Collection<Range<Token>> ranges)
+    {
+        return maybeGetScanners(sstables, ranges, false);
+    }
+
+    private AbstractCompactionStrategy.ScannerList maybeGetScanners(Collection<SSTableReader> sstables,  Collection<Range<Token>> ranges, boolean bypassCache)
     {
         maybeReloadDiskBoundaries();
         List<ISSTableScanner> scanners = new ArrayList<>(sstables.size());
@@ -969,7 +974,7 @@ public class CompactionStrategyManager implements INotificationConsumer
             {
                 AbstractStrategyHolder holder = holders.get(i);
                 GroupedSSTableContainer group = sstableGroups.get(i);
-                scanners.addAll(holder.getScanners(group, ranges));
+                scanners.addAll(holder.getScanners(group, ranges, bypassCache));
             }
         }
         catch (PendingRepairManager.IllegalSSTableArgumentException e)
@@ -984,12 +989,21 @@ public class CompactionStrategyManager implements INotificationConsumer
     }
 
     public AbstractCompactionStrategy.ScannerList getScanners(Collection<SSTableReader> sstables,  Collection<Range<Token>> ranges)
+    {
+        return getScanners(sstables, ranges, false);
+    }
+
+    /**
+     * Create ISSTableScanners from the given sstables, optionally reading them without going through the chunk cache,
+     * as done for repair validation so that it does not evict the data cached for reads.
+     */
+    public AbstractCompactionStrategy.ScannerList getScanners(Collection<SSTableReader> sstables,  Collection<Range<Token>> ranges, boolean bypassCache)
     {
         while (true)
         {
             try
             {
-                return maybeGetScanners(sstables, ranges);
+                return maybeGetScanners(sstables, ranges, bypassCache);
             }
             catch (ConcurrentModificationException e)
             {
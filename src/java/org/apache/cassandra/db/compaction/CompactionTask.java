@@ -18,12 +18,16 @@
 package org.apache.cassandra.db.compaction;
 
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
 import java.util.concurrent.TimeUnit;
 
 import com.google.common.base.Predicate;
@@ -37,17 +41,28 @@ import org.slf4j.LoggerFactory;
 
 import org.apache.cassandra.config.DatabaseDescriptor;
 import org.apache.cassandra.db.ColumnFamilyStore;
+import org.apache.cassandra.db.DecoratedKey;
 import org.apache.cassandra.db.Directories;
+import org.apache.cassandra.db.SerializationHeader;
 import org.apache.cassandra.db.SystemKeyspace;
 import org.apache.cassandra.db.compaction.writers.CompactionAwareWriter;
 import org.apache.cassandra.db.compaction.writers.DefaultCompactionWriter;
 import org.apache.cassandra.db.lifecycle.LifecycleTransaction;
+import org.apache.cassandra.db.rows.UnfilteredRowIterator;
+import org.apache.cassandra.dht.Range;
+import org.apache.cassandra.dht.Token;
+import org.apache.cassandra.io.sstable.Descriptor;
+import org.apache.cassandra.io.sstable.SSTableMultiWriter;
+import org.apache.cassandra.io.sstable.SimpleSSTableMultiWriter;
 import org.apache.cassandra.io.sstable.format.SSTableReader;
 import org.apache.cassandra.io.sstable.metadata.MetadataCollector;
 import org.apache.cassandra.io.util.File;
 import org.apache.cassandra.service.ActiveRepairService;
+import org.apache.cassandra.service.StorageService;
 import org.apache.cassandra.utils.FBUtilities;
+import org.apache.cassandra.utils.Throwables;
 import org.apache.cassandra.utils.TimeUUID;
+import org.apache.cassandra.utils.concurrent.Future;
 import org.apache.cassandra.utils.concurrent.Refs;
 
 import static org.apache.cassandra.db.compaction.CompactionHistoryTabularData.COMPACTION_TYPE_PROPERTY;
@@ -181,57 +196,87 @@ public class CompactionTask extends AbstractCompactionTask
             long totalSourceCQLRows;
 
             long nowInSec = FBUtilities.nowInSeconds();
-            try (Refs<SSTableReader> refs = Refs.ref(actuallyCompact);
-                 AbstractCompactionStrategy.ScannerList scanners = strategy.getScanners(actuallyCompact);
-                 CompactionIterator ci = new CompactionIterator(compactionType, scanners.scanners, controller, nowInSec, taskId))
+            List<Range<Token>> subranges = getParallelSubranges(actuallyCompact);
+            if (subranges.size() > 1)
             {
-                long lastCheckObsoletion = start;
-                inputSizeBytes = scanners.getTotalCompressedSize();
-                double compressionRatio = scanners.getCompressionRatio();
-                if (compressionRatio == MetadataCollector.NO_COMPRESSION_RATIO)
-                    compressionRatio = 1.0;
+                List<Subtask> subtasks = new ArrayList<>(subranges.size());
+                for (Range<Token> range : subranges)
+                    subtasks.add(new Subtask(range, actuallyCompact, nowInSec, taskId));
 
-                long lastBytesScanned = 0;
+                try (Refs<SSTableReader> refs = Refs.ref(actuallyCompact))
+                {
+                    inputSizeBytes = SSTableReader.getTotalBytes(actuallyCompact);
+                    estimatedKeys = SSTableReader.getApproximateKeyCount(actuallyCompact);
+                    newSStables = compactInParallel(subtasks);
+                }
+                timeSpentWritingKeys = TimeUnit.NANOSECONDS.toMillis(nanoTime() - start);
 
-                activeCompactions.beginCompaction(ci);
-                try (CompactionAwareWriter writer = getCompactionAwareWriter(cfs, getDirectories(), transaction, actuallyCompact))
+                mergedRowCounts = new long[0];
+                totalSourceCQLRows = 0;
+                for (Subtask subtask : subtasks)
                 {
-                    // Note that we need to re-check this flag after calling beginCompaction above to avoid a window
-                    // where the compaction does not exist in activeCompactions but the CSM gets paused.
-                    // We already have the sstables marked compacting here so CompactionManager#waitForCessation will
-                    // block until the below exception is thrown and the transaction is cancelled.
-                    if (!controller.cfs.getCompactionStrategyManager().isActive())
-                        throw new CompactionInterruptedException(ci.getCompactionInfo());
-                    estimatedKeys = writer.estimatedKeys();
-                    while (ci.hasNext())
+                    totalKeysWritten += subtask.keysWritten;
+                    totalSourceCQLRows += subtask.totalSourceCQLRows;
+                    if (subtask.mergedRowCounts.length > mergedRowCounts.length)
+                        mergedRowCounts = Arrays.copyOf(mergedRowCounts, subtask.mergedRowCounts.length);
+                    for (int i = 0; i < subtask.mergedRowCounts.length; i++)
+                        mergedRowCounts[i] += subtask.mergedRowCounts[i];
+                }
+            }
+            else
+            {
+                try (Refs<SSTableReader> refs = Refs.ref(actuallyCompact);
+                     AbstractCompactionStrategy.ScannerList scanners = getScanners(strategy, actuallyCompact);
+                     CompactionIterator ci = new CompactionIterator(compactionType, scanners.scanners, controller, nowInSec, taskId))
+                {
+                    long lastCheckObsoletion = start;
+                    inputSizeBytes = scanners.getTotalCompressedSize();
+                    double compressionRatio = scanners.getCompressionRatio();
+                    if (compressionRatio == MetadataCollector.NO_COMPRESSION_RATIO)
+                        compressionRatio = 1.0;
+
+                    long lastBytesScanned = 0;
+
+                    activeCompactions.beginCompaction(ci);
+                    try (CompactionAwareWriter writer = getCompactionAwareWriter(cfs, getDirectories(), transaction, actuallyCompact))
                     {
-                        if (writer.append(ci.next()))
-                            totalKeysWritten++;
+                        // Note that we need to re-check this flag after calling beginCompaction above to avoid a window
+                        // where the compaction does not exist in activeCompactions but the CSM gets paused.
+                        // We already have the sstables marked compacting here so CompactionManager#waitForCessation will
+                        // block until the below exception is thrown and the transaction is cancelled.
+                        if (!controller.cfs.getCompactionStrategyManager().isActive())
+                            throw new CompactionInterruptedException(ci.getCompactionInfo());
+                        estimatedKeys = writer.estimatedKeys();
+                        while (ci.hasNext())
+                        {
+                            if (writer.append(ci.next()))
+                                totalKeysWritten++;
 
-                        ci.setTargetDirectory(writer.getSStableDirectory().path());
-                        long bytesScanned = scanners.getTotalBytesScanned();
+                            ci.setTargetDirectory(writer.getSStableDirectory().path());
+                            long bytesScanned = scanners.getTotalBytesScanned();
 
-                        // Rate limit the scanners, and account for compression
-                        CompactionManager.compactionRateLimiterAcquire(limiter, bytesScanned, lastBytesScanned, compressionRatio);
+                            // Rate limit the scanners, and account for compression
+                            CompactionManager.compactionRateLimiterAcquire(limiter, bytesScanned, lastBytesScanned, compressionRatio);
 
-                        lastBytesScanned = bytesScanned;
+                            lastBytesScanned = bytesScanned;
 
-                        if (nanoTime() - lastCheckObsoletion > TimeUnit.MINUTES.toNanos(1L))
-                        {
-                            controller.maybeRefreshOverlaps();
-                            lastCheckObsoletion = nanoTime();
+                            if (nanoTime() - lastCheckObsoletion > TimeUnit.MINUTES.toNanos(1L))
+                            {
+                                controller.maybeRefreshOverlaps();
+                                lastCheckObsoletion = nanoTime();
+                            }
                         }
-                    }
-                    timeSpentWritingKeys = TimeUnit.NANOSECONDS.toMillis(nanoTime() - start);
+                        timeSpentWritingKeys = TimeUnit.NANOSECONDS.toMillis(nanoTime() - start);
 
-                    // point of no return
-                    newSStables = writer.finish();
-                }
-                finally
-                {
-                    activeCompactions.finishCompaction(ci);
-                    mergedRowCounts = ci.getMergedRowCounts();
-                    totalSourceCQLRows = ci.getTotalSourceCQLRows();
+                        // point of no return
+                        newSStables = writer.finish();
+                    }
+                    finally
+                    {
+                        activeCompactions.finishCompaction(ci);
+                        mergedRowCounts = ci.getMergedRowCounts();
+                        totalSourceCQLRows = ci.getTotalSourceCQLRows();
+                    }
                 }
             }
 
@@ -283,6 +328,256 @@ public class CompactionTask extends AbstractCompactionTask
         }
     }
 
+    /**
+     * Returns the scanners over the sstables to compact in a single pass. The default scans them entirely.
+     */
+    protected AbstractCompactionStrategy.ScannerList getScanners(CompactionStrategyManager strategy, Set<SSTableReader> sstables)
+    {
+        return strategy.getScanners(sstables, null, bypassCache());
+    }
+
+    /**
+     * Whether compactions read their inputs without going through the chunk cache, which they do when those reads
+     * read ahead, see {@link org.apache.cassandra.io.util.ReadAheadRebufferer}. The reads still count the chunks that
+     * are cached, which tell the hot partitions to load into the cache, see
+     * {@link org.apache.cassandra.cache.ChunkCache#countingDataHits}.
+     */
+    protected static boolean bypassCache()
+    {
+        return DatabaseDescriptor.getUncachedReadAheadChunks() > 0;
+    }
+
+    /**
+     * Returns the token ranges the compaction of the given sstables is split into, to compact them concurrently into
+     * separate {@link #getSubrangeWriter writers}. The default, an empty list, compacts the sstables in a single pass.
+     * The ranges must not overlap, must cover the whole token ring and must not cross the disk boundaries.
+     */
+    protected List<Range<Token>> getParallelSubranges(Set<SSTableReader> nonExpiredSSTables)
+    {
+        return Collections.emptyList();
+    }
+
+    /**
+     * Returns the writer of the output of one of the {@link #getParallelSubranges sub-ranges} of the compaction,
+     * created with the first partition of the sub-range.
+     */
+    protected SSTableMultiWriter getSubrangeWriter(Descriptor descriptor, Set<SSTableReader> nonExpiredSSTables)
+    {
+        return SimpleSSTableMultiWriter.create(descriptor,
+                                               SSTableReader.getApproximateKeyCount(nonExpiredSSTables),
+                                               getMinRepairedAt(nonExpiredSSTables),
+                                               getPendingRepair(nonExpiredSSTables),
+                                               getIsTransient(nonExpiredSSTables),
+                                               cfs.metadata,
+                                               MetadataCollector.commitLogIntervals(transaction.originals(), StorageService.instance.getLocalHostUUID()),
+                                               getLevel(),
+                                               SerializationHeader.make(cfs.metadata(), nonExpiredSSTables),
+                                               cfs.indexManager.listIndexGroups(),
+                                               transaction,
+                                               cfs);
+    }
+
+    /**
+     * Compacts the sub-ranges of the given subtasks concurrently, the first one in this thread and the others in the
+     * compaction subtask executor, and then commits their outputs in this compaction's transaction. The sub-ranges
+     * for which no thread of the subtask executor could be reserved are compacted in this thread after the first one.
+     */
+    private Collection<SSTableReader> compactInParallel(List<Subtask> subtasks)
+    {
+        Throwable failure = null;
+        int threads = CompactionManager.instance.reserveSubtaskThreads(subtasks.size() - 1);
+        try
+        {
+            List<Future<Void>> futures = new ArrayList<>(threads);
+            try
+            {
+                for (Subtask subtask : subtasks.subList(1, threads + 1))
+                    futures.add(CompactionManager.instance.submitCompactionSubtask(subtask));
+                subtasks.get(0).call();
+                for (Subtask subtask : subtasks.subList(threads + 1, subtasks.size()))
+                {
+                    if (Iterables.any(futures, future -> future.cause() != null))
+                        break;
+                    subtask.call();
+                }
+            }
+            catch (Throwable t)
+            {
+                failure = t;
+            }
+
+            for (Future<Void> future : futures)
+            {
+                // there is no point in compacting the other sub-ranges if one has failed
+                if (failure != null)
+                    subtasks.forEach(Subtask::stop);
+                future.awaitUninterruptibly();
+                failure = Throwables.merge(failure, future.cause());
+            }
+        }
+        finally
+        {
+            CompactionManager.instance.releaseSubtaskThreads(threads);
+        }
+
+        List<SSTableMultiWriter> writers = new ArrayList<>(subtasks.size());
+        for (Subtask subtask : subtasks)
+        {
+            if (subtask.writer != null)
+                writers.add(subtask.writer);
+        }
+
+        List<SSTableReader> newSSTables = new ArrayList<>();
+        if (failure == null)
+        {
+            try
+            {
+                for (SSTableMultiWriter writer : writers)
+                {
+                    writer.setOpenResult(true).prepareToCommit();
+                    newSSTables.addAll(writer.finished());
+                }
+                transaction.update(newSSTables, false);
+                transaction.checkpoint();
+                if (!keepOriginals)
+                    transaction.obsoleteOriginals();
+                transaction.prepareToCommit();
+            }
+            catch (Throwable t)
+            {
+                failure = t;
+            }
+        }
+
+        if (failure != null)
+        {
+            for (SSTableMultiWriter writer : writers)
+                failure = writer.abort(failure);
+            Throwables.maybeFail(failure);
+        }
+
+        // point of no return
+        Throwable accumulate = null;
+        for (SSTableMultiWriter writer : writers)
+            accumulate = writer.commit(accumulate);
+        Throwables.maybeFail(transaction.commit(accumulate));
+        return newSSTables;
+    }
+
+    /**
+     * The compaction of one of the sub-ranges of a compaction split by {@link #getParallelSubranges}.
+     */
+    private class Subtask implements Callable<Void>
+    {
+        private final Range<Token> range;
+        private final Set<SSTableReader> sstables;
+        private final long nowInSec;
+        private final TimeUUID taskId;
+
+        private volatile CompactionIterator iterator;
+        private volatile boolean stopped;
+        private SSTableMultiWriter writer;
+        private long keysWritten;
+        private long[] mergedRowCounts = new long[0];
+        private long totalSourceCQLRows;
+
+        private Subtask(Range<Token> range, Set<SSTableReader> sstables, long nowInSec, TimeUUID taskId)
+        {
+            this.range = range;
+            this.sstables = sstables;
+            this.nowInSec = nowInSec;
+            this.taskId = taskId;
+        }
+
+        @Override
+        public Void call()
+        {
+            // another sub-range failed before this one started
+            if (stopped)
+                return null;
+
+            CompactionStrategyManager strategy = cfs.getCompactionStrategyManager();
+            RateLimiter limiter = CompactionManager.instance.getRateLimiter();
+            try (CompactionController controller = getCompactionController(transaction.originals());
+                 AbstractCompactionStrategy.ScannerList scanners = strategy.getScanners(sstables, Collections.singleton(range), bypassCache());
+                 CompactionIterator ci = new CompactionIterator(compactionType, scanners.scanners, controller, nowInSec, taskId))
+            {
+                long lastCheckObsoletion = nanoTime();
+                double compressionRatio = scanners.getCompressionRatio();
+                if (compressionRatio == MetadataCollector.NO_COMPRESSION_RATIO)
+                    compressionRatio = 1.0;
+
+                long lastBytesScanned = 0;
+
+                iterator = ci;
+                activeCompactions.beginCompaction(ci);
+                try
+                {
+                    // see runMayThrow about checking this after beginCompaction, and stop() about checking stopped
+                    // after setting iterator
+                    if (!strategy.isActive() || stopped)
+                        throw new CompactionInterruptedException(ci.getCompactionInfo());
+                    while (ci.hasNext())
+                    {
+                        UnfilteredRowIterator partition = ci.next();
+                        if (writer == null)
+                        {
+                            Descriptor descriptor = cfs.newSSTableDescriptor(getDirectories().getLocationForDisk(getSubrangeDirectory(partition.partitionKey())));
+                            writer = getSubrangeWriter(descriptor, sstables);
+                            ci.setTargetDirectory(descriptor.directory.path());
+                        }
+                        if (writer.append(partition))
+                            keysWritten++;
+
+                        long bytesScanned = scanners.getTotalBytesScanned();
+
+                        // Rate limit the scanners, and account for compression
+                        CompactionManager.compactionRateLimiterAcquire(limiter, bytesScanned, lastBytesScanned, compressionRatio);
+
+                        lastBytesScanned = bytesScanned;
+
+                        if (nanoTime() - lastCheckObsoletion > TimeUnit.MINUTES.toNanos(1L))
+                        {
+                            controller.maybeRefreshOverlaps();
+                            lastCheckObsoletion = nanoTime();
+                        }
+                    }
+                }
+                finally
+                {
+                    activeCompactions.finishCompaction(ci);
+                    mergedRowCounts = ci.getMergedRowCounts();
+                    totalSourceCQLRows = ci.getTotalSourceCQLRows();
+                }
+            }
+            return null;
+        }
+
+        private Directories.DataDirectory getSubrangeDirectory(DecoratedKey firstKey)
+        {
+            // the sub-ranges do not cross the disk boundaries
+            Directories.DataDirectory directory = cfs.getDiskBoundaries().getCorrectDiskForKey(firstKey);
+            if (directory != null)
+                return directory;
+
+            long expectedWriteSize = cfs.getExpectedCompactedFileSize(sstables, compactionType);
+            directory = getDirectories().getWriteableLocation(expectedWriteSize);
+            if (directory == null)
+                throw new RuntimeException(String.format("Not enough disk space to store %s",
+                                                         FBUtilities.prettyPrintMemory(expectedWriteSize)));
+            return directory;
+        }
+
+        private void stop()
+        {
+            // either this sees the iterator, or the subtask sees stopped once it has set it
+            stopped = true;
+            CompactionIterator ci = iterator;
+            if (ci != null)
+                ci.stop();
+        }
+    }
+
     @Override
     public CompactionAwareWriter getCompactionAwareWriter(ColumnFamilyStore cfs,
                                                           Directories directories,
@@ -0,0 +1,278 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.db.compaction;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.google.common.annotations.VisibleForTesting;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.apache.cassandra.config.DatabaseDescriptor;
+import org.apache.cassandra.metrics.ClientRequestsMetricsHolder;
+import org.apache.cassandra.metrics.TableMetrics;
+import org.apache.cassandra.service.disk.usage.DiskUsageMonitor;
+import org.apache.cassandra.service.disk.usage.DiskUsageState;
+import org.apache.cassandra.streaming.StreamManager;
+import org.apache.cassandra.utils.Clock;
+import org.apache.cassandra.utils.JVMStabilityInspector;
+
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+
+/**
+ * Adjusts the compaction throughput between its adaptive bounds when compaction_throughput_adaptive_enabled is set,
+ * and keeps the last decisions for the {@code system_views.compaction_throughput_decisions} table.
+ * <p>
+ * Every {@link #UPDATE_INTERVAL_SECONDS} seconds, the throughput is:
+ * <ul>
+ *     <li>lowered, multiplicatively, while the 99th percentile of the coordinator or local read latencies is above
+ *     the target, unless the data disks are nearly full: compaction competes with the reads for the disks;</li>
+ *     <li>raised, additively, while the data disks are nearly full, as compaction frees the space of the overwritten
+ *     and deleted data, while the compactions pile up, as every sstable waiting to be compacted may have to be read,
+ *     or while the read latencies are well below the target.</li>
+ * </ul>
+ * The streaming throughputs are scaled by the ratio of the compaction throughput to its maximum, as streaming
+ * competes for the disks the same way.
+ */
+public final class CompactionThroughputController
+{
+    private static final Logger logger = LoggerFactory.getLogger(CompactionThroughputController.class);
+
+    public static final int UPDATE_INTERVAL_SECONDS = 5;
+
+    /** The compactions are piling up above this number of pending compactions per concurrent compactor. */
+    @VisibleForTesting
+    static final int BACKLOG_PER_COMPACTOR = 4;
+
+    /** The factor the throughput is lowered by when the read latencies are above the target. */
+    @VisibleForTesting
+    static final double DECREASE_FACTOR = 0.75;
+
+    /** The lower factor used when the compactions are piling up too. */
+    @VisibleForTesting
+    static final double BACKLOG_DECREASE_FACTOR = 0.9;
+
+    /** The throughput is raised by this fraction of the difference between the bounds. */
+    @VisibleForTesting
+    static final double INCREASE_STEP = 0.125;
+
+    private static final int MAX_DECISIONS = 100;
+
+    public static final CompactionThroughputController instance = new CompactionThroughputController();
+
+    private final ArrayDeque<Decision> decisions = new ArrayDeque<>(MAX_DECISIONS);
+
+    // the adjusted throughput, only meaningful while active
+    private volatile boolean active;
+    private volatile double throughputBytesPerSec;
+    private volatile double streamingThroughputRatio = 1;
+
+    private CompactionThroughputController()
+    {
+    }
+
+    public enum Reason
+    {
+        read_latency, disk_usage, backlog, low_read_latency, steady
+    }
+
+    /**
+     * A throughput adjustment, and what it is based on.
+     */
+    public static class Decision
+    {
+        public final long timestampMillis;
+        public final Reason reason;
+        public final double coordinatorReadLatencyMicros;
+        public final double localReadLatencyMicros;
+        public final int pendingCompactions;
+        public final DiskUsageState diskUsage;
+        public final double throughputBytesPerSec;
+        public final double streamingThroughputRatio;
+
+        @VisibleForTesting
+        Decision(long timestampMillis, Reason reason, double coordinatorReadLatencyMicros, double localReadLatencyMicros,
+                 int pendingCompactions, DiskUsageState diskUsage, double throughputBytesPerSec, double streamingThroughputRatio)
+        {
+            this.timestampMillis = timestampMillis;
+            this.reason = reason;
+            this.coordinatorReadLatencyMicros = coordinatorReadLatencyMicros;
+            this.localReadLatencyMicros = localReadLatencyMicros;
+            this.pendingCompactions = pendingCompactions;
+            this.diskUsage = diskUsage;
+            this.throughputBytesPerSec = throughputBytesPerSec;
+            this.streamingThroughputRatio = streamingThroughputRatio;
+        }
+    }
+
+    /**
+     * @return the compaction throughput to throttle to, in bytes per second, 0 meaning unthrottled
+     */
+    public double getCompactionThroughputBytesPerSec()
+    {
+        return active ? throughputBytesPerSec : DatabaseDescriptor.getCompactionThroughputBytesPerSec();
+    }
+
+    /**
+     * @return the ratio the configured streaming throughputs are scaled by
+     */
+    public double getStreamingThroughputRatio()
+    {
+        return streamingThroughputRatio;
+    }
+
+    /**
+     * Adjusts the throughput if the adaptive compaction throughput is enabled, or restores the configured one if it
+     * has been disabled. Run periodically, see {@link #UPDATE_INTERVAL_SECONDS}.
+     */
+    public void update()
+    {
+        try
+        {
+            if (!DatabaseDescriptor.getCompactionThroughputAdaptiveEnabled())
+            {
+                if (active)
+                {
+                    active = false;
+                    streamingThroughputRatio = 1;
+                    apply();
+                }
+                return;
+            }
+
+            double min = DatabaseDescriptor.getCompactionThroughputAdaptiveMinBytesPerSec();
+            double max = DatabaseDescriptor.getCompactionThroughputAdaptiveMaxBytesPerSec();
+            // start from the configured throughput, unthrottled being the maximum
+            double current = active ? throughputBytesPerSec : DatabaseDescriptor.getCompactionThroughputBytesPerSec();
+            if (current <= 0)
+                current = max;
+
+            Decision decision = decide(Clock.Global.currentTimeMillis(),
+                                       Math.min(Math.max(current, min), max),
+                                       min,
+                                       max,
+                                       DatabaseDescriptor.getCompactionThroughputAdaptiveTargetReadLatency(MICROSECONDS),
+                                       ClientRequestsMetricsHolder.readMetrics.latency.getSnapshot().get99thPercentile(),
+                                       TableMetrics.GLOBAL_READ_LATENCY.latency.getSnapshot().get99thPercentile(),
+                                       CompactionManager.instance.getPendingTasks(),
+                                       BACKLOG_PER_COMPACTOR * DatabaseDescriptor.getConcurrentCompactors(),
+                                       DiskUsageMonitor.instance.state());
+            record(decision);
+
+            boolean changed = !active || decision.throughputBytesPerSec != throughputBytesPerSec;
+            throughputBytesPerSec = decision.throughputBytesPerSec;
+            streamingThroughputRatio = decision.streamingThroughputRatio;
+            active = true;
+            if (changed)
+                apply();
+        }
+        catch (Throwable t)
+        {
+            logger.warn("Failed to update the adaptive compaction throughput.", t);
+            JVMStabilityInspector.inspectThrowable(t);
+        }
+    }
+
+    private void apply()
+    {
+        CompactionManager.instance.setRateInBytes(getCompactionThroughputBytesPerSec());
+        StreamManager.StreamRateLimiter.updateThroughput();
+        StreamManager.StreamRateLimiter.updateInterDCThroughput();
+        StreamManager.StreamRateLimiter.updateEntireSSTableThroughput();
+        StreamManager.StreamRateLimiter.updateEntireSSTableInterDCThroughput();
+    }
+
+    /**
+     * @param current the current throughput, within the bounds
+     * @param targetMicros the target 99th percentile of the read latencies
+     * @param backlog the number of pending compactions above which the compactions are piling up
+     */
+    @VisibleForTesting
+    static Decision decide(long timestampMillis, double current, double min, double max, long targetMicros,
+                           double coordinatorReadLatencyMicros, double localReadLatencyMicros,
+                           int pendingCompactions, int backlog, DiskUsageState diskUsage)
+    {
+        double latency = Math.max(coordinatorReadLatencyMicros, localReadLatencyMicros);
+        boolean pilingUp = pendingCompactions >= backlog;
+        double step = (max - min) * INCREASE_STEP;
+
+        Reason reason;
+        double throughput;
+        if (latency > targetMicros && !diskUsage.isStuffedOrFull())
+        {
+            reason = Reason.read_latency;
+            throughput = current * (pilingUp ? BACKLOG_DECREASE_FACTOR : DECREASE_FACTOR);
+        }
+        else if (diskUsage.isStuffedOrFull())
+        {
+            reason = Reason.disk_usage;
+            throughput = current + step;
+        }
+        else if (pilingUp)
+        {
+            reason = Reason.backlog;
+            throughput = current + step;
+        }
+        else if (latency < targetMicros / 2.0)
+        {
+            reason = Reason.low_read_latency;
+            throughput = current + step;
+        }
+        else
+        {
+            reason = Reason.steady;
+            throughput = current;
+        }
+
+        throughput = Math.min(Math.max(throughput, min), max);
+        return new Decision(timestampMillis, reason, coordinatorReadLatencyMicros, localReadLatencyMicros,
+                            pendingCompactions, diskUsage, throughput, throughput / max);
+    }
+
+    private void record(Decision decision)
+    {
+        synchronized (decisions)
+        {
+            if (decisions.size() == MAX_DECISIONS)
+                decisions.removeFirst();
+            decisions.addLast(decision);
+        }
+    }
+
+    /**
+     * @return the last decisions, oldest first
+     */
+    public List<Decision> recentDecisions()
+    {
+        synchronized (decisions)
+        {
+            return new ArrayList<>(decisions);
+        }
+    }
+
+    @VisibleForTesting
+    public void clearDecisions()
+    {
+        synchronized (decisions)
+        {
+            decisions.clear();
+        }
+    }
+}
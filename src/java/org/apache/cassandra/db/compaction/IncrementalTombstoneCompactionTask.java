@@ -0,0 +1,331 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.db.compaction;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Iterators;
+import com.google.common.util.concurrent.RateLimiter;
+
+import org.apache.cassandra.db.ColumnFamilyStore;
+import org.apache.cassandra.db.DecoratedKey;
+import org.apache.cassandra.db.Directories;
+import org.apache.cassandra.db.LivenessInfo;
+import org.apache.cassandra.db.PartitionPosition;
+import org.apache.cassandra.db.compaction.writers.CompactionAwareWriter;
+import org.apache.cassandra.db.compaction.writers.DefaultCompactionWriter;
+import org.apache.cassandra.db.lifecycle.LifecycleTransaction;
+import org.apache.cassandra.db.rows.Cell;
+import org.apache.cassandra.db.rows.ColumnData;
+import org.apache.cassandra.db.rows.ComplexColumnData;
+import org.apache.cassandra.db.rows.RangeTombstoneMarker;
+import org.apache.cassandra.db.rows.Row;
+import org.apache.cassandra.db.rows.Unfiltered;
+import org.apache.cassandra.db.rows.UnfilteredRowIterator;
+import org.apache.cassandra.dht.AbstractBounds;
+import org.apache.cassandra.dht.Bounds;
+import org.apache.cassandra.io.sstable.ISSTableScanner;
+import org.apache.cassandra.io.sstable.format.ExcludedPartitions;
+import org.apache.cassandra.io.sstable.format.SSTableReader;
+import org.apache.cassandra.io.sstable.metadata.MetadataCollector;
+import org.apache.cassandra.utils.Throwables;
+import org.apache.cassandra.utils.TimeUUID;
+
+/**
+ * A tombstone compaction of a single sstable that only rewrites the partitions with droppable tombstones or expired
+ * cells, and excludes them from the sstable, instead of rewriting it entirely.
+ * <p>
+ * The sstable is first scanned without writing anything, to find the partitions with data deleted before gcBefore.
+ * These are then compacted into a new sstable, which replaces them in the original one: the original is kept, with
+ * the partitions excluded, see {@link ExcludedPartitions}. The exclusions are made visible in the same tracker update
+ * as the new sstable, so the reads see the partitions in one or the other.
+ * <p>
+ * The sstable is rewritten entirely, like by a {@link CompactionTask}, when it is fully expired, or when rewriting
+ * the partitions would not save enough: when too many of its partitions have droppable tombstones or are excluded.
+ */
+public class IncrementalTombstoneCompactionTask extends CompactionTask
+{
+    /** The sstable is rewritten entirely when more than this ratio of its partitions have droppable tombstones. */
+    @VisibleForTesting
+    static final double MAX_REWRITTEN_RATIO = 0.1;
+
+    /** The sstable is rewritten entirely when more than this number of partitions would be excluded from it. */
+    @VisibleForTesting
+    static final int MAX_EXCLUDED_PARTITIONS = 100_000;
+
+    private final SSTableReader sstable;
+    private ActiveCompactionsTracker activeCompactions;
+
+    // the partitions to rewrite, null when rewriting the sstable entirely
+    private List<DecoratedKey> partitions;
+
+    public IncrementalTombstoneCompactionTask(ColumnFamilyStore cfs, LifecycleTransaction txn, long gcBefore)
+    {
+        super(cfs, txn, gcBefore);
+        this.sstable = Iterables.getOnlyElement(txn.originals());
+    }
+
+    @Override
+    protected int executeInternal(ActiveCompactionsTracker activeCompactions)
+    {
+        this.activeCompactions = activeCompactions == null ? ActiveCompactionsTracker.NOOP : activeCompactions;
+        return super.executeInternal(activeCompactions);
+    }
+
+    @Override
+    protected void runMayThrow() throws Exception
+    {
+        try (CompactionController controller = getCompactionController(transaction.originals()))
+        {
+            if (!controller.getFullyExpiredSSTables().isEmpty())
+            {
+                super.runMayThrow();
+                return;
+            }
+        }
+
+        ExcludedPartitions current = sstable.getExcludedPartitions();
+        int alreadyExcluded = current == null ? 0 : current.size();
+        long maxPartitions = Math.min((long) (sstable.estimatedKeys() * MAX_REWRITTEN_RATIO), MAX_EXCLUDED_PARTITIONS - alreadyExcluded);
+        partitions = findPartitionsToRewrite(maxPartitions);
+
+        if (partitions == null)
+        {
+            logger.debug("Too many partitions of {} have droppable tombstones, rewriting it entirely", sstable);
+            super.runMayThrow();
+        }
+        else if (partitions.isEmpty())
+        {
+            logger.debug("No partition of {} has droppable tombstones", sstable);
+            sstable.recordIncrementalTombstoneCompaction(gcBefore);
+        }
+        else
+        {
+            logger.debug("Rewriting {} partitions of {} with droppable tombstones", partitions.size(), sstable);
+            super.runMayThrow();
+        }
+    }
+
+    /**
+     * @return the keys of the partitions of the sstable with data deleted before gcBefore, in order, or {@code null}
+     * if there are more than the given maximum
+     */
+    private List<DecoratedKey> findPartitionsToRewrite(long maxPartitions)
+    {
+        List<DecoratedKey> keys = new ArrayList<>();
+        RateLimiter limiter = CompactionManager.instance.getRateLimiter();
+        double compressionRatio = sstable.getCompressionRatio();
+        if (compressionRatio == MetadataCollector.NO_COMPRESSION_RATIO)
+            compressionRatio = 1.0;
+
+        try (ISSTableScanner scanner = sstable.getScanner())
+        {
+            Scan scan = new Scan(scanner, transaction.opId());
+            activeCompactions.beginCompaction(scan);
+            try
+            {
+                long lastBytesScanned = 0;
+                while (scanner.hasNext())
+                {
+                    if (scan.isStopRequested())
+                        throw new CompactionInterruptedException(scan.getCompactionInfo());
+
+                    try (UnfilteredRowIterator partition = scanner.next())
+                    {
+                        if (hasDroppableData(partition, gcBefore))
+                        {
+                            if (keys.size() >= maxPartitions)
+                                return null;
+                            keys.add(partition.partitionKey().retainable());
+                        }
+                    }
+
+                    long bytesScanned = scanner.getBytesScanned();
+                    CompactionManager.compactionRateLimiterAcquire(limiter, bytesScanned, lastBytesScanned, compressionRatio);
+                    lastBytesScanned = bytesScanned;
+                }
+            }
+            finally
+            {
+                activeCompactions.finishCompaction(scan);
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * Whether the partition has a tombstone, or an expired cell or row, deleted before gcBefore. It is read until
+     * one is found.
+     */
+    @VisibleForTesting
+    static boolean hasDroppableData(UnfilteredRowIterator partition, long gcBefore)
+    {
+        if (partition.partitionLevelDeletion().localDeletionTime() < gcBefore)
+            return true;
+
+        if (!partition.staticRow().isEmpty() && hasDroppableData(partition.staticRow(), gcBefore))
+            return true;
+
+        while (partition.hasNext())
+        {
+            Unfiltered unfiltered = partition.next();
+            if (unfiltered.isRow())
+            {
+                if (hasDroppableData((Row) unfiltered, gcBefore))
+                    return true;
+            }
+            else
+            {
+                RangeTombstoneMarker marker = (RangeTombstoneMarker) unfiltered;
+                if (marker.isOpen(false) && marker.openDeletionTime(false).localDeletionTime() < gcBefore)
+                    return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean hasDroppableData(Row row, long gcBefore)
+    {
+        LivenessInfo liveness = row.primaryKeyLivenessInfo();
+        if (liveness.isExpiring() && liveness.localExpirationTime() < gcBefore)
+            return true;
+
+        if (row.deletion().time().localDeletionTime() < gcBefore)
+            return true;
+
+        for (ColumnData data : row)
+        {
+            if (data.column().isSimple())
+            {
+                // the local deletion time of expiring cells is their expiration time
+                if (((Cell<?>) data).localDeletionTime() < gcBefore)
+                    return true;
+            }
+            else
+            {
+                ComplexColumnData complexData = (ComplexColumnData) data;
+                if (complexData.complexDeletion().localDeletionTime() < gcBefore)
+                    return true;
+                for (Cell<?> cell : complexData)
+                {
+                    if (cell.localDeletionTime() < gcBefore)
+                        return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    @Override
+    protected AbstractCompactionStrategy.ScannerList getScanners(CompactionStrategyManager strategy, Set<SSTableReader> sstables)
+    {
+        if (partitions == null)
+            return super.getScanners(strategy, sstables);
+
+        Iterator<AbstractBounds<PartitionPosition>> bounds = Iterators.transform(partitions.iterator(), key -> new Bounds<>(key, key));
+        return new AbstractCompactionStrategy.ScannerList(Collections.singletonList(sstable.getScanner(bounds)));
+    }
+
+    @Override
+    public CompactionAwareWriter getCompactionAwareWriter(ColumnFamilyStore cfs,
+                                                          Directories directories,
+                                                          LifecycleTransaction transaction,
+                                                          Set<SSTableReader> nonExpiredSSTables)
+    {
+        if (partitions == null)
+            return super.getCompactionAwareWriter(cfs, directories, transaction, nonExpiredSSTables);
+
+        // the new sstable is not opened early: it only replaces some partitions of the original, which stays whole
+        return new DefaultCompactionWriter(cfs, directories, transaction, nonExpiredSSTables, true, false, getLevel())
+        {
+            @Override
+            protected long sstableKeyCount()
+            {
+                return partitions.size();
+            }
+
+            @Override
+            protected void doPrepare()
+            {
+                // replace the sstable with a version excluding the partitions in the checkpoint adding their new version
+                SSTableReader current = txn.current(sstable);
+                ExcludedPartitions previous = current.getExcludedPartitions();
+                ExcludedPartitions excluded = previous == null ? new ExcludedPartitions(gcBefore, partitions) : previous.with(partitions, gcBefore);
+                txn.update(current.cloneWithExcludedPartitions(excluded), true);
+                // the exclusions only replace the saved ones once the new sstable is committed: until then, a restart
+                // would remove it, and must find the partitions in the original
+                excluded.stage(sstable.descriptor);
+                super.doPrepare();
+            }
+
+            @Override
+            protected Throwable doCommit(Throwable accumulate)
+            {
+                accumulate = super.doCommit(accumulate);
+                // without the saved exclusions, the partitions are read from both sstables, which is correct but slower
+                if (accumulate != null)
+                    return Throwables.perform(accumulate, () -> ExcludedPartitions.discardStaged(sstable.descriptor));
+                return Throwables.perform(accumulate, () -> ExcludedPartitions.publishStaged(sstable.descriptor));
+            }
+
+            @Override
+            protected Throwable doAbort(Throwable accumulate)
+            {
+                accumulate = super.doAbort(accumulate);
+                return Throwables.perform(accumulate, () -> ExcludedPartitions.discardStaged(sstable.descriptor));
+            }
+        };
+    }
+
+    /**
+     * The scan of the sstable for the partitions to rewrite, shown as a compaction.
+     */
+    private class Scan extends CompactionInfo.Holder
+    {
+        private final ISSTableScanner scanner;
+        private final TimeUUID compactionId;
+
+        private Scan(ISSTableScanner scanner, TimeUUID compactionId)
+        {
+            this.scanner = scanner;
+            this.compactionId = compactionId;
+        }
+
+        public CompactionInfo getCompactionInfo()
+        {
+            return new CompactionInfo(sstable.metadata(),
+                                      OperationType.TOMBSTONE_COMPACTION,
+                                      scanner.getBytesScanned(),
+                                      scanner.getLengthInBytes(),
+                                      compactionId,
+                                      ImmutableSet.of(sstable));
+        }
+
+        public boolean isGlobal()
+        {
+            return false;
+        }
+    }
+}
@@ -220,7 +220,7 @@ public class PendingRepairHolder extends AbstractStrategyHolder
     }
 
     @Override
-    public List<ISSTableScanner> getScanners(GroupedSSTableContainer sstables, Collection<Range<Token>> ranges)
+    public List<ISSTableScanner> getScanners(GroupedSSTableContainer sstables, Collection<Range<Token>> ranges, boolean bypassCache)
     {
         List<ISSTableScanner> scanners = new ArrayList<>(managers.size());
         for (int i = 0; i < managers.size(); i++)
@@ -228,7 +228,7 @@ public class PendingRepairHolder extends AbstractStrategyHolder
             if (sstables.isGroupEmpty(i))
                 continue;
 
-            scanners.addAll(managers.get(i).getScanners(sstables.getGroup(i), ranges));
+            scanners.addAll(managers.get(i).getScanners(sstables.getGroup(i), ranges, bypassCache));
         }
         return scanners;
     }
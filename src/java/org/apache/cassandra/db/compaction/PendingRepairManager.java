@@ -428,7 +428,12 @@ class PendingRepairManager
         return !ActiveRepairService.instance().consistent.local.isSessionInProgress(sessionID);
     }
 
-    synchronized Set<ISSTableScanner> getScanners(Collection<SSTableReader> sstables, Collection<Range<Token>> ranges)
+    Set<ISSTableScanner> getScanners(Collection<SSTableReader> sstables, Collection<Range<Token>> ranges)
+    {
+        return getScanners(sstables, ranges, false);
+    }
+
+    synchronized Set<ISSTableScanner> getScanners(Collection<SSTableReader> sstables, Collection<Range<Token>> ranges, boolean bypassCache)
     {
         if (sstables.isEmpty())
         {
@@ -448,7 +453,7 @@ class PendingRepairManager
         {
             for (Map.Entry<TimeUUID, Set<SSTableReader>> entry : sessionSSTables.entrySet())
             {
-                scanners.addAll(getOrCreate(entry.getKey()).getScanners(entry.getValue(), ranges).scanners);
+                scanners.addAll(getOrCreate(entry.getKey()).getScanners(entry.getValue(), ranges, bypassCache).scanners);
             }
         }
         catch (Throwable t)
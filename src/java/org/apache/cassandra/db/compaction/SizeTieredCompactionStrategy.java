@@ -197,7 +197,12 @@ public class SizeTieredCompactionStrategy extends AbstractCompactionStrategy
 
             LifecycleTransaction transaction = cfs.getTracker().tryModify(hottestBucket, OperationType.COMPACTION);
             if (transaction != null)
+            {
+                // a single sstable is only compacted for its droppable tombstones
+                if (incrementalTombstoneCompaction && hottestBucket.size() == 1)
+                    return new IncrementalTombstoneCompactionTask(cfs, transaction, gcBefore);
                 return new CompactionTask(cfs, transaction, gcBefore);
+            }
             previousCandidate = hottestBucket;
         }
     }
@@ -102,7 +102,21 @@ public class TimeWindowCompactionStrategy extends AbstractCompactionStrategy
 
             LifecycleTransaction modifier = cfs.getTracker().tryModify(latestBucket, OperationType.COMPACTION);
             if (modifier != null)
+            {
+                // a single sstable is only compacted for its droppable tombstones, or because it is fully expired
+                if (incrementalTombstoneCompaction && latestBucket.size() == 1)
+                {
+                    return new IncrementalTombstoneCompactionTask(cfs, modifier, gcBefore)
+                    {
+                        @Override
+                        public CompactionController getCompactionController(Set<SSTableReader> toCompact)
+                        {
+                            return new TimeWindowCompactionController(cfs, toCompact, gcBefore, options.ignoreOverlaps);
+                        }
+                    };
+                }
                 return new TimeWindowCompactionTask(cfs, modifier, gcBefore, options.ignoreOverlaps);
+            }
             previousCandidate = latestBucket;
         }
     }
@@ -64,7 +64,7 @@ public class Controller
      * Override for the flush size in MB. The database should be able to calculate this from executing flushes, this
      * should only be necessary in rare cases.
      */
-    static final String FLUSH_SIZE_OVERRIDE_OPTION = "flush_size_override";
+    public static final String FLUSH_SIZE_OVERRIDE_OPTION = "flush_size_override";
 
     static final String BASE_SHARD_COUNT_OPTION = "base_shard_count";
     /**
@@ -149,6 +149,13 @@ public class Controller
     static final Overlaps.InclusionMethod DEFAULT_OVERLAP_INCLUSION_METHOD =
         CassandraRelevantProperties.UCS_OVERLAP_INCLUSION_METHOD.getEnum(Overlaps.InclusionMethod.TRANSITIVE);
 
+    /**
+     * Whether to compact the output shards of a compaction concurrently, in up to concurrent_compactors threads.
+     */
+    static final String PARALLELIZE_OUTPUT_SHARDS_OPTION = "parallelize_output_shards";
+    static final boolean DEFAULT_PARALLELIZE_OUTPUT_SHARDS =
+        CassandraRelevantProperties.UCS_PARALLELIZE_OUTPUT_SHARDS.getBoolean();
+
     protected final ColumnFamilyStore cfs;
     protected final MonotonicClock clock;
     private final int[] scalingParameters;
@@ -172,6 +179,8 @@ public class Controller
 
     protected final Overlaps.InclusionMethod overlapInclusionMethod;
 
+    protected final boolean parallelizeOutputShards;
+
     Controller(ColumnFamilyStore cfs,
                MonotonicClock clock,
                int[] scalingParameters,
@@ -184,7 +193,8 @@ public class Controller
                int baseShardCount,
                double targetSStableSize,
                double sstableGrowthModifier,
-               Overlaps.InclusionMethod overlapInclusionMethod)
+               Overlaps.InclusionMethod overlapInclusionMethod,
+               boolean parallelizeOutputShards)
     {
         this.cfs = cfs;
         this.clock = clock;
@@ -198,6 +208,7 @@ public class Controller
         this.targetSSTableSize = targetSStableSize;
         this.overlapInclusionMethod = overlapInclusionMethod;
         this.sstableGrowthModifier = sstableGrowthModifier;
+        this.parallelizeOutputShards = parallelizeOutputShards;
 
         if (maxSSTablesToCompact <= 0)
             maxSSTablesToCompact = Integer.MAX_VALUE;
@@ -405,6 +416,11 @@ public class Controller
         return expiredSSTableCheckFrequency;
     }
 
+    public boolean parallelizeOutputShards()
+    {
+        return parallelizeOutputShards;
+    }
+
     public static Controller fromOptions(ColumnFamilyStore cfs, Map<String, String> options)
     {
         int[] Ws = parseScalingParameters(options.getOrDefault(SCALING_PARAMETERS_OPTION, DEFAULT_SCALING_PARAMETERS));
@@ -445,6 +461,10 @@ public class Controller
                 ? Overlaps.InclusionMethod.valueOf(options.get(OVERLAP_INCLUSION_METHOD_OPTION).toUpperCase())
                 : DEFAULT_OVERLAP_INCLUSION_METHOD;
 
+        boolean parallelizeOutputShards = options.containsKey(PARALLELIZE_OUTPUT_SHARDS_OPTION)
+                ? Boolean.parseBoolean(options.get(PARALLELIZE_OUTPUT_SHARDS_OPTION))
+                : DEFAULT_PARALLELIZE_OUTPUT_SHARDS;
+
         return new Controller(cfs,
                               MonotonicClock.Global.preciseTime,
                               Ws,
@@ -457,7 +477,8 @@ public class Controller
                               baseShardCount,
                               targetSStableSize,
                               sstableGrowthModifier,
-                              inclusionMethod);
+                              inclusionMethod,
+                              parallelizeOutputShards);
     }
 
     public static Map<String, String> validateOptions(Map<String, String> options) throws ConfigurationException
@@ -578,6 +599,13 @@ public class Controller
                                                            ALLOW_UNSAFE_AGGRESSIVE_SSTABLE_EXPIRATION_OPTION, s));
         }
 
+        s = options.remove(PARALLELIZE_OUTPUT_SHARDS_OPTION);
+        if (s != null && !s.equalsIgnoreCase("true") && !s.equalsIgnoreCase("false"))
+        {
+            throw new ConfigurationException(String.format("%s should either be 'true' or 'false', not %s",
+                                                           PARALLELIZE_OUTPUT_SHARDS_OPTION, s));
+        }
+
         s = options.remove(OVERLAP_INCLUSION_METHOD_OPTION);
         if (s != null)
         {
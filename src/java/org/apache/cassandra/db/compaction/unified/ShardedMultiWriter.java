@@ -126,7 +126,7 @@ public class ShardedMultiWriter implements SSTableMultiWriter
     }
 
     @Override
-    public void append(UnfilteredRowIterator partition)
+    public boolean append(UnfilteredRowIterator partition)
     {
         DecoratedKey key = partition.partitionKey();
 
@@ -142,7 +142,7 @@ public class ShardedMultiWriter implements SSTableMultiWriter
             writers[++currentWriter] = createWriter();
         }
 
-        writers[currentWriter].append(partition);
+        return writers[currentWriter].append(partition) != null;
     }
 
     @Override
@@ -18,19 +18,36 @@
 
 package org.apache.cassandra.db.compaction.unified;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
 
+import org.apache.cassandra.config.DatabaseDescriptor;
 import org.apache.cassandra.db.ColumnFamilyStore;
 import org.apache.cassandra.db.Directories;
+import org.apache.cassandra.db.PartitionPosition;
+import org.apache.cassandra.db.SerializationHeader;
 import org.apache.cassandra.db.compaction.CompactionTask;
 import org.apache.cassandra.db.compaction.ShardManager;
+import org.apache.cassandra.db.compaction.ShardTracker;
 import org.apache.cassandra.db.compaction.UnifiedCompactionStrategy;
 import org.apache.cassandra.db.compaction.writers.CompactionAwareWriter;
 import org.apache.cassandra.db.lifecycle.LifecycleTransaction;
+import org.apache.cassandra.dht.Range;
+import org.apache.cassandra.dht.Token;
+import org.apache.cassandra.io.sstable.Descriptor;
+import org.apache.cassandra.io.sstable.SSTableMultiWriter;
 import org.apache.cassandra.io.sstable.format.SSTableReader;
+import org.apache.cassandra.io.sstable.metadata.MetadataCollector;
+import org.apache.cassandra.service.StorageService;
 
 /**
- * The sole purpose of this class is to currently create a {@link ShardedCompactionWriter}.
+ * The purpose of this class is to create a {@link ShardedCompactionWriter} or, when the controller parallelizes the
+ * output shards, to split the compaction at the shard boundaries into sub-ranges compacted concurrently into
+ * {@link ShardedMultiWriter}s.
  */
 public class UnifiedCompactionTask extends CompactionTask
 {
@@ -53,9 +70,93 @@ public class UnifiedCompactionTask extends CompactionTask
                                                           Directories directories,
                                                           LifecycleTransaction txn,
                                                           Set<SSTableReader> nonExpiredSSTables)
+    {
+        return new ShardedCompactionWriter(cfs, directories, txn, nonExpiredSSTables, keepOriginals, getShardBoundaries(nonExpiredSSTables));
+    }
+
+    /**
+     * Splits the compaction into up to concurrent_compactors sub-ranges of consecutive output shards, and at the disk
+     * boundaries.
+     */
+    @Override
+    protected List<Range<Token>> getParallelSubranges(Set<SSTableReader> nonExpiredSSTables)
+    {
+        int parallelism = DatabaseDescriptor.getConcurrentCompactors();
+        if (!controller.parallelizeOutputShards() || parallelism < 2 || nonExpiredSSTables.isEmpty())
+            return Collections.emptyList();
+
+        Token first = null;
+        Token last = null;
+        for (SSTableReader sstable : nonExpiredSSTables)
+        {
+            if (first == null || sstable.getFirst().getToken().compareTo(first) < 0)
+                first = sstable.getFirst().getToken();
+            if (last == null || sstable.getLast().getToken().compareTo(last) > 0)
+                last = sstable.getLast().getToken();
+        }
+
+        // list the ends of the output shards within the span of the input
+        List<Token> shardEnds = new ArrayList<>();
+        ShardTracker boundaries = getShardBoundaries(nonExpiredSSTables);
+        boundaries.advanceTo(first);
+        for (Token end = boundaries.shardEnd(); end != null && end.compareTo(first) >= 0 && end.compareTo(last) < 0; end = boundaries.shardEnd())
+        {
+            shardEnds.add(end);
+            if (!boundaries.advanceTo(end.nextValidToken()))
+                break;
+        }
+        if (shardEnds.isEmpty())
+            return Collections.emptyList();
+
+        SortedSet<Token> splits = new TreeSet<>();
+        int shards = shardEnds.size() + 1;
+        int groups = Math.min(parallelism, shards);
+        for (int i = 1; i < groups; ++i)
+            splits.add(shardEnds.get(i * shards / groups - 1));
+
+        // the disk boundaries are shard ends too
+        List<PartitionPosition> diskPositions = cfs.getDiskBoundaries().positions;
+        if (diskPositions != null)
+        {
+            for (PartitionPosition position : diskPositions)
+            {
+                if (shardEnds.contains(position.getToken()))
+                    splits.add(position.getToken());
+            }
+        }
+
+        Token minimum = cfs.getPartitioner().getMinimumToken();
+        List<Range<Token>> subranges = new ArrayList<>(splits.size() + 1);
+        Token start = minimum;
+        for (Token split : splits)
+        {
+            subranges.add(new Range<>(start, split));
+            start = split;
+        }
+        subranges.add(new Range<>(start, minimum));
+        return subranges;
+    }
+
+    @Override
+    protected SSTableMultiWriter getSubrangeWriter(Descriptor descriptor, Set<SSTableReader> nonExpiredSSTables)
+    {
+        return new ShardedMultiWriter(cfs,
+                                      descriptor,
+                                      SSTableReader.getApproximateKeyCount(nonExpiredSSTables),
+                                      getMinRepairedAt(nonExpiredSSTables),
+                                      getPendingRepair(nonExpiredSSTables),
+                                      getIsTransient(nonExpiredSSTables),
+                                      MetadataCollector.commitLogIntervals(transaction.originals(), StorageService.instance.getLocalHostUUID()),
+                                      SerializationHeader.make(cfs.metadata(), nonExpiredSSTables),
+                                      cfs.indexManager.listIndexGroups(),
+                                      transaction,
+                                      getShardBoundaries(nonExpiredSSTables));
+    }
+
+    private ShardTracker getShardBoundaries(Set<SSTableReader> nonExpiredSSTables)
     {
         double density = shardManager.calculateCombinedDensity(nonExpiredSSTables);
         int numShards = controller.getNumShards(density * shardManager.shardSetCoverage());
-        return new ShardedCompactionWriter(cfs, directories, txn, nonExpiredSSTables, keepOriginals, shardManager.boundaries(numShards));
+        return shardManager.boundaries(numShards);
     }
 }
\ No newline at end of file
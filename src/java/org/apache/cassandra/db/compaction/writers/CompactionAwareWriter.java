@@ -75,6 +75,20 @@ public abstract class CompactionAwareWriter extends Transactional.AbstractTransa
                                  LifecycleTransaction txn,
                                  Set<SSTableReader> nonExpiredSSTables,
                                  boolean keepOriginals)
+    {
+        this(cfs, directories, txn, nonExpiredSSTables, keepOriginals, cfs.supportsEarlyOpen());
+    }
+
+    /**
+     * @param openEarly whether the sstables written are opened early, replacing the start of the originals, see
+     * {@link SSTableRewriter}
+     */
+    protected CompactionAwareWriter(ColumnFamilyStore cfs,
+                                    Directories directories,
+                                    LifecycleTransaction txn,
+                                    Set<SSTableReader> nonExpiredSSTables,
+                                    boolean keepOriginals,
+                                    boolean openEarly)
     {
         this.cfs = cfs;
         this.directories = directories;
@@ -83,7 +97,8 @@ public abstract class CompactionAwareWriter extends Transactional.AbstractTransa
 
         estimatedTotalKeys = SSTableReader.getApproximateKeyCount(nonExpiredSSTables);
         maxAge = CompactionTask.getMaxDataAge(nonExpiredSSTables);
-        sstableWriter = SSTableRewriter.construct(cfs, txn, keepOriginals, maxAge);
+        sstableWriter = openEarly ? SSTableRewriter.construct(cfs, txn, keepOriginals, maxAge)
+                                  : SSTableRewriter.constructWithoutEarlyOpening(txn, keepOriginals, maxAge);
         minRepairedAt = CompactionTask.getMinRepairedAt(nonExpiredSSTables);
         pendingRepair = CompactionTask.getPendingRepair(nonExpiredSSTables);
         isTransient = CompactionTask.getIsTransient(nonExpiredSSTables);
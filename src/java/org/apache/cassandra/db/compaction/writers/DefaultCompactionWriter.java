@@ -48,6 +48,12 @@ public class DefaultCompactionWriter extends CompactionAwareWriter
         this.sstableLevel = sstableLevel;
     }
 
+    protected DefaultCompactionWriter(ColumnFamilyStore cfs, Directories directories, LifecycleTransaction txn, Set<SSTableReader> nonExpiredSSTables, boolean keepOriginals, boolean openEarly, int sstableLevel)
+    {
+        super(cfs, directories, txn, nonExpiredSSTables, keepOriginals, openEarly);
+        this.sstableLevel = sstableLevel;
+    }
+
     @Override
     protected boolean shouldSwitchWriterInCurrentLocation(DecoratedKey key)
     {
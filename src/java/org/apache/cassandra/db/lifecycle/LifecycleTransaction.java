@@ -470,12 +470,24 @@ public class LifecycleTransaction extends Transactional.AbstractTransactional im
     }
 
     /**
-     * update the current replacement of any original reader back to its original start
+     * update the current replacement of any original reader back to its original start and excluded partitions
      */
     private List<SSTableReader> restoreUpdatedOriginals()
     {
         Iterable<SSTableReader> torestore = filterIn(originals, logged.update, logged.obsolete);
-        return ImmutableList.copyOf(transform(torestore, (reader) -> current(reader).cloneWithRestoredStart(reader.getFirst())));
+        return ImmutableList.copyOf(transform(torestore, this::restore));
+    }
+
+    private SSTableReader restore(SSTableReader original)
+    {
+        SSTableReader restored = current(original).cloneWithRestoredStart(original.getFirst());
+        if (restored.getExcludedPartitions() == original.getExcludedPartitions())
+            return restored;
+
+        // the partitions excluded by an incremental tombstone compaction are only valid with its output
+        SSTableReader withOriginalExclusions = restored.cloneWithExcludedPartitions(original.getExcludedPartitions());
+        restored.selfRef().release();
+        return withOriginalExclusions;
     }
 
     /**
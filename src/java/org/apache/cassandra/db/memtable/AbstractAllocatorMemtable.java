@@ -18,6 +18,8 @@
 
 package org.apache.cassandra.db.memtable;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 
@@ -72,6 +74,9 @@ public abstract class AbstractAllocatorMemtable extends AbstractMemtableWithComm
     // As above, used to determine if the memtable needs to be flushed on schema change.
     @Unmetered
     public final Factory initialFactory;
+    // Whether the writes to the table went to the commit log at the creation of the memtable, so that the writes left
+    // out of it are flushed rather than left unprotected once they are no longer left out.
+    private final boolean initialDurableWrites;
 
     private final long creationNano = Clock.Global.nanoTime();
 
@@ -119,6 +124,7 @@ public abstract class AbstractAllocatorMemtable extends AbstractMemtableWithComm
         this.allocator = MEMORY_POOL.newAllocator(metadataRef.toString());
         this.initialComparator = metadata.get().comparator;
         this.initialFactory = metadata().params.memtable.factory();
+        this.initialDurableWrites = metadata().params.durableWrites;
         this.owner = owner;
         scheduleFlush();
     }
@@ -135,7 +141,8 @@ public abstract class AbstractAllocatorMemtable extends AbstractMemtableWithComm
         {
         case SCHEMA_CHANGE:
             return initialComparator != latest.comparator // If the CF comparator has changed, because our partitions reference the old one
-                   || !initialFactory.equals(latest.params.memtable.factory()); // If a different type of memtable is requested
+                   || !initialFactory.equals(latest.params.memtable.factory()) // If a different type of memtable is requested
+                   || !initialDurableWrites && latest.params.durableWrites; // If the writes are no longer left out of the commit log
         case OWNED_RANGES_CHANGE:
             return false; // by default we don't use the local ranges, thus this has no effect
         default:
@@ -244,14 +251,16 @@ public abstract class AbstractAllocatorMemtable extends AbstractMemtableWithComm
     }
 
     /**
-     * Finds the largest memtable, as a percentage of *either* on- or off-heap memory limits, and immediately
-     * queues it for flushing. If the memtable selected is flushed before this completes, no work is done.
+     * Finds the memtable to flush with the {@link MemtableFlushScheduler}, by default the largest, as a percentage of
+     * *either* on- or off-heap memory limits, and immediately queues it for flushing. If the memtable selected is
+     * flushed before this completes, no work is done.
      */
     public static Future<Boolean> flushLargestMemtable()
     {
-        float largestRatio = 0f;
-        AbstractAllocatorMemtable largestMemtable = null;
-        Memtable.MemoryUsage largestUsage = null;
+        Config.MemtableFlushSchedulerType scheduler = DatabaseDescriptor.getMemtableFlushScheduler();
+        List<MemtableFlushScheduler.Candidate> candidates = new ArrayList<>();
+        List<MemoryUsage> usages = new ArrayList<>();
+        long now = Clock.Global.nanoTime();
         float liveOnHeap = 0, liveOffHeap = 0;
         // we take a reference to the current main memtable for the CF prior to snapping its ownership ratios
         // to ensure we have some ordering guarantee for performing the switchMemtableIf(), i.e. we will only
@@ -272,11 +281,10 @@ public abstract class AbstractAllocatorMemtable extends AbstractMemtableWithComm
                     indexMemtable.addMemoryUsageTo(usage);
 
             float ratio = Math.max(usage.ownershipRatioOnHeap, usage.ownershipRatioOffHeap);
-            if (ratio > largestRatio)
+            if (ratio > 0)
             {
-                largestMemtable = current;
-                largestUsage = usage;
-                largestRatio = ratio;
+                candidates.add(MemtableFlushScheduler.Candidate.create(current, ratio, now - current.creationNano));
+                usages.add(usage);
             }
 
             liveOnHeap += usage.ownershipRatioOnHeap;
@@ -285,17 +293,21 @@ public abstract class AbstractAllocatorMemtable extends AbstractMemtableWithComm
 
         Promise<Boolean> returnFuture = new AsyncPromise<>();
 
-        if (largestMemtable != null)
+        MemtableFlushScheduler.Candidate chosen = MemtableFlushScheduler.choose(candidates, scheduler);
+        if (chosen != null)
         {
+            AbstractAllocatorMemtable chosenMemtable = chosen.memtable;
+            MemoryUsage chosenUsage = usages.get(candidates.indexOf(chosen));
             float usedOnHeap = MEMORY_POOL.onHeap.usedRatio();
             float usedOffHeap = MEMORY_POOL.offHeap.usedRatio();
             float flushingOnHeap = MEMORY_POOL.onHeap.reclaimingRatio();
             float flushingOffHeap = MEMORY_POOL.offHeap.reclaimingRatio();
-            logger.info("Flushing largest {} to free up room. Used total: {}, live: {}, flushing: {}, this: {}",
-                        largestMemtable.owner, ratio(usedOnHeap, usedOffHeap), ratio(liveOnHeap, liveOffHeap),
-                        ratio(flushingOnHeap, flushingOffHeap), ratio(largestUsage.ownershipRatioOnHeap, largestUsage.ownershipRatioOffHeap));
+            logger.info("Flushing {} to free up room ({} scheduler, score {}). Used total: {}, live: {}, flushing: {}, this: {}",
+                        chosenMemtable.owner, scheduler, String.format("%.3f", chosen.score),
+                        ratio(usedOnHeap, usedOffHeap), ratio(liveOnHeap, liveOffHeap), ratio(flushingOnHeap, flushingOffHeap),
+                        ratio(chosenUsage.ownershipRatioOnHeap, chosenUsage.ownershipRatioOffHeap));
 
-            Future<CommitLogPosition> flushFuture = largestMemtable.owner.signalFlushRequired(largestMemtable, ColumnFamilyStore.FlushReason.MEMTABLE_LIMIT);
+            Future<CommitLogPosition> flushFuture = chosenMemtable.owner.signalFlushRequired(chosenMemtable, ColumnFamilyStore.FlushReason.MEMTABLE_LIMIT);
             flushFuture.addListener(() -> {
                 try
                 {
@@ -310,7 +322,7 @@ public abstract class AbstractAllocatorMemtable extends AbstractMemtableWithComm
         }
         else
         {
-            logger.debug("Flushing of largest memtable, not done, no memtable found");
+            logger.debug("Flushing of memtable to free up room not done, no memtable found");
 
             returnFuture.trySuccess(false);
         }
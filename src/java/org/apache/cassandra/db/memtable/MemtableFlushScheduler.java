@@ -0,0 +1,263 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.cassandra.db.memtable;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.google.common.annotations.VisibleForTesting;
+
+import org.apache.cassandra.config.Config;
+import org.apache.cassandra.db.ColumnFamilyStore;
+import org.apache.cassandra.utils.TimeUUID;
+
+import static org.apache.cassandra.utils.TimeUUID.Generator.nextTimeUUID;
+
+/**
+ * Chooses the memtable to flush when the memtable pool reaches its cleanup threshold, see
+ * {@link AbstractAllocatorMemtable#flushLargestMemtable()}, and keeps the last decisions for the
+ * {@code system_views.memtable_flush_decisions} table.
+ * <p>
+ * With the {@link Config.MemtableFlushSchedulerType#largest} scheduler, the memtable using the largest share of the
+ * pool is flushed. The {@link Config.MemtableFlushSchedulerType#adaptive} scheduler only considers the memtables using
+ * at least half the share of the largest one, so that each flush still frees a good part of the pool, and among those
+ * prefers:
+ * <ul>
+ *     <li>the memtables growing slowly: a hot memtable fills up again soon after it is flushed, and keeping it longer
+ *     coalesces more of its overwrites, while the memory of a cold memtable stays free;</li>
+ *     <li>the tables with few live sstables and pending compactions: each flush adds an sstable which reads may have
+ *     to go through, until compaction catches up.</li>
+ * </ul>
+ * Each of these factors reduces the share of the pool used by a memtable, which is its score, by up to half, relative
+ * to the other candidates. The candidates are scored and recorded the same way with both schedulers, so that the
+ * decisions of the adaptive one can be compared with the largest one before enabling it.
+ */
+public final class MemtableFlushScheduler
+{
+    /** The memtables using less than this fraction of the share of the largest one are not considered. */
+    @VisibleForTesting
+    static final float MIN_RATIO_OF_LARGEST = 0.5f;
+
+    private static final int MAX_DECISIONS = 100;
+
+    private static final ArrayDeque<Decision> decisions = new ArrayDeque<>(MAX_DECISIONS);
+
+    private MemtableFlushScheduler()
+    {
+    }
+
+    /**
+     * A memtable which can be flushed, and what the decision is based on.
+     */
+    public static class Candidate
+    {
+        final AbstractAllocatorMemtable memtable;
+        final String keyspace;
+        final String table;
+        /** The largest of the on- and off-heap shares of the pool used by the memtable and its indexes. */
+        final float ownershipRatio;
+        /** The live data written to the memtable per second since its creation. */
+        final double writeRate;
+        /** The live sstables and pending compactions of the table, only gathered for the candidates that are scored. */
+        int liveSSTables;
+        int pendingCompactions;
+        double score;
+
+        @VisibleForTesting
+        Candidate(AbstractAllocatorMemtable memtable, String keyspace, String table, float ownershipRatio,
+                  double writeRate, int liveSSTables, int pendingCompactions)
+        {
+            this.memtable = memtable;
+            this.keyspace = keyspace;
+            this.table = table;
+            this.ownershipRatio = ownershipRatio;
+            this.writeRate = writeRate;
+            this.liveSSTables = liveSSTables;
+            this.pendingCompactions = pendingCompactions;
+        }
+
+        static Candidate create(AbstractAllocatorMemtable memtable, float ownershipRatio, long ageNanos)
+        {
+            double writeRate = memtable.getLiveDataSize() * 1e9 / Math.max(ageNanos, 1);
+            return new Candidate(memtable, memtable.metadata().keyspace, memtable.metadata().name, ownershipRatio,
+                                 writeRate, 0, 0);
+        }
+
+        /**
+         * Gathers the compaction state of the table, which may be costly, so it is only done for the candidates that
+         * are scored.
+         */
+        private void gatherCompactionState()
+        {
+            if (memtable == null || !(memtable.owner instanceof ColumnFamilyStore))
+                return;
+            ColumnFamilyStore cfs = (ColumnFamilyStore) memtable.owner;
+            liveSSTables = cfs.getTracker().getView().liveSSTables().size();
+            pendingCompactions = cfs.getCompactionStrategyManager().getEstimatedRemainingTasks();
+        }
+
+        int readAmplification()
+        {
+            return liveSSTables + pendingCompactions;
+        }
+    }
+
+    /**
+     * A flush decided by the scheduler.
+     */
+    public static class Decision
+    {
+        /** When the decision was made, unique among the decisions. */
+        public final TimeUUID decidedAt;
+        public final Config.MemtableFlushSchedulerType scheduler;
+        public final String keyspace;
+        public final String table;
+        public final float ownershipRatio;
+        public final double writeRate;
+        public final int liveSSTables;
+        public final int pendingCompactions;
+        public final double score;
+        /** The table of the largest memtable, which the largest scheduler would have flushed. */
+        public final String largestTable;
+        /** The table of the best scored memtable, which the adaptive scheduler would have flushed. */
+        public final String adaptiveTable;
+        public final int candidates;
+
+        Decision(TimeUUID decidedAt, Config.MemtableFlushSchedulerType scheduler, Candidate chosen, Candidate largest,
+                 Candidate best, int candidates)
+        {
+            this.decidedAt = decidedAt;
+            this.scheduler = scheduler;
+            this.keyspace = chosen.keyspace;
+            this.table = chosen.table;
+            this.ownershipRatio = chosen.ownershipRatio;
+            this.writeRate = chosen.writeRate;
+            this.liveSSTables = chosen.liveSSTables;
+            this.pendingCompactions = chosen.pendingCompactions;
+            this.score = chosen.score;
+            this.largestTable = largest.keyspace + '.' + largest.table;
+            this.adaptiveTable = best.keyspace + '.' + best.table;
+            this.candidates = candidates;
+        }
+    }
+
+    /**
+     * Chooses the memtable to flush among the given ones with the given scheduler, and records the decision.
+     *
+     * @return the chosen candidate, or null if there is none
+     */
+    static Candidate choose(List<Candidate> candidates, Config.MemtableFlushSchedulerType scheduler)
+    {
+        if (candidates.isEmpty())
+            return null;
+
+        Candidate largest = largest(candidates);
+        float minRatio = largest.ownershipRatio * MIN_RATIO_OF_LARGEST;
+        for (Candidate candidate : candidates)
+        {
+            if (candidate.ownershipRatio >= minRatio)
+                candidate.gatherCompactionState();
+        }
+        score(candidates);
+        Candidate best = best(candidates);
+        Candidate chosen = scheduler == Config.MemtableFlushSchedulerType.adaptive ? best : largest;
+
+        synchronized (decisions)
+        {
+            if (decisions.size() == MAX_DECISIONS)
+                decisions.removeFirst();
+            decisions.addLast(new Decision(nextTimeUUID(), scheduler, chosen, largest, best, candidates.size()));
+        }
+        return chosen;
+    }
+
+    private static Candidate largest(List<Candidate> candidates)
+    {
+        Candidate largest = null;
+        for (Candidate candidate : candidates)
+        {
+            if (largest == null || candidate.ownershipRatio > largest.ownershipRatio)
+                largest = candidate;
+        }
+        return largest;
+    }
+
+    /**
+     * Sets the score of each candidate, which is 0 for the ones using too small a share of the pool.
+     */
+    @VisibleForTesting
+    static void score(List<Candidate> candidates)
+    {
+        float minRatio = largest(candidates).ownershipRatio * MIN_RATIO_OF_LARGEST;
+        double maxWriteRate = 0;
+        int maxReadAmplification = 0;
+        for (Candidate candidate : candidates)
+        {
+            if (candidate.ownershipRatio < minRatio)
+                continue;
+            maxWriteRate = Math.max(maxWriteRate, candidate.writeRate);
+            maxReadAmplification = Math.max(maxReadAmplification, candidate.readAmplification());
+        }
+
+        for (Candidate candidate : candidates)
+        {
+            if (candidate.ownershipRatio < minRatio)
+            {
+                candidate.score = 0;
+                continue;
+            }
+            double coldness = maxWriteRate > 0 ? 1 - 0.5 * candidate.writeRate / maxWriteRate : 1;
+            double amplification = maxReadAmplification > 0 ? 1 - 0.5 * candidate.readAmplification() / maxReadAmplification : 1;
+            candidate.score = candidate.ownershipRatio * coldness * amplification;
+        }
+    }
+
+    @VisibleForTesting
+    static Candidate best(List<Candidate> candidates)
+    {
+        Candidate best = null;
+        for (Candidate candidate : candidates)
+        {
+            if (best == null || candidate.score > best.score)
+                best = candidate;
+        }
+        return best;
+    }
+
+    /**
+     * @return the last decisions, oldest first
+     */
+    public static List<Decision> recentDecisions()
+    {
+        synchronized (decisions)
+        {
+            return new ArrayList<>(decisions);
+        }
+    }
+
+    @VisibleForTesting
+    public static void clearDecisions()
+    {
+        synchronized (decisions)
+        {
+            decisions.clear();
+        }
+    }
+}
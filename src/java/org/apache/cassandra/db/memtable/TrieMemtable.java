@@ -24,6 +24,7 @@ import java.util.Map;
 import java.util.NavigableSet;
 import java.util.Objects;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.locks.ReentrantLock;
 
@@ -32,6 +33,7 @@ import com.google.common.collect.Iterators;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import org.apache.cassandra.config.Config;
 import org.apache.cassandra.config.DatabaseDescriptor;
 import org.apache.cassandra.db.BufferDecoratedKey;
 import org.apache.cassandra.db.Clustering;
@@ -49,10 +51,12 @@ import org.apache.cassandra.db.partitions.AbstractUnfilteredPartitionIterator;
 import org.apache.cassandra.db.partitions.BTreePartitionData;
 import org.apache.cassandra.db.partitions.BTreePartitionUpdater;
 import org.apache.cassandra.db.partitions.ImmutableBTreePartition;
+import org.apache.cassandra.db.partitions.NativeRowPartitionUpdater;
 import org.apache.cassandra.db.partitions.Partition;
 import org.apache.cassandra.db.partitions.PartitionUpdate;
 import org.apache.cassandra.db.partitions.UnfilteredPartitionIterator;
 import org.apache.cassandra.db.rows.EncodingStats;
+import org.apache.cassandra.db.rows.NativeRow;
 import org.apache.cassandra.db.rows.Row;
 import org.apache.cassandra.db.rows.UnfilteredRowIterator;
 import org.apache.cassandra.db.tries.InMemoryTrie;
@@ -74,6 +78,7 @@ import org.apache.cassandra.utils.bytecomparable.ByteSource;
 import org.apache.cassandra.utils.concurrent.OpOrder;
 import org.apache.cassandra.utils.memory.EnsureOnHeap;
 import org.apache.cassandra.utils.memory.MemtableAllocator;
+import org.apache.cassandra.utils.memory.NativeAllocator;
 import org.github.jamm.Unmetered;
 
 /**
@@ -81,8 +86,14 @@ import org.github.jamm.Unmetered;
  * The implementation is described in detail in the paper:
  *       https://www.vldb.org/pvldb/vol15/p3359-lambov.pdf
  *
- * The configuration takes a single parameter:
+ * The configuration takes two parameters:
  * - shards: the number of shards to split into, defaulting to the number of CPU cores.
+ * - concurrent_writes: if false (default), writes to each shard are synchronized; if true, the writes to partitions
+ *   already present in a shard are done in parallel, and only the insertion of new partitions is synchronized.
+ * - offheap_rows: if true, and the memtable_allocation_type is offheap_objects, rows are stored serialized in native
+ *   memory (see {@link NativeRow}) rather than as on-heap rows of native cells. This leaves almost no per-row objects
+ *   on heap, at the cost of serializing the rows on each write and deserializing them on each read. Ignored with other
+ *   allocation types.
  *
  * Also see Memtable_API.md.
  */
@@ -90,6 +101,9 @@ public class TrieMemtable extends AbstractShardedMemtable
 {
     private static final Logger logger = LoggerFactory.getLogger(TrieMemtable.class);
 
+    public static final String CONCURRENT_WRITES_OPTION = "concurrent_writes";
+    public static final String OFFHEAP_ROWS_OPTION = "offheap_rows";
+
     /** Buffer type to use for memtable tries (on- vs off-heap) */
     public static final BufferType BUFFER_TYPE = DatabaseDescriptor.getMemtableAllocationType().toBufferType();
 
@@ -97,6 +111,10 @@ public class TrieMemtable extends AbstractShardedMemtable
     @VisibleForTesting
     public static final int MAX_RECURSIVE_KEY_LENGTH = 128;
 
+    /** With concurrent writes, the number of times a partition is merged without the write lock before taking it. */
+    @VisibleForTesting
+    static final int MAX_LOCK_FREE_ATTEMPTS = 4;
+
     /** The byte-ordering conversion version to use for memtables. */
     public static final ByteComparable.Version BYTE_COMPARABLE_VERSION = ByteComparable.Version.OSS50;
 
@@ -120,22 +138,37 @@ public class TrieMemtable extends AbstractShardedMemtable
     @Unmetered
     private final TrieMemtableMetricsView metrics;
 
-    TrieMemtable(AtomicReference<CommitLogPosition> commitLogLowerBound, TableMetadataRef metadataRef, Owner owner, Integer shardCountOption)
+    // Applied to the partitions when flushing, to deserialize the rows stored in native memory only once.
+    @Unmetered
+    private final EnsureOnHeap flushEnsureOnHeap;
+
+    TrieMemtable(AtomicReference<CommitLogPosition> commitLogLowerBound,
+                 TableMetadataRef metadataRef,
+                 Owner owner,
+                 Integer shardCountOption,
+                 boolean concurrentWrites,
+                 boolean offheapRows)
     {
         super(commitLogLowerBound, metadataRef, owner, shardCountOption);
         this.metrics = new TrieMemtableMetricsView(metadataRef.keyspace, metadataRef.name);
-        this.shards = generatePartitionShards(boundaries.shardCount(), allocator, metadataRef, metrics);
+        NativeRow.Writer rowWriter = offheapRows && allocator instanceof NativeAllocator
+                                     ? new NativeRow.Writer(metadataRef, (NativeAllocator) allocator)
+                                     : null;
+        this.shards = generatePartitionShards(boundaries.shardCount(), allocator, metadataRef, metrics, concurrentWrites, rowWriter);
         this.mergedTrie = makeMergedTrie(shards);
+        this.flushEnsureOnHeap = rowWriter != null ? EnsureOnHeap.MATERIALIZE_NATIVE_ROWS : EnsureOnHeap.NOOP;
     }
 
     private static MemtableShard[] generatePartitionShards(int splits,
                                                            MemtableAllocator allocator,
                                                            TableMetadataRef metadata,
-                                                           TrieMemtableMetricsView metrics)
+                                                           TrieMemtableMetricsView metrics,
+                                                           boolean concurrentWrites,
+                                                           NativeRow.Writer rowWriter)
     {
         MemtableShard[] partitionMapContainer = new MemtableShard[splits];
         for (int i = 0; i < splits; i++)
-            partitionMapContainer[i] = new MemtableShard(metadata, allocator, metrics);
+            partitionMapContainer[i] = new MemtableShard(metadata, allocator, metrics, concurrentWrites, rowWriter);
 
         return partitionMapContainer;
     }
@@ -391,8 +424,9 @@ public class TrieMemtable extends AbstractShardedMemtable
             {
                 return Iterators.transform(toFlush.entryIterator(),
                                            // During flushing we are certain the memtable will remain at least until
-                                           // the flush completes. No copying to heap is necessary.
-                                           entry -> getPartitionFromTrieEntry(metadata(), EnsureOnHeap.NOOP, entry));
+                                           // the flush completes. No copying to heap is necessary, but rows stored
+                                           // in native memory are deserialized once rather than on every access.
+                                           entry -> getPartitionFromTrieEntry(metadata(), flushEnsureOnHeap, entry));
             }
 
             public long partitionKeysSize()
@@ -409,22 +443,26 @@ public class TrieMemtable extends AbstractShardedMemtable
         // is guaranteed to see the changes to the values.
 
         // The smallest timestamp for all partitions stored in this shard
-        private volatile long minTimestamp = Long.MAX_VALUE;
+        private final AtomicLong minTimestamp = new AtomicLong(Long.MAX_VALUE);
 
-        private volatile long minLocalDeletionTime = Long.MAX_VALUE;
+        private final AtomicLong minLocalDeletionTime = new AtomicLong(Long.MAX_VALUE);
 
-        private volatile long liveDataSize = 0;
+        private final AtomicLong liveDataSize = new AtomicLong(0);
 
-        private volatile long currentOperations = 0;
+        private final AtomicLong currentOperations = new AtomicLong(0);
 
         @Unmetered
         private final ReentrantLock writeLock = new ReentrantLock();
 
+        // Whether partitions already present in the shard are updated concurrently, without taking the write lock.
+        private final boolean concurrentWrites;
+
         // Content map for the given shard. This is implemented as a memtable trie which uses the prefix-free
         // byte-comparable ByteSource representations of the keys to address the partitions.
         //
         // This map is used in a single-producer, multi-consumer fashion: only one thread will insert items but
-        // several threads may read from it and iterate over it. Iterators (especially partition range iterators)
+        // several threads may read from it and iterate over it. With concurrent writes, the partitions already present
+        // are also updated by other threads, each replacing the partition atomically. Iterators (especially partition range iterators)
         // may operate for a long period of time and thus iterators should not throw ConcurrentModificationExceptions
         // if the underlying map is modified during iteration, they should provide a weakly consistent view of the map
         // instead.
@@ -445,9 +483,15 @@ public class TrieMemtable extends AbstractShardedMemtable
         @Unmetered
         private final TrieMemtableMetricsView metrics;
 
+        // Stores the rows in native memory, if the memtable is configured with offheap_rows; null otherwise.
+        @Unmetered
+        private final NativeRow.Writer rowWriter;
+
         @VisibleForTesting
-        MemtableShard(TableMetadataRef metadata, MemtableAllocator allocator, TrieMemtableMetricsView metrics)
+        MemtableShard(TableMetadataRef metadata, MemtableAllocator allocator, TrieMemtableMetricsView metrics, boolean concurrentWrites, NativeRow.Writer rowWriter)
         {
+            this.concurrentWrites = concurrentWrites;
+            this.rowWriter = rowWriter;
             this.data = new InMemoryTrie<>(BUFFER_TYPE);
             this.columnsCollector = new AbstractMemtable.ColumnsCollector(metadata.get().regularAndStaticColumns());
             this.statsCollector = new AbstractMemtable.StatsCollector();
@@ -457,7 +501,62 @@ public class TrieMemtable extends AbstractShardedMemtable
 
         public long put(DecoratedKey key, PartitionUpdate update, UpdateTransaction indexer, OpOrder.Group opGroup) throws InMemoryTrie.SpaceExhaustedException
         {
-            BTreePartitionUpdater updater = new BTreePartitionUpdater(allocator, allocator.cloner(opGroup), opGroup, indexer);
+            BTreePartitionUpdater updater = rowWriter != null
+                                            ? new NativeRowPartitionUpdater(allocator, rowWriter, opGroup, indexer)
+                                            : new BTreePartitionUpdater(allocator, allocator.cloner(opGroup), opGroup, indexer);
+            try
+            {
+                if (concurrentWrites)
+                    putConcurrently(key, update, updater, indexer, opGroup);
+                else
+                    putLocked(key, update, updater::mergePartitions, opGroup);
+            }
+            finally
+            {
+                updateMin(minTimestamp, update.stats().minTimestamp);
+                updateMin(minLocalDeletionTime, update.stats().minLocalDeletionTime);
+                liveDataSize.addAndGet(updater.dataSize);
+                currentOperations.addAndGet(update.operationCount());
+
+                columnsCollector.update(update.columns());
+                statsCollector.update(update.stats());
+            }
+            return updater.colUpdateTimeDelta;
+        }
+
+        /**
+         * Merges the update into the partition, if already present, without taking the write lock, the partition
+         * being merged again if another writer replaced it in the meantime. Only inserting a new partition, which
+         * modifies the trie, is done under the lock, as well as updating a partition that other writers replaced
+         * {@link #MAX_LOCK_FREE_ATTEMPTS} times in a row: writers of a heavily contended partition then wait for each
+         * other rather than keep redoing their merge, like {@link org.apache.cassandra.db.partitions.AtomicBTreePartition} does.
+         */
+        private void putConcurrently(DecoratedKey key,
+                                     PartitionUpdate update,
+                                     BTreePartitionUpdater updater,
+                                     UpdateTransaction indexer,
+                                     OpOrder.Group opGroup) throws InMemoryTrie.SpaceExhaustedException
+        {
+            try
+            {
+                indexer.start();
+                if (data.updateExisting(key, update, updater::retryableMergePartitions, MAX_LOCK_FREE_ATTEMPTS))
+                    metrics.lockFreePuts.inc();
+                else
+                    putLocked(key, update, updater::retryableMergePartitions, opGroup);
+            }
+            finally
+            {
+                indexer.commit();
+                updater.reportAllocatedMemory();
+            }
+        }
+
+        private void putLocked(DecoratedKey key,
+                               PartitionUpdate update,
+                               InMemoryTrie.UpsertTransformer<BTreePartitionData, PartitionUpdate> merger,
+                               OpOrder.Group opGroup) throws InMemoryTrie.SpaceExhaustedException
+        {
             boolean locked = writeLock.tryLock();
             if (locked)
             {
@@ -472,34 +571,20 @@ public class TrieMemtable extends AbstractShardedMemtable
             }
             try
             {
-                try
-                {
-                    long onHeap = data.sizeOnHeap();
-                    long offHeap = data.sizeOffHeap();
-                    // Use the fast recursive put if we know the key is small enough to not cause a stack overflow.
-                    data.putSingleton(key,
-                                      update,
-                                      updater::mergePartitions,
-                                      key.getKeyLength() < MAX_RECURSIVE_KEY_LENGTH);
-                    allocator.offHeap().adjust(data.sizeOffHeap() - offHeap, opGroup);
-                    allocator.onHeap().adjust(data.sizeOnHeap() - onHeap, opGroup);
-                }
-                finally
-                {
-                    minTimestamp = Math.min(minTimestamp, update.stats().minTimestamp);
-                    minLocalDeletionTime = Math.min(minLocalDeletionTime, update.stats().minLocalDeletionTime);
-                    liveDataSize += updater.dataSize;
-                    currentOperations += update.operationCount();
-
-                    columnsCollector.update(update.columns());
-                    statsCollector.update(update.stats());
-                }
+                long onHeap = data.sizeOnHeap();
+                long offHeap = data.sizeOffHeap();
+                // Use the fast recursive put if we know the key is small enough to not cause a stack overflow.
+                data.putSingleton(key,
+                                  update,
+                                  merger,
+                                  key.getKeyLength() < MAX_RECURSIVE_KEY_LENGTH);
+                allocator.offHeap().adjust(data.sizeOffHeap() - offHeap, opGroup);
+                allocator.onHeap().adjust(data.sizeOnHeap() - onHeap, opGroup);
             }
             finally
             {
                 writeLock.unlock();
             }
-            return updater.colUpdateTimeDelta;
         }
 
         public boolean isClean()
@@ -514,22 +599,22 @@ public class TrieMemtable extends AbstractShardedMemtable
 
         long minTimestamp()
         {
-            return minTimestamp;
+            return minTimestamp.get();
         }
 
         long liveDataSize()
         {
-            return liveDataSize;
+            return liveDataSize.get();
         }
 
         long currentOperations()
         {
-            return currentOperations;
+            return currentOperations.get();
         }
 
         long minLocalDeletionTime()
         {
-            return minLocalDeletionTime;
+            return minLocalDeletionTime.get();
         }
     }
 
@@ -659,23 +744,32 @@ public class TrieMemtable extends AbstractShardedMemtable
     {
         String shardsString = optionsCopy.remove(SHARDS_OPTION);
         Integer shardCount = shardsString != null ? Integer.parseInt(shardsString) : null;
-        return new Factory(shardCount);
+        boolean concurrentWrites = Boolean.parseBoolean(optionsCopy.remove(CONCURRENT_WRITES_OPTION));
+        boolean offheapRows = Boolean.parseBoolean(optionsCopy.remove(OFFHEAP_ROWS_OPTION));
+        if (offheapRows && DatabaseDescriptor.getMemtableAllocationType() != Config.MemtableAllocationType.offheap_objects)
+            logger.warn("The {} option of trie memtables is ignored with memtable_allocation_type {}; it requires {}",
+                        OFFHEAP_ROWS_OPTION, DatabaseDescriptor.getMemtableAllocationType(), Config.MemtableAllocationType.offheap_objects);
+        return new Factory(shardCount, concurrentWrites, offheapRows);
     }
 
     static class Factory implements Memtable.Factory
     {
         final Integer shardCount;
+        final boolean concurrentWrites;
+        final boolean offheapRows;
 
-        Factory(Integer shardCount)
+        Factory(Integer shardCount, boolean concurrentWrites, boolean offheapRows)
         {
             this.shardCount = shardCount;
+            this.concurrentWrites = concurrentWrites;
+            this.offheapRows = offheapRows;
         }
 
         public Memtable create(AtomicReference<CommitLogPosition> commitLogLowerBound,
                                TableMetadataRef metadaRef,
                                Owner owner)
         {
-            return new TrieMemtable(commitLogLowerBound, metadaRef, owner, shardCount);
+            return new TrieMemtable(commitLogLowerBound, metadaRef, owner, shardCount, concurrentWrites, offheapRows);
         }
 
         @Override
@@ -692,12 +786,14 @@ public class TrieMemtable extends AbstractShardedMemtable
             if (o == null || getClass() != o.getClass())
                 return false;
             Factory factory = (Factory) o;
-            return Objects.equals(shardCount, factory.shardCount);
+            return Objects.equals(shardCount, factory.shardCount)
+                   && concurrentWrites == factory.concurrentWrites
+                   && offheapRows == factory.offheapRows;
         }
 
         public int hashCode()
         {
-            return Objects.hash(shardCount);
+            return Objects.hash(shardCount, concurrentWrites, offheapRows);
         }
     }
 
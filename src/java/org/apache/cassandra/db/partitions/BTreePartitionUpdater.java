@@ -77,6 +77,26 @@ public class BTreePartitionUpdater implements UpdateFunction<Row, Row>, ColumnDa
         }
     }
 
+    /**
+     * Merges the update into the given version of the partition, for writers which install the result atomically and
+     * merge again with the newer version of the partition if another writer installed one first. Each call discards
+     * the sizes collected by the previous one. Unlike {@link #mergePartitions}, this does not start or commit the
+     * index transaction nor report the allocated memory, which the caller must do once the merged partition is in
+     * place.
+     */
+    public BTreePartitionData retryableMergePartitions(BTreePartitionData current, final PartitionUpdate update)
+    {
+        this.dataSize = 0;
+        this.heapSize = 0;
+        if (current == null)
+        {
+            current = BTreePartitionData.EMPTY;
+            onAllocatedOnHeap(BTreePartitionData.UNSHARED_HEAP_SIZE);
+        }
+
+        return makeMergedPartition(current, update);
+    }
+
     protected BTreePartitionData makeMergedPartition(BTreePartitionData current, PartitionUpdate update)
     {
         DeletionInfo newDeletionInfo = merge(current.deletionInfo, update.deletionInfo());
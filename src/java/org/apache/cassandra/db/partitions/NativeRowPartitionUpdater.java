@@ -0,0 +1,114 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.db.partitions;
+
+import com.google.common.annotations.VisibleForTesting;
+
+import org.apache.cassandra.db.rows.Cell;
+import org.apache.cassandra.db.rows.ColumnData;
+import org.apache.cassandra.db.rows.NativeRow;
+import org.apache.cassandra.db.rows.Row;
+import org.apache.cassandra.db.rows.Rows;
+import org.apache.cassandra.index.transactions.UpdateTransaction;
+import org.apache.cassandra.utils.concurrent.OpOrder;
+import org.apache.cassandra.utils.memory.Cloner;
+import org.apache.cassandra.utils.memory.MemtableAllocator;
+
+/**
+ * A {@link BTreePartitionUpdater} storing the rows of the partition as {@link NativeRow}s. The cells of the rows are
+ * not cloned individually, as each row is copied to native memory as a whole once merged.
+ * <p>
+ * As every update of a row copies the whole row again, rows which grow larger than
+ * {@link #MAX_UPDATED_NATIVE_ROW_DATA_SIZE} are kept on heap once updated, with their cells cloned to native memory
+ * like in the other memtables, so that the cost of updating them does not grow with their size.
+ */
+public class NativeRowPartitionUpdater extends BTreePartitionUpdater
+{
+    @VisibleForTesting
+    static final int MAX_UPDATED_NATIVE_ROW_DATA_SIZE = 4096;
+
+    private final NativeRow.Writer writer;
+    private final Cloner cellCloner;
+
+    // Whether the cells merged into the current row are kept as they are, and must be cloned to the allocator.
+    private boolean cloneCells;
+
+    public NativeRowPartitionUpdater(MemtableAllocator allocator, NativeRow.Writer writer, OpOrder.Group writeOp, UpdateTransaction indexer)
+    {
+        super(allocator, null, writeOp, indexer);
+        this.writer = writer;
+        this.cellCloner = allocator.cloner(writeOp);
+    }
+
+    @Override
+    public Row insert(Row insert)
+    {
+        NativeRow data = writer.write(insert, null, writeOp);
+        indexer.onInserted(insert);
+
+        dataSize += data.dataSize();
+        heapSize += data.unsharedHeapSizeExcludingData();
+        return data;
+    }
+
+    @Override
+    public Row merge(Row existing, Row update)
+    {
+        if (!(existing instanceof NativeRow))
+        {
+            // a large row kept on heap, which we update in place
+            cloneCells = true;
+            try
+            {
+                return super.merge(existing, update);
+            }
+            finally
+            {
+                cloneCells = false;
+            }
+        }
+
+        Row current = ((NativeRow) existing).materialize();
+        long heapSizeBefore = heapSize;
+        Row reconciled = Rows.merge(current, update, this);
+        // the merged cells are only kept in native memory, but their data size changes are tracked by the callbacks
+        heapSize = heapSizeBefore;
+        indexer.onUpdated(current, reconciled);
+
+        if (reconciled == current)
+            return existing;
+
+        Row data = reconciled.dataSize() > MAX_UPDATED_NATIVE_ROW_DATA_SIZE
+                   ? reconciled.clone(cellCloner)
+                   : writer.write(reconciled, existing.clustering(), writeOp);
+        heapSize += data.unsharedHeapSizeExcludingData() - existing.unsharedHeapSizeExcludingData();
+        return data;
+    }
+
+    @Override
+    public Cell<?> merge(Cell<?> previous, Cell<?> insert)
+    {
+        return super.merge(previous, cloneCells && insert != previous ? cellCloner.clone(insert) : insert);
+    }
+
+    @Override
+    public ColumnData insert(ColumnData insert)
+    {
+        return super.insert(cloneCells ? insert.clone(cellCloner) : insert);
+    }
+}
@@ -184,6 +184,36 @@ public class PartitionUpdate extends AbstractBTreePartition
         return singleRowUpdate(metadata, metadata.partitioner.decorateKey(key), row);
     }
 
+    /**
+     * Creates an immutable partition update for a write of a single row and/or static row. Unlike
+     * {@link #singleRowUpdate(TableMetadata, DecoratedKey, Row, Row)}, this collects the encoding stats of the rows, as
+     * {@link Builder#build()} does, so that the update can be applied to memtables.
+     *
+     * @param metadata the metadata for the created update.
+     * @param key the partition key for the partition to update.
+     * @param columns the columns written, which must include the columns of the rows.
+     * @param row the row for the update (may be null).
+     * @param staticRow the static row for the update (may be null).
+     *
+     * @return the newly created partition update.
+     */
+    public static PartitionUpdate singleRowWrite(TableMetadata metadata, DecoratedKey key, RegularAndStaticColumns columns, Row row, Row staticRow)
+    {
+        EncodingStats.Collector collector = new EncodingStats.Collector();
+        if (staticRow != null)
+            Rows.collectStats(staticRow, collector);
+        if (row != null)
+            Rows.collectStats(row, collector);
+
+        MutableDeletionInfo deletionInfo = MutableDeletionInfo.live();
+        BTreePartitionData holder = new BTreePartitionData(columns,
+                                                           row == null ? BTree.empty() : BTree.singleton(row),
+                                                           deletionInfo,
+                                                           staticRow == null ? Rows.EMPTY_STATIC_ROW : staticRow,
+                                                           collector.get());
+        return new PartitionUpdate(metadata, metadata.epoch, key, holder, deletionInfo, false);
+    }
+
     /**
      * Turns the given iterator into an update.
      *
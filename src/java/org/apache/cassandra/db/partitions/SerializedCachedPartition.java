@@ -0,0 +1,635 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.db.partitions;
+
+import java.io.IOError;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NavigableSet;
+
+import com.google.common.collect.Iterators;
+
+import org.apache.cassandra.db.Clustering;
+import org.apache.cassandra.db.ClusteringBound;
+import org.apache.cassandra.db.ClusteringComparator;
+import org.apache.cassandra.db.DecoratedKey;
+import org.apache.cassandra.db.DeletionInfo;
+import org.apache.cassandra.db.DeletionTime;
+import org.apache.cassandra.db.MutableDeletionInfo;
+import org.apache.cassandra.db.RangeTombstone;
+import org.apache.cassandra.db.RegularAndStaticColumns;
+import org.apache.cassandra.db.SerializationHeader;
+import org.apache.cassandra.db.Slice;
+import org.apache.cassandra.db.Slices;
+import org.apache.cassandra.db.TypeSizes;
+import org.apache.cassandra.db.filter.ColumnFilter;
+import org.apache.cassandra.db.rows.AbstractUnfilteredRowIterator;
+import org.apache.cassandra.db.rows.BTreeRow;
+import org.apache.cassandra.db.rows.DeserializationHelper;
+import org.apache.cassandra.db.rows.EncodingStats;
+import org.apache.cassandra.db.rows.Row;
+import org.apache.cassandra.db.rows.RowAndDeletionMergeIterator;
+import org.apache.cassandra.db.rows.Rows;
+import org.apache.cassandra.db.rows.SerializationHelper;
+import org.apache.cassandra.db.rows.Unfiltered;
+import org.apache.cassandra.db.rows.UnfilteredRowIterator;
+import org.apache.cassandra.db.rows.UnfilteredRowIterators;
+import org.apache.cassandra.db.rows.UnfilteredSerializer;
+import org.apache.cassandra.io.util.DataInputBuffer;
+import org.apache.cassandra.io.util.DataOutputPlus;
+import org.apache.cassandra.net.MessagingService;
+import org.apache.cassandra.schema.Schema;
+import org.apache.cassandra.schema.TableId;
+import org.apache.cassandra.schema.TableMetadata;
+import org.apache.cassandra.utils.ByteBufferUtil;
+
+/**
+ * A cached partition read in place from its serialized form, so that a row cache hit only deserializes the rows the
+ * query selects, and only the columns it fetches from them, rather than the whole partition.
+ * <p>
+ * The rows are serialized like in sstables, sizes included, after a table of their offsets, which allows binary
+ * searching the bounds of the queried slices or the queried rows, and iterating over them in either direction. The
+ * partition key, deletion info and static row are deserialized when the partition is opened.
+ * <p>
+ * The serialized form may live in the memory of the cache, in which case the partition must be closed once the
+ * iterators on it are done with, to release that memory.
+ */
+public class SerializedCachedPartition implements CachedPartition, AutoCloseable
+{
+    public static final Serializer serializer = new Serializer();
+
+    private static final int VERSION = MessagingService.current_version;
+    private static final int HAS_STATIC_ROW = 0x01;
+    private static final int HAS_PARTITION_DELETION = 0x02;
+
+    private final TableMetadata metadata;
+    private final DecoratedKey partitionKey;
+    private final SerializationHeader header;
+    private final DeletionInfo deletionInfo;
+    private final Row staticRow;
+    private final int cachedLiveRows;
+    private final int rowsWithNonExpiringCells;
+    private final int rowCount;
+
+    // the whole serialized partition, and where the offsets of the rows and the rows start in it
+    private final ByteBuffer buffer;
+    private final int offsetsStart;
+    private final int rowsStart;
+    private final AutoCloseable onClose;
+
+    private SerializedCachedPartition(TableMetadata metadata,
+                                      DecoratedKey partitionKey,
+                                      SerializationHeader header,
+                                      DeletionInfo deletionInfo,
+                                      Row staticRow,
+                                      int cachedLiveRows,
+                                      int rowsWithNonExpiringCells,
+                                      int rowCount,
+                                      ByteBuffer buffer,
+                                      int offsetsStart,
+                                      AutoCloseable onClose)
+    {
+        this.metadata = metadata;
+        this.partitionKey = partitionKey;
+        this.header = header;
+        this.deletionInfo = deletionInfo;
+        this.staticRow = staticRow;
+        this.cachedLiveRows = cachedLiveRows;
+        this.rowsWithNonExpiringCells = rowsWithNonExpiringCells;
+        this.rowCount = rowCount;
+        this.buffer = buffer;
+        this.offsetsStart = offsetsStart;
+        this.rowsStart = offsetsStart + rowCount * TypeSizes.INT_SIZE;
+        this.onClose = onClose;
+    }
+
+    /**
+     * Opens the partition serialized in the remaining bytes of the given buffer, which are read in place.
+     *
+     * @param buffer the serialized partition, as written by {@link Serializer#serialize}.
+     * @param onClose what to close with the partition, once the buffer is not used anymore, or {@code null}.
+     */
+    public static SerializedCachedPartition open(ByteBuffer buffer, AutoCloseable onClose) throws IOException
+    {
+        buffer = buffer.slice();
+        try (DataInputBuffer in = new DataInputBuffer(buffer, true))
+        {
+            int cachedLiveRows = in.readInt();
+            int rowsWithNonExpiringCells = in.readInt();
+            TableMetadata metadata = Schema.instance.getExistingTableMetadata(TableId.deserialize(in));
+            DecoratedKey key = metadata.partitioner.decorateKey(ByteBufferUtil.readWithVIntLength(in));
+            int flags = in.readUnsignedByte();
+            boolean hasStatic = (flags & HAS_STATIC_ROW) != 0;
+            boolean hasPartitionDeletion = (flags & HAS_PARTITION_DELETION) != 0;
+
+            SerializationHeader messagingHeader = SerializationHeader.serializer.deserializeForMessaging(in, metadata, null, hasStatic);
+            SerializationHeader header = new SerializationHeader(true, metadata, messagingHeader.columns(), messagingHeader.stats());
+
+            MutableDeletionInfo deletionInfo = new MutableDeletionInfo(hasPartitionDeletion ? header.readDeletionTime(in) : DeletionTime.LIVE);
+            int rangeCount = in.readUnsignedVInt32();
+            for (int i = 0; i < rangeCount; i++)
+            {
+                Slice slice = Slice.serializer.deserialize(in, VERSION, header.clusteringTypes());
+                deletionInfo.add(new RangeTombstone(slice, header.readDeletionTime(in)), metadata.comparator);
+            }
+
+            Row staticRow = hasStatic
+                            ? UnfilteredSerializer.serializer.deserializeStaticRow(in, header, new DeserializationHelper(metadata, VERSION, DeserializationHelper.Flag.LOCAL))
+                            : Rows.EMPTY_STATIC_ROW;
+
+            int rowCount = in.readInt();
+            int offsetsStart = buffer.remaining() - in.available();
+            return new SerializedCachedPartition(metadata, key, header, deletionInfo, staticRow, cachedLiveRows,
+                                                 rowsWithNonExpiringCells, rowCount, buffer, offsetsStart, onClose);
+        }
+    }
+
+    /**
+     * Releases the memory of the serialized partition, if owned by the cache.
+     */
+    @Override
+    public void close()
+    {
+        if (onClose == null)
+            return;
+
+        try
+        {
+            onClose.close();
+        }
+        catch (Exception e)
+        {
+            throw new RuntimeException(e);
+        }
+    }
+
+    public TableMetadata metadata()
+    {
+        return metadata;
+    }
+
+    public DecoratedKey partitionKey()
+    {
+        return partitionKey;
+    }
+
+    public DeletionTime partitionLevelDeletion()
+    {
+        return deletionInfo.getPartitionDeletion();
+    }
+
+    public RegularAndStaticColumns columns()
+    {
+        return header.columns();
+    }
+
+    public EncodingStats stats()
+    {
+        return header.stats();
+    }
+
+    public boolean isEmpty()
+    {
+        return deletionInfo.isLive() && rowCount == 0 && staticRow.isEmpty();
+    }
+
+    public boolean hasRows()
+    {
+        return rowCount > 0;
+    }
+
+    public int rowCount()
+    {
+        return rowCount;
+    }
+
+    public int cachedLiveRows()
+    {
+        return cachedLiveRows;
+    }
+
+    public int rowsWithNonExpiringCells()
+    {
+        return rowsWithNonExpiringCells;
+    }
+
+    public Row lastRow()
+    {
+        Reader reader = new Reader(ColumnFilter.all(metadata));
+        for (int i = rowCount - 1; i >= 0; i--)
+        {
+            Row row = reader.row(i);
+            if (row != null)
+                return row;
+        }
+        return null;
+    }
+
+    public Row getRow(Clustering<?> clustering)
+    {
+        ColumnFilter columns = ColumnFilter.selection(columns());
+        if (clustering == Clustering.STATIC_CLUSTERING)
+        {
+            Row row = staticRow(columns, true);
+            return row.isEmpty() ? null : row;
+        }
+
+        Reader reader = new Reader(columns);
+        int index = reader.indexOf(clustering);
+        Row row = index < 0 ? null : reader.row(index);
+
+        DeletionTime activeDeletion = deletionInfo.getPartitionDeletion();
+        RangeTombstone rt = deletionInfo.rangeCovering(clustering);
+        if (rt != null && rt.deletionTime().supersedes(activeDeletion))
+            activeDeletion = rt.deletionTime();
+
+        if (row == null)
+        {
+            if (activeDeletion == deletionInfo.getPartitionDeletion())
+                return null;
+            return BTreeRow.emptyDeletedRow(clustering, Row.Deletion.regular(activeDeletion));
+        }
+        return row.filter(columns, activeDeletion, true, metadata);
+    }
+
+    private Row staticRow(ColumnFilter columns, boolean setActiveDeletionToRow)
+    {
+        DeletionTime partitionDeletion = deletionInfo.getPartitionDeletion();
+        if (columns.fetchedColumns().statics.isEmpty() || (staticRow.isEmpty() && partitionDeletion.isLive()))
+            return Rows.EMPTY_STATIC_ROW;
+
+        Row row = staticRow.filter(columns, partitionDeletion, setActiveDeletionToRow, metadata);
+        return row == null ? Rows.EMPTY_STATIC_ROW : row;
+    }
+
+    public UnfilteredRowIterator unfilteredIterator()
+    {
+        return unfilteredIterator(ColumnFilter.selection(columns()), Slices.ALL, false);
+    }
+
+    public UnfilteredRowIterator unfilteredIterator(ColumnFilter selection, Slices slices, boolean reversed)
+    {
+        Row staticRow = staticRow(selection, false);
+        if (slices.size() == 0)
+            return UnfilteredRowIterators.noRowsIterator(metadata, partitionKey, staticRow, deletionInfo.getPartitionDeletion(), reversed);
+
+        Reader reader = new Reader(selection);
+        if (slices.size() == 1)
+            return reader.slice(slices.get(0), reversed, staticRow);
+
+        return new AbstractIterator(selection, staticRow, reversed)
+        {
+            private int idx;
+            private Iterator<Unfiltered> currentSlice;
+
+            protected Unfiltered computeNext()
+            {
+                while (true)
+                {
+                    if (currentSlice == null)
+                    {
+                        if (idx >= slices.size())
+                            return endOfData();
+
+                        int sliceIdx = isReverseOrder ? slices.size() - idx - 1 : idx;
+                        currentSlice = reader.slice(slices.get(sliceIdx), isReverseOrder, Rows.EMPTY_STATIC_ROW);
+                        idx++;
+                    }
+
+                    if (currentSlice.hasNext())
+                        return currentSlice.next();
+
+                    currentSlice = null;
+                }
+            }
+        };
+    }
+
+    public UnfilteredRowIterator unfilteredIterator(ColumnFilter selection, NavigableSet<Clustering<?>> clusteringsInQueryOrder, boolean reversed)
+    {
+        Row staticRow = staticRow(selection, false);
+        if (clusteringsInQueryOrder.isEmpty())
+            return UnfilteredRowIterators.noRowsIterator(metadata, partitionKey, staticRow, deletionInfo.getPartitionDeletion(), reversed);
+
+        Reader reader = new Reader(selection);
+        Iterator<Clustering<?>> clusterings = clusteringsInQueryOrder.iterator();
+        return new AbstractIterator(selection, staticRow, reversed)
+        {
+            private Iterator<Unfiltered> currentIterator;
+
+            protected Unfiltered computeNext()
+            {
+                while (true)
+                {
+                    if (currentIterator == null)
+                    {
+                        if (!clusterings.hasNext())
+                            return endOfData();
+
+                        currentIterator = nextIterator(clusterings.next());
+                    }
+
+                    if (currentIterator != null && currentIterator.hasNext())
+                        return currentIterator.next();
+
+                    currentIterator = null;
+                }
+            }
+
+            private Iterator<Unfiltered> nextIterator(Clustering<?> next)
+            {
+                int index = reader.indexOf(next);
+                Row nextRow = index < 0 ? null : reader.row(index);
+                Iterator<RangeTombstone> deleteIter = deletionInfo.rangeIterator(Slice.make(next), isReverseOrder());
+
+                if (nextRow == null && !deleteIter.hasNext())
+                    return null;
+
+                Iterator<Row> rowIterator = nextRow == null ? Collections.emptyIterator() : Iterators.singletonIterator(nextRow);
+                return reader.merge(rowIterator, deleteIter, isReverseOrder(), staticRow);
+            }
+        };
+    }
+
+    private abstract class AbstractIterator extends AbstractUnfilteredRowIterator
+    {
+        private AbstractIterator(ColumnFilter selection, Row staticRow, boolean isReversed)
+        {
+            super(SerializedCachedPartition.this.metadata,
+                  SerializedCachedPartition.this.partitionKey,
+                  SerializedCachedPartition.this.partitionLevelDeletion(),
+                  selection.fetchedColumns(),
+                  staticRow,
+                  isReversed,
+                  SerializedCachedPartition.this.stats());
+        }
+    }
+
+    /**
+     * Reads the rows in place, only deserializing the columns fetched by a query.
+     */
+    private class Reader
+    {
+        private final ColumnFilter selection;
+        private final DeserializationHelper helper;
+        private final Row.Builder builder = BTreeRow.sortedBuilder();
+        private final Input in = new Input(buffer);
+
+        private Reader(ColumnFilter selection)
+        {
+            this.selection = selection;
+            this.helper = new DeserializationHelper(metadata, VERSION, DeserializationHelper.Flag.LOCAL, selection);
+        }
+
+        private int offset(int index)
+        {
+            return rowsStart + buffer.getInt(offsetsStart + index * TypeSizes.INT_SIZE);
+        }
+
+        private Clustering<?> clustering(int index)
+        {
+            try
+            {
+                in.seek(offset(index));
+                int flags = in.readUnsignedByte();
+                UnfilteredSerializer.readExtendedFlags(in, flags);
+                return Clustering.serializer.deserialize(in, VERSION, header.clusteringTypes());
+            }
+            catch (IOException e)
+            {
+                throw new IOError(e);
+            }
+        }
+
+        /**
+         * @return the row at the given index, or {@code null} if nothing of it is fetched.
+         */
+        private Row row(int index)
+        {
+            try
+            {
+                in.seek(offset(index));
+                Unfiltered unfiltered = UnfilteredSerializer.serializer.deserialize(in, header, helper, builder);
+                // empty rows are skipped, in which case the following row is read
+                int end = index + 1 < rowCount ? offset(index + 1) : Integer.MAX_VALUE;
+                return unfiltered == null || in.position() > end ? null : (Row) unfiltered;
+            }
+            catch (IOException e)
+            {
+                throw new IOError(e);
+            }
+        }
+
+        /**
+         * @return the index of the row with the given clustering, or {@code -(insertion point) - 1} if there is none.
+         */
+        private int indexOf(Clustering<?> clustering)
+        {
+            ClusteringComparator comparator = metadata.comparator;
+            int low = 0;
+            int high = rowCount - 1;
+            while (low <= high)
+            {
+                int mid = (low + high) >>> 1;
+                int cmp = comparator.compare(clustering(mid), clustering);
+                if (cmp < 0)
+                    low = mid + 1;
+                else if (cmp > 0)
+                    high = mid - 1;
+                else
+                    return mid;
+            }
+            return -(low + 1);
+        }
+
+        /**
+         * @return the index of the first row after the given bound.
+         */
+        private int indexAfter(ClusteringBound<?> bound)
+        {
+            ClusteringComparator comparator = metadata.comparator;
+            int low = 0;
+            int high = rowCount;
+            while (low < high)
+            {
+                int mid = (low + high) >>> 1;
+                if (comparator.compare(clustering(mid), bound) < 0)
+                    low = mid + 1;
+                else
+                    high = mid;
+            }
+            return low;
+        }
+
+        private UnfilteredRowIterator slice(Slice slice, boolean reversed, Row staticRow)
+        {
+            int from = slice.start().isBottom() ? 0 : indexAfter(slice.start());
+            int to = slice.end().isTop() ? rowCount : indexAfter(slice.end());
+            Iterator<Row> rows = new org.apache.cassandra.utils.AbstractIterator<Row>()
+            {
+                private int next = reversed ? to - 1 : from;
+
+                protected Row computeNext()
+                {
+                    while (reversed ? next >= from : next < to)
+                    {
+                        Row row = row(next);
+                        next += reversed ? -1 : 1;
+                        if (row != null)
+                            return row;
+                    }
+                    return endOfData();
+                }
+            };
+            return merge(rows, deletionInfo.rangeIterator(slice, reversed), reversed, staticRow);
+        }
+
+        private UnfilteredRowIterator merge(Iterator<Row> rows, Iterator<RangeTombstone> ranges, boolean reversed, Row staticRow)
+        {
+            return new RowAndDeletionMergeIterator(metadata, partitionKey, deletionInfo.getPartitionDeletion(), selection,
+                                                   staticRow, reversed, header.stats(), rows, ranges, false);
+        }
+    }
+
+    private static class Input extends DataInputBuffer
+    {
+        private Input(ByteBuffer buffer)
+        {
+            super(buffer, true);
+        }
+
+        private void seek(int position)
+        {
+            buffer.position(position);
+        }
+
+        private int position()
+        {
+            return buffer.position();
+        }
+    }
+
+    /**
+     * Serializes {@link CachedBTreePartition}s in the format read in place by {@link SerializedCachedPartition}.
+     */
+    public static class Serializer
+    {
+        public void serialize(CachedPartition partition, DataOutputPlus out) throws IOException
+        {
+            if (partition instanceof SerializedCachedPartition)
+            {
+                out.write(((SerializedCachedPartition) partition).buffer.duplicate());
+                return;
+            }
+
+            assert partition instanceof CachedBTreePartition;
+            CachedBTreePartition p = (CachedBTreePartition) partition;
+            SerializationHeader header = header(p);
+            SerializationHelper helper = new SerializationHelper(header);
+            boolean hasStatic = !p.staticRow().isEmpty();
+
+            out.writeInt(p.cachedLiveRows());
+            out.writeInt(p.rowsWithNonExpiringCells());
+            p.metadata().id.serialize(out);
+            ByteBufferUtil.writeWithVIntLength(p.partitionKey().getKey(), out);
+            DeletionInfo deletionInfo = p.deletionInfo();
+            out.writeByte((hasStatic ? HAS_STATIC_ROW : 0) | (deletionInfo.getPartitionDeletion().isLive() ? 0 : HAS_PARTITION_DELETION));
+            SerializationHeader.serializer.serializeForMessaging(header, null, out, hasStatic);
+
+            if (!deletionInfo.getPartitionDeletion().isLive())
+                header.writeDeletionTime(deletionInfo.getPartitionDeletion(), out);
+            out.writeUnsignedVInt32(deletionInfo.rangeCount());
+            for (Iterator<RangeTombstone> iter = deletionInfo.rangeIterator(false); iter.hasNext(); )
+            {
+                RangeTombstone rt = iter.next();
+                Slice.serializer.serialize(rt.deletedSlice(), out, VERSION, header.clusteringTypes());
+                header.writeDeletionTime(rt.deletionTime(), out);
+            }
+
+            if (hasStatic)
+                UnfilteredSerializer.serializer.serializeStaticRow(p.staticRow(), helper, out, VERSION);
+
+            out.writeInt(p.rowCount());
+            int offset = 0;
+            long previousSize = 0;
+            for (Row row : p)
+            {
+                out.writeInt(offset);
+                previousSize = UnfilteredSerializer.serializer.serializedSize(row, helper, previousSize, VERSION);
+                offset += previousSize;
+            }
+
+            previousSize = 0;
+            for (Row row : p)
+            {
+                UnfilteredSerializer.serializer.serialize(row, helper, out, previousSize, VERSION);
+                previousSize = UnfilteredSerializer.serializer.serializedSize(row, helper, previousSize, VERSION);
+            }
+            UnfilteredSerializer.serializer.writeEndOfPartition(out);
+        }
+
+        public long serializedSize(CachedPartition partition)
+        {
+            if (partition instanceof SerializedCachedPartition)
+                return ((SerializedCachedPartition) partition).buffer.remaining();
+
+            assert partition instanceof CachedBTreePartition;
+            CachedBTreePartition p = (CachedBTreePartition) partition;
+            SerializationHeader header = header(p);
+            SerializationHelper helper = new SerializationHelper(header);
+            boolean hasStatic = !p.staticRow().isEmpty();
+
+            long size = TypeSizes.sizeof(p.cachedLiveRows())
+                        + TypeSizes.sizeof(p.rowsWithNonExpiringCells())
+                        + p.metadata().id.serializedSize()
+                        + ByteBufferUtil.serializedSizeWithVIntLength(p.partitionKey().getKey())
+                        + 1 // flags
+                        + SerializationHeader.serializer.serializedSizeForMessaging(header, null, hasStatic);
+
+            DeletionInfo deletionInfo = p.deletionInfo();
+            if (!deletionInfo.getPartitionDeletion().isLive())
+                size += header.deletionTimeSerializedSize(deletionInfo.getPartitionDeletion());
+            size += TypeSizes.sizeofUnsignedVInt(deletionInfo.rangeCount());
+            for (Iterator<RangeTombstone> iter = deletionInfo.rangeIterator(false); iter.hasNext(); )
+            {
+                RangeTombstone rt = iter.next();
+                size += Slice.serializer.serializedSize(rt.deletedSlice(), VERSION, header.clusteringTypes());
+                size += header.deletionTimeSerializedSize(rt.deletionTime());
+            }
+
+            if (hasStatic)
+                size += UnfilteredSerializer.serializer.serializedSize(p.staticRow(), helper, 0, VERSION);
+
+            size += TypeSizes.sizeof(p.rowCount());
+            long previousSize = 0;
+            for (Row row : p)
+            {
+                previousSize = UnfilteredSerializer.serializer.serializedSize(row, helper, previousSize, VERSION);
+                size += TypeSizes.INT_SIZE + previousSize;
+            }
+            return size + UnfilteredSerializer.serializer.serializedSizeEndOfPartition();
+        }
+
+        private static SerializationHeader header(CachedBTreePartition partition)
+        {
+            return new SerializationHeader(true, partition.metadata(), partition.columns(), partition.stats());
+        }
+    }
+}
@@ -220,7 +220,8 @@ public class CassandraValidationIterator extends ValidationPartitionIterator
                     cfs.getTableName());
 
         controller = new ValidationCompactionController(cfs, getDefaultGcBefore(cfs, nowInSec));
-        scanners = cfs.getCompactionStrategyManager().getScanners(sstables, ranges);
+        // validation reads every sstable in the ranges once, which should not evict the chunks cached for reads
+        scanners = cfs.getCompactionStrategyManager().getScanners(sstables, ranges, true);
         ci = new ValidationCompactionIterator(scanners.scanners, controller, nowInSec, CompactionManager.instance.active, topPartitionCollector);
 
         long allPartitions = 0;
@@ -305,6 +305,23 @@ public abstract class Cell<V> extends ColumnData
         }
 
         public <V> Cell<V> deserialize(DataInputPlus in, LivenessInfo rowLiveness, ColumnMetadata column, SerializationHeader header, DeserializationHelper helper, ValueAccessor<V> accessor) throws IOException
+        {
+            return deserialize(in, rowLiveness, column, header, helper, accessor, false);
+        }
+
+        /**
+         * Deserializes the next cell if {@code helper} includes it, and skips it otherwise, returning {@code null}.
+         * <p>
+         * Whether the cell is included is decided from its metadata, before its value is read, so the cells that a
+         * query fetches without selecting them are skipped without being created, and without their value being
+         * copied.
+         */
+        public <V> Cell<V> deserializeIfIncluded(DataInputPlus in, LivenessInfo rowLiveness, ColumnMetadata column, SerializationHeader header, DeserializationHelper helper, ValueAccessor<V> accessor) throws IOException
+        {
+            return deserialize(in, rowLiveness, column, header, helper, accessor, true);
+        }
+
+        private <V> Cell<V> deserialize(DataInputPlus in, LivenessInfo rowLiveness, ColumnMetadata column, SerializationHeader header, DeserializationHelper helper, ValueAccessor<V> accessor, boolean skipExcluded) throws IOException
         {
             int flags = in.readUnsignedByte();
             boolean hasValue = (flags & HAS_EMPTY_VALUE_MASK) == 0;
@@ -325,6 +342,13 @@ public abstract class Cell<V> extends ColumnData
                             ? column.cellPathSerializer().deserialize(in)
                             : null;
 
+            if (skipExcluded && !helper.includes(column, path, timestamp, rowLiveness))
+            {
+                if (hasValue)
+                    header.getType(column).skipValue(in);
+                return null;
+            }
+
             V value = accessor.empty();
             if (hasValue)
             {
@@ -77,6 +77,20 @@ public class DeserializationHelper
     }
 
     public boolean includes(Cell<?> cell, LivenessInfo rowLiveness)
+    {
+        return isIncluded(cell.column(), cell.path(), cell.timestamp(), rowLiveness);
+    }
+
+    /**
+     * Whether the cell of the given column, path and timestamp is included, i.e. passes {@link #includes(Cell, LivenessInfo)}
+     * and is not dropped, which only depends on the cell metadata and can thus be decided before reading its value.
+     */
+    public boolean includes(ColumnMetadata column, CellPath path, long timestamp, LivenessInfo rowLiveness)
+    {
+        return isIncluded(column, path, timestamp, rowLiveness) && !isDropped(column, timestamp, column.isComplex());
+    }
+
+    private boolean isIncluded(ColumnMetadata column, CellPath path, long timestamp, LivenessInfo rowLiveness)
     {
         if (columnsToFetch == null)
             return true;
@@ -87,17 +101,16 @@ public class DeserializationHelper
         // actually requested by the user however (canSkipValue), we can skip the full cell if the cell
         // timestamp is lower than the row one, because in that case, the row timestamp is enough proof
         // of the liveness of the row. Otherwise, we'll only be able to skip the values of those cells.
-        ColumnMetadata column = cell.column();
         if (column.isComplex())
         {
-            if (!includes(cell.path()))
+            if (!includes(path))
                 return false;
 
-            return !canSkipValue(cell.path()) || cell.timestamp() >= rowLiveness.timestamp();
+            return !canSkipValue(path) || timestamp >= rowLiveness.timestamp();
         }
         else
         {
-            return columnsToFetch.fetchedColumnIsQueried(column) || cell.timestamp() >= rowLiveness.timestamp();
+            return columnsToFetch.fetchedColumnIsQueried(column) || timestamp >= rowLiveness.timestamp();
         }
     }
 
@@ -128,12 +141,17 @@ public class DeserializationHelper
     }
 
     public boolean isDropped(Cell<?> cell, boolean isComplex)
+    {
+        return isDropped(cell.column(), cell.timestamp(), isComplex);
+    }
+
+    private boolean isDropped(ColumnMetadata column, long timestamp, boolean isComplex)
     {
         if (!hasDroppedColumns)
             return false;
 
-        DroppedColumn dropped = isComplex ? currentDroppedComplex : droppedColumns.get(cell.column().name.bytes);
-        return dropped != null && cell.timestamp() <= dropped.droppedTime;
+        DroppedColumn dropped = isComplex ? currentDroppedComplex : droppedColumns.get(column.name.bytes);
+        return dropped != null && timestamp <= dropped.droppedTime;
     }
 
     public boolean isDroppedComplexDeletion(DeletionTime complexDeletion)
@@ -0,0 +1,463 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.db.rows;
+
+import java.io.IOError;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import org.apache.cassandra.db.Clustering;
+import org.apache.cassandra.db.Columns;
+import org.apache.cassandra.db.DeletionPurger;
+import org.apache.cassandra.db.DeletionTime;
+import org.apache.cassandra.db.Digest;
+import org.apache.cassandra.db.LivenessInfo;
+import org.apache.cassandra.db.NativeClustering;
+import org.apache.cassandra.db.RegularAndStaticColumns;
+import org.apache.cassandra.db.SerializationHeader;
+import org.apache.cassandra.db.filter.ColumnFilter;
+import org.apache.cassandra.io.util.DataInputBuffer;
+import org.apache.cassandra.io.util.DataOutputBuffer;
+import org.apache.cassandra.net.MessagingService;
+import org.apache.cassandra.schema.ColumnMetadata;
+import org.apache.cassandra.schema.TableMetadata;
+import org.apache.cassandra.schema.TableMetadataRef;
+import org.apache.cassandra.utils.BiLongAccumulator;
+import org.apache.cassandra.utils.LongAccumulator;
+import org.apache.cassandra.utils.ObjectSizes;
+import org.apache.cassandra.utils.SearchIterator;
+import org.apache.cassandra.utils.concurrent.OpOrder;
+import org.apache.cassandra.utils.memory.Cloner;
+import org.apache.cassandra.utils.memory.HeapCloner;
+import org.apache.cassandra.utils.memory.MemoryUtil;
+import org.apache.cassandra.utils.memory.NativeAllocator;
+import org.github.jamm.Unmetered;
+
+/**
+ * A row stored in native memory as a single serialized blob, in the memtable format of {@link UnfilteredSerializer}.
+ * <p>
+ * Unlike rows made of {@link NativeCell}s, which still keep the row, its btree of cells and a small object for each
+ * cell on heap, only this object and the row's {@link NativeClustering} are on heap. The row content is deserialized
+ * by every access other than to its clustering and sizes, so this suits memtables where rows are mostly written and
+ * flushed, and read less often.
+ */
+public final class NativeRow implements Row
+{
+    private static final long EMPTY_SIZE = ObjectSizes.measure(new NativeRow(null, Clustering.STATIC_CLUSTERING, 0, 0, 0));
+
+    private static final int VERSION = MessagingService.current_version;
+
+    @Unmetered // shared by all the rows of a memtable
+    private final Layout layout;
+    private final Clustering<?> clustering;
+    private final long peer;
+    private final int size;
+    private final int dataSize;
+
+    private NativeRow(Layout layout, Clustering<?> clustering, long peer, int size, int dataSize)
+    {
+        this.layout = layout;
+        this.clustering = clustering;
+        this.peer = peer;
+        this.size = size;
+        this.dataSize = dataSize;
+    }
+
+    /**
+     * The serialization header of rows, whose columns must include the columns of all the rows serialized with it.
+     */
+    private static class Layout
+    {
+        final TableMetadataRef metadata;
+        final SerializationHeader header;
+
+        Layout(TableMetadataRef metadata, RegularAndStaticColumns columns)
+        {
+            this.metadata = metadata;
+            this.header = new SerializationHeader(false, metadata.get(), columns, EncodingStats.NO_STATS);
+        }
+
+        boolean includes(Row row)
+        {
+            Columns columns = header.columns(row.isStatic());
+            for (ColumnData data : row)
+            {
+                if (!columns.contains(data.column()))
+                    return false;
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Stores the rows of a memtable in native memory. Thread-safe.
+     */
+    public static class Writer
+    {
+        private final TableMetadataRef metadata;
+        private final NativeAllocator allocator;
+        private final AtomicReference<Layout> layout;
+
+        public Writer(TableMetadataRef metadata, NativeAllocator allocator)
+        {
+            this.metadata = metadata;
+            this.allocator = allocator;
+            this.layout = new AtomicReference<>(new Layout(metadata, metadata.get().regularAndStaticColumns()));
+        }
+
+        /**
+         * Copies the given row to native memory.
+         *
+         * @param row the row to copy
+         * @param clustering the clustering of the row, already stored in native memory, or null to copy it too
+         * @param writeOp the write operation the memory is allocated for
+         */
+        public NativeRow write(Row row, Clustering<?> clustering, OpOrder.Group writeOp)
+        {
+            Layout layout = layoutFor(row);
+            if (row.isStatic())
+                clustering = Clustering.STATIC_CLUSTERING;
+            else if (clustering == null)
+                clustering = new NativeClustering(allocator, writeOp, row.clustering());
+
+            try (DataOutputBuffer out = DataOutputBuffer.scratchBuffer.get())
+            {
+                UnfilteredSerializer.serializer.serialize(row, new SerializationHelper(layout.header), out, VERSION);
+                ByteBuffer buffer = out.unsafeGetBufferAndFlip();
+                int size = buffer.remaining();
+                long peer = allocator.allocate(size, writeOp);
+                MemoryUtil.setBytes(peer, buffer);
+                return new NativeRow(layout, clustering, peer, size, row.dataSize());
+            }
+            catch (IOException e)
+            {
+                throw new IOError(e);
+            }
+        }
+
+        private Layout layoutFor(Row row)
+        {
+            while (true)
+            {
+                Layout current = layout.get();
+                if (current.includes(row))
+                    return current;
+
+                // columns added to the table since the memtable was created
+                RegularAndStaticColumns columns = RegularAndStaticColumns.builder().addAll(row.columns()).build();
+                Layout extended = new Layout(metadata, columns.mergeTo(current.header.columns()));
+                if (layout.compareAndSet(current, extended))
+                    return extended;
+            }
+        }
+    }
+
+    /**
+     * @return the content of this row, deserialized on heap
+     */
+    public Row materialize()
+    {
+        return materialize(clustering);
+    }
+
+    private Row materialize(Clustering<?> clustering)
+    {
+        try (DataInputBuffer in = new DataInputBuffer(MemoryUtil.getByteBuffer(peer, size, ByteOrder.BIG_ENDIAN), false))
+        {
+            SerializationHeader header = layout.header;
+            int flags = in.readUnsignedByte();
+            int extendedFlags = UnfilteredSerializer.readExtendedFlags(in, flags);
+            if (!isStatic())
+                Clustering.serializer.skip(in, VERSION, header.clusteringTypes());
+
+            Row.Builder builder = BTreeRow.sortedBuilder();
+            builder.newRow(clustering);
+            DeserializationHelper helper = new DeserializationHelper(layout.metadata.get(), VERSION, DeserializationHelper.Flag.LOCAL);
+            return UnfilteredSerializer.serializer.deserializeRowBody(in, header, helper, flags, extendedFlags, builder);
+        }
+        catch (IOException e)
+        {
+            throw new IOError(e);
+        }
+    }
+
+    public Kind kind()
+    {
+        return Kind.ROW;
+    }
+
+    public Clustering<?> clustering()
+    {
+        return clustering;
+    }
+
+    public boolean isStatic()
+    {
+        return clustering == Clustering.STATIC_CLUSTERING;
+    }
+
+    public int dataSize()
+    {
+        return dataSize;
+    }
+
+    public long unsharedHeapSizeExcludingData()
+    {
+        return EMPTY_SIZE + (isStatic() ? 0 : clustering.unsharedHeapSizeExcludingData());
+    }
+
+    public long unsharedHeapSize()
+    {
+        return unsharedHeapSizeExcludingData();
+    }
+
+    public Row clone(Cloner cloner)
+    {
+        // the deserialized row only references the native clustering, which we copy before deserializing
+        if (cloner == HeapCloner.instance)
+            return materialize(isStatic() ? clustering : clustering.clone(HeapCloner.instance));
+        return materialize().clone(cloner);
+    }
+
+    public Collection<ColumnMetadata> columns()
+    {
+        return materialize().columns();
+    }
+
+    public int columnCount()
+    {
+        return materialize().columnCount();
+    }
+
+    public Deletion deletion()
+    {
+        return materialize().deletion();
+    }
+
+    public LivenessInfo primaryKeyLivenessInfo()
+    {
+        return materialize().primaryKeyLivenessInfo();
+    }
+
+    public boolean isEmpty()
+    {
+        return materialize().isEmpty();
+    }
+
+    public boolean hasLiveData(long nowInSec, boolean enforceStrictLiveness)
+    {
+        return materialize().hasLiveData(nowInSec, enforceStrictLiveness);
+    }
+
+    public Cell<?> getCell(ColumnMetadata c)
+    {
+        return materialize().getCell(c);
+    }
+
+    public Cell<?> getCell(ColumnMetadata c, CellPath path)
+    {
+        return materialize().getCell(c, path);
+    }
+
+    public ComplexColumnData getComplexColumnData(ColumnMetadata c)
+    {
+        return materialize().getComplexColumnData(c);
+    }
+
+    public ColumnData getColumnData(ColumnMetadata c)
+    {
+        return materialize().getColumnData(c);
+    }
+
+    public Iterable<Cell<?>> cells()
+    {
+        return materialize().cells();
+    }
+
+    public Collection<ColumnData> columnData()
+    {
+        return materialize().columnData();
+    }
+
+    public Iterable<Cell<?>> cellsInLegacyOrder(TableMetadata metadata, boolean reversed)
+    {
+        return materialize().cellsInLegacyOrder(metadata, reversed);
+    }
+
+    public boolean hasComplexDeletion()
+    {
+        return materialize().hasComplexDeletion();
+    }
+
+    public boolean hasComplex()
+    {
+        return materialize().hasComplex();
+    }
+
+    public boolean hasDeletion(long nowInSec)
+    {
+        return materialize().hasDeletion(nowInSec);
+    }
+
+    public SearchIterator<ColumnMetadata, ColumnData> searchIterator()
+    {
+        return materialize().searchIterator();
+    }
+
+    public Row filter(ColumnFilter filter, TableMetadata metadata)
+    {
+        return materialize().filter(filter, metadata);
+    }
+
+    public Row filter(ColumnFilter filter, DeletionTime activeDeletion, boolean setActiveDeletionToRow, TableMetadata metadata)
+    {
+        return materialize().filter(filter, activeDeletion, setActiveDeletionToRow, metadata);
+    }
+
+    public Row transformAndFilter(LivenessInfo info, Deletion deletion, Function<ColumnData, ColumnData> function)
+    {
+        return materialize().transformAndFilter(info, deletion, function);
+    }
+
+    public Row transformAndFilter(Function<ColumnData, ColumnData> function)
+    {
+        return materialize().transformAndFilter(function);
+    }
+
+    public Row purge(DeletionPurger purger, long nowInSec, boolean enforceStrictLiveness)
+    {
+        return materialize().purge(purger, nowInSec, enforceStrictLiveness);
+    }
+
+    public Row withOnlyQueriedData(ColumnFilter filter)
+    {
+        return materialize().withOnlyQueriedData(filter);
+    }
+
+    public Row purgeDataOlderThan(long timestamp, boolean enforceStrictLiveness)
+    {
+        return materialize().purgeDataOlderThan(timestamp, enforceStrictLiveness);
+    }
+
+    public Row markCounterLocalToBeCleared()
+    {
+        return materialize().markCounterLocalToBeCleared();
+    }
+
+    public Row updateAllTimestamp(long newTimestamp)
+    {
+        return materialize().updateAllTimestamp(newTimestamp);
+    }
+
+    public Row withRowDeletion(DeletionTime deletion)
+    {
+        return materialize().withRowDeletion(deletion);
+    }
+
+    public void apply(Consumer<ColumnData> function)
+    {
+        materialize().apply(function);
+    }
+
+    public <A> void apply(BiConsumer<A, ColumnData> function, A arg)
+    {
+        materialize().apply(function, arg);
+    }
+
+    public long accumulate(LongAccumulator<ColumnData> accumulator, long initialValue)
+    {
+        return materialize().accumulate(accumulator, initialValue);
+    }
+
+    public long accumulate(LongAccumulator<ColumnData> accumulator, Comparator<ColumnData> comparator, ColumnData from, long initialValue)
+    {
+        return materialize().accumulate(accumulator, comparator, from, initialValue);
+    }
+
+    public <A> long accumulate(BiLongAccumulator<A, ColumnData> accumulator, A arg, long initialValue)
+    {
+        return materialize().accumulate(accumulator, arg, initialValue);
+    }
+
+    public <A> long accumulate(BiLongAccumulator<A, ColumnData> accumulator, A arg, Comparator<ColumnData> comparator, ColumnData from, long initialValue)
+    {
+        return materialize().accumulate(accumulator, arg, comparator, from, initialValue);
+    }
+
+    public Iterator<ColumnData> iterator()
+    {
+        return materialize().iterator();
+    }
+
+    public void digest(Digest digest)
+    {
+        materialize().digest(digest);
+    }
+
+    public void validateData(TableMetadata metadata)
+    {
+        materialize().validateData(metadata);
+    }
+
+    public boolean hasInvalidDeletions()
+    {
+        return materialize().hasInvalidDeletions();
+    }
+
+    public String toString(TableMetadata metadata)
+    {
+        return materialize().toString(metadata);
+    }
+
+    public String toString(TableMetadata metadata, boolean fullDetails)
+    {
+        return materialize().toString(metadata, fullDetails);
+    }
+
+    public String toString(TableMetadata metadata, boolean includeClusterKeys, boolean fullDetails)
+    {
+        return materialize().toString(metadata, includeClusterKeys, fullDetails);
+    }
+
+    @Override
+    public boolean equals(Object other)
+    {
+        return other instanceof NativeRow ? materialize().equals(((NativeRow) other).materialize())
+                                          : materialize().equals(other);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return materialize().hashCode();
+    }
+
+    @Override
+    public String toString()
+    {
+        return materialize().toString();
+    }
+}
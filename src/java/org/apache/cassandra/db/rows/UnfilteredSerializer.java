@@ -327,7 +327,10 @@ public class UnfilteredSerializer
         if (!row.isStatic())
             size += Clustering.serializer.serializedSize(row.clustering(), version, helper.header.clusteringTypes());
 
-        return size + serializedRowBodySize(row, helper, previousUnfilteredSize, version);
+        long bodySize = serializedRowBodySize(row, helper, previousUnfilteredSize, version);
+        if (helper.header.isForSSTable())
+            size += TypeSizes.sizeofUnsignedVInt(bodySize);
+        return size + bodySize;
     }
 
     private long serializedRowBodySize(Row row, SerializationHelper helper, long previousUnfilteredSize, int version)
@@ -649,8 +652,8 @@ public class UnfilteredSerializer
     {
         if (helper.includes(column))
         {
-            Cell<byte[]> cell = Cell.serializer.deserialize(in, rowLiveness, column, header, helper, ByteArrayAccessor.instance);
-            if (helper.includes(cell, rowLiveness) && !helper.isDropped(cell, false))
+            Cell<byte[]> cell = Cell.serializer.deserializeIfIncluded(in, rowLiveness, column, header, helper, ByteArrayAccessor.instance);
+            if (cell != null)
                 builder.addCell(cell);
         }
         else
@@ -682,8 +685,8 @@ public class UnfilteredSerializer
             int count = in.readUnsignedVInt32();
             while (--count >= 0)
             {
-                Cell<byte[]> cell = Cell.serializer.deserialize(in, rowLiveness, column, header, helper, ByteArrayAccessor.instance);
-                if (helper.includes(cell, rowLiveness) && !helper.isDropped(cell, true))
+                Cell<byte[]> cell = Cell.serializer.deserializeIfIncluded(in, rowLiveness, column, header, helper, ByteArrayAccessor.instance);
+                if (cell != null)
                     builder.addCell(cell);
             }
 
@@ -473,6 +473,20 @@ public class InMemoryReadTrie<T> extends Trie<T>
                : null;
     }
 
+    /**
+     * @return the index of the content of the given node, or -1 if it has none.
+     */
+    int getNodeContentIndex(int node)
+    {
+        if (isLeaf(node))
+            return ~node;
+
+        if (offset(node) != PREFIX_OFFSET)
+            return -1;
+
+        return getInt(node + PREFIX_CONTENT_OFFSET);
+    }
+
     int splitBlockPointerAddress(int node, int childIndex, int subLevelLimit)
     {
         return node - SPLIT_OFFSET + (8 - subLevelLimit + childIndex) * 4;
@@ -835,6 +849,25 @@ public class InMemoryReadTrie<T> extends Trie<T>
         return null;
     }
 
+    /**
+     * @return the index of the content for the given key, or -1 if the key is not present.
+     */
+    int getContentIndex(ByteComparable path)
+    {
+        int n = root;
+        ByteSource source = path.asComparableBytes(BYTE_COMPARABLE_VERSION);
+        while (!isNull(n))
+        {
+            int c = source.next();
+            if (c == ByteSource.END_OF_STREAM)
+                return getNodeContentIndex(n);
+
+            n = advance(n, c, source);
+        }
+
+        return -1;
+    }
+
     public boolean isEmpty()
     {
         return isNull(root);
@@ -43,6 +43,12 @@ import org.github.jamm.MemoryMeterStrategy;
  * also see it) for singleton writes (i.e. calls to {@link #putRecursive}, {@link #putSingleton} or {@link #apply}
  * with a singleton trie as argument).
  *
+ * The content of keys which are already present can also be modified by any number of threads concurrently with the
+ * mutator thread, and with each other, using {@link #updateExisting}. Such updates do not change the structure of
+ * the trie, and replace the content atomically, with a compare-and-set, retrying on conflicts. The mutator thread
+ * replaces existing content the same way, which means that any transformer may be called more than once for a given
+ * write when the trie is used like this.
+ *
  * Because it uses 32-bit pointers in byte buffers, this trie has a fixed size limit of 2GB.
  */
 public class InMemoryTrie<T> extends InMemoryReadTrie<T>
@@ -175,12 +181,34 @@ public class InMemoryTrie<T> extends InMemoryReadTrie<T>
         return index;
     }
 
-    private void setContent(int index, T value)
+    /**
+     * Replaces the content at the given index with the result of applying the transformer to it, retrying if it was
+     * concurrently replaced by an {@link #updateExisting} call in the meantime.
+     */
+    private <U> void updateContent(int index, U value, UpsertTransformer<T, ? super U> transformer)
+    {
+        updateContent(index, value, transformer, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Like {@link #updateContent(int, Object, UpsertTransformer)}, but gives up after the given number of attempts.
+     *
+     * @return whether the content was replaced
+     */
+    private <U> boolean updateContent(int index, U value, UpsertTransformer<T, ? super U> transformer, int maxAttempts)
     {
         int leadBit = getChunkIdx(index, CONTENTS_START_SHIFT, CONTENTS_START_SIZE);
         int ofs = inChunkPointer(index, leadBit, CONTENTS_START_SIZE);
         AtomicReferenceArray<T> array = contentArrays[leadBit];
-        array.set(ofs, value);
+        for (int attempt = 0; attempt < maxAttempts; attempt++)
+        {
+            T existing = array.get(ofs);
+            T combined = transformer.apply(existing, value);
+            assert (combined != null) : "Transformer cannot be used to remove content.";
+            if (array.compareAndSet(ofs, existing, combined))
+                return true;
+        }
+        return false;
     }
 
     public void discardBuffers()
@@ -701,10 +729,7 @@ public class InMemoryTrie<T> extends InMemoryReadTrie<T>
             {
                 if (existingContentIndex != -1)
                 {
-                    final T existingContent = getContent(existingContentIndex);
-                    T combinedContent = transformer.apply(existingContent, mutationContent);
-                    assert (combinedContent != null) : "Transformer cannot be used to remove content.";
-                    setContent(existingContentIndex, combinedContent);
+                    updateContent(existingContentIndex, mutationContent, transformer);
                     return existingContentIndex;
                 }
                 else
@@ -926,21 +951,56 @@ public class InMemoryTrie<T> extends InMemoryReadTrie<T>
 
         if (isLeaf(node))
         {
-            int contentIndex = ~node;
-            setContent(contentIndex, transformer.apply(getContent(contentIndex), value));
+            updateContent(~node, value, transformer);
             return node;
         }
 
         if (offset(node) == PREFIX_OFFSET)
         {
-            int contentIndex = getInt(node + PREFIX_CONTENT_OFFSET);
-            setContent(contentIndex, transformer.apply(getContent(contentIndex), value));
+            updateContent(getInt(node + PREFIX_CONTENT_OFFSET), value, transformer);
             return node;
         }
         else
             return createPrefixNode(addContent(transformer.apply(null, value)), node, false);
     }
 
+    /**
+     * Map-like update of the content of a key which is already present in the trie, which, unlike the other write
+     * methods, can be called by any thread, concurrently with the mutator thread and with other calls to this method.
+     * The trie structure is not modified: if the key is not present, nothing is done and the caller must insert it
+     * with one of the other write methods, from the mutator thread.
+     * <p>
+     * The new content replaces the existing one atomically, and the transformer is applied again to the newer
+     * content if another thread replaced it first, so it may be called more than once.
+     *
+     * @param key the trie path/key for the given value.
+     * @param value the value being put in the memtable trie.
+     * @param transformer a function applied to the existing value for the given key and the new value, returning the
+     * final value that will stay in the memtable trie.
+     * @return {@code true} if the key was present and its content updated, {@code false} if it is not present.
+     */
+    public <R> boolean updateExisting(ByteComparable key, R value, UpsertTransformer<T, ? super R> transformer)
+    {
+        return updateExisting(key, value, transformer, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Like {@link #updateExisting(ByteComparable, Object, UpsertTransformer)}, but gives up if the content was
+     * replaced by other threads the given number of times in a row, so that callers can fall back to a pessimistic
+     * strategy, like serializing the writes to a heavily contended key, rather than keep wasting work.
+     *
+     * @return {@code true} if the key was present and its content updated, {@code false} if it is not present or
+     * the transformer was applied {@code maxAttempts} times without its result being stored.
+     */
+    public <R> boolean updateExisting(ByteComparable key, R value, UpsertTransformer<T, ? super R> transformer, int maxAttempts)
+    {
+        int contentIndex = getContentIndex(key);
+        if (contentIndex < 0)
+            return false;
+
+        return updateContent(contentIndex, value, transformer, maxAttempts);
+    }
+
     /**
      * Returns true if the allocation threshold has been reached. To be called by the the writing thread (ideally, just
      * after the write completes). When this returns true, the user should switch to a new trie as soon as feasible.
@@ -0,0 +1,79 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.db.virtual;
+
+import java.util.Date;
+
+import org.apache.cassandra.db.compaction.CompactionThroughputController;
+import org.apache.cassandra.db.marshal.DoubleType;
+import org.apache.cassandra.db.marshal.Int32Type;
+import org.apache.cassandra.db.marshal.TimestampType;
+import org.apache.cassandra.db.marshal.UTF8Type;
+import org.apache.cassandra.dht.LocalPartitioner;
+import org.apache.cassandra.schema.TableMetadata;
+
+/**
+ * The last adjustments of the compaction throughput made by the {@link CompactionThroughputController}.
+ */
+final class CompactionThroughputDecisionsTable extends AbstractVirtualTable
+{
+    private final static String DECIDED_AT = "decided_at";
+    private final static String REASON = "reason";
+    private final static String COORDINATOR_READ_LATENCY_P99_MICROS = "coordinator_read_latency_p99_micros";
+    private final static String LOCAL_READ_LATENCY_P99_MICROS = "local_read_latency_p99_micros";
+    private final static String PENDING_COMPACTIONS = "pending_compactions";
+    private final static String DISK_USAGE = "disk_usage";
+    private final static String COMPACTION_THROUGHPUT_BYTES_PER_SECOND = "compaction_throughput_bytes_per_second";
+    private final static String STREAMING_THROUGHPUT_RATIO = "streaming_throughput_ratio";
+
+    CompactionThroughputDecisionsTable(String keyspace)
+    {
+        super(TableMetadata.builder(keyspace, "compaction_throughput_decisions")
+                           .comment("recent adjustments of the adaptive compaction throughput")
+                           .kind(TableMetadata.Kind.VIRTUAL)
+                           .partitioner(new LocalPartitioner(TimestampType.instance))
+                           .addPartitionKeyColumn(DECIDED_AT, TimestampType.instance)
+                           .addRegularColumn(REASON, UTF8Type.instance)
+                           .addRegularColumn(COORDINATOR_READ_LATENCY_P99_MICROS, DoubleType.instance)
+                           .addRegularColumn(LOCAL_READ_LATENCY_P99_MICROS, DoubleType.instance)
+                           .addRegularColumn(PENDING_COMPACTIONS, Int32Type.instance)
+                           .addRegularColumn(DISK_USAGE, UTF8Type.instance)
+                           .addRegularColumn(COMPACTION_THROUGHPUT_BYTES_PER_SECOND, DoubleType.instance)
+                           .addRegularColumn(STREAMING_THROUGHPUT_RATIO, DoubleType.instance)
+                           .build());
+    }
+
+    public DataSet data()
+    {
+        SimpleDataSet result = new SimpleDataSet(metadata());
+
+        for (CompactionThroughputController.Decision decision : CompactionThroughputController.instance.recentDecisions())
+        {
+            result.row(new Date(decision.timestampMillis))
+                  .column(REASON, decision.reason.toString())
+                  .column(COORDINATOR_READ_LATENCY_P99_MICROS, decision.coordinatorReadLatencyMicros)
+                  .column(LOCAL_READ_LATENCY_P99_MICROS, decision.localReadLatencyMicros)
+                  .column(PENDING_COMPACTIONS, decision.pendingCompactions)
+                  .column(DISK_USAGE, decision.diskUsage.toString())
+                  .column(COMPACTION_THROUGHPUT_BYTES_PER_SECOND, decision.throughputBytesPerSec)
+                  .column(STREAMING_THROUGHPUT_RATIO, decision.streamingThroughputRatio);
+        }
+
+        return result;
+    }
+}
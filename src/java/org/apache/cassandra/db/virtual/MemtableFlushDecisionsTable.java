@@ -0,0 +1,90 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.cassandra.db.virtual;
+
+import org.apache.cassandra.db.marshal.DoubleType;
+import org.apache.cassandra.db.marshal.FloatType;
+import org.apache.cassandra.db.marshal.Int32Type;
+import org.apache.cassandra.db.marshal.TimeUUIDType;
+import org.apache.cassandra.db.marshal.UTF8Type;
+import org.apache.cassandra.db.memtable.MemtableFlushScheduler;
+import org.apache.cassandra.dht.LocalPartitioner;
+import org.apache.cassandra.schema.TableMetadata;
+
+/**
+ * The last memtables chosen by the {@link MemtableFlushScheduler} to free up room in the memtable pool.
+ */
+final class MemtableFlushDecisionsTable extends AbstractVirtualTable
+{
+    private final static String KEYSPACE_NAME = "keyspace_name";
+    private final static String DECIDED_AT = "decided_at";
+    private final static String TABLE_NAME = "table_name";
+    private final static String SCHEDULER = "scheduler";
+    private final static String OWNERSHIP_RATIO = "ownership_ratio";
+    private final static String WRITE_BYTES_PER_SECOND = "write_bytes_per_second";
+    private final static String LIVE_SSTABLES = "live_sstables";
+    private final static String PENDING_COMPACTIONS = "pending_compactions";
+    private final static String SCORE = "score";
+    private final static String LARGEST_TABLE = "largest_table";
+    private final static String ADAPTIVE_TABLE = "adaptive_table";
+    private final static String CANDIDATES = "candidates";
+
+    MemtableFlushDecisionsTable(String keyspace)
+    {
+        super(TableMetadata.builder(keyspace, "memtable_flush_decisions")
+                           .comment("memtables recently chosen to be flushed to free up room")
+                           .kind(TableMetadata.Kind.VIRTUAL)
+                           .partitioner(new LocalPartitioner(UTF8Type.instance))
+                           .addPartitionKeyColumn(KEYSPACE_NAME, UTF8Type.instance)
+                           .addClusteringColumn(DECIDED_AT, TimeUUIDType.instance)
+                           .addRegularColumn(TABLE_NAME, UTF8Type.instance)
+                           .addRegularColumn(SCHEDULER, UTF8Type.instance)
+                           .addRegularColumn(OWNERSHIP_RATIO, FloatType.instance)
+                           .addRegularColumn(WRITE_BYTES_PER_SECOND, DoubleType.instance)
+                           .addRegularColumn(LIVE_SSTABLES, Int32Type.instance)
+                           .addRegularColumn(PENDING_COMPACTIONS, Int32Type.instance)
+                           .addRegularColumn(SCORE, DoubleType.instance)
+                           .addRegularColumn(LARGEST_TABLE, UTF8Type.instance)
+                           .addRegularColumn(ADAPTIVE_TABLE, UTF8Type.instance)
+                           .addRegularColumn(CANDIDATES, Int32Type.instance)
+                           .build());
+    }
+
+    public DataSet data()
+    {
+        SimpleDataSet result = new SimpleDataSet(metadata());
+
+        for (MemtableFlushScheduler.Decision decision : MemtableFlushScheduler.recentDecisions())
+        {
+            result.row(decision.keyspace, decision.decidedAt)
+                  .column(TABLE_NAME, decision.table)
+                  .column(SCHEDULER, decision.scheduler.toString())
+                  .column(OWNERSHIP_RATIO, decision.ownershipRatio)
+                  .column(WRITE_BYTES_PER_SECOND, decision.writeRate)
+                  .column(LIVE_SSTABLES, decision.liveSSTables)
+                  .column(PENDING_COMPACTIONS, decision.pendingCompactions)
+                  .column(SCORE, decision.score)
+                  .column(LARGEST_TABLE, decision.largestTable)
+                  .column(ADAPTIVE_TABLE, decision.adaptiveTable)
+                  .column(CANDIDATES, decision.candidates);
+        }
+
+        return result;
+    }
+}
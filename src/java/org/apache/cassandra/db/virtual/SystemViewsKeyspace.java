@@ -38,6 +38,8 @@ public final class SystemViewsKeyspace extends VirtualKeyspace
                     .add(new SettingsTable(VIRTUAL_VIEWS))
                     .add(new SystemPropertiesTable(VIRTUAL_VIEWS))
                     .add(new SSTableTasksTable(VIRTUAL_VIEWS))
+                    .add(new MemtableFlushDecisionsTable(VIRTUAL_VIEWS))
+                    .add(new CompactionThroughputDecisionsTable(VIRTUAL_VIEWS))
                     // Fully backward/forward compatible with the legace ThreadPoolsTable under the same "system_views.thread_pools" name.
                     .add(CollectionVirtualTableAdapter.create(VIRTUAL_VIEWS,
                                                               "thread_pools",
@@ -22,7 +22,14 @@ import java.io.EOFException;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.channels.Channels;
+import java.util.ArrayDeque;
 import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.zip.CRC32;
 
 import org.apache.cassandra.io.FSReadError;
@@ -37,6 +44,8 @@ import org.apache.cassandra.io.util.SequentialWriter;
 import org.apache.cassandra.io.util.SequentialWriterOption;
 import org.apache.cassandra.schema.CompressionParams;
 import org.apache.cassandra.utils.ByteBufferUtil;
+import org.apache.cassandra.utils.Throwables;
+import org.apache.cassandra.utils.concurrent.Condition;
 
 import static org.apache.cassandra.utils.Throwables.merge;
 
@@ -46,7 +55,7 @@ public class CompressedSequentialWriter extends SequentialWriter
 
     // holds offset in the file where current chunk should be written
     // changed only by flush() method where data buffer gets compressed and stored to the file
-    private long chunkOffset = 0;
+    private volatile long chunkOffset = 0;
 
     // index file writer (random I/O)
     private final CompressionMetadata.Writer metadataWriter;
@@ -67,6 +76,9 @@ public class CompressedSequentialWriter extends SequentialWriter
 
     private final int maxCompressedLength;
 
+    // compresses and writes the chunks in the background, if the writer was given an executor
+    private final ChunkPipeline pipeline;
+
     /**
      * Create CompressedSequentialWriter without digest file.
      *
@@ -83,6 +95,25 @@ public class CompressedSequentialWriter extends SequentialWriter
                                       SequentialWriterOption option,
                                       CompressionParams parameters,
                                       MetadataCollector sstableMetadataCollector)
+    {
+        this(file, offsetsFile, digestFile, option, parameters, sstableMetadataCollector, null, 0);
+    }
+
+    /**
+     * Create CompressedSequentialWriter compressing and writing its chunks with the given executor, while the data of
+     * the following chunks is written to it.
+     *
+     * @param compressionExecutor Executor compressing and writing the chunks, or null to do it when the buffer is full
+     * @param maxPendingChunks The maximum number of chunks buffered for the executor
+     */
+    public CompressedSequentialWriter(File file,
+                                      File offsetsFile,
+                                      File digestFile,
+                                      SequentialWriterOption option,
+                                      CompressionParams parameters,
+                                      MetadataCollector sstableMetadataCollector,
+                                      Executor compressionExecutor,
+                                      int maxPendingChunks)
     {
         super(file, SequentialWriterOption.newBuilder()
                             .bufferSize(option.bufferSize())
@@ -104,11 +135,13 @@ public class CompressedSequentialWriter extends SequentialWriter
 
         this.sstableMetadataCollector = sstableMetadataCollector;
         crcMetadata = new ChecksumWriter(new DataOutputStream(Channels.newOutputStream(channel)));
+        pipeline = compressionExecutor == null ? null : new ChunkPipeline(compressionExecutor, maxPendingChunks);
     }
 
     @Override
     public long getOnDiskFilePointer()
     {
+        waitForPendingChunks();
         try
         {
             return fchannel.position();
@@ -139,74 +172,115 @@ public class CompressedSequentialWriter extends SequentialWriter
     @Override
     protected void flushData()
     {
-        seekToChunkStart(); // why is this necessary? seems like it should always be at chunk start in normal operation
+        if (pipeline != null)
+        {
+            pipeline.submit();
+            lastFlushOffset = pipeline.writtenUncompressedSize;
+        }
+        else
+        {
+            seekToChunkStart(); // why is this necessary? seems like it should always be at chunk start in normal operation
 
+            int uncompressedLength = buffer.position();
+            buffer.flip();
+            ByteBuffer toWrite = compressChunk(buffer, compressed);
+            try
+            {
+                writeChunk(toWrite, uncompressedLength);
+            }
+            catch (IOException e)
+            {
+                throw new FSWriteError(e, getPath());
+            }
+            lastFlushOffset = uncompressedSize;
+            buffer.position(uncompressedLength);
+        }
+
+        if (runPostFlush != null)
+            runPostFlush.accept(getLastFlushOffset());
+    }
+
+    /**
+     * Compresses the chunk from the position to the limit of {@code input}, which must start at 0.
+     *
+     * @return the data to write, flipped: {@code output}, or {@code input} (padded if needed) if the chunk does not
+     * compress well enough
+     */
+    private ByteBuffer compressChunk(ByteBuffer input, ByteBuffer output)
+    {
+        int uncompressedLength = input.remaining();
         try
         {
             // compressing data with buffer re-use
-            buffer.flip();
-            compressed.clear();
-            compressor.compress(buffer, compressed);
+            output.clear();
+            compressor.compress(input, output);
         }
         catch (IOException e)
         {
             throw new RuntimeException("Compression exception", e); // shouldn't happen
         }
 
-        int uncompressedLength = buffer.position();
-        int compressedLength = compressed.position();
-        uncompressedSize += uncompressedLength;
-        ByteBuffer toWrite = compressed;
-        if (compressedLength >= maxCompressedLength)
+        ByteBuffer toWrite = output;
+        if (output.position() >= maxCompressedLength)
         {
-            toWrite = buffer;
-            if (uncompressedLength >= maxCompressedLength)
-            {
-                compressedLength = uncompressedLength;
-            }
-            else
+            toWrite = input;
+            if (uncompressedLength < maxCompressedLength)
             {
                 // Pad the uncompressed data so that it reaches the max compressed length.
                 // This could make the chunk appear longer, but this path is only reached at the end of the file, where
                 // we use the file size to limit the buffer on reading.
-                assert maxCompressedLength <= buffer.capacity();   // verified by CompressionParams.validate
-                buffer.limit(maxCompressedLength);
-                ByteBufferUtil.writeZeroes(buffer, maxCompressedLength - uncompressedLength);
-                compressedLength = maxCompressedLength;
+                assert maxCompressedLength <= input.capacity();   // verified by CompressionParams.validate
+                input.limit(maxCompressedLength);
+                ByteBufferUtil.writeZeroes(input, maxCompressedLength - uncompressedLength);
             }
         }
+        toWrite.flip();
+        return toWrite;
+    }
+
+    /**
+     * Writes a chunk returned by {@link #compressChunk} with its checksum, and records its offset.
+     */
+    private void writeChunk(ByteBuffer toWrite, int uncompressedLength) throws IOException
+    {
+        int compressedLength = toWrite.remaining();
+        uncompressedSize += uncompressedLength;
         compressedSize += compressedLength;
 
-        try
-        {
-            // write an offset of the newly written chunk to the index file
-            metadataWriter.addOffset(chunkOffset);
-            chunkCount++;
+        // write an offset of the newly written chunk to the index file
+        metadataWriter.addOffset(chunkOffset);
+        chunkCount++;
 
-            // write out the compressed data
-            toWrite.flip();
-            channel.write(toWrite);
+        // write out the compressed data
+        channel.write(toWrite);
 
-            // write corresponding checksum
-            toWrite.rewind();
-            crcMetadata.appendDirect(toWrite, true);
-            lastFlushOffset = uncompressedSize;
-        }
-        catch (IOException e)
-        {
-            throw new FSWriteError(e, getPath());
-        }
-        if (toWrite == buffer)
-            buffer.position(uncompressedLength);
+        // write corresponding checksum
+        toWrite.rewind();
+        crcMetadata.appendDirect(toWrite, true);
 
         // next chunk should be written right after current + length of the checksum (int)
         chunkOffset += compressedLength + 4;
-        if (runPostFlush != null)
-            runPostFlush.accept(getLastFlushOffset());
+    }
+
+    private void waitForPendingChunks()
+    {
+        if (pipeline != null)
+        {
+            pipeline.awaitAll();
+            lastFlushOffset = uncompressedSize;
+        }
+    }
+
+    @Override
+    protected void syncDataOnlyInternal()
+    {
+        waitForPendingChunks();
+        super.syncDataOnlyInternal();
     }
 
     public CompressionMetadata open(long overrideLength)
     {
+        waitForPendingChunks();
         if (overrideLength <= 0)
             overrideLength = uncompressedSize;
         return metadataWriter.open(overrideLength, chunkOffset);
@@ -217,6 +291,7 @@ public class CompressedSequentialWriter extends SequentialWriter
     {
         if (!buffer.hasRemaining())
             doFlush(0);
+        waitForPendingChunks();
         return new CompressedFileWriterMark(chunkOffset, current(), buffer.position(), chunkCount + 1);
     }
 
@@ -226,6 +301,7 @@ public class CompressedSequentialWriter extends SequentialWriter
         assert mark instanceof CompressedFileWriterMark;
 
         CompressedFileWriterMark realMark = (CompressedFileWriterMark) mark;
+        waitForPendingChunks();
 
         // reset position
         long truncateTarget = realMark.uncDataOffset;
@@ -398,6 +474,9 @@ public class CompressedSequentialWriter extends SequentialWriter
         @Override
         protected Throwable doPreCleanup(Throwable accumulate)
         {
+            // the background tasks must be done with the channel and buffers before they are released
+            if (pipeline != null)
+                accumulate = pipeline.close(accumulate);
             accumulate = super.doPreCleanup(accumulate);
             if (compressed != null)
             {
@@ -416,6 +495,170 @@ public class CompressedSequentialWriter extends SequentialWriter
         return new TransactionalProxy();
     }
 
+    /**
+     * Compresses the chunks of the writer with an executor, so that serializing the data, compressing chunks (several
+     * at a time) and writing them overlap. Whichever compression task completes the next chunk to write writes it,
+     * along with the following ones which are already compressed, so the chunks are written in order by a single
+     * thread at a time.
+     * <p>
+     * The data of a chunk is copied to a buffer of the pipeline, so that the writer keeps its own buffer. At most
+     * {@code maxPendingChunks} chunks are being compressed or waiting to be written, after which the writing thread
+     * waits for the oldest one. Anything which needs the state of the file first waits for all pending chunks.
+     */
+    private class ChunkPipeline
+    {
+        private final Executor executor;
+        private final int maxPendingChunks;
+
+        // the chunks submitted and not waited for yet, and the buffers to reuse, only used by the writing thread
+        private final ArrayDeque<PendingChunk> pending = new ArrayDeque<>();
+        private final ArrayDeque<PendingChunk> free = new ArrayDeque<>();
+        // the chunks not written yet, in order
+        private final Queue<PendingChunk> toWrite = new ConcurrentLinkedQueue<>();
+        private final Lock writeLock = new ReentrantLock();
+
+        private volatile Throwable failure;
+        private volatile long writtenUncompressedSize;
+
+        ChunkPipeline(Executor executor, int maxPendingChunks)
+        {
+            this.executor = executor;
+            this.maxPendingChunks = Math.max(1, maxPendingChunks);
+        }
+
+        void submit()
+        {
+            Throwables.maybeFail(failure);
+            PendingChunk chunk = pending.size() >= maxPendingChunks ? awaitOldest() : free.poll();
+            if (chunk == null)
+                chunk = new PendingChunk(compressor.preferredBufferType().allocate(buffer.capacity()),
+                                         compressor.preferredBufferType().allocate(compressed.capacity()));
+
+            ByteBuffer data = buffer.duplicate();
+            data.flip();
+            chunk.uncompressed.clear();
+            chunk.uncompressed.put(data).flip();
+            chunk.uncompressedLength = data.limit();
+            chunk.compressed = false;
+            chunk.written = Condition.newOneTimeCondition();
+
+            pending.add(chunk);
+            toWrite.add(chunk);
+            PendingChunk submitted = chunk;
+            try
+            {
+                executor.execute(() -> compressAndWrite(submitted));
+            }
+            catch (RejectedExecutionException e)
+            {
+                compressAndWrite(submitted);
+            }
+        }
+
+        private PendingChunk awaitOldest()
+        {
+            PendingChunk chunk = pending.poll();
+            chunk.written.awaitUninterruptibly();
+            Throwables.maybeFail(failure);
+            return chunk;
+        }
+
+        void awaitAll()
+        {
+            while (!pending.isEmpty())
+                free.add(awaitOldest());
+        }
+
+        private void compressAndWrite(PendingChunk chunk)
+        {
+            try
+            {
+                if (failure == null)
+                    chunk.toWrite = compressChunk(chunk.uncompressed, chunk.output);
+            }
+            catch (Throwable t)
+            {
+                fail(t);
+            }
+            chunk.compressed = true;
+
+            // a chunk compressed while another thread held the lock is written once it is released
+            PendingChunk next;
+            while ((next = toWrite.peek()) != null && next.compressed && writeLock.tryLock())
+            {
+                try
+                {
+                    while ((next = toWrite.peek()) != null && next.compressed)
+                    {
+                        toWrite.poll();
+                        if (failure == null)
+                            write(next);
+                        next.written.signal();
+                    }
+                }
+                finally
+                {
+                    writeLock.unlock();
+                }
+            }
+        }
+
+        private void write(PendingChunk chunk)
+        {
+            try
+            {
+                writeChunk(chunk.toWrite, chunk.uncompressedLength);
+                writtenUncompressedSize = uncompressedSize;
+            }
+            catch (IOException e)
+            {
+                fail(new FSWriteError(e, getPath()));
+            }
+            catch (Throwable t)
+            {
+                fail(t);
+            }
+        }
+
+        private synchronized void fail(Throwable t)
+        {
+            failure = merge(failure, t);
+        }
+
+        Throwable close(Throwable accumulate)
+        {
+            // all the chunks are signalled once compressed, even after a failure
+            for (PendingChunk chunk : pending)
+                chunk.written.awaitUninterruptibly();
+            free.addAll(pending);
+            pending.clear();
+            for (PendingChunk chunk : free)
+            {
+                try { FileUtils.clean(chunk.uncompressed); FileUtils.clean(chunk.output); }
+                catch (Throwable t) { accumulate = merge(accumulate, t); }
+            }
+            free.clear();
+            return accumulate;
+        }
+    }
+
+    private static final class PendingChunk
+    {
+        final ByteBuffer uncompressed;
+        final ByteBuffer output;
+
+        int uncompressedLength;
+        ByteBuffer toWrite;
+        volatile boolean compressed;
+        Condition written;
+
+        PendingChunk(ByteBuffer uncompressed, ByteBuffer output)
+        {
+            this.uncompressed = uncompressed;
+            this.output = output;
+        }
+    }
+
     /**
      * Class to hold a mark to the position of the file
      */
@@ -101,10 +101,10 @@ public class RangeAwareSSTableWriter implements SSTableMultiWriter
         }
     }
 
-    public void append(UnfilteredRowIterator partition)
+    public boolean append(UnfilteredRowIterator partition)
     {
         maybeSwitchWriter(partition.partitionKey());
-        currentWriter.append(partition);
+        return currentWriter.append(partition);
     }
 
     @Override
@@ -34,7 +34,7 @@ public interface SSTableMultiWriter extends Transactional
      * @param partition the partition to append
      * @return true if the partition was written, false otherwise
      */
-    void append(UnfilteredRowIterator partition);
+    boolean append(UnfilteredRowIterator partition);
 
     Collection<SSTableReader> finish(boolean openResult);
     Collection<SSTableReader> finished();
@@ -33,7 +33,8 @@ public interface SSTableReadsListener
         BLOOM_FILTER("Bloom filter allows skipping sstable {}"),
         MIN_MAX_KEYS("Check against min and max keys allows skipping sstable {}"),
         PARTITION_INDEX_LOOKUP("Partition index lookup allows skipping sstable {}"),
-        INDEX_ENTRY_NOT_FOUND("Partition index lookup complete (bloom filter false positive) for sstable {}");
+        INDEX_ENTRY_NOT_FOUND("Partition index lookup complete (bloom filter false positive) for sstable {}"),
+        EXCLUDED_PARTITION("Partition rewritten by an incremental tombstone compaction allows skipping sstable {}");
 
         private final String message;
 
@@ -17,12 +17,22 @@
  */
 package org.apache.cassandra.io.sstable;
 
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.function.Consumer;
 
 import com.google.common.annotations.VisibleForTesting;
 
+import com.carrotsearch.hppc.LongArrayList;
+
+import org.apache.cassandra.cache.KeyCacheKey;
 import org.apache.cassandra.config.DatabaseDescriptor;
 import org.apache.cassandra.db.ColumnFamilyStore;
 import org.apache.cassandra.db.DecoratedKey;
@@ -30,6 +40,8 @@ import org.apache.cassandra.db.lifecycle.ILifecycleTransaction;
 import org.apache.cassandra.db.rows.UnfilteredRowIterator;
 import org.apache.cassandra.io.sstable.format.SSTableReader;
 import org.apache.cassandra.io.sstable.format.SSTableWriter;
+import org.apache.cassandra.io.sstable.keycache.KeyCacheSupport;
+import org.apache.cassandra.service.CacheService;
 import org.apache.cassandra.utils.concurrent.Transactional;
 
 /**
@@ -46,6 +58,10 @@ import org.apache.cassandra.utils.concurrent.Transactional;
  * On abort, we restore the original lower bounds to the existing readers and delete any temporary files we had in progress,
  * but leave any hard-links in place for the readers we opened, and clean-up when the readers finish as we would do
  * if we had finished successfully.
+ *
+ * The key cache entries of the partitions whose keys are cached for one of the readers when the rewrite starts are
+ * carried over to the new sstables, along with their data chunks if file_cache_warm_on_compaction is set, once each
+ * new sstable is complete and before it replaces the readers, so that rewriting hot data does not make it cold.
  */
 public class SSTableRewriter extends Transactional.AbstractTransactional implements Transactional
 {
@@ -68,6 +84,12 @@ public class SSTableRewriter extends Transactional.AbstractTransactional impleme
 
     private SSTableWriter writer;
 
+    // the keys cached for the originals when the rewrite started, which are those of the hot partitions we rewrite,
+    // removed once written; null if the originals don't use the key cache
+    private final Set<ByteBuffer> hotKeys;
+    // the hot partitions written to each writer, until its final reader is opened
+    private final Map<SSTableWriter, HotPartitions> hotPartitions = new IdentityHashMap<>();
+
     // for testing (TODO: remove when have byteman setup)
     private boolean throwEarly, throwLate;
 
@@ -85,6 +107,35 @@ public class SSTableRewriter extends Transactional.AbstractTransactional impleme
         this.preemptiveOpenInterval = preemptiveOpenInterval;
         this.keepOriginals = keepOriginals;
         this.eagerWriterMetaRelease = eagerWriterMetaRelease;
+        this.hotKeys = transaction.isOffline() ? null : cachedKeys(transaction.originals());
+    }
+
+    /**
+     * Returns the keys cached for the given readers, collected in a single pass over the key cache, so that telling
+     * whether a partition is hot is then a single lookup. The set is bounded by the size of the key cache.
+     *
+     * @return the cached keys, or null if none of the readers uses the key cache
+     */
+    private static Set<ByteBuffer> cachedKeys(Collection<SSTableReader> readers)
+    {
+        Set<Descriptor> descriptors = new HashSet<>();
+        for (SSTableReader reader : readers)
+        {
+            if (reader instanceof KeyCacheSupport && ((KeyCacheSupport<?>) reader).getKeyCache().isEnabled())
+                descriptors.add(reader.descriptor);
+        }
+        if (descriptors.isEmpty())
+            return null;
+
+        Set<ByteBuffer> keys = new HashSet<>();
+        Iterator<KeyCacheKey> it = CacheService.instance.keyCache.keyIterator();
+        while (it.hasNext())
+        {
+            KeyCacheKey key = it.next();
+            if (descriptors.contains(key.desc))
+                keys.add(ByteBuffer.wrap(key.key));
+        }
+        return keys;
     }
 
     public static SSTableRewriter constructKeepingOriginals(ILifecycleTransaction transaction, boolean keepOriginals, long maxAge)
@@ -133,7 +184,21 @@ public class SSTableRewriter extends Transactional.AbstractTransactional impleme
         // we do this before appending to ensure we can resetAndTruncate() safely if appending fails
         DecoratedKey key = partition.partitionKey();
         maybeReopenEarly(key);
-        return writer.append(partition);
+        AbstractRowIndexEntry index = writer.append(partition);
+        if (index != null && hotKeys != null && hotKeys.remove(key.getKey()))
+            hotPartitions.computeIfAbsent(writer, w -> new HotPartitions()).add(key, index, writer.getFilePointer());
+        return index;
+    }
+
+    /**
+     * Loads the key cache entries, and possibly the data, of the hot partitions written by the given writer for
+     * its final reader.
+     */
+    private void warmCaches(SSTableWriter writer, SSTableReader reader)
+    {
+        HotPartitions hot = hotPartitions.remove(writer);
+        if (hot != null)
+            hot.load(reader);
     }
 
     // attempts to append the row, if fails resets the writer position
@@ -270,6 +335,7 @@ public class SSTableRewriter extends Transactional.AbstractTransactional impleme
             // we leave it as a tmp file, but we open it and add it to the Tracker
             writer.setMaxDataAge(maxAge);
             SSTableReader reader = writer.openFinalEarly();
+            warmCaches(writer, reader);
             transaction.update(reader, false);
             moveStarts(reader.getLast());
             transaction.checkpoint();
@@ -331,6 +397,7 @@ public class SSTableRewriter extends Transactional.AbstractTransactional impleme
             writer.setOpenResult(true);
             writer.prepareToCommit();
             SSTableReader reader = writer.finished();
+            warmCaches(writer, reader);
             transaction.update(reader, false);
             preparedForCommit.add(reader);
         }
@@ -352,4 +419,32 @@ public class SSTableRewriter extends Transactional.AbstractTransactional impleme
         else
             throwLate = true;
     }
+
+    private static class HotPartitions
+    {
+        private final List<DecoratedKey> keys = new ArrayList<>();
+        private final List<AbstractRowIndexEntry> indexEntries = new ArrayList<>();
+        // end position of each partition in the data file, the start being that of its index entry
+        private final LongArrayList ends = new LongArrayList();
+
+        void add(DecoratedKey key, AbstractRowIndexEntry index, long end)
+        {
+            keys.add(key);
+            indexEntries.add(index);
+            ends.add(end);
+        }
+
+        void load(SSTableReader reader)
+        {
+            boolean cacheKeys = reader instanceof KeyCacheSupport && ((KeyCacheSupport<?>) reader).getKeyCache().isEnabled();
+            boolean warmChunks = DatabaseDescriptor.getFileCacheWarmOnCompaction();
+            for (int i = 0; i < keys.size(); i++)
+            {
+                if (cacheKeys)
+                    ((KeyCacheSupport<?>) reader).cacheKey(keys.get(i), indexEntries.get(i));
+                if (warmChunks)
+                    reader.warmChunkCache(indexEntries.get(i).position, ends.get(i));
+            }
+        }
+    }
 }
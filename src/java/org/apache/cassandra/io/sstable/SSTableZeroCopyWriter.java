@@ -118,7 +118,7 @@ public class SSTableZeroCopyWriter extends SSTable implements SSTableMultiWriter
     }
 
     @Override
-    public void append(UnfilteredRowIterator partition)
+    public boolean append(UnfilteredRowIterator partition)
     {
         throw new UnsupportedOperationException();
     }
@@ -44,9 +44,9 @@ public class SimpleSSTableMultiWriter implements SSTableMultiWriter
         this.writer = writer;
     }
 
-    public void append(UnfilteredRowIterator partition)
+    public boolean append(UnfilteredRowIterator partition)
     {
-        writer.append(partition);
+        return writer.append(partition) != null;
     }
 
     public Collection<SSTableReader> finish(boolean openResult)
@@ -0,0 +1,186 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.io.sstable.format;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.annotations.VisibleForTesting;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.carrotsearch.hppc.LongArrayList;
+
+import org.apache.cassandra.cache.ChunkCache;
+import org.apache.cassandra.concurrent.ExecutorPlus;
+import org.apache.cassandra.config.DatabaseDescriptor;
+import org.apache.cassandra.db.compaction.OperationType;
+import org.apache.cassandra.utils.JVMStabilityInspector;
+import org.apache.cassandra.utils.concurrent.Ref;
+
+import static org.apache.cassandra.concurrent.ExecutorFactory.Global.executorFactory;
+
+/**
+ * Records the parts of the data file of an sstable being written that should be loaded into the chunk cache once
+ * the sstable is complete:
+ * <ul>
+ *     <li>for flushes, all the data, as recently written data is usually read soon;</li>
+ *     <li>for compactions, the partitions that were hot in the input sstables, which are told by their input data
+ *     having been served from the chunk cache. This works at chunk granularity: a partition is hot if any of the
+ *     input chunks read for it were cached.</li>
+ * </ul>
+ * At most a quarter of the cache is loaded per sstable, so that a single large sstable cannot evict everything else.
+ * <p>
+ * The chunks are loaded in the background by a single thread, so that flushes and compactions don't wait for them.
+ * At most a quarter of the cache is waiting to be loaded at any time: the sstables completed while more is waiting
+ * are not loaded.
+ */
+class ChunkCacheWarmer
+{
+    private static final Logger logger = LoggerFactory.getLogger(ChunkCacheWarmer.class);
+
+    private static final ExecutorPlus executor = executorFactory().sequential("ChunkCacheWarmer");
+    // the number of bytes waiting to be loaded
+    private static final AtomicLong pending = new AtomicLong();
+
+    private final boolean hotOnly;
+    private final long maxBudget;
+    private long budget;
+
+    // start and end positions of the ranges to load, merged when contiguous
+    private final LongArrayList ranges = new LongArrayList();
+    // data file chunk cache hits of the writing thread when the previous partition was written; the input of a
+    // partition may be partly read before it is appended (e.g. its header, to merge it), so hits are counted from there
+    private long hitsAfterLastPartition;
+
+    private ChunkCacheWarmer(boolean hotOnly, long budget)
+    {
+        this.hotOnly = hotOnly;
+        this.maxBudget = budget;
+        this.budget = budget;
+        this.hitsAfterLastPartition = ChunkCache.dataHitsOnCurrentThread();
+    }
+
+    /**
+     * @return the warmer for an sstable written by the given operation, or {@code null} if it should not be warmed
+     */
+    static ChunkCacheWarmer create(OperationType opType)
+    {
+        boolean hotOnly;
+        switch (opType)
+        {
+            case FLUSH:
+                if (!DatabaseDescriptor.getFileCacheWarmOnFlush())
+                    return null;
+                hotOnly = false;
+                break;
+            case COMPACTION:
+            case MAJOR_COMPACTION:
+            case TOMBSTONE_COMPACTION:
+            case GARBAGE_COLLECT:
+            case UPGRADE_SSTABLES:
+            case CLEANUP:
+            case ANTICOMPACTION:
+                if (!DatabaseDescriptor.getFileCacheWarmOnCompaction())
+                    return null;
+                hotOnly = true;
+                break;
+            default:
+                return null;
+        }
+
+        return ChunkCache.instance == null ? null : new ChunkCacheWarmer(hotOnly, ChunkCache.instance.capacity() / 4);
+    }
+
+    /**
+     * Called once a partition has been written between the given positions of the data file.
+     */
+    void endPartition(long start, long end)
+    {
+        long hits = ChunkCache.dataHitsOnCurrentThread();
+        boolean hot = hits != hitsAfterLastPartition;
+        hitsAfterLastPartition = hits;
+        if (budget <= 0 || (hotOnly && !hot))
+            return;
+
+        end = Math.min(end, start + budget);
+        budget -= end - start;
+        int size = ranges.size();
+        if (size > 0 && ranges.get(size - 1) >= start)
+            ranges.set(size - 1, Math.max(end, ranges.get(size - 1)));
+        else
+            ranges.add(start, end);
+    }
+
+    /**
+     * Submits the loading of the recorded ranges of the given complete sstable into the chunk cache.
+     */
+    void warm(SSTableReader reader)
+    {
+        long[] toLoad = ranges.toArray();
+        ranges.clear();
+        long bytes = maxBudget - budget;
+        if (bytes == 0)
+            return;
+
+        Ref<SSTableReader> ref = pending.addAndGet(bytes) <= maxBudget ? reader.tryRef() : null;
+        if (ref == null)
+        {
+            pending.addAndGet(-bytes);
+            logger.debug("Not loading {} into the chunk cache, as {} bytes are already waiting to be loaded", reader, pending.get());
+            return;
+        }
+
+        Runnable release = () -> {
+            ref.release();
+            pending.addAndGet(-bytes);
+        };
+        try
+        {
+            executor.execute(() -> {
+                try
+                {
+                    for (int i = 0; i < toLoad.length; i += 2)
+                        reader.warmChunkCache(toLoad[i], toLoad[i + 1]);
+                }
+                catch (Throwable t)
+                {
+                    JVMStabilityInspector.inspectThrowable(t);
+                    logger.debug("Failed to load {} into the chunk cache", reader, t);
+                }
+                finally
+                {
+                    release.run();
+                }
+            });
+        }
+        catch (RejectedExecutionException e)
+        {
+            release.run();
+        }
+    }
+
+    /**
+     * @return the number of bytes waiting to be loaded into the chunk cache
+     */
+    @VisibleForTesting
+    static long pendingBytes()
+    {
+        return pending.get();
+    }
+}
@@ -18,7 +18,9 @@
 
 package org.apache.cassandra.io.sstable.format;
 
+import org.apache.cassandra.concurrent.ExecutorPlus;
 import org.apache.cassandra.config.Config.FlushCompression;
+import org.apache.cassandra.config.DatabaseDescriptor;
 import org.apache.cassandra.db.compaction.OperationType;
 import org.apache.cassandra.io.compress.CompressedSequentialWriter;
 import org.apache.cassandra.io.compress.ICompressor;
@@ -31,8 +33,16 @@ import org.apache.cassandra.io.util.SequentialWriterOption;
 import org.apache.cassandra.schema.CompressionParams;
 import org.apache.cassandra.schema.TableMetadata;
 
+import static org.apache.cassandra.concurrent.ExecutorFactory.Global.executorFactory;
+
 public class DataComponent
 {
+    // created on first use, as most tools never flush
+    private static class FlushChunkCompression
+    {
+        static final ExecutorPlus executor = executorFactory().pooled("FlushChunkCompression", DatabaseDescriptor.getFlushCompressionThreads());
+    }
+
     public static SequentialWriter buildWriter(Descriptor descriptor,
                                                TableMetadata metadata,
                                                SequentialWriterOption options,
@@ -44,12 +54,16 @@ public class DataComponent
         {
             final CompressionParams compressionParams = buildCompressionParams(metadata, operationType, flushCompression);
 
+            // flushes compress their chunks in the background so that they do not hold up serialization
+            int compressionThreads = operationType == OperationType.FLUSH ? DatabaseDescriptor.getFlushCompressionThreads() : 0;
             return new CompressedSequentialWriter(descriptor.fileFor(Components.DATA),
                                                   descriptor.fileFor(Components.COMPRESSION_INFO),
                                                   descriptor.fileFor(Components.DIGEST),
                                                   options,
                                                   compressionParams,
-                                                  metadataCollector);
+                                                  metadataCollector,
+                                                  compressionThreads > 0 ? FlushChunkCompression.executor : null,
+                                                  Math.max(2, 2 * compressionThreads));
         }
         else
         {
@@ -0,0 +1,172 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.io.sstable.format;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+import com.google.common.collect.ImmutableSet;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.apache.cassandra.db.DecoratedKey;
+import org.apache.cassandra.dht.IPartitioner;
+import org.apache.cassandra.io.FSWriteError;
+import org.apache.cassandra.io.sstable.Descriptor;
+import org.apache.cassandra.io.sstable.format.SSTableFormat.Components;
+import org.apache.cassandra.io.util.File;
+import org.apache.cassandra.io.util.FileInputStreamPlus;
+import org.apache.cassandra.io.util.FileOutputStreamPlus;
+import org.apache.cassandra.utils.ByteBufferUtil;
+
+/**
+ * The partitions of an sstable that an incremental tombstone compaction has rewritten into another sstable, without
+ * their purgeable tombstones, and that reads and compactions must skip in this one.
+ * <p>
+ * The exclusions are saved in the Excluded.db file once the rewritten partitions are live, so an sstable without
+ * them, after a failure or when streamed to another node, only returns the partitions with the tombstones the
+ * rewritten ones lack: the merged data is the same. They are not listed in the TOC, and not streamed.
+ */
+public class ExcludedPartitions
+{
+    private static final Logger logger = LoggerFactory.getLogger(ExcludedPartitions.class);
+
+    /** The gcBefore of the last incremental tombstone compaction of the sstable. */
+    public final long gcBefore;
+    private final Set<DecoratedKey> keys;
+
+    public ExcludedPartitions(long gcBefore, Collection<DecoratedKey> keys)
+    {
+        this.gcBefore = gcBefore;
+        this.keys = ImmutableSet.copyOf(keys);
+    }
+
+    public boolean contains(DecoratedKey key)
+    {
+        return keys.contains(key);
+    }
+
+    public int size()
+    {
+        return keys.size();
+    }
+
+    /**
+     * @return these exclusions and the given partitions, rewritten by an incremental tombstone compaction run with
+     * the given gcBefore
+     */
+    public ExcludedPartitions with(Collection<DecoratedKey> rewritten, long gcBefore)
+    {
+        Set<DecoratedKey> merged = new HashSet<>(keys);
+        merged.addAll(rewritten);
+        return new ExcludedPartitions(gcBefore, merged);
+    }
+
+    /**
+     * Load the exclusions from the Excluded.db file, or return {@code null} if the sstable has none.
+     */
+    public static ExcludedPartitions load(Descriptor descriptor, IPartitioner partitioner) throws IOException
+    {
+        File file = descriptor.fileFor(Components.EXCLUDED);
+
+        if (!file.exists())
+            return null;
+
+        try (FileInputStreamPlus stream = file.newInputStream())
+        {
+            long gcBefore = stream.readLong();
+            int count = stream.readInt();
+            Set<DecoratedKey> keys = new HashSet<>(count);
+            for (int i = 0; i < count; i++)
+                keys.add(partitioner.decorateKey(ByteBufferUtil.readWithShortLength(stream)));
+            return new ExcludedPartitions(gcBefore, keys);
+        }
+        catch (IOException ex)
+        {
+            throw new IOException("Failed to load excluded partitions for SSTable: " + descriptor.baseFile(), ex);
+        }
+    }
+
+    /**
+     * Like {@link #load}, but logs and returns {@code null} if the exclusions cannot be read: the sstable is then
+     * read with the partitions rewritten elsewhere, which is correct but slower.
+     */
+    public static ExcludedPartitions maybeLoad(Descriptor descriptor, IPartitioner partitioner)
+    {
+        try
+        {
+            return load(descriptor, partitioner);
+        }
+        catch (IOException ex)
+        {
+            logger.info("Excluded partitions for " + descriptor + " could not be deserialized", ex);
+            return null;
+        }
+    }
+
+    /**
+     * Saves the exclusions, replacing the previous ones atomically.
+     */
+    public void save(Descriptor descriptor)
+    {
+        stage(descriptor);
+        publishStaged(descriptor);
+    }
+
+    /**
+     * Writes the exclusions in a temporary file, which replaces the previous ones when published with
+     * {@link #publishStaged}, or is removed by {@link #discardStaged}. A temporary file left behind by a failure is
+     * removed when the node starts.
+     */
+    public void stage(Descriptor descriptor)
+    {
+        File file = descriptor.tmpFileFor(Components.EXCLUDED);
+        try (FileOutputStreamPlus stream = file.newOutputStream(File.WriteMode.OVERWRITE))
+        {
+            stream.writeLong(gcBefore);
+            stream.writeInt(keys.size());
+            for (DecoratedKey key : keys)
+                ByteBufferUtil.writeWithShortLength(key.getKey(), stream);
+            stream.flush();
+            stream.sync();
+        }
+        catch (IOException ex)
+        {
+            file.deleteIfExists();
+            throw new FSWriteError(ex, file);
+        }
+    }
+
+    /**
+     * Replaces the exclusions of the given sstable, atomically, with the ones written by {@link #stage}.
+     */
+    public static void publishStaged(Descriptor descriptor)
+    {
+        descriptor.tmpFileFor(Components.EXCLUDED).move(descriptor.fileFor(Components.EXCLUDED));
+    }
+
+    /**
+     * Removes the exclusions written by {@link #stage}, if any, keeping the previous ones.
+     */
+    public static void discardStaged(Descriptor descriptor)
+    {
+        descriptor.tmpFileFor(Components.EXCLUDED).deleteIfExists();
+    }
+}
@@ -32,7 +32,6 @@ import org.apache.cassandra.io.util.File;
 import org.apache.cassandra.io.util.FileInputStreamPlus;
 import org.apache.cassandra.io.util.FileOutputStreamPlus;
 import org.apache.cassandra.schema.TableMetadata;
-import org.apache.cassandra.utils.BloomFilterSerializer;
 import org.apache.cassandra.utils.FilterFactory;
 import org.apache.cassandra.utils.IFilter;
 
@@ -62,7 +61,7 @@ public class FilterComponent
 
         try (FileInputStreamPlus stream = descriptor.fileFor(Components.FILTER).newInputStream())
         {
-            return BloomFilterSerializer.forVersion(descriptor.version.hasOldBfFormat()).deserialize(stream);
+            return FilterFactory.deserialize(stream, descriptor.version.hasOldBfFormat());
         }
         catch (IOException ex)
         {
@@ -0,0 +1,194 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.io.sstable.format;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import io.netty.util.concurrent.FastThreadLocal;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.apache.cassandra.db.Clustering;
+import org.apache.cassandra.db.ClusteringComparator;
+import org.apache.cassandra.db.DecoratedKey;
+import org.apache.cassandra.io.sstable.Descriptor;
+import org.apache.cassandra.io.sstable.format.SSTableFormat.Components;
+import org.apache.cassandra.io.util.File;
+import org.apache.cassandra.io.util.FileInputStreamPlus;
+import org.apache.cassandra.io.util.FileOutputStreamPlus;
+import org.apache.cassandra.schema.TableMetadata;
+import org.apache.cassandra.utils.ByteBufferUtil;
+import org.apache.cassandra.utils.IFilter;
+import org.apache.cassandra.utils.MurmurHash;
+import org.apache.cassandra.utils.ScalableFilter;
+import org.apache.cassandra.utils.bytecomparable.ByteComparable;
+import org.apache.cassandra.utils.bytecomparable.ByteSource;
+
+/**
+ * The optional row filter of an sstable: a Bloom filter on the (partition key, clustering) of the rows it contains,
+ * which lets queries on specific rows skip sstables containing the partition but none of the rows.
+ * <p>
+ * Range tombstones may delete any row, so a partition having some is recorded with a dedicated key, for which
+ * the filter must be checked as well, see {@link #rangeTombstonesKey}. Partition deletions and static rows are not
+ * recorded: they are found through the sstable metadata instead.
+ */
+public class RowFilterComponent
+{
+    private static final Logger logger = LoggerFactory.getLogger(RowFilterComponent.class);
+
+    // seed tweak distinguishing the range tombstones key of a partition from the keys of its rows
+    private static final long RANGE_TOMBSTONES_SEED = 0x9e3779b97f4a7c15L;
+
+    // clusterings are decoded in there to be hashed, as a filter key is computed for every row written or queried
+    private static final FastThreadLocal<ByteBuffer> reusableBuffers = new FastThreadLocal<ByteBuffer>()
+    {
+        protected ByteBuffer initialValue()
+        {
+            return ByteBuffer.allocate(64);
+        }
+    };
+
+    private RowFilterComponent()
+    {
+    }
+
+    /**
+     * Whether new sstables of the given table get a row filter.
+     */
+    public static boolean shouldUseRowFilter(TableMetadata metadata)
+    {
+        return metadata.params.rowBloomFilter
+               && metadata.comparator.size() > 0
+               && FilterComponent.shouldUseBloomFilter(metadata.params.bloomFilterFpChance);
+    }
+
+    /**
+     * Creates an empty row filter for an sstable of the given table. The number of rows is not known when the
+     * sstable writer is created, so the filter grows as rows are added, starting with one row per partition.
+     */
+    public static IFilter create(TableMetadata metadata, long keyCount)
+    {
+        return ScalableFilter.create(keyCount, metadata.params.bloomFilterFpChance, metadata.params.bloomFilterType);
+    }
+
+    /**
+     * Load the row filter from the RowFilter.db file, or return {@code null} if the sstable has none.
+     */
+    public static IFilter load(Descriptor descriptor) throws IOException
+    {
+        File filterFile = descriptor.fileFor(Components.ROW_FILTER);
+
+        if (!filterFile.exists())
+            return null;
+
+        try (FileInputStreamPlus stream = filterFile.newInputStream())
+        {
+            return ScalableFilter.deserialize(stream, false);
+        }
+        catch (IOException ex)
+        {
+            throw new IOException("Failed to load row filter for SSTable: " + descriptor.baseFile(), ex);
+        }
+    }
+
+    /**
+     * Like {@link #load}, but logs and returns {@code null} if the filter cannot be read: an sstable without a row
+     * filter is just read as if all the rows of its partitions may be present.
+     */
+    public static IFilter maybeLoad(Descriptor descriptor)
+    {
+        try
+        {
+            return load(descriptor);
+        }
+        catch (IOException ex)
+        {
+            logger.info("Row filter for " + descriptor + " could not be deserialized", ex);
+            return null;
+        }
+    }
+
+    public static void save(IFilter filter, Descriptor descriptor, boolean deleteOnFailure) throws IOException
+    {
+        File filterFile = descriptor.fileFor(Components.ROW_FILTER);
+        try (FileOutputStreamPlus stream = filterFile.newOutputStream(File.WriteMode.OVERWRITE))
+        {
+            filter.serialize(stream, false);
+            stream.flush();
+            stream.sync();
+        }
+        catch (IOException ex)
+        {
+            if (deleteOnFailure)
+                filterFile.deleteIfExists();
+            throw new IOException("Failed to save row filter for SSTable: " + descriptor.baseFile(), ex);
+        }
+    }
+
+    /**
+     * @return the filter key of the row with the given clustering in the given partition
+     * <p>
+     * The clustering is hashed in its byte-comparable form rather than as its serialized values: some types have
+     * several serializations of values comparing equal, like 1.0 and 1.00 for decimals, which must select the same
+     * row, and the byte-comparable encoding of values comparing equal is the same.
+     */
+    public static IFilter.FilterKey rowKey(ClusteringComparator comparator, DecoratedKey key, Clustering<?> clustering)
+    {
+        return dest -> {
+            key.filterHash(dest);
+            ByteBuffer bytes = comparableBytes(comparator.asByteComparable(clustering).asComparableBytes(ByteComparable.Version.OSS50));
+            MurmurHash.hash3_x64_128(bytes, 0, bytes.limit(), dest[0] + 31 * dest[1], dest);
+        };
+    }
+
+    /**
+     * Decodes the given source in the reusable buffer of the current thread, which is only valid until the next call.
+     */
+    private static ByteBuffer comparableBytes(ByteSource source)
+    {
+        ByteBuffer buffer = reusableBuffers.get();
+        buffer.clear();
+        int b;
+        while ((b = source.next()) != ByteSource.END_OF_STREAM)
+        {
+            if (!buffer.hasRemaining())
+            {
+                ByteBuffer larger = ByteBuffer.allocate(buffer.capacity() * 2);
+                buffer.flip();
+                larger.put(buffer);
+                reusableBuffers.set(larger);
+                buffer = larger;
+            }
+            buffer.put((byte) b);
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * @return the filter key recording that the given partition has range tombstones
+     */
+    public static IFilter.FilterKey rangeTombstonesKey(DecoratedKey key)
+    {
+        return dest -> {
+            key.filterHash(dest);
+            MurmurHash.hash3_x64_128(ByteBufferUtil.EMPTY_BYTE_BUFFER, 0, 0, dest[0] ^ RANGE_TOMBSTONES_SEED, dest);
+        };
+    }
+}
@@ -162,6 +162,10 @@ public interface SSTableFormat<R extends SSTableReader, W extends SSTableWriter>
             public static final Component.Type STATS = Component.Type.createSingleton("STATS", "Statistics.db", true, null);
             // serialized bloom filter for the row keys in the sstable
             public static final Component.Type FILTER = Component.Type.createSingleton("FILTER", "Filter.db", true, null);
+            // optional serialized bloom filter for the (partition key, clustering) of the rows in the sstable
+            public static final Component.Type ROW_FILTER = Component.Type.createSingleton("ROW_FILTER", "RowFilter.db", true, null);
+            // optional partitions rewritten elsewhere by incremental tombstone compactions, only valid on this node
+            public static final Component.Type EXCLUDED = Component.Type.createSingleton("EXCLUDED", "Excluded.db", false, null);
             // holds CRC32 checksum of the data file
             public static final Component.Type DIGEST = Component.Type.createSingleton("DIGEST", "Digest.crc32", true, null);
             // holds the CRC32 for chunks in an uncompressed file.
@@ -179,6 +183,8 @@ public interface SSTableFormat<R extends SSTableReader, W extends SSTableWriter>
         public final static Component COMPRESSION_INFO = Types.COMPRESSION_INFO.getSingleton();
         public final static Component STATS = Types.STATS.getSingleton();
         public final static Component FILTER = Types.FILTER.getSingleton();
+        public final static Component ROW_FILTER = Types.ROW_FILTER.getSingleton();
+        public final static Component EXCLUDED = Types.EXCLUDED.getSingleton();
         public final static Component DIGEST = Types.DIGEST.getSingleton();
         public final static Component CRC = Types.CRC.getSingleton();
         public final static Component TOC = Types.TOC.getSingleton();
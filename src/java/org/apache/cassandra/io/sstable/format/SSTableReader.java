@@ -42,6 +42,7 @@ import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Ordering;
+import com.google.common.collect.Sets;
 import com.google.common.primitives.Longs;
 import com.google.common.util.concurrent.RateLimiter;
 import org.slf4j.Logger;
@@ -49,16 +50,21 @@ import org.slf4j.LoggerFactory;
 
 import com.clearspring.analytics.stream.cardinality.CardinalityMergeException;
 import com.clearspring.analytics.stream.cardinality.ICardinality;
+import org.apache.cassandra.cache.ChunkCache;
 import org.apache.cassandra.concurrent.ExecutorPlus;
 import org.apache.cassandra.concurrent.ScheduledExecutorPlus;
 import org.apache.cassandra.concurrent.ScheduledExecutors;
 import org.apache.cassandra.config.CassandraRelevantProperties;
 import org.apache.cassandra.config.DatabaseDescriptor;
+import org.apache.cassandra.db.Clustering;
 import org.apache.cassandra.db.ColumnFamilyStore;
+import org.apache.cassandra.db.DataRange;
 import org.apache.cassandra.db.DecoratedKey;
 import org.apache.cassandra.db.PartitionPosition;
 import org.apache.cassandra.db.SerializationHeader;
 import org.apache.cassandra.db.SystemKeyspace;
+import org.apache.cassandra.db.filter.ColumnFilter;
+import org.apache.cassandra.db.partitions.UnfilteredPartitionIterator;
 import org.apache.cassandra.db.rows.Cell;
 import org.apache.cassandra.db.rows.EncodingStats;
 import org.apache.cassandra.db.rows.UnfilteredRowIterator;
@@ -85,6 +91,7 @@ import org.apache.cassandra.io.sstable.SSTableReadsListener;
 import org.apache.cassandra.io.sstable.format.SSTableFormat.Components;
 import org.apache.cassandra.io.sstable.metadata.CompactionMetadata;
 import org.apache.cassandra.io.sstable.metadata.StatsMetadata;
+import org.apache.cassandra.io.util.AsyncChunkReader;
 import org.apache.cassandra.io.util.ChannelProxy;
 import org.apache.cassandra.io.util.CheckedFunction;
 import org.apache.cassandra.io.util.DataIntegrityMetadata;
@@ -272,6 +279,9 @@ public abstract class SSTableReader extends SSTable implements UnfilteredSource,
     protected final DecoratedKey last;
     public final AbstractBounds<Token> bounds;
 
+    // the partitions rewritten into other sstables by incremental tombstone compactions, if any
+    private volatile ExcludedPartitions excludedPartitions;
+
     /**
      * Calculate approximate key count.
      * If cardinality estimator is available on all given sstables, then this method use them to estimate
@@ -457,6 +467,7 @@ public abstract class SSTableReader extends SSTable implements UnfilteredSource,
         this.openReason = builder.getOpenReason();
         this.first = builder.getFirst();
         this.last = builder.getLast();
+        this.excludedPartitions = builder.getExcludedPartitions();
         this.bounds = first == null || last == null || AbstractBounds.strictlyWrapsAround(first.getToken(), last.getToken())
                       ? null // this will cause the validation to fail, but the reader is opened with no validation,
                              // e.g. for scrubbing, we should accept screwed bounds
@@ -612,6 +623,7 @@ public abstract class SSTableReader extends SSTable implements UnfilteredSource,
         b.setFirst(first);
         b.setLast(last);
         b.setSuspected(isSuspect.get());
+        b.setExcludedPartitions(excludedPartitions);
         return b;
     }
 
@@ -619,6 +631,12 @@ public abstract class SSTableReader extends SSTable implements UnfilteredSource,
 
     public abstract SSTableReader cloneWithNewStart(DecoratedKey newStart);
 
+    /**
+     * Clone this reader with the given excluded partitions, to replace it in the same transaction that makes the
+     * sstables the partitions were rewritten into live. The exclusions are not saved.
+     */
+    public abstract SSTableReader cloneWithExcludedPartitions(ExcludedPartitions excludedPartitions);
+
     public RestorableMeter getReadMeter()
     {
         return readMeter;
@@ -952,7 +970,19 @@ public abstract class SSTableReader extends SSTable implements UnfilteredSource,
      * @param ranges the range of keys to cover
      * @return A Scanner for seeking over the rows of the SSTable.
      */
-    public abstract ISSTableScanner getScanner(Collection<Range<Token>> ranges);
+    public ISSTableScanner getScanner(Collection<Range<Token>> ranges)
+    {
+        return getScanner(ranges, false);
+    }
+
+    /**
+     * Direct I/O SSTableScanner over a defined collection of ranges of tokens.
+     *
+     * @param ranges the range of keys to cover, or null to scan the whole sstable
+     * @param bypassCache whether to read the data file without going through the chunk cache
+     * @return A Scanner for seeking over the rows of the SSTable.
+     */
+    public abstract ISSTableScanner getScanner(Collection<Range<Token>> ranges, boolean bypassCache);
 
     /**
      * Direct I/O SSTableScanner over an iterator of bounds.
@@ -973,6 +1003,35 @@ public abstract class SSTableReader extends SSTable implements UnfilteredSource,
         return dfile.createReader(position);
     }
 
+    /**
+     * Submits an asynchronous lookup of the given partition that loads the index chunks it touches and the data chunk
+     * holding the start of the partition into the chunk cache, so that a subsequent read of the partition does not
+     * have to wait for the disk. Does not update the key cache or the sstable read statistics, which are left to the
+     * actual read.
+     */
+    public void prefetchPartition(AsyncChunkReader reader, DecoratedKey key)
+    {
+        Ref<SSTableReader> ref = tryRef();
+        if (ref == null)
+            return;
+
+        reader.submit(() -> {
+                          long position = getPosition(key, Operator.EQ, false);
+                          if (position >= 0)
+                              dfile.rebuffererFactory().prefetch(position);
+                      },
+                      ref::release);
+    }
+
+    /**
+     * Loads the chunks of the data file holding the given range of positions into the chunk cache, if it is enabled.
+     */
+    public void warmChunkCache(long start, long end)
+    {
+        if (ChunkCache.instance != null)
+            ChunkCache.instance.warm(dfile, start, end);
+    }
+
     /**
      * Tests if the sstable contains data newer than the given age param (in localhost currentMillis time).
      * This works in conjunction with maxDataAge which is an upper bound on the data in the sstable represented
@@ -992,7 +1051,9 @@ public abstract class SSTableReader extends SSTable implements UnfilteredSource,
 
     public void createLinks(String snapshotDirectoryPath, RateLimiter rateLimiter)
     {
-        createLinks(descriptor, components, snapshotDirectoryPath, rateLimiter);
+        // the exclusions are only valid with the sstables the partitions were rewritten into, which the snapshot may
+        // not have if they were written concurrently: without them, the snapshot has the partitions with their tombstones
+        createLinks(descriptor, Sets.filter(components, c -> c != Components.EXCLUDED), snapshotDirectoryPath, rateLimiter);
     }
 
     public static void createLinks(Descriptor descriptor, Set<Component> components, String snapshotDirectoryPath)
@@ -1231,6 +1292,54 @@ public abstract class SSTableReader extends SSTable implements UnfilteredSource,
         return sstableMetadata;
     }
 
+    /**
+     * @return the partitions rewritten into other sstables by incremental tombstone compactions, or {@code null} if
+     * there are none
+     */
+    public ExcludedPartitions getExcludedPartitions()
+    {
+        return excludedPartitions;
+    }
+
+    /**
+     * Whether the given partition has been rewritten into another sstable by an incremental tombstone compaction,
+     * and must be skipped in this one.
+     */
+    public boolean isExcluded(DecoratedKey key)
+    {
+        ExcludedPartitions excluded = excludedPartitions;
+        return excluded != null && excluded.contains(key);
+    }
+
+    /**
+     * Like {@link #isExcluded(DecoratedKey)}, for the point reads, which notify the listener of the skipped partition.
+     */
+    protected boolean isExcluded(DecoratedKey key, SSTableReadsListener listener)
+    {
+        if (!isExcluded(key))
+            return false;
+
+        notifySkipped(SSTableReadsListener.SkippingReason.EXCLUDED_PARTITION, listener, Operator.EQ, true);
+        return true;
+    }
+
+    /**
+     * Records that an incremental tombstone compaction run with the given gcBefore found no partition to rewrite, so
+     * that the sstable is not selected again until more of its tombstones are droppable, and saves it.
+     * <p>
+     * Like {@link #reloadSSTableMetadata()}, this changes this instance in place, so it must be the live one. The
+     * excluded partitions are not changed, so this does not affect the reads.
+     */
+    public void recordIncrementalTombstoneCompaction(long gcBefore)
+    {
+        ExcludedPartitions current = excludedPartitions;
+        ExcludedPartitions updated = current == null
+                                     ? new ExcludedPartitions(gcBefore, Collections.emptySet())
+                                     : current.with(Collections.emptySet(), gcBefore);
+        updated.save(descriptor);
+        excludedPartitions = updated;
+    }
+
     public RandomAccessReader openDataReader(RateLimiter limiter)
     {
         assert limiter != null;
@@ -1242,6 +1351,32 @@ public abstract class SSTableReader extends SSTable implements UnfilteredSource,
         return dfile.createReader();
     }
 
+    /**
+     * Opens a reader of the data file that bypasses the chunk cache, see {@link FileHandle#createUncachedReader}.
+     */
+    public RandomAccessReader openUncachedDataReader()
+    {
+        return dfile.createUncachedReader(null);
+    }
+
+    public RandomAccessReader openUncachedDataReader(RateLimiter limiter)
+    {
+        assert limiter != null;
+        return dfile.createUncachedReader(limiter);
+    }
+
+    @Override
+    public UnfilteredPartitionIterator partitionIterator(ColumnFilter columnFilter, DataRange dataRange, SSTableReadsListener listener)
+    {
+        return partitionIterator(columnFilter, dataRange, listener, false);
+    }
+
+    /**
+     * Returns a partition iterator over the given range, like {@link #partitionIterator(ColumnFilter, DataRange, SSTableReadsListener)},
+     * optionally reading the data file without going through the chunk cache.
+     */
+    public abstract UnfilteredPartitionIterator partitionIterator(ColumnFilter columnFilter, DataRange dataRange, SSTableReadsListener listener, boolean bypassCache);
+
     public void trySkipFileCacheBefore(DecoratedKey key)
     {
         long position = getPosition(key, SSTableReader.Operator.GE);
@@ -1328,6 +1463,16 @@ public abstract class SSTableReader extends SSTable implements UnfilteredSource,
      */
     public abstract boolean mayContainAssumingKeyIsInRange(DecoratedKey key);
 
+    /**
+     * Whether the sstable may contain any of the rows with the provided clusterings in the provided partition, or
+     * a range tombstone that may delete them. Partition deletions and static rows are not taken into account.
+     * Returns {@code true} unless the sstable has a row filter telling otherwise.
+     */
+    public boolean mayContainAnyRow(DecoratedKey key, Collection<? extends Clustering<?>> clusterings)
+    {
+        return true;
+    }
+
     /**
      * One instance per SSTableReader we create.
      * <p>
@@ -1783,6 +1928,7 @@ public abstract class SSTableReader extends SSTable implements UnfilteredSource,
         private DecoratedKey first;
         private DecoratedKey last;
         private boolean suspected;
+        private ExcludedPartitions excludedPartitions;
 
         public Builder(Descriptor descriptor)
         {
@@ -1840,6 +1986,12 @@ public abstract class SSTableReader extends SSTable implements UnfilteredSource,
             return (B) this;
         }
 
+        public B setExcludedPartitions(ExcludedPartitions excludedPartitions)
+        {
+            this.excludedPartitions = excludedPartitions;
+            return (B) this;
+        }
+
         public long getMaxDataAge()
         {
             return maxDataAge;
@@ -1880,6 +2032,11 @@ public abstract class SSTableReader extends SSTable implements UnfilteredSource,
             return suspected;
         }
 
+        public ExcludedPartitions getExcludedPartitions()
+        {
+            return excludedPartitions;
+        }
+
         protected abstract R buildInternal(Owner owner);
 
         public R build(Owner owner, boolean validate, boolean online)
@@ -80,6 +80,7 @@ public abstract class SSTableReaderLoadingBuilder<R extends SSTableReader, B ext
         builder.setMaxDataAge(Clock.Global.currentTimeMillis());
         builder.setTableMetadataRef(tableMetadataRef);
         builder.setComponents(components);
+        builder.setExcludedPartitions(ExcludedPartitions.maybeLoad(descriptor, tableMetadataRef.getLocal().partitioner));
 
         R reader = null;
 
@@ -19,11 +19,13 @@
 package org.apache.cassandra.io.sstable.format;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Objects;
 
 import com.google.common.collect.Lists;
 
+import org.apache.cassandra.db.Clustering;
 import org.apache.cassandra.db.DecoratedKey;
 import org.apache.cassandra.io.sstable.AbstractRowIndexEntry;
 import org.apache.cassandra.io.sstable.Descriptor;
@@ -36,12 +38,15 @@ import static org.apache.cassandra.utils.concurrent.SharedCloseable.sharedCopyOr
 public abstract class SSTableReaderWithFilter extends SSTableReader
 {
     private final IFilter filter;
+    // filter on the rows of the sstable, null if it has none or it is not complete yet
+    private final IFilter rowFilter;
     private final BloomFilterTracker filterTracker;
 
     protected SSTableReaderWithFilter(Builder<?, ?> builder, Owner owner)
     {
         super(builder, owner);
         this.filter = Objects.requireNonNull(builder.getFilter());
+        this.rowFilter = builder.getRowFilter();
         this.filterTracker = new BloomFilterTracker();
     }
 
@@ -49,6 +54,8 @@ public abstract class SSTableReaderWithFilter extends SSTableReader
     protected List<AutoCloseable> setupInstance(boolean trackHotness)
     {
         ArrayList<AutoCloseable> closeables = Lists.newArrayList(filter);
+        if (rowFilter != null)
+            closeables.add(rowFilter);
         closeables.addAll(super.setupInstance(trackHotness));
         return closeables;
     }
@@ -58,6 +65,8 @@ public abstract class SSTableReaderWithFilter extends SSTableReader
         B b = super.unbuildTo(builder, sharedCopy);
         if (builder.getFilter() == null)
             b.setFilter(sharedCopy ? sharedCopyOrNull(filter) : filter);
+        if (builder.getRowFilter() == null)
+            b.setRowFilter(sharedCopy ? sharedCopyOrNull(rowFilter) : rowFilter);
         return b;
     }
 
@@ -71,9 +80,25 @@ public abstract class SSTableReaderWithFilter extends SSTableReader
     {
         // if we don't have bloom filter(bf_fp_chance=1.0 or filter file is missing),
         // we check index file instead.
+        if (isExcluded(key))
+            return false;
         return !filter.isInformative() && getPosition(key, Operator.EQ, false) >= 0 || filter.isPresent(key);
     }
 
+    @Override
+    public boolean mayContainAnyRow(DecoratedKey key, Collection<? extends Clustering<?>> clusterings)
+    {
+        if (rowFilter == null || rowFilter.isPresent(RowFilterComponent.rangeTombstonesKey(key)))
+            return true;
+
+        for (Clustering<?> clustering : clusterings)
+        {
+            if (rowFilter.isPresent(RowFilterComponent.rowKey(metadata().comparator, key, clustering)))
+                return true;
+        }
+        return false;
+    }
+
     @Override
     protected void notifySelected(SSTableReadsListener.SelectionReason reason, SSTableReadsListener localListener, Operator op, boolean updateStats, AbstractRowIndexEntry entry)
     {
@@ -102,6 +127,9 @@ public abstract class SSTableReaderWithFilter extends SSTableReader
                 // checking bloom filter against keys outside the sstable range make no sense so collecting
                 // statistics on that makes no sense either
                 break;
+            case EXCLUDED_PARTITION:
+                // the bloom filter was not checked
+                break;
             default:
                 if (op == SSTableReader.Operator.EQ)
                     filterTracker.addFalsePositive();
@@ -115,12 +143,13 @@ public abstract class SSTableReaderWithFilter extends SSTableReader
 
     public long getFilterSerializedSize()
     {
-        return filter.serializedSize(descriptor.version.hasOldBfFormat());
+        long size = filter.serializedSize(descriptor.version.hasOldBfFormat());
+        return rowFilter == null ? size : size + rowFilter.serializedSize(false);
     }
 
     public long getFilterOffHeapSize()
     {
-        return filter.offHeapSize();
+        return rowFilter == null ? filter.offHeapSize() : filter.offHeapSize() + rowFilter.offHeapSize();
     }
 
     public abstract SSTableReaderWithFilter cloneAndReplace(IFilter filter);
@@ -128,6 +157,7 @@ public abstract class SSTableReaderWithFilter extends SSTableReader
     public abstract static class Builder<R extends SSTableReaderWithFilter, B extends Builder<R, B>> extends SSTableReader.Builder<R, B>
     {
         private IFilter filter;
+        private IFilter rowFilter;
 
         public Builder(Descriptor descriptor)
         {
@@ -144,5 +174,16 @@ public abstract class SSTableReaderWithFilter extends SSTableReader
         {
             return this.filter;
         }
+
+        public B setRowFilter(IFilter rowFilter)
+        {
+            this.rowFilter = rowFilter;
+            return (B) this;
+        }
+
+        public IFilter getRowFilter()
+        {
+            return this.rowFilter;
+        }
     }
 }
@@ -74,11 +74,12 @@ implements ISSTableScanner
                              ColumnFilter columns,
                              DataRange dataRange,
                              Iterator<AbstractBounds<PartitionPosition>> rangeIterator,
-                             SSTableReadsListener listener)
+                             SSTableReadsListener listener,
+                             boolean bypassCache)
     {
         assert sstable != null;
 
-        this.dfile = sstable.openDataReader();
+        this.dfile = bypassCache ? sstable.openUncachedDataReader() : sstable.openDataReader();
         this.sstable = sstable;
         this.columns = columns;
         this.dataRange = dataRange;
@@ -261,8 +262,13 @@ implements ISSTableScanner
             {
                 markScanned();
 
-                if (!prepareToIterateRow())
-                    return endOfData();
+                // skip the partitions rewritten into other sstables by incremental tombstone compactions
+                do
+                {
+                    if (!prepareToIterateRow())
+                        return endOfData();
+                }
+                while (sstable.isExcluded(currentKey));
 
                 /*
                  * For a given partition key, we want to avoid hitting the data file unless we're explicitly asked.
@@ -94,9 +94,10 @@ public abstract class SortedTableVerifier<R extends SSTableReaderWithFilter> imp
         this.outputHandler = outputHandler;
 
         this.fileAccessLock = new ReentrantReadWriteLock();
+        // verification reads the whole data file once, so keep it out of the chunk cache
         this.dataFile = isOffline
-                        ? sstable.openDataReader()
-                        : sstable.openDataReader(CompactionManager.instance.getRateLimiter());
+                        ? sstable.openUncachedDataReader()
+                        : sstable.openUncachedDataReader(CompactionManager.instance.getRateLimiter());
         this.verifyInfo = new VerifyInfo(dataFile, sstable, fileAccessLock.readLock());
         this.options = options;
         this.isOffline = isOffline;
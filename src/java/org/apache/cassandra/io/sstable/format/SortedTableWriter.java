@@ -30,6 +30,8 @@ import com.google.common.collect.ImmutableSet;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import org.apache.cassandra.db.Clustering;
+import org.apache.cassandra.db.ClusteringComparator;
 import org.apache.cassandra.db.DecoratedKey;
 import org.apache.cassandra.db.DeletionPurger;
 import org.apache.cassandra.db.DeletionTime;
@@ -62,6 +64,7 @@ import org.apache.cassandra.io.util.SequentialWriter;
 import org.apache.cassandra.schema.ColumnMetadata;
 import org.apache.cassandra.schema.SchemaConstants;
 import org.apache.cassandra.schema.TableMetadataRef;
+import org.apache.cassandra.schema.TableParams;
 import org.apache.cassandra.utils.FBUtilities;
 import org.apache.cassandra.utils.FilterFactory;
 import org.apache.cassandra.utils.IFilter;
@@ -86,7 +89,11 @@ public abstract class SortedTableWriter<P extends SortedTablePartitionWriter, I
     private DecoratedKey lastWrittenKey;
     private DataPosition dataMark;
     private long lastEarlyOpenLength;
+    // whether the range tombstones of the current partition have been recorded in the row filter
+    private boolean rangeTombstonesInRowFilter;
     private final Supplier<Double> crcCheckChanceSupplier;
+    // records what to load into the chunk cache once the sstable is complete, null if nothing should be
+    private final ChunkCacheWarmer chunkCacheWarmer;
 
     public SortedTableWriter(Builder<P, I, ?, ?> builder, LifecycleNewTracker lifecycleNewTracker, SSTable.Owner owner)
     {
@@ -94,6 +101,7 @@ public abstract class SortedTableWriter<P extends SortedTablePartitionWriter, I
 
         TableMetadataRef ref = builder.getTableMetadataRef();
         crcCheckChanceSupplier = () -> ref.getLocal().params.crcCheckChance;
+        chunkCacheWarmer = ChunkCacheWarmer.create(lifecycleNewTracker.opType());
         SequentialWriter dataWriter = null;
         I indexWriter = null;
         P partitionWriter = null;
@@ -182,6 +190,7 @@ public abstract class SortedTableWriter<P extends SortedTablePartitionWriter, I
     {
         partitionWriter.start(key, partitionLevelDeletion);
         metadataCollector.updatePartitionDeletion(partitionLevelDeletion);
+        rangeTombstonesInRowFilter = false;
 
         onStartPartition(key);
     }
@@ -202,7 +211,7 @@ public abstract class SortedTableWriter<P extends SortedTablePartitionWriter, I
         if (unfiltered.isRow())
             addRow(key, (Row) unfiltered);
         else
-            addRangeTomstoneMarker((RangeTombstoneMarker) unfiltered);
+            addRangeTomstoneMarker(key, (RangeTombstoneMarker) unfiltered);
     }
 
     private void addRow(DecoratedKey key, Row row) throws IOException
@@ -212,13 +221,19 @@ public abstract class SortedTableWriter<P extends SortedTablePartitionWriter, I
         partitionWriter.addUnfiltered(row);
         metadataCollector.updateClusteringValues(row.clustering());
         Rows.collectStats(row, metadataCollector);
+        indexWriter.addRowToFilter(key, row.clustering());
 
         onRow(row);
     }
 
-    private void addRangeTomstoneMarker(RangeTombstoneMarker marker) throws IOException
+    private void addRangeTomstoneMarker(DecoratedKey key, RangeTombstoneMarker marker) throws IOException
     {
         partitionWriter.addUnfiltered(marker);
+        if (!rangeTombstonesInRowFilter)
+        {
+            indexWriter.addRangeTombstonesToFilter(key);
+            rangeTombstonesInRowFilter = true;
+        }
 
         metadataCollector.updateClusteringValuesByBoundOrBoundary(marker.clustering());
         if (marker.isBoundary())
@@ -241,6 +256,8 @@ public abstract class SortedTableWriter<P extends SortedTablePartitionWriter, I
 
         long endPosition = dataWriter.position();
         long rowSize = endPosition - partitionWriter.getInitialPosition();
+        if (chunkCacheWarmer != null)
+            chunkCacheWarmer.endPartition(partitionWriter.getInitialPosition(), endPosition);
         guardPartitionThreshold(Guardrails.partitionSize, key, rowSize);
         guardPartitionThreshold(Guardrails.partitionTombstones, key, metadataCollector.totalTombstones);
         metadataCollector.addPartitionSizeInBytes(rowSize);
@@ -258,6 +275,17 @@ public abstract class SortedTableWriter<P extends SortedTablePartitionWriter, I
         return createRowIndexEntry(key, partitionLevelDeletion, finishResult);
     }
 
+    /**
+     * Loads the parts of the complete sstable that should be cached into the chunk cache in the background, see
+     * {@link ChunkCacheWarmer}. Must be called with the final reader.
+     */
+    protected SSTableReader warmChunkCache(SSTableReader reader)
+    {
+        if (chunkCacheWarmer != null)
+            chunkCacheWarmer.warm(reader);
+        return reader;
+    }
+
     protected void onStartPartition(DecoratedKey key)
     {
         notifyObservers(o -> o.startPartition(key, partitionWriter.getInitialPosition(), partitionWriter.getInitialPosition()));
@@ -435,6 +463,9 @@ public abstract class SortedTableWriter<P extends SortedTablePartitionWriter, I
         protected final Set<Component> components;
 
         protected final IFilter bf;
+        // null unless the sstable has a row filter
+        protected final IFilter rowFilter;
+        private final ClusteringComparator comparator;
 
         protected AbstractIndexWriter(Builder<?, ?, ?, ?> b)
         {
@@ -442,7 +473,24 @@ public abstract class SortedTableWriter<P extends SortedTablePartitionWriter, I
             this.metadata = b.getTableMetadataRef();
             this.components = b.getComponents();
 
-            bf = FilterFactory.getFilter(b.getKeyCount(), b.getTableMetadataRef().getLocal().params.bloomFilterFpChance);
+            TableParams params = b.getTableMetadataRef().getLocal().params;
+            bf = FilterFactory.getFilter(b.getKeyCount(), params.bloomFilterFpChance, params.bloomFilterType);
+            rowFilter = components.contains(Components.ROW_FILTER)
+                        ? RowFilterComponent.create(b.getTableMetadataRef().getLocal(), b.getKeyCount())
+                        : null;
+            comparator = b.getTableMetadataRef().getLocal().comparator;
+        }
+
+        void addRowToFilter(DecoratedKey key, Clustering<?> clustering)
+        {
+            if (rowFilter != null)
+                rowFilter.add(RowFilterComponent.rowKey(comparator, key, clustering));
+        }
+
+        void addRangeTombstonesToFilter(DecoratedKey key)
+        {
+            if (rowFilter != null)
+                rowFilter.add(RowFilterComponent.rangeTombstonesKey(key));
         }
 
         protected void flushBf()
@@ -458,6 +506,18 @@ public abstract class SortedTableWriter<P extends SortedTablePartitionWriter, I
                     throw new FSWriteError(ex, descriptor.fileFor(Components.FILTER));
                 }
             }
+
+            if (rowFilter != null)
+            {
+                try
+                {
+                    RowFilterComponent.save(rowFilter, descriptor, true);
+                }
+                catch (IOException ex)
+                {
+                    throw new FSWriteError(ex, descriptor.fileFor(Components.ROW_FILTER));
+                }
+            }
         }
 
         public abstract void mark();
@@ -473,6 +533,8 @@ public abstract class SortedTableWriter<P extends SortedTablePartitionWriter, I
         protected Throwable doPostCleanup(Throwable accumulate)
         {
             accumulate = bf.close(accumulate);
+            if (rowFilter != null)
+                accumulate = rowFilter.close(accumulate);
             return accumulate;
         }
 
@@ -480,6 +542,15 @@ public abstract class SortedTableWriter<P extends SortedTablePartitionWriter, I
         {
             return bf.sharedCopy();
         }
+
+        /**
+         * @return a copy of the row filter, or {@code null} if the sstable has none; only valid once all rows have
+         * been written, as the filter may grow until then
+         */
+        public IFilter getRowFilterCopy()
+        {
+            return rowFilter == null ? null : rowFilter.sharedCopy();
+        }
     }
 
     public abstract static class Builder<P extends SortedTablePartitionWriter,
@@ -503,6 +574,11 @@ public abstract class SortedTableWriter<P extends SortedTablePartitionWriter, I
                 addComponents(ImmutableSet.of(SSTableFormat.Components.FILTER));
             }
 
+            if (RowFilterComponent.shouldUseRowFilter(getTableMetadataRef().getLocal()))
+            {
+                addComponents(ImmutableSet.of(SSTableFormat.Components.ROW_FILTER));
+            }
+
             return (B) this;
         }
 
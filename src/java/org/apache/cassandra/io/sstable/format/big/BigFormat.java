@@ -146,6 +146,18 @@ import static org.apache.cassandra.io.sstable.format.SSTableFormat.Components.DA
  *       <p></p>
  *     </li>
  *     <li>
+ *       {@link Components#ROW_FILTER}: optional Bloom filter for the rows of data files
+ *       <p></p>
+ *       {@link org.apache.cassandra.io.sstable.format.RowFilterComponent}
+ *       <p></p>
+ *     </li>
+ *     <li>
+ *       {@link Components#EXCLUDED}: optional partitions rewritten into other sstables by incremental tombstone compactions
+ *       <p></p>
+ *       {@link org.apache.cassandra.io.sstable.format.ExcludedPartitions}
+ *       <p></p>
+ *     </li>
+ *     <li>
  *       {@link Components#CRC}: CRC for the data
  *       <p></p>
  *       {@link org.apache.cassandra.io.util.ChecksummedSequentialWriter}
@@ -208,6 +220,8 @@ public class BigFormat extends AbstractSSTableFormat<BigTableReader, BigTableWri
                                                                              STATS,
                                                                              COMPRESSION_INFO,
                                                                              FILTER,
+                                                                             ROW_FILTER,
+                                                                             EXCLUDED,
                                                                              SUMMARY,
                                                                              DIGEST,
                                                                              CRC,
@@ -32,6 +32,7 @@ import org.apache.cassandra.io.sstable.KeyReader;
 import org.apache.cassandra.io.sstable.SSTable;
 import org.apache.cassandra.io.sstable.format.CompressionInfoComponent;
 import org.apache.cassandra.io.sstable.format.FilterComponent;
+import org.apache.cassandra.io.sstable.format.RowFilterComponent;
 import org.apache.cassandra.io.sstable.format.IndexComponent;
 import org.apache.cassandra.io.sstable.format.SortedTableReaderLoadingBuilder;
 import org.apache.cassandra.io.sstable.format.StatsComponent;
@@ -45,6 +46,7 @@ import org.apache.cassandra.io.util.DiskOptimizationStrategy;
 import org.apache.cassandra.io.util.FileHandle;
 import org.apache.cassandra.io.util.RandomAccessReader;
 import org.apache.cassandra.metrics.TableMetrics;
+import org.apache.cassandra.schema.TableParams;
 import org.apache.cassandra.service.CacheService;
 import org.apache.cassandra.utils.ByteBufferUtil;
 import org.apache.cassandra.utils.FilterFactory;
@@ -93,6 +95,10 @@ public class BigSSTableReaderLoadingBuilder extends SortedTableReaderLoadingBuil
                 builder.setFilter(loadFilter(validationMetadata));
             boolean rebuildFilter = filterNeeded && builder.getFilter() == null;
 
+            // the row filter is optional, and not rebuilt when missing
+            if (filterNeeded && builder.getComponents().contains(Components.ROW_FILTER))
+                builder.setRowFilter(RowFilterComponent.maybeLoad(descriptor));
+
             boolean summaryNeeded = true;
             if (summaryNeeded)
             {
@@ -153,7 +159,7 @@ public class BigSSTableReaderLoadingBuilder extends SortedTableReaderLoadingBuil
         }
         catch (IOException | RuntimeException | Error ex)
         {
-            Throwables.closeNonNullAndAddSuppressed(ex, builder.getDataFile(), builder.getIndexFile(), builder.getFilter(), builder.getIndexSummary());
+            Throwables.closeNonNullAndAddSuppressed(ex, builder.getDataFile(), builder.getIndexFile(), builder.getFilter(), builder.getRowFilter(), builder.getIndexSummary());
             throw ex;
         }
     }
@@ -203,11 +209,12 @@ public class BigSSTableReaderLoadingBuilder extends SortedTableReaderLoadingBuil
         {
             long estimatedRowsNumber = rebuildFilter || rebuildSummary ? estimateRowsFromIndex(indexFile) : 0;
 
+            TableParams params = tableMetadataRef.getLocal().params;
             if (rebuildFilter)
-                bf = FilterFactory.getFilter(estimatedRowsNumber, tableMetadataRef.getLocal().params.bloomFilterFpChance);
+                bf = FilterFactory.getFilter(estimatedRowsNumber, params.bloomFilterFpChance, params.bloomFilterType);
 
             try (IndexSummaryBuilder summaryBuilder = !rebuildSummary ? null : new IndexSummaryBuilder(estimatedRowsNumber,
-                                                                                                       tableMetadataRef.getLocal().params.minIndexInterval,
+                                                                                                       params.minIndexInterval,
                                                                                                        Downsampling.BASE_SAMPLING_LEVEL))
             {
                 while (!keyReader.isExhausted())
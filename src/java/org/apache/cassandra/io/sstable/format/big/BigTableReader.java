@@ -61,6 +61,7 @@ import org.apache.cassandra.io.sstable.SSTable;
 import org.apache.cassandra.io.sstable.SSTableReadsListener;
 import org.apache.cassandra.io.sstable.SSTableReadsListener.SelectionReason;
 import org.apache.cassandra.io.sstable.SSTableReadsListener.SkippingReason;
+import org.apache.cassandra.io.sstable.format.ExcludedPartitions;
 import org.apache.cassandra.io.sstable.format.SSTableReader;
 import org.apache.cassandra.io.sstable.format.SSTableReaderWithFilter;
 import org.apache.cassandra.io.sstable.format.big.BigFormat.Components;
@@ -131,7 +132,7 @@ public class BigTableReader extends SSTableReaderWithFilter implements IndexSumm
                                              boolean reversed,
                                              SSTableReadsListener listener)
     {
-        RowIndexEntry rie = getRowIndexEntry(key, SSTableReader.Operator.EQ, true, listener);
+        RowIndexEntry rie = isExcluded(key, listener) ? null : getRowIndexEntry(key, SSTableReader.Operator.EQ, true, listener);
         return rowIterator(null, key, rie, slices, selectedColumns, reversed);
     }
 
@@ -146,9 +147,9 @@ public class BigTableReader extends SSTableReaderWithFilter implements IndexSumm
     }
 
     @Override
-    public ISSTableScanner partitionIterator(ColumnFilter columns, DataRange dataRange, SSTableReadsListener listener)
+    public ISSTableScanner partitionIterator(ColumnFilter columns, DataRange dataRange, SSTableReadsListener listener, boolean bypassCache)
     {
-        return BigTableScanner.getScanner(this, columns, dataRange, listener);
+        return BigTableScanner.getScanner(this, columns, dataRange, listener, bypassCache);
     }
 
     @Override
@@ -182,14 +183,15 @@ public class BigTableReader extends SSTableReaderWithFilter implements IndexSumm
      * Direct I/O SSTableScanner over a defined collection of ranges of tokens.
      *
      * @param ranges the range of keys to cover
+     * @param bypassCache whether to read the data file without going through the chunk cache
      * @return A Scanner for seeking over the rows of the SSTable.
      */
-    public ISSTableScanner getScanner(Collection<Range<Token>> ranges)
+    public ISSTableScanner getScanner(Collection<Range<Token>> ranges, boolean bypassCache)
     {
         if (ranges != null)
-            return BigTableScanner.getScanner(this, ranges);
+            return BigTableScanner.getScanner(this, ranges, bypassCache);
         else
-            return getScanner();
+            return BigTableScanner.getScanner(this, bypassCache);
     }
 
     /**
@@ -613,6 +615,14 @@ public class BigTableReader extends SSTableReaderWithFilter implements IndexSumm
         });
     }
 
+    public SSTableReader cloneWithExcludedPartitions(ExcludedPartitions excludedPartitions)
+    {
+        return runWithLock(ignored -> unbuildTo(new Builder(descriptor), true)
+                                      .setExcludedPartitions(excludedPartitions)
+                                      .setOpenReason(OpenReason.METADATA_CHANGE)
+                                      .build(owner().orElse(null), true, true));
+    }
+
     /**
      * Returns a new SSTableReader with the same properties as this SSTableReader except that a new IndexSummary will
      * be built at the target samplingLevel.  This (original) SSTableReader instance will be marked as replaced, have
@@ -53,34 +53,46 @@ public class BigTableScanner extends SSTableScanner<BigTableReader, RowIndexEntr
     // Full scan of the sstables
     public static ISSTableScanner getScanner(BigTableReader sstable)
     {
-        return getScanner(sstable, Iterators.singletonIterator(fullRange(sstable)));
+        return getScanner(sstable, false);
+    }
+
+    public static ISSTableScanner getScanner(BigTableReader sstable, boolean bypassCache)
+    {
+        return getScanner(sstable, Iterators.singletonIterator(fullRange(sstable)), bypassCache);
     }
 
     public static ISSTableScanner getScanner(BigTableReader sstable,
                                              ColumnFilter columns,
                                              DataRange dataRange,
-                                             SSTableReadsListener listener)
+                                             SSTableReadsListener listener,
+                                             boolean bypassCache)
     {
-        return new BigTableScanner(sstable, columns, dataRange, makeBounds(sstable, dataRange).iterator(), listener);
+        return new BigTableScanner(sstable, columns, dataRange, makeBounds(sstable, dataRange).iterator(), listener, bypassCache);
     }
 
-    public static ISSTableScanner getScanner(BigTableReader sstable, Collection<Range<Token>> tokenRanges)
+    public static ISSTableScanner getScanner(BigTableReader sstable, Collection<Range<Token>> tokenRanges, boolean bypassCache)
     {
-        return getScanner(sstable, makeBounds(sstable, tokenRanges).iterator());
+        return getScanner(sstable, makeBounds(sstable, tokenRanges).iterator(), bypassCache);
     }
 
     public static ISSTableScanner getScanner(BigTableReader sstable, Iterator<AbstractBounds<PartitionPosition>> rangeIterator)
     {
-        return new BigTableScanner(sstable, ColumnFilter.all(sstable.metadata()), null, rangeIterator, SSTableReadsListener.NOOP_LISTENER);
+        return getScanner(sstable, rangeIterator, false);
+    }
+
+    public static ISSTableScanner getScanner(BigTableReader sstable, Iterator<AbstractBounds<PartitionPosition>> rangeIterator, boolean bypassCache)
+    {
+        return new BigTableScanner(sstable, ColumnFilter.all(sstable.metadata()), null, rangeIterator, SSTableReadsListener.NOOP_LISTENER, bypassCache);
     }
 
     private BigTableScanner(BigTableReader sstable,
                             ColumnFilter columns,
                             DataRange dataRange,
                             Iterator<AbstractBounds<PartitionPosition>> rangeIterator,
-                            SSTableReadsListener listener)
+                            SSTableReadsListener listener,
+                            boolean bypassCache)
     {
-        super(sstable, columns, dataRange, rangeIterator, listener);
+        super(sstable, columns, dataRange, rangeIterator, listener, bypassCache);
         this.ifile = sstable.openIndexReader();
         this.rowIndexEntrySerializer = new RowIndexEntry.Serializer(sstable.descriptor.version, sstable.header, sstable.owner().map(SSTable.Owner::getMetrics).orElse(null));
     }
@@ -132,6 +132,7 @@ public class BigTableWriter extends SortedTableWriter<BigFormatPartitionWriter,
         assert boundary == null || (boundary.indexLength > 0 && boundary.dataLength > 0);
 
         IFilter filter = null;
+        IFilter rowFilter = null;
         IndexSummary indexSummary = null;
         FileHandle dataFile = null;
         FileHandle indexFile = null;
@@ -162,6 +163,12 @@ public class BigTableWriter extends SortedTableWriter<BigFormatPartitionWriter,
 
             filter = indexWriter.getFilterCopy();
             builder.setFilter(filter);
+            // the row filter keeps growing while rows are written, so it is only shared once they all are
+            if (boundary == null)
+            {
+                rowFilter = indexWriter.getRowFilterCopy();
+                builder.setRowFilter(rowFilter);
+            }
             indexSummary = indexWriter.summary.build(metadata().partitioner, boundary);
             builder.setIndexSummary(indexSummary);
             long indexFileLength = descriptor.fileFor(Components.PRIMARY_INDEX).length();
@@ -180,7 +187,7 @@ public class BigTableWriter extends SortedTableWriter<BigFormatPartitionWriter,
         catch (Throwable t)
         {
             JVMStabilityInspector.inspectThrowable(t);
-            Throwables.closeNonNullAndAddSuppressed(t, dataFile, indexFile, indexSummary, filter);
+            Throwables.closeNonNullAndAddSuppressed(t, dataFile, indexFile, indexSummary, filter, rowFilter);
             throw t;
         }
 
@@ -228,7 +235,7 @@ public class BigTableWriter extends SortedTableWriter<BigFormatPartitionWriter,
         if (maxDataAge < 0)
             maxDataAge = currentTimeMillis();
 
-        return openInternal(null, openReason);
+        return warmChunkCache(openInternal(null, openReason));
     }
 
     /**
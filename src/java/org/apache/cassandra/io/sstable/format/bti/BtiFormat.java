@@ -103,6 +103,8 @@ public class BtiFormat extends AbstractSSTableFormat<BtiTableReader, BtiTableWri
                                                                              STATS,
                                                                              COMPRESSION_INFO,
                                                                              FILTER,
+                                                                             ROW_FILTER,
+                                                                             EXCLUDED,
                                                                              DIGEST,
                                                                              CRC,
                                                                              TOC);
@@ -51,6 +51,7 @@ import org.apache.cassandra.io.sstable.SSTable;
 import org.apache.cassandra.io.sstable.SSTableReadsListener;
 import org.apache.cassandra.io.sstable.SSTableReadsListener.SelectionReason;
 import org.apache.cassandra.io.sstable.SSTableReadsListener.SkippingReason;
+import org.apache.cassandra.io.sstable.format.ExcludedPartitions;
 import org.apache.cassandra.io.sstable.format.SSTableReaderWithFilter;
 import org.apache.cassandra.io.util.FileDataInput;
 import org.apache.cassandra.io.util.FileHandle;
@@ -363,7 +364,8 @@ public class BtiTableReader extends SSTableReaderWithFilter
                                              boolean reversed,
                                              SSTableReadsListener listener)
     {
-        return rowIterator(null, key, getExactPosition(key, listener, true), slices, selectedColumns, reversed);
+        TrieIndexEntry rie = isExcluded(key, listener) ? null : getExactPosition(key, listener, true);
+        return rowIterator(null, key, rie, slices, selectedColumns, reversed);
     }
 
     public UnfilteredRowIterator rowIterator(FileDataInput dataFileInput,
@@ -389,12 +391,12 @@ public class BtiTableReader extends SSTableReaderWithFilter
     }
 
     @Override
-    public ISSTableScanner getScanner(Collection<Range<Token>> ranges)
+    public ISSTableScanner getScanner(Collection<Range<Token>> ranges, boolean bypassCache)
     {
         if (ranges != null)
-            return BtiTableScanner.getScanner(this, ranges);
+            return BtiTableScanner.getScanner(this, ranges, bypassCache);
         else
-            return getScanner();
+            return BtiTableScanner.getScanner(this, bypassCache);
     }
 
     @Override
@@ -431,6 +433,15 @@ public class BtiTableReader extends SSTableReaderWithFilter
         });
     }
 
+    @Override
+    public BtiTableReader cloneWithExcludedPartitions(ExcludedPartitions excludedPartitions)
+    {
+        return runWithLock(ignored -> unbuildTo(new Builder(descriptor), true)
+                                      .setExcludedPartitions(excludedPartitions)
+                                      .setOpenReason(OpenReason.METADATA_CHANGE)
+                                      .build(owner().orElse(null), true, true));
+    }
+
     /**
      * Clone this reader with the provided start and open reason, and set the clone as replacement.
      *
@@ -482,9 +493,9 @@ public class BtiTableReader extends SSTableReaderWithFilter
     }
 
     @Override
-    public UnfilteredPartitionIterator partitionIterator(ColumnFilter columnFilter, DataRange dataRange, SSTableReadsListener listener)
+    public UnfilteredPartitionIterator partitionIterator(ColumnFilter columnFilter, DataRange dataRange, SSTableReadsListener listener, boolean bypassCache)
     {
-        return BtiTableScanner.getScanner(this, columnFilter, dataRange, listener);
+        return BtiTableScanner.getScanner(this, columnFilter, dataRange, listener, bypassCache);
     }
 
     @Override
@@ -30,6 +30,7 @@ import org.apache.cassandra.io.sstable.KeyReader;
 import org.apache.cassandra.io.sstable.SSTable;
 import org.apache.cassandra.io.sstable.format.CompressionInfoComponent;
 import org.apache.cassandra.io.sstable.format.FilterComponent;
+import org.apache.cassandra.io.sstable.format.RowFilterComponent;
 import org.apache.cassandra.io.sstable.format.SortedTableReaderLoadingBuilder;
 import org.apache.cassandra.io.sstable.format.StatsComponent;
 import org.apache.cassandra.io.sstable.format.bti.BtiFormat.Components;
@@ -38,6 +39,7 @@ import org.apache.cassandra.io.sstable.metadata.StatsMetadata;
 import org.apache.cassandra.io.sstable.metadata.ValidationMetadata;
 import org.apache.cassandra.io.util.FileHandle;
 import org.apache.cassandra.metrics.TableMetrics;
+import org.apache.cassandra.schema.TableParams;
 import org.apache.cassandra.utils.FilterFactory;
 import org.apache.cassandra.utils.IFilter;
 import org.apache.cassandra.utils.Throwables;
@@ -101,6 +103,10 @@ public class BtiTableReaderLoadingBuilder extends SortedTableReaderLoadingBuilde
                 builder.setFilter(loadFilter(validationMetadata));
             boolean rebuildFilter = filterNeeded && builder.getFilter() == null;
 
+            // the row filter is optional, and not rebuilt when missing
+            if (filterNeeded && builder.getComponents().contains(Components.ROW_FILTER))
+                builder.setRowFilter(RowFilterComponent.maybeLoad(descriptor));
+
             if (builder.getComponents().contains(Components.PARTITION_INDEX) && builder.getComponents().contains(Components.ROW_INDEX) && rebuildFilter)
             {
                 IFilter filter = buildBloomFilter(statsComponent.statsMetadata());
@@ -142,7 +148,7 @@ public class BtiTableReaderLoadingBuilder extends SortedTableReaderLoadingBuilde
         catch (IOException | RuntimeException | Error ex)
         {
             // in case of failure, close only those components which have been opened in this try-catch block
-            Throwables.closeAndAddSuppressed(ex, builder.getPartitionIndex(), builder.getRowIndexFile(), builder.getDataFile(), builder.getFilter());
+            Throwables.closeNonNullAndAddSuppressed(ex, builder.getPartitionIndex(), builder.getRowIndexFile(), builder.getDataFile(), builder.getFilter(), builder.getRowFilter());
             throw ex;
         }
     }
@@ -153,7 +159,8 @@ public class BtiTableReaderLoadingBuilder extends SortedTableReaderLoadingBuilde
 
         try (KeyReader keyReader = createKeyReader(statsMetadata))
         {
-            bf = FilterFactory.getFilter(statsMetadata.totalRows, tableMetadataRef.getLocal().params.bloomFilterFpChance);
+            TableParams params = tableMetadataRef.getLocal().params;
+            bf = FilterFactory.getFilter(statsMetadata.totalRows, params.bloomFilterFpChance, params.bloomFilterType);
 
             while (!keyReader.isExhausted())
             {
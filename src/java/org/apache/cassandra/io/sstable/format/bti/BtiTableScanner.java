@@ -42,34 +42,46 @@ public class BtiTableScanner extends SSTableScanner<BtiTableReader, TrieIndexEnt
     // Full scan of the sstables
     public static BtiTableScanner getScanner(BtiTableReader sstable)
     {
-        return getScanner(sstable, Iterators.singletonIterator(fullRange(sstable)));
+        return getScanner(sstable, false);
+    }
+
+    public static BtiTableScanner getScanner(BtiTableReader sstable, boolean bypassCache)
+    {
+        return getScanner(sstable, Iterators.singletonIterator(fullRange(sstable)), bypassCache);
     }
 
     public static BtiTableScanner getScanner(BtiTableReader sstable,
                                              ColumnFilter columns,
                                              DataRange dataRange,
-                                             SSTableReadsListener listener)
+                                             SSTableReadsListener listener,
+                                             boolean bypassCache)
     {
-        return new BtiTableScanner(sstable, columns, dataRange, makeBounds(sstable, dataRange).iterator(), listener);
+        return new BtiTableScanner(sstable, columns, dataRange, makeBounds(sstable, dataRange).iterator(), listener, bypassCache);
     }
 
-    public static BtiTableScanner getScanner(BtiTableReader sstable, Collection<Range<Token>> tokenRanges)
+    public static BtiTableScanner getScanner(BtiTableReader sstable, Collection<Range<Token>> tokenRanges, boolean bypassCache)
     {
-        return getScanner(sstable, makeBounds(sstable, tokenRanges).iterator());
+        return getScanner(sstable, makeBounds(sstable, tokenRanges).iterator(), bypassCache);
     }
 
     public static BtiTableScanner getScanner(BtiTableReader sstable, Iterator<AbstractBounds<PartitionPosition>> rangeIterator)
     {
-        return new BtiTableScanner(sstable, ColumnFilter.all(sstable.metadata()), null, rangeIterator, SSTableReadsListener.NOOP_LISTENER);
+        return getScanner(sstable, rangeIterator, false);
+    }
+
+    public static BtiTableScanner getScanner(BtiTableReader sstable, Iterator<AbstractBounds<PartitionPosition>> rangeIterator, boolean bypassCache)
+    {
+        return new BtiTableScanner(sstable, ColumnFilter.all(sstable.metadata()), null, rangeIterator, SSTableReadsListener.NOOP_LISTENER, bypassCache);
     }
 
     private BtiTableScanner(BtiTableReader sstable,
                             ColumnFilter columns,
                             DataRange dataRange,
                             Iterator<AbstractBounds<PartitionPosition>> rangeIterator,
-                            SSTableReadsListener listener)
+                            SSTableReadsListener listener,
+                            boolean bypassCache)
     {
-        super(sstable, columns, dataRange, rangeIterator, listener);
+        super(sstable, columns, dataRange, rangeIterator, listener, bypassCache);
     }
 
     protected void doClose() throws IOException
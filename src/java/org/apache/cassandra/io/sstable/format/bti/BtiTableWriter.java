@@ -85,6 +85,7 @@ public class BtiTableWriter extends SortedTableWriter<BtiFormatPartitionWriter,
     private BtiTableReader openInternal(OpenReason openReason, boolean isFinal, Supplier<PartitionIndex> partitionIndexSupplier)
     {
         IFilter filter = null;
+        IFilter rowFilter = null;
         FileHandle dataFile = null;
         PartitionIndex partitionIndex = null;
         FileHandle rowIndexFile = null;
@@ -101,6 +102,9 @@ public class BtiTableWriter extends SortedTableWriter<BtiFormatPartitionWriter,
             rowIndexFile = indexWriter.rowIndexFHBuilder.complete();
             dataFile = openDataFile(isFinal ? NO_LENGTH_OVERRIDE : dataWriter.getLastFlushOffset(), builder.getStatsMetadata());
             filter = indexWriter.getFilterCopy();
+            // the row filter keeps growing while rows are written, so it is only shared once they all are
+            if (isFinal)
+                rowFilter = indexWriter.getRowFilterCopy();
 
             return builder.setPartitionIndex(partitionIndex)
                           .setFirst(partitionIndex.firstKey())
@@ -108,12 +112,13 @@ public class BtiTableWriter extends SortedTableWriter<BtiFormatPartitionWriter,
                           .setRowIndexFile(rowIndexFile)
                           .setDataFile(dataFile)
                           .setFilter(filter)
+                          .setRowFilter(rowFilter)
                           .build(owner().orElse(null), true, true);
         }
         catch (RuntimeException | Error ex)
         {
             JVMStabilityInspector.inspectThrowable(ex);
-            Throwables.closeNonNullAndAddSuppressed(ex, filter, dataFile, rowIndexFile, partitionIndex);
+            Throwables.closeNonNullAndAddSuppressed(ex, filter, rowFilter, dataFile, rowIndexFile, partitionIndex);
             throw ex;
         }
     }
@@ -151,7 +156,7 @@ public class BtiTableWriter extends SortedTableWriter<BtiFormatPartitionWriter,
         if (maxDataAge < 0)
             maxDataAge = Clock.Global.currentTimeMillis();
 
-        return openInternal(openReason, true, indexWriter::completedPartitionIndex);
+        return warmChunkCache(openInternal(openReason, true, indexWriter::completedPartitionIndex));
     }
 
     /**
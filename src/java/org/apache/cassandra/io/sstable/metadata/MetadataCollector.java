@@ -164,7 +164,14 @@ public class MetadataCollector implements PartitionStatisticsCollector
     public MetadataCollector(Iterable<SSTableReader> sstables, ClusteringComparator comparator)
     {
         this(comparator);
+        commitLogIntervals(commitLogIntervals(sstables, originatingHostId));
+    }
 
+    /**
+     * @return the commit log intervals covered by the given sstables that were written by the given host
+     */
+    public static IntervalSet<CommitLogPosition> commitLogIntervals(Iterable<SSTableReader> sstables, UUID originatingHostId)
+    {
         IntervalSet.Builder<CommitLogPosition> intervals = new IntervalSet.Builder<>();
         if (originatingHostId != null)
         {
@@ -174,7 +181,7 @@ public class MetadataCollector implements PartitionStatisticsCollector
                     intervals.addAll(sstable.getSSTableMetadata().commitLogIntervals);
             }
         }
-        commitLogIntervals(intervals.build());
+        return intervals.build();
     }
 
     public MetadataCollector addKey(ByteBuffer key)
@@ -0,0 +1,119 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.cassandra.io.util;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import com.google.common.annotations.VisibleForTesting;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.apache.cassandra.cache.ChunkCache;
+import org.apache.cassandra.concurrent.ExecutorPlus;
+import org.apache.cassandra.config.DatabaseDescriptor;
+import org.apache.cassandra.utils.JVMStabilityInspector;
+
+import static org.apache.cassandra.concurrent.ExecutorFactory.Global.executorFactory;
+
+/**
+ * Submission queue for chunk reads that should proceed in parallel with the thread that needs them.
+ * <p>
+ * A read merging several sstables would otherwise issue one blocking read per sstable, each waiting for the previous
+ * one to complete. Submitting the reads here lets them be serviced concurrently by a pool of reader threads, each
+ * doing a positioned read into the {@link ChunkCache}; the reading thread then finds the chunks already loaded, or
+ * waits on the in-flight load for the chunk it needs, which the cache guarantees is only performed once.
+ * <p>
+ * Reads submitted here are hints: they may be dropped when the node shuts down, and failures are ignored, as the
+ * synchronous read that follows will retry and report them.
+ */
+public class AsyncChunkReader
+{
+    private static final Logger logger = LoggerFactory.getLogger(AsyncChunkReader.class);
+
+    /**
+     * The shared reader, or null if asynchronous reads are disabled or there is no chunk cache to read into.
+     */
+    public static final AsyncChunkReader instance = DatabaseDescriptor.getAsyncChunkReadThreads() > 0 && ChunkCache.instance != null
+                                                    ? new AsyncChunkReader(DatabaseDescriptor.getAsyncChunkReadThreads())
+                                                    : null;
+
+    private final ExecutorPlus executor;
+
+    @VisibleForTesting
+    AsyncChunkReader(int threads)
+    {
+        executor = executorFactory().pooled("AsyncChunkReader", threads);
+    }
+
+    /**
+     * Submits a read of the chunk containing {@code position} in the given file.
+     */
+    public void prefetch(RebuffererFactory file, long position)
+    {
+        submit(() -> file.prefetch(position), null);
+    }
+
+    /**
+     * Submits a task performing one or more chunk reads, typically a lookup of a position followed by
+     * {@link RebuffererFactory#prefetch}. {@code onCompletion}, if given, is run once the task has finished, failed,
+     * or been rejected, and is where any resources held for the task should be released.
+     */
+    public void submit(Runnable read, Runnable onCompletion)
+    {
+        Runnable task = () -> {
+            try
+            {
+                read.run();
+            }
+            catch (Throwable t)
+            {
+                JVMStabilityInspector.inspectThrowable(t);
+                logger.trace("Asynchronous chunk read failed", t);
+            }
+            finally
+            {
+                if (onCompletion != null)
+                    onCompletion.run();
+            }
+        };
+
+        try
+        {
+            executor.execute(task);
+        }
+        catch (RejectedExecutionException e)
+        {
+            if (onCompletion != null)
+                onCompletion.run();
+        }
+    }
+
+    /**
+     * Stops accepting reads, and waits for the ones already submitted to complete and release what they hold.
+     * Called when draining the node.
+     */
+    public void shutdownAndWait(long timeout, TimeUnit unit) throws InterruptedException, TimeoutException
+    {
+        executor.shutdown();
+        if (!executor.awaitTermination(timeout, unit))
+            throw new TimeoutException();
+    }
+}
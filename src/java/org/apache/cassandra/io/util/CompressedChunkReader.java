@@ -31,6 +31,7 @@ import org.apache.cassandra.io.compress.CompressionMetadata;
 import org.apache.cassandra.io.compress.CorruptBlockException;
 import org.apache.cassandra.io.sstable.CorruptSSTableException;
 import org.apache.cassandra.utils.ChecksumType;
+import org.apache.cassandra.utils.memory.BufferPools;
 
 public abstract class CompressedChunkReader extends AbstractReaderFileProxy implements ChunkReader
 {
@@ -93,14 +94,42 @@ public abstract class CompressedChunkReader extends AbstractReaderFileProxy impl
         // we read the raw compressed bytes into this buffer, then uncompressed them into the provided one.
         private final ThreadLocalByteBufferHolder bufferHolder;
 
+        // the size of the compressed data read at once by each rebufferer, or 0 to read one chunk at a time
+        private final int readAheadSize;
+
         public Standard(ChannelProxy channel, CompressionMetadata metadata, Supplier<Double> crcCheckChanceSupplier)
+        {
+            this(channel, metadata, crcCheckChanceSupplier, 0);
+        }
+
+        /**
+         * @param readAheadSize the size of the compressed data read at once by the rebufferers of this reader, which
+         * read all the chunks it contains with a single read and uncompress them as they are reached, or 0 to read one
+         * chunk at a time. Ignored if it cannot hold the largest chunk.
+         */
+        public Standard(ChannelProxy channel, CompressionMetadata metadata, Supplier<Double> crcCheckChanceSupplier, int readAheadSize)
         {
             super(channel, metadata, crcCheckChanceSupplier);
             bufferHolder = new ThreadLocalByteBufferHolder(metadata.compressor().preferredBufferType());
+            // chunks that do not compress well are stored uncompressed, with their checksum
+            this.readAheadSize = readAheadSize >= metadata.chunkLength() + Integer.BYTES ? readAheadSize : 0;
+        }
+
+        @Override
+        public Rebufferer instantiateRebufferer()
+        {
+            if (readAheadSize == 0)
+                return super.instantiateRebufferer();
+            return new BlockRebufferer(this, readAheadSize);
         }
 
         @Override
         public void readChunk(long position, ByteBuffer uncompressed)
+        {
+            readChunk(position, uncompressed, null);
+        }
+
+        private void readChunk(long position, ByteBuffer uncompressed, BlockRebufferer readAhead)
         {
             try
             {
@@ -113,7 +142,41 @@ public abstract class CompressedChunkReader extends AbstractReaderFileProxy impl
                 int length = shouldCheckCrc ? chunk.length + Integer.BYTES // compressed length + checksum length
                                             : chunk.length;
 
-                if (chunk.length < maxCompressedLength)
+                if (readAhead != null)
+                {
+                    ByteBuffer compressed = readAhead.compressed(chunk, length);
+                    int start = compressed.position();
+                    compressed.limit(start + chunk.length);
+                    uncompressed.clear();
+
+                    if (shouldCheckCrc)
+                    {
+                        int checksum = (int) ChecksumType.CRC32.of(compressed);
+
+                        compressed.limit(start + length);
+                        if (compressed.getInt(start + chunk.length) != checksum)
+                            throw new CorruptBlockException(channel.filePath(), chunk);
+
+                        compressed.position(start).limit(start + chunk.length);
+                    }
+
+                    if (chunk.length < maxCompressedLength)
+                    {
+                        try
+                        {
+                            metadata.compressor().uncompress(compressed, uncompressed);
+                        }
+                        catch (IOException e)
+                        {
+                            throw new CorruptBlockException(channel.filePath(), chunk, e);
+                        }
+                    }
+                    else
+                    {
+                        uncompressed.put(compressed);
+                    }
+                }
+                else if (chunk.length < maxCompressedLength)
                 {
                     ByteBuffer compressed = bufferHolder.getBuffer(length);
 
@@ -171,6 +234,62 @@ public abstract class CompressedChunkReader extends AbstractReaderFileProxy impl
                 throw new CorruptSSTableException(e, channel.filePath());
             }
         }
+
+        /**
+         * Rebufferer reading the compressed file in blocks of {@link #readAheadSize}, so that a sequential read issues
+         * a single read for all the chunks of a block instead of one per chunk.
+         * Instantiated once per RandomAccessReader, thread-unsafe.
+         */
+        private static class BlockRebufferer extends BufferManagingRebufferer.Aligned
+        {
+            private final Standard reader;
+            private final ByteBuffer compressed;
+            // the position in the file of the compressed data, and its length, -1 if none was read
+            private long compressedOffset = -1;
+            private int compressedLength;
+
+            BlockRebufferer(Standard reader, int readAheadSize)
+            {
+                super(reader);
+                this.reader = reader;
+                this.compressed = BufferPools.forChunkCache().get(readAheadSize, reader.preferredBufferType());
+            }
+
+            @Override
+            public BufferHolder rebuffer(long position)
+            {
+                offset = alignedPosition(position);
+                reader.readChunk(offset, buffer, this);
+                return this;
+            }
+
+            /**
+             * @return the buffer of compressed data, positioned at the given chunk and limited to the given length
+             */
+            ByteBuffer compressed(CompressionMetadata.Chunk chunk, int length) throws CorruptBlockException
+            {
+                if (chunk.offset < compressedOffset || chunk.offset + length > compressedOffset + compressedLength)
+                {
+                    compressedOffset = -1;
+                    compressed.clear();
+                    int read = reader.channel.read(compressed, chunk.offset);
+                    if (read < length)
+                        throw new CorruptBlockException(reader.channel.filePath(), chunk);
+                    compressedOffset = chunk.offset;
+                    compressedLength = read;
+                }
+                int start = (int) (chunk.offset - compressedOffset);
+                compressed.limit(start + length).position(start);
+                return compressed;
+            }
+
+            @Override
+            public void closeReader()
+            {
+                BufferPools.forChunkCache().put(compressed);
+                super.closeReader();
+            }
+        }
     }
 
     public static class Mmap extends CompressedChunkReader
@@ -26,6 +26,7 @@ import com.google.common.util.concurrent.RateLimiter;
 
 import org.apache.cassandra.cache.ChunkCache;
 import org.apache.cassandra.config.Config;
+import org.apache.cassandra.config.DatabaseDescriptor;
 import org.apache.cassandra.io.compress.BufferType;
 import org.apache.cassandra.io.compress.CompressionMetadata;
 import org.apache.cassandra.utils.NativeLibrary;
@@ -33,6 +34,7 @@ import org.apache.cassandra.utils.Throwables;
 import org.apache.cassandra.utils.concurrent.Ref;
 import org.apache.cassandra.utils.concurrent.RefCounted;
 import org.apache.cassandra.utils.concurrent.SharedCloseableImpl;
+import org.apache.cassandra.utils.memory.BufferPool;
 
 /**
  * {@link FileHandle} provides access to a file for reading, including the ones written by various {@link SequentialWriter}
@@ -57,6 +59,12 @@ public class FileHandle extends SharedCloseableImpl
      */
     private final RebuffererFactory rebuffererFactory;
 
+    /*
+     * Rebufferer factory bypassing the chunk cache, used by readers created with createUncachedReader.
+     * Owns no resources of its own: it either is, or shares its source with, rebuffererFactory.
+     */
+    private final RebuffererFactory uncachedRebuffererFactory;
+
     /*
      * Optional CompressionMetadata when dealing with compressed file
      */
@@ -65,11 +73,13 @@ public class FileHandle extends SharedCloseableImpl
     private FileHandle(Cleanup cleanup,
                        ChannelProxy channel,
                        RebuffererFactory rebuffererFactory,
+                       RebuffererFactory uncachedRebuffererFactory,
                        CompressionMetadata compressionMetadata,
                        long onDiskLength)
     {
         super(cleanup);
         this.rebuffererFactory = rebuffererFactory;
+        this.uncachedRebuffererFactory = uncachedRebuffererFactory;
         this.channel = channel;
         this.compressionMetadata = Optional.ofNullable(compressionMetadata);
         this.onDiskLength = onDiskLength;
@@ -80,6 +90,7 @@ public class FileHandle extends SharedCloseableImpl
         super(copy);
         channel = copy.channel;
         rebuffererFactory = copy.rebuffererFactory;
+        uncachedRebuffererFactory = copy.uncachedRebuffererFactory;
         compressionMetadata = copy.compressionMetadata;
         onDiskLength = copy.onDiskLength;
     }
@@ -146,6 +157,28 @@ public class FileHandle extends SharedCloseableImpl
         return new RandomAccessReader(instantiateRebufferer(limiter));
     }
 
+    /**
+     * Create {@link RandomAccessReader} that neither reads from nor populates the chunk cache, and that reads
+     * files in blocks of {@code uncached_read_ahead_size}, unless they are memory-mapped. Meant for large sequential
+     * reads, like range scans or repair validation, that would otherwise evict the chunks cached for point reads. The
+     * reader reads {@code uncached_read_ahead_chunks} ahead of its position, if set, see {@link ReadAheadRebufferer}.
+     * Reading from file will be rate limited by given {@link RateLimiter}, if not null.
+     *
+     * @param limiter RateLimiter to use for rate limiting read
+     * @return RandomAccessReader for the file
+     */
+    public RandomAccessReader createUncachedReader(RateLimiter limiter)
+    {
+        int readAheadChunks = DatabaseDescriptor.getUncachedReadAheadChunks();
+        if (readAheadChunks <= 0 || !ReadAheadRebufferer.canReadAhead(uncachedRebuffererFactory))
+            return new RandomAccessReader(instantiateRebufferer(uncachedRebuffererFactory, limiter));
+
+        Rebufferer rebufferer = new ReadAheadRebufferer((ChunkReader) uncachedRebuffererFactory, readAheadChunks, ReadAheadRebufferer.executor());
+        // compactions read their input this way, and still tell the partitions that were cached, see ChunkCacheWarmer
+        rebufferer = ChunkCache.countingDataHits(rebuffererFactory, rebufferer);
+        return new RandomAccessReader(maybeLimited(rebufferer, limiter));
+    }
+
     public FileDataInput createReader(long position)
     {
         RandomAccessReader reader = createReader();
@@ -186,8 +219,16 @@ public class FileHandle extends SharedCloseableImpl
 
     public Rebufferer instantiateRebufferer(RateLimiter limiter)
     {
-        Rebufferer rebufferer = rebuffererFactory.instantiateRebufferer();
+        return instantiateRebufferer(rebuffererFactory, limiter);
+    }
+
+    private static Rebufferer instantiateRebufferer(RebuffererFactory rebuffererFactory, RateLimiter limiter)
+    {
+        return maybeLimited(rebuffererFactory.instantiateRebufferer(), limiter);
+    }
 
+    private static Rebufferer maybeLimited(Rebufferer rebufferer, RateLimiter limiter)
+    {
         if (limiter != null)
             rebufferer = new LimitingRebufferer(rebufferer, limiter, DiskOptimizationStrategy.MAX_BUFFER_SIZE);
         return rebufferer;
@@ -201,17 +242,14 @@ public class FileHandle extends SharedCloseableImpl
         final ChannelProxy channel;
         final RebuffererFactory rebufferer;
         final CompressionMetadata compressionMetadata;
-        final Optional<ChunkCache> chunkCache;
 
         private Cleanup(ChannelProxy channel,
                         RebuffererFactory rebufferer,
-                        CompressionMetadata compressionMetadata,
-                        ChunkCache chunkCache)
+                        CompressionMetadata compressionMetadata)
         {
             this.channel = channel;
             this.rebufferer = rebufferer;
             this.compressionMetadata = compressionMetadata;
-            this.chunkCache = Optional.ofNullable(chunkCache);
         }
 
         public String name()
@@ -221,7 +259,6 @@ public class FileHandle extends SharedCloseableImpl
 
         public void tidy()
         {
-            chunkCache.ifPresent(cache -> cache.invalidateFile(name()));
             try
             {
                 if (compressionMetadata != null)
@@ -374,6 +411,7 @@ public class FileHandle extends SharedCloseableImpl
             ChannelProxy channel = null;
             MmappedRegions regions = null;
             CompressionMetadata compressionMetadata = null;
+            RebuffererFactory rebuffererFactory = null;
             try
             {
                 compressionMetadata = this.compressionMetadata != null ? this.compressionMetadata.sharedCopy() : null;
@@ -382,7 +420,7 @@ public class FileHandle extends SharedCloseableImpl
                 long fileLength = (compressionMetadata != null) ? compressionMetadata.compressedFileLength : channel.size();
                 long length = lengthOverride > 0 ? lengthOverride : fileLength;
 
-                RebuffererFactory rebuffererFactory;
+                RebuffererFactory uncachedRebuffererFactory = null;
                 if (length == 0)
                 {
                     rebuffererFactory = new EmptyRebufferer(channel);
@@ -393,7 +431,9 @@ public class FileHandle extends SharedCloseableImpl
                     {
                         regions = mmappedRegionsCache != null ? mmappedRegionsCache.getOrCreate(channel, compressionMetadata)
                                                               : MmappedRegions.map(channel, compressionMetadata);
-                        rebuffererFactory = maybeCached(new CompressedChunkReader.Mmap(channel, compressionMetadata, regions, crcCheckChanceSupplier));
+                        ChunkReader reader = new CompressedChunkReader.Mmap(channel, compressionMetadata, regions, crcCheckChanceSupplier);
+                        rebuffererFactory = maybeCached(reader);
+                        uncachedRebuffererFactory = reader;
                     }
                     else
                     {
@@ -407,21 +447,34 @@ public class FileHandle extends SharedCloseableImpl
                     if (compressionMetadata != null)
                     {
                         rebuffererFactory = maybeCached(new CompressedChunkReader.Standard(channel, compressionMetadata, crcCheckChanceSupplier));
+                        // the compressed chunks following the one read are read along with it
+                        uncachedRebuffererFactory = new CompressedChunkReader.Standard(channel, compressionMetadata, crcCheckChanceSupplier,
+                                                                                       DatabaseDescriptor.getUncachedReadAheadSize());
                     }
                     else
                     {
                         int chunkSize = DiskOptimizationStrategy.roundForCaching(bufferSize, ChunkCache.roundUp);
                         rebuffererFactory = maybeCached(new SimpleChunkReader(channel, length, bufferType, chunkSize));
+                        // uncompressed data is read in larger chunks, which must fit in the buffers of the pool when read
+                        // ahead, see ReadAheadRebufferer
+                        int readAheadSize = DatabaseDescriptor.getUncachedReadAheadSize();
+                        if (DatabaseDescriptor.getUncachedReadAheadChunks() > 0)
+                            readAheadSize = Math.min(readAheadSize, BufferPool.NORMAL_CHUNK_SIZE);
+                        readAheadSize = Math.max(chunkSize, readAheadSize);
+                        uncachedRebuffererFactory = new SimpleChunkReader(channel, length, bufferType, readAheadSize);
                     }
                 }
-                Cleanup cleanup = new Cleanup(channel, rebuffererFactory, compressionMetadata, chunkCache);
+                if (uncachedRebuffererFactory == null)
+                    uncachedRebuffererFactory = rebuffererFactory;
+                Cleanup cleanup = new Cleanup(channel, rebuffererFactory, compressionMetadata);
 
-                FileHandle fileHandle = new FileHandle(cleanup, channel, rebuffererFactory, compressionMetadata, length);
+                FileHandle fileHandle = new FileHandle(cleanup, channel, rebuffererFactory, uncachedRebuffererFactory, compressionMetadata, length);
                 return fileHandle;
             }
             catch (Throwable t)
             {
-                Throwables.closeNonNullAndAddSuppressed(t, regions, channel, compressionMetadata);
+                // closing the cached rebufferer releases the file in the chunk cache
+                Throwables.closeNonNullAndAddSuppressed(t, rebuffererFactory, regions, channel, compressionMetadata);
                 throw t;
             }
         }
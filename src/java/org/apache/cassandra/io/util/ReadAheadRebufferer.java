@@ -0,0 +1,330 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.cassandra.io.util;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayDeque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.concurrent.NotThreadSafe;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.apache.cassandra.concurrent.ExecutorPlus;
+import org.apache.cassandra.config.DatabaseDescriptor;
+import org.apache.cassandra.utils.concurrent.CountDownLatch;
+import org.apache.cassandra.utils.memory.BufferPool;
+import org.apache.cassandra.utils.memory.BufferPools;
+
+import static org.apache.cassandra.concurrent.ExecutorFactory.Global.executorFactory;
+import static org.apache.cassandra.utils.concurrent.CountDownLatch.newCountDownLatch;
+
+/**
+ * Rebufferer for sequential reads that bypass the chunk cache, which reads the chunks following the current one
+ * ahead of time on background threads, into buffers of the chunk cache {@link BufferPool}.
+ * <p>
+ * Scans like compactions would otherwise issue one synchronous read of a single chunk at a time per file, and be
+ * limited by the latency of each read rather than by the bandwidth of the disk, which makes a large difference on
+ * network-attached volumes. The chunks are read ahead assuming the reads move forward: a read of any other position
+ * drops the chunks read ahead, and starts reading ahead from the new position.
+ * <p>
+ * Reads ahead are hints: a failed one is retried synchronously by the reading thread, which reports the failure.
+ * Closing the reader waits for the reads ahead still running, so that none outlives the reader and its file.
+ * <p>
+ * Instantiated once per RandomAccessReader, thread-unsafe. Like {@link BufferManagingRebufferer}, it is its own
+ * buffer holder, and the buffer stays valid until the next call to {@link #rebuffer} or {@link #closeReader}.
+ */
+@NotThreadSafe
+public class ReadAheadRebufferer implements Rebufferer, Rebufferer.BufferHolder
+{
+    private static final Logger logger = LoggerFactory.getLogger(ReadAheadRebufferer.class);
+
+    private static final BufferPool bufferPool = BufferPools.forChunkCache();
+
+    private final ChunkReader source;
+    private final int chunkSize;
+    private final int depth;
+    private final Executor executor;
+
+    // the chunks read ahead, in file order, the first one following the current one
+    private final ArrayDeque<Chunk> readAhead;
+    private Chunk current;
+
+    /**
+     * @param source the reader of the chunks, which must be of a power of two size
+     * @param depth the number of chunks to read ahead of the current one
+     * @param executor the executor performing the reads ahead
+     */
+    public ReadAheadRebufferer(ChunkReader source, int depth, Executor executor)
+    {
+        assert Integer.bitCount(source.chunkSize()) == 1 : "chunk size must be a power of two";
+        assert depth > 0;
+        this.source = source;
+        this.chunkSize = source.chunkSize();
+        this.depth = depth;
+        this.executor = executor;
+        this.readAhead = new ArrayDeque<>(depth);
+    }
+
+    /**
+     * Whether reads of the given source can be read ahead, which requires fixed, aligned, chunks, which fit in the
+     * buffers of the pool as every chunk read ahead takes a new buffer.
+     */
+    public static boolean canReadAhead(RebuffererFactory source)
+    {
+        if (!(source instanceof ChunkReader))
+            return false;
+        int chunkSize = ((ChunkReader) source).chunkSize();
+        return Integer.bitCount(chunkSize) == 1 && chunkSize <= BufferPool.NORMAL_CHUNK_SIZE;
+    }
+
+    /**
+     * The executor performing the reads ahead of all readers, created on first use.
+     */
+    public static Executor executor()
+    {
+        return ExecutorHolder.executor;
+    }
+
+    @Override
+    public BufferHolder rebuffer(long position)
+    {
+        long offset = position & -chunkSize;
+        if (current != null && current.position == offset)
+        {
+            // the wrapping rebufferers may have limited the buffer when it was last returned
+            current.buffer.limit(current.length);
+            return this;
+        }
+
+        if (current != null)
+            current.release();
+        current = null;
+
+        // skip the chunks read ahead before the position, or all of them if the position is not ahead
+        while (!readAhead.isEmpty() && readAhead.peekFirst().position < offset)
+            readAhead.pollFirst().release();
+        if (!readAhead.isEmpty() && readAhead.peekFirst().position == offset)
+            current = readAhead.pollFirst();
+        else
+            discardReadAhead();
+
+        // queue the next reads before waiting for the current one, so that they all proceed at once
+        long next = readAhead.isEmpty() ? offset + chunkSize : readAhead.peekLast().position + chunkSize;
+        while (readAhead.size() < depth && next < source.fileLength())
+        {
+            Chunk chunk = new Chunk(next);
+            readAhead.addLast(chunk);
+            chunk.submit();
+            next += chunkSize;
+        }
+
+        if (current == null)
+        {
+            current = new Chunk(offset);
+            current.read();
+        }
+        else if (!current.await())
+        {
+            // the read ahead failed, retry it here to report the failure
+            current.read();
+        }
+        return this;
+    }
+
+    private void discardReadAhead()
+    {
+        while (!readAhead.isEmpty())
+            readAhead.pollFirst().release();
+    }
+
+    @Override
+    public void closeReader()
+    {
+        // release the chunks first, so that the reads still queued are skipped rather than waited for
+        for (Chunk chunk : readAhead)
+            chunk.release();
+        for (Chunk chunk : readAhead)
+            chunk.awaitCompletion();
+        readAhead.clear();
+        if (current != null)
+            current.release();
+        current = null;
+    }
+
+    @Override
+    public void close()
+    {
+        assert current == null && readAhead.isEmpty(); // reader must be closed at this point.
+        source.close();
+    }
+
+    @Override
+    public ChannelProxy channel()
+    {
+        return source.channel();
+    }
+
+    @Override
+    public long fileLength()
+    {
+        return source.fileLength();
+    }
+
+    @Override
+    public double getCrcCheckChance()
+    {
+        return source.getCrcCheckChance();
+    }
+
+    @Override
+    public String toString()
+    {
+        return "ReadAheadRebufferer[" + depth + "]:" + source;
+    }
+
+    // BufferHolder methods
+
+    @Override
+    public ByteBuffer buffer()
+    {
+        return current.buffer;
+    }
+
+    @Override
+    public long offset()
+    {
+        return current.position;
+    }
+
+    @Override
+    public void release()
+    {
+        // nothing to do, the buffer is released on the next rebuffer or when the reader is closed.
+    }
+
+    /**
+     * A chunk read, synchronously or ahead, and its buffer. The buffer of a chunk read ahead is owned by the reading
+     * thread until the read completes, and returned to the pool by whichever of the reads or {@link #release} comes
+     * last.
+     */
+    private final class Chunk implements Runnable
+    {
+        // a chunk is UNREAD until read, or if its read ahead failed
+        private static final int UNREAD = 0, READING = 1, READ = 2, RELEASED = 3;
+
+        private final long position;
+        private final ByteBuffer buffer;
+        private final CountDownLatch done = newCountDownLatch(1);
+        private final AtomicInteger state = new AtomicInteger(UNREAD);
+        // the length of the chunk once read, published to the reading thread by done for reads ahead
+        private int length;
+
+        private Chunk(long position)
+        {
+            this.position = position;
+            this.buffer = bufferPool.get(chunkSize, source.preferredBufferType()).order(ByteOrder.BIG_ENDIAN);
+        }
+
+        void submit()
+        {
+            state.set(READING);
+            try
+            {
+                executor.execute(this);
+            }
+            catch (RejectedExecutionException e)
+            {
+                // read it when needed
+                complete(UNREAD);
+            }
+        }
+
+        @Override
+        public void run()
+        {
+            int result = READ;
+            try
+            {
+                // no need to read a chunk that was released while queued
+                if (state.get() == READING)
+                {
+                    source.readChunk(position, buffer);
+                    length = buffer.limit();
+                }
+            }
+            catch (Throwable t)
+            {
+                // left unread for the reading thread, whose synchronous read reports the failure
+                logger.trace("Read ahead of chunk at {} of {} failed", position, source, t);
+                result = UNREAD;
+            }
+            complete(result);
+        }
+
+        private void complete(int result)
+        {
+            if (!state.compareAndSet(READING, result))
+                bufferPool.put(buffer);
+            done.decrement();
+        }
+
+        /**
+         * Synchronously reads the chunk, which is not being read ahead.
+         */
+        void read()
+        {
+            source.readChunk(position, buffer);
+            length = buffer.limit();
+            state.set(READ);
+        }
+
+        /**
+         * Waits for the read ahead to complete, and returns whether it succeeded.
+         */
+        boolean await()
+        {
+            awaitCompletion();
+            return state.get() == READ;
+        }
+
+        /**
+         * Waits for the read ahead to complete, whether it succeeded or not.
+         */
+        void awaitCompletion()
+        {
+            done.awaitUninterruptibly();
+        }
+
+        void release()
+        {
+            // if the chunk is still being read, the read returns the buffer on completion
+            if (state.getAndSet(RELEASED) != READING)
+                bufferPool.put(buffer);
+        }
+    }
+
+    private static final class ExecutorHolder
+    {
+        private static final ExecutorPlus executor = executorFactory().pooled("ReadAhead", Math.max(1, DatabaseDescriptor.getUncachedReadAheadThreads()));
+    }
+}
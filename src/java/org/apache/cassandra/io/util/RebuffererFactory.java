@@ -29,4 +29,14 @@ package org.apache.cassandra.io.util;
 public interface RebuffererFactory extends ReaderFileProxy
 {
     Rebufferer instantiateRebufferer();
+
+    /**
+     * Reads the chunk containing the given position into the cache backing this factory, if there is one, so that a
+     * later rebuffer of that position does not have to wait for the disk. Blocks until the chunk is loaded; callers
+     * wanting to issue several such reads at once should do so through {@link AsyncChunkReader}.
+     * Factories without a cache have nothing to load and ignore the call.
+     */
+    default void prefetch(long position)
+    {
+    }
 }
@@ -17,6 +17,8 @@
  */
 package org.apache.cassandra.metrics;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.function.DoubleSupplier;
 
 import com.google.common.annotations.VisibleForTesting;
@@ -25,6 +27,8 @@ import com.codahale.metrics.Gauge;
 import com.codahale.metrics.Meter;
 import com.codahale.metrics.RatioGauge;
 
+import org.apache.cassandra.metrics.CassandraMetricsRegistry.MetricName;
+
 import static org.apache.cassandra.metrics.CassandraMetricsRegistry.Metrics;
 
 /**
@@ -69,24 +73,43 @@ public abstract class AbstractCacheMetrics
 
     protected final MetricNameFactory factory;
 
+    // the metrics registered by this class, for release()
+    private final List<MetricName> names = new ArrayList<>();
+
     protected AbstractCacheMetrics(MetricNameFactory metricNameFactory, String type)
     {
         this.type = type;
         factory = metricNameFactory;
-        hits = Metrics.meter(factory.createMetricName("Hits"));
-        misses = Metrics.meter(factory.createMetricName("Misses"));
-        requests = Metrics.meter(factory.createMetricName("Requests"));
+        hits = Metrics.meter(name("Hits"));
+        misses = Metrics.meter(name("Misses"));
+        requests = Metrics.meter(name("Requests"));
 
-        hitRate = Metrics.register(factory.createMetricName("HitRate"),
+        hitRate = Metrics.register(name("HitRate"),
                                    ratioGauge(hits::getCount, requests::getCount));
-        oneMinuteHitRate = Metrics.register(factory.createMetricName("OneMinuteHitRate"),
+        oneMinuteHitRate = Metrics.register(name("OneMinuteHitRate"),
                                             ratioGauge(hits::getOneMinuteRate, requests::getOneMinuteRate));
-        fiveMinuteHitRate = Metrics.register(factory.createMetricName("FiveMinuteHitRate"),
+        fiveMinuteHitRate = Metrics.register(name("FiveMinuteHitRate"),
                                              ratioGauge(hits::getFiveMinuteRate, requests::getFiveMinuteRate));
-        fifteenMinuteHitRate = Metrics.register(factory.createMetricName("FifteenMinuteHitRate"),
+        fifteenMinuteHitRate = Metrics.register(name("FifteenMinuteHitRate"),
                                                 ratioGauge(hits::getFifteenMinuteRate, requests::getFifteenMinuteRate));
     }
 
+    private MetricName name(String name)
+    {
+        MetricName metricName = factory.createMetricName(name);
+        names.add(metricName);
+        return metricName;
+    }
+
+    /**
+     * Unregisters the metrics registered by this class.
+     */
+    protected void release()
+    {
+        for (MetricName name : names)
+            Metrics.remove(name);
+    }
+
     @VisibleForTesting
     public void reset()
     {
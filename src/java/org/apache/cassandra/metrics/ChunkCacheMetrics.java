@@ -17,9 +17,12 @@
  */
 package org.apache.cassandra.metrics;
 
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeUnit;
 import javax.annotation.Nonnull;
 
+import com.codahale.metrics.Meter;
 import com.codahale.metrics.Timer;
 import com.github.benmanes.caffeine.cache.RemovalCause;
 import com.github.benmanes.caffeine.cache.stats.CacheStats;
@@ -36,6 +39,12 @@ public class ChunkCacheMetrics extends CacheMetrics implements StatsCounter
     public static final String TYPE_NAME = "ChunkCache";
     /** Latency of misses */
     public final Timer missLatency;
+    /** Number of chunks evicted without having been read again after they were loaded */
+    public final Meter oneHitWonders;
+    /** Number of chunks of newly written sstables loaded ahead of reads, see {@link ChunkCache#warm} */
+    public final Meter warmed;
+
+    private final ConcurrentMap<String, TableChunkCacheMetrics> tableMetrics = new ConcurrentHashMap<>();
 
     /**
      * Create metrics for the provided chunk cache.
@@ -46,6 +55,51 @@ public class ChunkCacheMetrics extends CacheMetrics implements StatsCounter
     {
         super(TYPE_NAME, cache);
         missLatency = Metrics.timer(factory.createMetricName("MissLatency"));
+        oneHitWonders = Metrics.meter(factory.createMetricName("OneHitWonders"));
+        warmed = Metrics.meter(factory.createMetricName("Warmed"));
+    }
+
+    /**
+     * Returns the hit and miss metrics of the chunk cache restricted to the files of the given table, registering
+     * them on first use.
+     */
+    public TableChunkCacheMetrics forTable(String keyspace, String table)
+    {
+        return tableMetrics.computeIfAbsent(keyspace + '.' + table, TableChunkCacheMetrics::new);
+    }
+
+    /**
+     * Unregisters the metrics of the given table, if they were registered. Called when the table is dropped.
+     */
+    public void releaseTable(String keyspace, String table)
+    {
+        TableChunkCacheMetrics metrics = tableMetrics.remove(keyspace + '.' + table);
+        if (metrics != null)
+            metrics.release();
+    }
+
+    public void recordHit(TableChunkCacheMetrics table)
+    {
+        recordHits(1);
+        if (table != null)
+            table.recordHit();
+    }
+
+    public void recordMiss(TableChunkCacheMetrics table)
+    {
+        recordMisses(1);
+        if (table != null)
+            table.recordMiss();
+    }
+
+    public void recordOneHitWonder()
+    {
+        oneHitWonders.mark();
+    }
+
+    public void recordWarmed()
+    {
+        warmed.mark();
     }
 
     @Override
@@ -84,4 +138,28 @@ public class ChunkCacheMetrics extends CacheMetrics implements StatsCounter
     {
         return CacheStats.of(hits.getCount(), misses.getCount(), missLatency.getCount(), 0L, missLatency.getCount(), 0L, 0L);
     }
+
+    /**
+     * Chunk cache requests, hits and misses for the files of a single table, registered with the table's
+     * {@code keyspace.table} name as scope.
+     */
+    public static class TableChunkCacheMetrics extends AbstractCacheMetrics
+    {
+        TableChunkCacheMetrics(String scope)
+        {
+            super(new DefaultNameFactory(TYPE_NAME, scope), TYPE_NAME);
+        }
+
+        private void recordHit()
+        {
+            requests.mark();
+            hits.mark();
+        }
+
+        private void recordMiss()
+        {
+            requests.mark();
+            misses.mark();
+        }
+    }
 }
@@ -17,6 +17,9 @@
  */
 package org.apache.cassandra.metrics;
 
+import java.util.concurrent.TimeUnit;
+
+import com.codahale.metrics.Counter;
 import com.codahale.metrics.Gauge;
 import com.codahale.metrics.Meter;
 import com.codahale.metrics.Timer;
@@ -47,6 +50,14 @@ public class CommitLogMetrics
     public final Timer waitingOnFlush;
     /** Number and rate of oversized mutations */
     public final Meter oversizedMutations;
+    /** Number of mutations replayed from the commit log at startup */
+    public final Counter replayedMutations;
+    /** Size of the mutations decoded from the commit log at startup */
+    public final Counter replayedBytes;
+    /** Bytes per second decoded and applied by the last commit log replay */
+    public final Gauge<Long> replayThroughput;
+
+    private volatile long lastReplayThroughput;
 
     public CommitLogMetrics()
     {
@@ -54,6 +65,23 @@ public class CommitLogMetrics
         waitingOnCommit = Metrics.timer(factory.createMetricName("WaitingOnCommit"));
         waitingOnFlush = Metrics.timer(factory.createMetricName("WaitingOnFlush"));
         oversizedMutations = Metrics.meter(factory.createMetricName("OverSizedMutations"));
+        replayedMutations = Metrics.counter(factory.createMetricName("ReplayedMutations"));
+        replayedBytes = Metrics.counter(factory.createMetricName("ReplayedBytes"));
+        replayThroughput = Metrics.register(factory.createMetricName("ReplayThroughput"), () -> lastReplayThroughput);
+    }
+
+    /**
+     * Records a completed commit log replay.
+     *
+     * @param mutations the number of replayed mutations
+     * @param bytes the size of the decoded mutations
+     * @param elapsedNanos the time spent decoding and applying them
+     */
+    public void markReplay(long mutations, long bytes, long elapsedNanos)
+    {
+        replayedMutations.inc(mutations);
+        replayedBytes.inc(bytes);
+        lastReplayThroughput = bytes * TimeUnit.SECONDS.toNanos(1) / Math.max(1, elapsedNanos);
     }
 
     public void attach(final AbstractCommitLogService service, final AbstractCommitLogSegmentManager segmentManager)
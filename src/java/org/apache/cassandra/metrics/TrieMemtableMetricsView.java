@@ -28,6 +28,7 @@ public class TrieMemtableMetricsView
     public static final String TYPE_NAME = "TrieMemtable";
     private static final String UNCONTENDED_PUTS = "Uncontended memtable puts";
     private static final String CONTENDED_PUTS = "Contended memtable puts";
+    private static final String LOCK_FREE_PUTS = "Lock-free memtable puts";
     private static final String CONTENTION_TIME = "Contention time";
     private static final String LAST_FLUSH_SHARD_SIZES = "Shard sizes during last flush";
 
@@ -37,6 +38,9 @@ public class TrieMemtableMetricsView
     // the number of memtable puts that needed to wait on write lock
     public final Counter contendedPuts;
 
+    // the number of memtable puts that updated a partition without taking the write lock, with concurrent writes
+    public final Counter lockFreePuts;
+
     // shard put contention measurements
     public final LatencyMetrics contentionTime;
 
@@ -51,6 +55,7 @@ public class TrieMemtableMetricsView
         
         uncontendedPuts = Metrics.counter(factory.createMetricName(UNCONTENDED_PUTS));
         contendedPuts = Metrics.counter(factory.createMetricName(CONTENDED_PUTS));
+        lockFreePuts = Metrics.counter(factory.createMetricName(LOCK_FREE_PUTS));
         contentionTime = new LatencyMetrics(factory, CONTENTION_TIME);
         lastFlushShardDataSizes = new MinMaxAvgMetric(factory, LAST_FLUSH_SHARD_SIZES);
     }
@@ -59,6 +64,7 @@ public class TrieMemtableMetricsView
     {
         Metrics.remove(factory.createMetricName(UNCONTENDED_PUTS));
         Metrics.remove(factory.createMetricName(CONTENDED_PUTS));
+        Metrics.remove(factory.createMetricName(LOCK_FREE_PUTS));
         contentionTime.release();
         lastFlushShardDataSizes.release();
     }
@@ -155,6 +155,11 @@ public class Message<T>
         return header.trackWarnings();
     }
 
+    public boolean bypassCache()
+    {
+        return header.bypassCache();
+    }
+
     /** See CASSANDRA-14145 */
     public boolean trackRepairedData()
     {
@@ -525,6 +530,11 @@ public class Message<T>
             return MessageFlag.TRACK_WARNINGS.isIn(flags);
         }
 
+        boolean bypassCache()
+        {
+            return MessageFlag.BYPASS_CACHE.isIn(flags);
+        }
+
         @Nullable
         ForwardingInfo forwardTo()
         {
@@ -29,7 +29,9 @@ public enum MessageFlag
     /** track repaired data - see CASSANDRA-14145 */
     TRACK_REPAIRED_DATA  (1),
     /** allow creating warnings or aborting queries based off query - see CASSANDRA-16850 */
-    TRACK_WARNINGS(2);
+    TRACK_WARNINGS(2),
+    /** read sstables without going through, or populating, the chunk cache */
+    BYPASS_CACHE(3);
 
     private final int id;
 
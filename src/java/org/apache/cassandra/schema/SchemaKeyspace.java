@@ -48,6 +48,7 @@ import org.apache.cassandra.service.reads.SpeculativeRetryPolicy;
 import org.apache.cassandra.schema.ColumnMetadata.ClusteringOrder;
 import org.apache.cassandra.schema.Keyspaces.KeyspacesDiff;
 import org.apache.cassandra.service.reads.repair.ReadRepairStrategy;
+import org.apache.cassandra.utils.BloomFilterType;
 import org.apache.cassandra.utils.ByteBufferUtil;
 import org.apache.cassandra.utils.FBUtilities;
 import org.apache.cassandra.utils.Simulate;
@@ -105,6 +106,7 @@ public final class SchemaKeyspace
               + "table_name text,"
               + "allow_auto_snapshot boolean,"
               + "bloom_filter_fp_chance double,"
+              + "bloom_filter_type text,"
               + "caching frozen<map<text, text>>,"
               + "comment text,"
               + "compaction frozen<map<text, text>>,"
@@ -126,6 +128,8 @@ public final class SchemaKeyspace
               + "additional_write_policy text,"
               + "cdc boolean,"
               + "read_repair text,"
+              + "row_bloom_filter boolean,"
+              + "durable_writes boolean,"
               + "PRIMARY KEY ((keyspace_name), table_name))");
 
     private static final TableMetadata Columns =
@@ -189,6 +193,7 @@ public final class SchemaKeyspace
               + "where_clause text,"
               + "allow_auto_snapshot boolean,"
               + "bloom_filter_fp_chance double,"
+              + "bloom_filter_type text,"
               + "caching frozen<map<text, text>>,"
               + "comment text,"
               + "compaction frozen<map<text, text>>,"
@@ -210,6 +215,8 @@ public final class SchemaKeyspace
               + "additional_write_policy text,"
               + "cdc boolean,"
               + "read_repair text,"
+              + "row_bloom_filter boolean,"
+              + "durable_writes boolean,"
               + "PRIMARY KEY ((keyspace_name), view_name))");
 
     private static final TableMetadata Indexes =
@@ -578,6 +585,18 @@ public final class SchemaKeyspace
         // incremental_backups is enabled, to avoid RTE in pre-4.2 versioned node during upgrades
         if (!params.incrementalBackups)
             builder.add("incremental_backups", false);
+
+        // As above, only add the bloom_filter_type column if the table uses a non-default filter type
+        if (params.bloomFilterType != BloomFilterType.STANDARD)
+            builder.add("bloom_filter_type", params.bloomFilterType.toString());
+
+        // Same for row_bloom_filter, only added when the table enables it
+        if (params.rowBloomFilter)
+            builder.add("row_bloom_filter", true);
+
+        // Same for durable_writes, only added when the table disables them
+        if (!params.durableWrites)
+            builder.add("durable_writes", false);
     }
 
     private static void addAlterTableToSchemaMutation(TableMetadata oldTable, TableMetadata newTable, Mutation.SimpleBuilder builder)
@@ -1050,6 +1069,18 @@ public final class SchemaKeyspace
         if (row.has("incremental_backups"))
             builder.incrementalBackups(row.getBoolean("incremental_backups"));
 
+        // bloom_filter_type column was introduced in 5.1
+        if (row.has("bloom_filter_type"))
+            builder.bloomFilterType(BloomFilterType.fromString(row.getString("bloom_filter_type")));
+
+        // row_bloom_filter column was introduced in 5.1
+        if (row.has("row_bloom_filter"))
+            builder.rowBloomFilter(row.getBoolean("row_bloom_filter"));
+
+        // durable_writes column was introduced in 5.1
+        if (row.has("durable_writes"))
+            builder.durableWrites(row.getBoolean("durable_writes"));
+
         return builder.build();
     }
 
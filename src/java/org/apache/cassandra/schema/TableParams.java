@@ -38,6 +38,7 @@ import org.apache.cassandra.service.reads.PercentileSpeculativeRetryPolicy;
 import org.apache.cassandra.service.reads.SpeculativeRetryPolicy;
 import org.apache.cassandra.service.reads.repair.ReadRepairStrategy;
 import org.apache.cassandra.utils.BloomCalculations;
+import org.apache.cassandra.utils.BloomFilterType;
 import org.apache.cassandra.utils.ByteBufferUtil;
 
 import static java.lang.String.format;
@@ -52,6 +53,7 @@ public final class TableParams
     {
         ALLOW_AUTO_SNAPSHOT,
         BLOOM_FILTER_FP_CHANCE,
+        BLOOM_FILTER_TYPE,
         CACHING,
         COMMENT,
         COMPACTION,
@@ -68,7 +70,9 @@ public final class TableParams
         ADDITIONAL_WRITE_POLICY,
         CRC_CHECK_CHANCE,
         CDC,
-        READ_REPAIR;
+        READ_REPAIR,
+        ROW_BLOOM_FILTER,
+        DURABLE_WRITES;
 
         @Override
         public String toString()
@@ -80,6 +84,8 @@ public final class TableParams
     public final String comment;
     public final boolean allowAutoSnapshot;
     public final double bloomFilterFpChance;
+    public final BloomFilterType bloomFilterType;
+    public final boolean rowBloomFilter;
     public final double crcCheckChance;
     public final int gcGraceSeconds;
     public final boolean incrementalBackups;
@@ -96,6 +102,7 @@ public final class TableParams
     public final ImmutableMap<String, ByteBuffer> extensions;
     public final boolean cdc;
     public final ReadRepairStrategy readRepair;
+    public final boolean durableWrites;
 
     private TableParams(Builder builder)
     {
@@ -104,6 +111,8 @@ public final class TableParams
         bloomFilterFpChance = builder.bloomFilterFpChance == -1
                             ? builder.compaction.defaultBloomFilterFbChance()
                             : builder.bloomFilterFpChance;
+        bloomFilterType = builder.bloomFilterType;
+        rowBloomFilter = builder.rowBloomFilter;
         crcCheckChance = builder.crcCheckChance;
         gcGraceSeconds = builder.gcGraceSeconds;
         incrementalBackups = builder.incrementalBackups;
@@ -120,6 +129,7 @@ public final class TableParams
         extensions = builder.extensions;
         cdc = builder.cdc;
         readRepair = builder.readRepair;
+        durableWrites = builder.durableWrites;
     }
 
     public static Builder builder()
@@ -131,6 +141,8 @@ public final class TableParams
     {
         return new Builder().allowAutoSnapshot(params.allowAutoSnapshot)
                             .bloomFilterFpChance(params.bloomFilterFpChance)
+                            .bloomFilterType(params.bloomFilterType)
+                            .rowBloomFilter(params.rowBloomFilter)
                             .caching(params.caching)
                             .comment(params.comment)
                             .compaction(params.compaction)
@@ -147,7 +159,8 @@ public final class TableParams
                             .additionalWritePolicy(params.additionalWritePolicy)
                             .extensions(params.extensions)
                             .cdc(params.cdc)
-                            .readRepair(params.readRepair);
+                            .readRepair(params.readRepair)
+                            .durableWrites(params.durableWrites);
     }
 
     public Builder unbuild()
@@ -202,6 +215,9 @@ public final class TableParams
 
         if (cdc && memtable.factory().writesShouldSkipCommitLog())
             fail("CDC cannot work if writes skip the commit log. Check your memtable configuration.");
+
+        if (cdc && !durableWrites)
+            fail("CDC cannot work if writes skip the commit log. %s cannot be disabled on a CDC table.", DURABLE_WRITES);
     }
 
     private static void fail(String format, Object... args)
@@ -224,6 +240,8 @@ public final class TableParams
             && additionalWritePolicy.equals(p.additionalWritePolicy)
             && allowAutoSnapshot == p.allowAutoSnapshot
             && bloomFilterFpChance == p.bloomFilterFpChance
+            && bloomFilterType == p.bloomFilterType
+            && rowBloomFilter == p.rowBloomFilter
             && crcCheckChance == p.crcCheckChance
             && gcGraceSeconds == p.gcGraceSeconds 
             && incrementalBackups == p.incrementalBackups
@@ -238,7 +256,8 @@ public final class TableParams
             && memtable.equals(p.memtable)
             && extensions.equals(p.extensions)
             && cdc == p.cdc
-            && readRepair == p.readRepair;
+            && readRepair == p.readRepair
+            && durableWrites == p.durableWrites;
     }
 
     @Override
@@ -248,6 +267,8 @@ public final class TableParams
                                 additionalWritePolicy,
                                 allowAutoSnapshot,
                                 bloomFilterFpChance,
+                                bloomFilterType,
+                                rowBloomFilter,
                                 crcCheckChance,
                                 gcGraceSeconds,
                                 incrementalBackups,
@@ -262,7 +283,8 @@ public final class TableParams
                                 memtable,
                                 extensions,
                                 cdc,
-                                readRepair);
+                                readRepair,
+                                durableWrites);
     }
 
     @Override
@@ -273,6 +295,8 @@ public final class TableParams
                           .add(ADDITIONAL_WRITE_POLICY.toString(), additionalWritePolicy)
                           .add(ALLOW_AUTO_SNAPSHOT.toString(), allowAutoSnapshot)
                           .add(BLOOM_FILTER_FP_CHANCE.toString(), bloomFilterFpChance)
+                          .add(BLOOM_FILTER_TYPE.toString(), bloomFilterType)
+                          .add(ROW_BLOOM_FILTER.toString(), rowBloomFilter)
                           .add(CRC_CHECK_CHANCE.toString(), crcCheckChance)
                           .add(GC_GRACE_SECONDS.toString(), gcGraceSeconds)
                           .add(DEFAULT_TIME_TO_LIVE.toString(), defaultTimeToLive)
@@ -288,6 +312,7 @@ public final class TableParams
                           .add(EXTENSIONS.toString(), extensions)
                           .add(CDC.toString(), cdc)
                           .add(READ_REPAIR.toString(), readRepair)
+                          .add(DURABLE_WRITES.toString(), durableWrites)
                           .toString();
     }
 
@@ -299,8 +324,16 @@ public final class TableParams
                .append("AND allow_auto_snapshot = ").append(allowAutoSnapshot)
                .newLine()
                .append("AND bloom_filter_fp_chance = ").append(bloomFilterFpChance)
-               .newLine()
-               .append("AND caching = ").append(caching.asMap())
+               .newLine();
+
+        // only shown when set, so that the output can be used on nodes not supporting the option
+        if (bloomFilterType != BloomFilterType.STANDARD)
+        {
+            builder.append("AND bloom_filter_type = ").appendWithSingleQuotes(bloomFilterType.toString())
+                   .newLine();
+        }
+
+        builder.append("AND caching = ").append(caching.asMap())
                .newLine()
                .append("AND cdc = ").append(cdc)
                .newLine()
@@ -321,6 +354,13 @@ public final class TableParams
                    .newLine();
         }
 
+        // as for bloom_filter_type, only shown when set
+        if (!durableWrites)
+        {
+            builder.append("AND durable_writes = false")
+                   .newLine();
+        }
+
         builder.append("AND extensions = ").append(extensions.entrySet()
                                                              .stream()
                                                              .collect(toMap(Entry::getKey,
@@ -338,8 +378,16 @@ public final class TableParams
                .append("AND min_index_interval = ").append(minIndexInterval)
                .newLine()
                .append("AND read_repair = ").appendWithSingleQuotes(readRepair.toString())
-               .newLine()
-               .append("AND speculative_retry = ").appendWithSingleQuotes(speculativeRetry.toString());
+               .newLine();
+
+        // as for bloom_filter_type, only shown when set
+        if (rowBloomFilter)
+        {
+            builder.append("AND row_bloom_filter = true")
+                   .newLine();
+        }
+
+        builder.append("AND speculative_retry = ").appendWithSingleQuotes(speculativeRetry.toString());
     }
 
     public static final class Builder
@@ -347,6 +395,8 @@ public final class TableParams
         private String comment = "";
         private boolean allowAutoSnapshot = true;
         private double bloomFilterFpChance = -1;
+        private BloomFilterType bloomFilterType = BloomFilterType.STANDARD;
+        private boolean rowBloomFilter = false;
         private double crcCheckChance = 1.0;
         private int gcGraceSeconds = 864000; // 10 days
         private boolean incrementalBackups = true;
@@ -363,6 +413,7 @@ public final class TableParams
         private ImmutableMap<String, ByteBuffer> extensions = ImmutableMap.of();
         private boolean cdc;
         private ReadRepairStrategy readRepair = ReadRepairStrategy.BLOCKING;
+        private boolean durableWrites = true;
 
         public Builder()
         {
@@ -391,6 +442,24 @@ public final class TableParams
             return this;
         }
 
+        public Builder bloomFilterType(BloomFilterType val)
+        {
+            bloomFilterType = val;
+            return this;
+        }
+
+        public Builder rowBloomFilter(boolean val)
+        {
+            rowBloomFilter = val;
+            return this;
+        }
+
+        public Builder durableWrites(boolean val)
+        {
+            durableWrites = val;
+            return this;
+        }
+
         public Builder crcCheckChance(double val)
         {
             crcCheckChance = val;
@@ -510,6 +579,12 @@ public final class TableParams
             serializeMapBB(t.extensions, out);
             out.writeBoolean(t.cdc);
             out.writeUTF(t.readRepair.name());
+            if (version.isAtLeast(Version.V3))
+            {
+                out.writeUTF(t.bloomFilterType.name());
+                out.writeBoolean(t.rowBloomFilter);
+                out.writeBoolean(t.durableWrites);
+            }
         }
 
         public TableParams deserialize(DataInputPlus in, Version version) throws IOException
@@ -532,6 +607,12 @@ public final class TableParams
                    .extensions(deserializeMapBB(in))
                    .cdc(in.readBoolean())
                    .readRepair(ReadRepairStrategy.fromString(in.readUTF()));
+            if (version.isAtLeast(Version.V3))
+            {
+                builder.bloomFilterType(BloomFilterType.fromString(in.readUTF()))
+                       .rowBloomFilter(in.readBoolean())
+                       .durableWrites(in.readBoolean());
+            }
             return builder.build();
         }
 
@@ -553,7 +634,8 @@ public final class TableParams
                    serializedSizeMap(t.compression.asMap()) +
                    serializedSizeMapBB(t.extensions) +
                    sizeof(t.cdc) +
-                   sizeof(t.readRepair.name());
+                   sizeof(t.readRepair.name()) +
+                   (version.isAtLeast(Version.V3) ? sizeof(t.bloomFilterType.name()) + sizeof(t.rowBloomFilter) + sizeof(t.durableWrites) : 0);
         }
 
         private void serializeMap(Map<String, String> map, DataOutputPlus out) throws IOException
@@ -55,6 +55,7 @@ import org.apache.cassandra.db.SizeEstimatesRecorder;
 import org.apache.cassandra.db.SystemKeyspace;
 import org.apache.cassandra.db.SystemKeyspaceMigrator41;
 import org.apache.cassandra.db.commitlog.CommitLog;
+import org.apache.cassandra.db.compaction.CompactionThroughputController;
 import org.apache.cassandra.db.virtual.SystemViewsKeyspace;
 import org.apache.cassandra.db.virtual.VirtualKeyspace;
 import org.apache.cassandra.db.virtual.VirtualKeyspaceRegistry;
@@ -409,6 +410,12 @@ public class CassandraDaemon
                                                                 DatabaseDescriptor.getReadRpcTimeout(NANOSECONDS),
                                                                 NANOSECONDS);
 
+        // schedule periodic adjustments of the compaction throughput, if adaptive
+        ScheduledExecutors.optionalTasks.scheduleWithFixedDelay(CompactionThroughputController.instance::update,
+                                                                CompactionThroughputController.UPDATE_INTERVAL_SECONDS,
+                                                                CompactionThroughputController.UPDATE_INTERVAL_SECONDS,
+                                                                TimeUnit.SECONDS);
+
         initializeClientTransports();
 
         // Ensure you've registered all caches during startup you want pre-warmed before this call -> be wary of adding
@@ -0,0 +1,59 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.service;
+
+import java.util.List;
+
+import org.apache.cassandra.exceptions.RequestFailureReason;
+import org.apache.cassandra.locator.InetAddressAndPort;
+import org.apache.cassandra.net.Message;
+
+import static org.apache.cassandra.utils.Clock.Global.nanoTime;
+
+/**
+ * Passes the responses to a write on to the handlers of the several writes it was made for: the counter mutations
+ * coalesced by the counter leader are replicated once, as a single mutation, see
+ * {@link org.apache.cassandra.db.CounterMutation#applyCounterMutation(Object, java.util.function.BiConsumer)}.
+ */
+public class CoalescedWriteResponseHandler<T> extends AbstractWriteResponseHandler<T>
+{
+    private final List<AbstractWriteResponseHandler<T>> handlers;
+
+    public CoalescedWriteResponseHandler(List<AbstractWriteResponseHandler<T>> handlers)
+    {
+        super(handlers.get(0).replicaPlan, null, handlers.get(0).writeType, null, nanoTime());
+        this.handlers = handlers;
+    }
+
+    protected int ackCount()
+    {
+        return handlers.get(0).ackCount();
+    }
+
+    public void onResponse(Message<T> msg)
+    {
+        for (AbstractWriteResponseHandler<T> handler : handlers)
+            handler.onResponse(msg);
+    }
+
+    public void onFailure(InetAddressAndPort from, RequestFailureReason failureReason)
+    {
+        for (AbstractWriteResponseHandler<T> handler : handlers)
+            handler.onFailure(from, failureReason);
+    }
+}
@@ -1772,9 +1772,15 @@ public class StorageProxy implements StorageProxyMBean
             {
                 assert mutation instanceof CounterMutation;
 
-                Mutation result = ((CounterMutation) mutation).applyCounterMutation();
+                // the counter mutations coalesced together are replicated once for all of them, by the leader of the
+                // group; they all have the same replicas, being writes of the same partition
+                ((CounterMutation) mutation).applyCounterMutation(responseHandler, (result, handlers) -> {
+                    AbstractWriteResponseHandler<IMutation> handler = handlers.size() == 1
+                                                                     ? handlers.get(0)
+                                                                     : new CoalescedWriteResponseHandler<>(handlers);
+                    sendToHintedReplicas(result, replicaPlan, handler, localDataCenter, Stage.COUNTER_MUTATION);
+                });
                 responseHandler.onResponse(null);
-                sendToHintedReplicas(result, replicaPlan, responseHandler, localDataCenter, Stage.COUNTER_MUTATION);
             }
         };
     }
@@ -135,6 +135,7 @@ import org.apache.cassandra.io.sstable.IScrubber;
 import org.apache.cassandra.io.sstable.IVerifier;
 import org.apache.cassandra.io.sstable.SSTableLoader;
 import org.apache.cassandra.io.sstable.format.Version;
+import org.apache.cassandra.io.util.AsyncChunkReader;
 import org.apache.cassandra.io.util.File;
 import org.apache.cassandra.io.util.FileUtils;
 import org.apache.cassandra.io.util.PathUtils;
@@ -3983,6 +3984,18 @@ public class StorageService extends NotificationBroadcasterSupport implements IE
             // wait for miscellaneous tasks like sstable and commitlog segment deletion
             ColumnFamilyStore.shutdownPostFlushExecutor();
 
+            if (AsyncChunkReader.instance != null)
+            {
+                try
+                {
+                    AsyncChunkReader.instance.shutdownAndWait(1L, MINUTES);
+                }
+                catch (TimeoutException t)
+                {
+                    logger.error("Asynchronous chunk reader timed out shutting down", t);
+                }
+            }
+
             try
             {
                 // we are not shutting down ScheduledExecutors#scheduledFastTasks to be still able to progress time
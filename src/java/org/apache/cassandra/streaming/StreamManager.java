@@ -42,6 +42,7 @@ import org.slf4j.LoggerFactory;
 
 import org.apache.cassandra.config.DatabaseDescriptor;
 import org.apache.cassandra.config.DurationSpec;
+import org.apache.cassandra.db.compaction.CompactionThroughputController;
 import org.apache.cassandra.locator.InetAddressAndPort;
 import org.apache.cassandra.streaming.management.StreamEventJMXNotifier;
 import org.apache.cassandra.streaming.management.StreamStateCompositeData;
@@ -209,7 +210,7 @@ public class StreamManager implements StreamManagerMBean
         {
             // if throughput is set to 0, throttling is disabled
             return throughput > 0
-                   ? throughput
+                   ? throughput * CompactionThroughputController.instance.getStreamingThroughputRatio()
                    : Double.MAX_VALUE;
         }
     }
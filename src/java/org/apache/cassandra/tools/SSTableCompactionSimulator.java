@@ -0,0 +1,331 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.cassandra.tools;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.CommandLineParser;
+import org.apache.commons.cli.HelpFormatter;
+import org.apache.commons.cli.Option;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+import org.apache.commons.cli.PosixParser;
+import org.apache.commons.lang3.math.NumberUtils;
+
+import org.apache.cassandra.config.DataStorageSpec;
+import org.apache.cassandra.config.DatabaseDescriptor;
+import org.apache.cassandra.db.DecoratedKey;
+import org.apache.cassandra.db.compaction.CompactionSimulation;
+import org.apache.cassandra.db.compaction.CompactionSimulation.Result;
+import org.apache.cassandra.db.compaction.CompactionSimulation.SSTable;
+import org.apache.cassandra.db.compaction.CompactionSimulation.Strategy;
+import org.apache.cassandra.db.compaction.CompactionSimulation.Workload;
+import org.apache.cassandra.dht.IPartitioner;
+import org.apache.cassandra.dht.Token;
+import org.apache.cassandra.exceptions.ConfigurationException;
+import org.apache.cassandra.io.sstable.Component;
+import org.apache.cassandra.io.sstable.Descriptor;
+import org.apache.cassandra.io.sstable.format.SSTableFormat.Components;
+import org.apache.cassandra.io.sstable.format.StatsComponent;
+import org.apache.cassandra.io.sstable.metadata.StatsMetadata;
+import org.apache.cassandra.io.util.File;
+import org.apache.cassandra.utils.FBUtilities;
+import org.apache.cassandra.utils.Pair;
+
+/**
+ * Estimates the write amplification, space amplification and number of sstables per read of compaction strategies
+ * for a table, simulating them from the metadata of its current sstables over a synthetic write stream.
+ *
+ * @see CompactionSimulation for the model and its approximations
+ */
+public class SSTableCompactionSimulator
+{
+    private static final String STRATEGY_OPTION = "s";
+    private static final String COMPACTION_OPTION = "o";
+    private static final String FLUSHES_OPTION = "n";
+    private static final String FLUSH_SIZE_OPTION = "f";
+    private static final String FLUSH_INTERVAL_OPTION = "i";
+    private static final String DATASET_SIZE_OPTION = "d";
+
+    private static final int DEFAULT_FLUSHES = 1000;
+    private static final String DEFAULT_FLUSH_SIZE = "64MiB";
+    private static final long DEFAULT_FLUSH_INTERVAL_SECONDS = 60;
+
+    private static final Options options = new Options();
+
+    static
+    {
+        DatabaseDescriptor.clientInitialization();
+
+        // -s and -o can be repeated, but take a single value each so that they are not confused with the sstables
+        options.addOption(new Option(STRATEGY_OPTION, "strategy", true,
+                                     "compaction strategy to simulate, by short (STCS, LCS, TWCS, UCS) or class name " +
+                                     "(default: all of them)"));
+        options.addOption(new Option(COMPACTION_OPTION, "option", true,
+                                     "compaction option of the form key=value, as in the compaction parameters of " +
+                                     "the table, passed to all the strategies"));
+
+        options.addOption(new Option(FLUSHES_OPTION, "flushes", true,
+                                     "number of flushes of the write stream (default: " + DEFAULT_FLUSHES + ')'));
+        options.addOption(new Option(FLUSH_SIZE_OPTION, "flush-size", true,
+                                     "size of each flush, expressed as either the number of bytes or a size with unit " +
+                                     "of the form 10KiB, 20MiB, 30GiB, etc. (default: " + DEFAULT_FLUSH_SIZE + ')'));
+        options.addOption(new Option(FLUSH_INTERVAL_OPTION, "flush-interval", true,
+                                     "seconds between flushes (default: " + DEFAULT_FLUSH_INTERVAL_SECONDS + ')'));
+        options.addOption(new Option(DATASET_SIZE_OPTION, "dataset-size", true,
+                                     "size of the distinct data the writes overwrite, in bytes or with a unit; " +
+                                     "if not given, all writes are inserts of new data"));
+    }
+
+    /**
+     * Given arguments specifying a list of SSTables or directories, print the simulated cost of compaction strategies.
+     *
+     * @param args command lines arguments
+     * @throws ConfigurationException on configuration failure (wrong params given)
+     */
+    public static void main(String[] args) throws ConfigurationException, IOException
+    {
+        CommandLineParser parser = new PosixParser();
+        CommandLine cmd;
+        try
+        {
+            cmd = parser.parse(options, args);
+        }
+        catch (ParseException e)
+        {
+            System.err.println(e.getMessage());
+            printUsage();
+            System.exit(1);
+            return;
+        }
+
+        if (cmd.getArgs().length == 0)
+        {
+            System.err.println("You must supply at least one sstable or directory");
+            printUsage();
+            System.exit(1);
+        }
+
+        System.exit(processArguments(cmd));
+    }
+
+    private static void printUsage()
+    {
+        String usage = String.format("sstablecompactionsim <options> <sstable files or directories>%n");
+        String header = "Simulate compaction strategies over the sstables of a table and a synthetic write stream, " +
+                        "and print their estimated write amplification, space amplification and sstables per read.";
+        new HelpFormatter().printHelp(usage, header, options, "");
+    }
+
+    private static int processArguments(CommandLine cmd) throws IOException
+    {
+        Set<Strategy> strategies = new LinkedHashSet<>();
+        Map<String, String> compactionOptions = new HashMap<>();
+        Workload workload;
+        try
+        {
+            if (cmd.hasOption(STRATEGY_OPTION))
+            {
+                for (String strategy : cmd.getOptionValues(STRATEGY_OPTION))
+                    strategies.add(Strategy.fromString(strategy));
+            }
+            else
+            {
+                strategies.addAll(Arrays.asList(Strategy.values()));
+            }
+
+            if (cmd.hasOption(COMPACTION_OPTION))
+            {
+                for (String option : cmd.getOptionValues(COMPACTION_OPTION))
+                {
+                    int separator = option.indexOf('=');
+                    if (separator <= 0)
+                        throw new IllegalArgumentException("Invalid compaction option " + option + ", expected key=value");
+                    compactionOptions.put(option.substring(0, separator).trim(), option.substring(separator + 1).trim());
+                }
+            }
+
+            int flushes = Integer.parseInt(cmd.getOptionValue(FLUSHES_OPTION, Integer.toString(DEFAULT_FLUSHES)));
+            long flushSize = parseSize(cmd.getOptionValue(FLUSH_SIZE_OPTION, DEFAULT_FLUSH_SIZE));
+            long flushInterval = Long.parseLong(cmd.getOptionValue(FLUSH_INTERVAL_OPTION, Long.toString(DEFAULT_FLUSH_INTERVAL_SECONDS)));
+            long datasetSize = cmd.hasOption(DATASET_SIZE_OPTION) ? parseSize(cmd.getOptionValue(DATASET_SIZE_OPTION)) : 0;
+            if (flushes <= 0 || flushSize <= 0 || flushInterval <= 0 || datasetSize < 0)
+                throw new IllegalArgumentException("The number and the size of the flushes and the interval between them must be positive");
+
+            workload = new Workload(flushes, flushSize, flushInterval * 1000, datasetSize);
+        }
+        catch (IllegalArgumentException e) // also NumberFormatException
+        {
+            System.err.println(e.getMessage());
+            return 1;
+        }
+
+        List<SSTable> sstables = new ArrayList<>();
+        for (String arg : cmd.getArgs())
+        {
+            File file = new File(arg);
+            if (!file.exists())
+            {
+                System.err.println("Skipping non-existing file " + arg);
+                continue;
+            }
+
+            if (file.isDirectory())
+            {
+                File[] files = file.tryList();
+                if (files == null)
+                    continue;
+                for (File child : files)
+                {
+                    Descriptor descriptor = dataDescriptor(child);
+                    if (descriptor != null)
+                        sstables.add(load(descriptor));
+                }
+            }
+            else
+            {
+                Descriptor descriptor = dataDescriptor(file);
+                if (descriptor == null)
+                {
+                    System.err.println("Skipping file that is not an sstable data component " + arg);
+                    continue;
+                }
+                sstables.add(load(descriptor));
+            }
+        }
+
+        PrintStream out = System.out;
+        out.printf("Simulating %d flushes of %s every %ds over %d sstables of %s%s%n",
+                   workload.flushes,
+                   FBUtilities.prettyPrintMemory(workload.flushSize),
+                   workload.flushIntervalMillis / 1000,
+                   sstables.size(),
+                   FBUtilities.prettyPrintMemory((long) sstables.stream().mapToDouble(s -> s.size).sum()),
+                   workload.datasetSize > 0 ? " overwriting " + FBUtilities.prettyPrintMemory((long) workload.datasetSize) + " of data" : "");
+        if (!compactionOptions.isEmpty())
+            out.printf("Compaction options: %s%n", compactionOptions);
+        out.println();
+
+        String format = "%-10s%16s%16s%16s%20s%20s%12s%14s%n";
+        out.printf(format, "Strategy", "Write amp.", "Space amp.", "Max space amp.", "SSTables per read", "Max per read",
+                   "SSTables", "Live size");
+        for (Strategy strategy : strategies)
+        {
+            Result result;
+            try
+            {
+                result = CompactionSimulation.simulate(strategy, compactionOptions, sstables, workload);
+            }
+            catch (ConfigurationException | IllegalArgumentException e)
+            {
+                System.err.printf("Invalid options for %s: %s%n", strategy, e.getMessage());
+                return 1;
+            }
+            out.printf(format,
+                       strategy,
+                       String.format("%.2f", result.writeAmplification),
+                       String.format("%.2f", result.meanSpaceAmplification),
+                       String.format("%.2f", result.maxSpaceAmplification),
+                       String.format("%.2f", result.meanSSTablesPerRead),
+                       Integer.toString(result.maxSSTablesPerRead),
+                       Integer.toString(result.sstables),
+                       FBUtilities.prettyPrintMemory((long) result.liveSize));
+        }
+        return 0;
+    }
+
+    private static long parseSize(String size)
+    {
+        return NumberUtils.isParsable(size) ? Long.parseLong(size) : new DataStorageSpec.LongBytesBound(size).toBytes();
+    }
+
+    private static Descriptor dataDescriptor(File file)
+    {
+        try
+        {
+            Pair<Descriptor, Component> pair = Descriptor.fromFileWithComponent(file, false);
+            return pair.right.type == Components.Types.DATA ? pair.left : null;
+        }
+        catch (IllegalArgumentException e)
+        {
+            // not an sstable component
+            return null;
+        }
+    }
+
+    /**
+     * Describes an sstable by its statistics, assuming it covers the whole ring if its key range is not available.
+     */
+    private static SSTable load(Descriptor descriptor) throws IOException
+    {
+        StatsMetadata stats = StatsComponent.load(descriptor).statsMetadata();
+        IPartitioner partitioner = FBUtilities.newPartitioner(descriptor);
+
+        Token firstToken = null, lastToken = null;
+        if (descriptor.version.hasKeyRange())
+        {
+            if (stats.firstKey != null && stats.lastKey != null)
+            {
+                firstToken = partitioner.getToken(stats.firstKey);
+                lastToken = partitioner.getToken(stats.lastKey);
+            }
+        }
+        else
+        {
+            Pair<DecoratedKey, DecoratedKey> firstLast = descriptor.getFormat().getReaderFactory().readKeyRange(descriptor, partitioner);
+            if (firstLast != null)
+            {
+                firstToken = firstLast.left.getToken();
+                lastToken = firstLast.right.getToken();
+            }
+        }
+
+        double first = 0, last = 1;
+        if (firstToken != null)
+        {
+            try
+            {
+                first = ringFraction(partitioner, firstToken);
+                last = Math.max(first, ringFraction(partitioner, lastToken));
+            }
+            catch (UnsupportedOperationException e)
+            {
+                // partitioners that cannot measure the ring, the sstable is taken to cover all of it
+            }
+        }
+
+        long size = descriptor.fileFor(Components.DATA).length();
+        return new SSTable(first, last, size, stats.minTimestamp, stats.maxTimestamp, stats.sstableLevel);
+    }
+
+    private static double ringFraction(IPartitioner partitioner, Token token)
+    {
+        Token minimum = partitioner.getMinimumToken();
+        return token.equals(minimum) ? 0 : Math.min(1, minimum.size(token));
+    }
+}
@@ -0,0 +1,263 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.utils;
+
+import java.io.IOException;
+
+import io.netty.util.concurrent.FastThreadLocal;
+import org.apache.cassandra.db.TypeSizes;
+import org.apache.cassandra.io.util.DataInputPlus.DataInputStreamPlus;
+import org.apache.cassandra.io.util.DataOutputStreamPlus;
+import org.apache.cassandra.utils.concurrent.Ref;
+import org.apache.cassandra.utils.concurrent.WrappedSharedCloseable;
+import org.apache.cassandra.utils.obs.IBitSet;
+import org.apache.cassandra.utils.obs.OffHeapBitSet;
+
+/**
+ * A split block Bloom filter: the bitset is divided in blocks of 256 bits, a key selects a single block with one
+ * half of its hash, and sets one bit in each of the eight 32-bit words of that block using the other half.
+ * <p>
+ * A lookup thus touches a single 32-byte block, i.e. one cache line, instead of one random location per hash function
+ * as with {@link BloomFilter}, which makes negative lookups on large filters considerably cheaper. The price is a
+ * higher false positive rate for the same size, which is compensated for when sizing the filter, see
+ * {@link #bitsPerElement}.
+ * <p>
+ * The serialized form starts with a header that deserializes as an empty {@link BloomFilter} with no hash functions,
+ * so that it is recognized by {@link FilterFactory#deserialize} and reads as a filter letting all keys through
+ * when it cannot be interpreted.
+ */
+public class BlockedBloomFilter extends WrappedSharedCloseable implements IFilter
+{
+    static final int BITS_PER_BLOCK = 256;
+    private static final int BITS_PER_WORD = 32;
+    private static final byte FORMAT_BLOCKS_256 = 1;
+
+    // Max bits per element used when sizing: beyond this, lowering the false positive chance costs a lot of memory
+    // for very little benefit.
+    private static final double MAX_BITS_PER_ELEMENT = 64;
+
+    // Fraction of the requested false positive chance the filter is sized for: the actual rate of a filter varies
+    // around the expected one depending on how its keys fall in blocks, and must stay below the requested one.
+    private static final double FP_CHANCE_MARGIN = 0.9;
+
+    // Odd constants used to derive the bit set in each word from the key hash, as in the Parquet specification.
+    private static final int[] SALT = { 0x47b6137b, 0x44974d91, 0x8824ad5b, 0xa2b7289d,
+                                        0x705495c7, 0x2df1424b, 0x9efc4947, 0x5c6bfb31 };
+
+    private final static FastThreadLocal<long[]> reusableHash = new FastThreadLocal<long[]>()
+    {
+        @Override
+        protected long[] initialValue()
+        {
+            return new long[2];
+        }
+    };
+
+    public final IBitSet bitset;
+    private final long blockCount;
+
+    BlockedBloomFilter(IBitSet bitset)
+    {
+        super(bitset);
+        assert bitset.capacity() % BITS_PER_BLOCK == 0 : bitset.capacity();
+        this.bitset = bitset;
+        this.blockCount = bitset.capacity() / BITS_PER_BLOCK;
+    }
+
+    private BlockedBloomFilter(BlockedBloomFilter copy)
+    {
+        super(copy);
+        this.bitset = copy.bitset;
+        this.blockCount = copy.blockCount;
+    }
+
+    /**
+     * @return an empty filter providing the given false positive chance for the given number of elements
+     */
+    static BlockedBloomFilter create(long numElements, double fpChance)
+    {
+        long numBits = (long) Math.ceil(Math.max(1, numElements) * bitsPerElement(fpChance));
+        long numBlocks = Math.max(1, (numBits + BITS_PER_BLOCK - 1) / BITS_PER_BLOCK);
+        return new BlockedBloomFilter(new OffHeapBitSet(numBlocks * BITS_PER_BLOCK));
+    }
+
+    /**
+     * The number of bits per element for which the false positive chance of the filter is at most the given one,
+     * with some margin, found by bisection on {@link #falsePositiveChance}.
+     * <p>
+     * The classic Bloom filter formula does not apply: keys are not spread evenly over the bitset but over blocks,
+     * some of which get many more keys than the average, and their false positive rate dominates.
+     */
+    static double bitsPerElement(double fpChance)
+    {
+        fpChance *= FP_CHANCE_MARGIN;
+        if (falsePositiveChance(MAX_BITS_PER_ELEMENT) > fpChance)
+            return MAX_BITS_PER_ELEMENT;
+
+        double low = 1, high = MAX_BITS_PER_ELEMENT;
+        while (high - low > 0.01)
+        {
+            double middle = (low + high) / 2;
+            if (falsePositiveChance(middle) > fpChance)
+                low = middle;
+            else
+                high = middle;
+        }
+        return high;
+    }
+
+    /**
+     * The false positive chance of the filter with the given number of bits per element. The number of keys in the
+     * block of a looked up key follows a Poisson distribution of mean {@code 256 / bitsPerElement}, and a block with
+     * {@code i} keys answers positively if each of its eight words has the bit of the key set, which happens with
+     * probability {@code (1 - (31/32)^i)^8}.
+     */
+    static double falsePositiveChance(double bitsPerElement)
+    {
+        double keysPerBlock = BITS_PER_BLOCK / bitsPerElement;
+        double keysProbability = Math.exp(-keysPerBlock);
+        double chance = 0;
+        // the terms are negligible past a few standard deviations above the mean
+        long maxKeys = (long) Math.ceil(keysPerBlock + 10 * Math.sqrt(keysPerBlock) + 10);
+        for (long keys = 0; keys <= maxKeys; keys++)
+        {
+            double wordMissesKey = Math.pow(1 - 1.0 / BITS_PER_WORD, keys);
+            chance += keysProbability * Math.pow(1 - wordMissesKey, SALT.length);
+            keysProbability *= keysPerBlock / (keys + 1);
+        }
+        return chance;
+    }
+
+    private long[] hash(FilterKey key)
+    {
+        long[] hash = reusableHash.get();
+        key.filterHash(hash);
+        return hash;
+    }
+
+    private long blockOffset(long[] hash)
+    {
+        return Long.remainderUnsigned(hash[0], blockCount) * BITS_PER_BLOCK;
+    }
+
+    private static long bitOffset(int word, int keyHash)
+    {
+        return word * BITS_PER_WORD + ((keyHash * SALT[word]) >>> 27);
+    }
+
+    @Override
+    public void add(FilterKey key)
+    {
+        long[] hash = hash(key);
+        long block = blockOffset(hash);
+        int keyHash = (int) hash[1];
+        for (int word = 0; word < SALT.length; word++)
+            bitset.set(block + bitOffset(word, keyHash));
+    }
+
+    @Override
+    public boolean isPresent(FilterKey key)
+    {
+        long[] hash = hash(key);
+        long block = blockOffset(hash);
+        int keyHash = (int) hash[1];
+        for (int word = 0; word < SALT.length; word++)
+        {
+            if (!bitset.get(block + bitOffset(word, keyHash)))
+                return false;
+        }
+        return true;
+    }
+
+    @Override
+    public void clear()
+    {
+        bitset.clear();
+    }
+
+    @Override
+    public long serializedSize(boolean oldSerializationFormat)
+    {
+        return TypeSizes.INT_SIZE                         // hash count of the placeholder
+               + TypeSizes.INT_SIZE + TypeSizes.LONG_SIZE // bitset of the placeholder
+               + TypeSizes.BYTE_SIZE                      // format
+               + bitset.serializedSize();
+    }
+
+    @Override
+    public void serialize(DataOutputStreamPlus out, boolean oldSerializationFormat) throws IOException
+    {
+        assert !oldSerializationFormat : "Filter should not be serialized in old format";
+        // an empty BloomFilter with no hash functions, which lets all keys through
+        out.writeInt(0);
+        out.writeInt(1);
+        out.writeLong(0);
+        out.writeByte(FORMAT_BLOCKS_256);
+        bitset.serialize(out);
+    }
+
+    /**
+     * Reads a filter serialized by {@link #serialize}, after its leading hash count has been read.
+     */
+    static BlockedBloomFilter deserialize(DataInputStreamPlus in) throws IOException
+    {
+        in.skipBytesFully(TypeSizes.INT_SIZE + TypeSizes.LONG_SIZE);
+        byte format = in.readByte();
+        if (format != FORMAT_BLOCKS_256)
+            throw new IOException("Unknown blocked Bloom filter format " + format);
+
+        OffHeapBitSet bitset = OffHeapBitSet.deserialize(in, false);
+        if (bitset.capacity() == 0 || bitset.capacity() % BITS_PER_BLOCK != 0)
+        {
+            bitset.close();
+            throw new IOException("Invalid blocked Bloom filter size " + bitset.capacity());
+        }
+        return new BlockedBloomFilter(bitset);
+    }
+
+    @Override
+    public BlockedBloomFilter sharedCopy()
+    {
+        return new BlockedBloomFilter(this);
+    }
+
+    @Override
+    public long offHeapSize()
+    {
+        return bitset.offHeapSize();
+    }
+
+    @Override
+    public boolean isInformative()
+    {
+        return bitset.offHeapSize() > 0;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "BlockedBloomFilter[blocks=" + blockCount + ']';
+    }
+
+    @Override
+    public void addTo(Ref.IdentityCollection identities)
+    {
+        super.addTo(identities);
+        bitset.addTo(identities);
+    }
+}
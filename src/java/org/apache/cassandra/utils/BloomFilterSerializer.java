@@ -72,7 +72,14 @@ public final class BloomFilterSerializer implements IGenericSerializer<BloomFilt
     @Override
     public BloomFilter deserialize(DataInputStreamPlus in) throws IOException
     {
-        int hashes = in.readInt();
+        return deserialize(in, in.readInt());
+    }
+
+    /**
+     * Reads the remainder of a Bloom filter whose hash count has already been read.
+     */
+    BloomFilter deserialize(DataInputStreamPlus in, int hashes) throws IOException
+    {
         IBitSet bs = OffHeapBitSet.deserialize(in, oldFormat);
 
         return new BloomFilter(hashes, bs);
@@ -0,0 +1,55 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.utils;
+
+import org.apache.cassandra.exceptions.ConfigurationException;
+
+/**
+ * The kind of partition key filter written for new sstables of a table. Filters of either kind can be read
+ * regardless of this setting.
+ */
+public enum BloomFilterType
+{
+    /**
+     * A classic Bloom filter, see {@link BloomFilter}.
+     */
+    STANDARD,
+
+    /**
+     * A split block Bloom filter, checking a key with a single memory access, see {@link BlockedBloomFilter}.
+     */
+    BLOCKED;
+
+    public static BloomFilterType fromString(String s)
+    {
+        try
+        {
+            return valueOf(s.toUpperCase());
+        }
+        catch (IllegalArgumentException e)
+        {
+            throw new ConfigurationException(String.format("Invalid bloom_filter_type '%s'; valid values are 'standard' and 'blocked'", s));
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return name().toLowerCase();
+    }
+}
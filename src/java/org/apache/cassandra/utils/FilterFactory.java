@@ -22,6 +22,7 @@ import java.io.IOException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import org.apache.cassandra.io.util.DataInputPlus.DataInputStreamPlus;
 import org.apache.cassandra.io.util.DataOutputStreamPlus;
 import org.apache.cassandra.utils.concurrent.Ref;
 import org.apache.cassandra.utils.obs.IBitSet;
@@ -67,6 +68,32 @@ public class FilterFactory
         return createFilter(spec.K, numElements, spec.bucketsPerElement);
     }
 
+    /**
+     * @return The smallest filter of the given type that can provide the given false
+     *         positive probability rate for the given number of elements.
+     */
+    public static IFilter getFilter(long numElements, double maxFalsePosProbability, BloomFilterType type)
+    {
+        if (type == BloomFilterType.STANDARD || maxFalsePosProbability == 1.0)
+            return getFilter(numElements, maxFalsePosProbability);
+
+        assert maxFalsePosProbability <= 1.0 : "Invalid probability";
+        return BlockedBloomFilter.create(numElements, maxFalsePosProbability);
+    }
+
+    /**
+     * Reads a filter of any type serialized with {@link IFilter#serialize}.
+     */
+    public static IFilter deserialize(DataInputStreamPlus in, boolean oldSerializationFormat) throws IOException
+    {
+        int hashCount = in.readInt();
+        // a Bloom filter always has at least one hash function, other types start with a placeholder that has none
+        if (hashCount == 0 && !oldSerializationFormat)
+            return BlockedBloomFilter.deserialize(in);
+
+        return BloomFilterSerializer.forVersion(oldSerializationFormat).deserialize(in, hashCount);
+    }
+
     private static IFilter createFilter(int hash, long numElements, int bucketsPer)
     {
         long numBits = (numElements * bucketsPer) + BITSET_EXCESS;
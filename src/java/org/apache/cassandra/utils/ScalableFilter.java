@@ -0,0 +1,216 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.utils;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.google.common.annotations.VisibleForTesting;
+
+import org.apache.cassandra.db.TypeSizes;
+import org.apache.cassandra.io.util.DataInputPlus.DataInputStreamPlus;
+import org.apache.cassandra.io.util.DataOutputStreamPlus;
+import org.apache.cassandra.utils.concurrent.Ref;
+
+import static org.apache.cassandra.utils.Throwables.maybeFail;
+
+/**
+ * A filter for a number of elements not known in advance: elements are added to a filter sized for a given
+ * capacity, and once it is full a new filter, {@link #GROWTH} times larger, is started. A key is present if it is
+ * present in any of the filters.
+ * <p>
+ * Each new filter is created with half the false positive chance of the previous one, so that the overall false
+ * positive chance stays below the requested one however many filters are created.
+ * <p>
+ * Elements can only be added by a single thread, and the filter must not be read concurrently with additions.
+ */
+public class ScalableFilter implements IFilter
+{
+    @VisibleForTesting
+    static final int GROWTH = 4;
+
+    private final List<IFilter> segments;
+    private final BloomFilterType type;
+
+    // capacity and false positive chance of the last segment
+    private long capacity;
+    private double fpChance;
+    // number of elements added to the last segment
+    private long count;
+
+    private ScalableFilter(List<IFilter> segments, BloomFilterType type, long capacity, double fpChance)
+    {
+        this.segments = segments;
+        this.type = type;
+        this.capacity = capacity;
+        this.fpChance = fpChance;
+    }
+
+    /**
+     * @return an empty filter with an overall false positive chance of at most {@code fpChance}, and whose first
+     * segment is sized for {@code initialCapacity} elements
+     */
+    public static ScalableFilter create(long initialCapacity, double fpChance, BloomFilterType type)
+    {
+        long capacity = Math.max(1, initialCapacity);
+        double segmentFpChance = fpChance / 2;
+        List<IFilter> segments = new ArrayList<>();
+        segments.add(FilterFactory.getFilter(capacity, segmentFpChance, type));
+        return new ScalableFilter(segments, type, capacity, segmentFpChance);
+    }
+
+    @Override
+    public void add(FilterKey key)
+    {
+        if (count >= capacity)
+        {
+            capacity *= GROWTH;
+            fpChance /= 2;
+            count = 0;
+            segments.add(FilterFactory.getFilter(capacity, fpChance, type));
+        }
+        segments.get(segments.size() - 1).add(key);
+        count++;
+    }
+
+    @Override
+    public boolean isPresent(FilterKey key)
+    {
+        for (int i = segments.size() - 1; i >= 0; i--)
+        {
+            if (segments.get(i).isPresent(key))
+                return true;
+        }
+        return false;
+    }
+
+    @Override
+    public void clear()
+    {
+        for (IFilter segment : segments)
+            segment.clear();
+    }
+
+    @VisibleForTesting
+    int segmentCount()
+    {
+        return segments.size();
+    }
+
+    @Override
+    public long serializedSize(boolean oldSerializationFormat)
+    {
+        long size = TypeSizes.INT_SIZE;
+        for (IFilter segment : segments)
+            size += segment.serializedSize(oldSerializationFormat);
+        return size;
+    }
+
+    @Override
+    public void serialize(DataOutputStreamPlus out, boolean oldSerializationFormat) throws IOException
+    {
+        out.writeInt(segments.size());
+        for (IFilter segment : segments)
+            segment.serialize(out, oldSerializationFormat);
+    }
+
+    /**
+     * Reads a filter serialized by {@link #serialize}. No element can be added to the returned filter.
+     */
+    public static ScalableFilter deserialize(DataInputStreamPlus in, boolean oldSerializationFormat) throws IOException
+    {
+        int count = in.readInt();
+        if (count <= 0)
+            throw new IOException("Invalid number of filter segments " + count);
+
+        List<IFilter> segments = new ArrayList<>(count);
+        try
+        {
+            for (int i = 0; i < count; i++)
+                segments.add(FilterFactory.deserialize(in, oldSerializationFormat));
+        }
+        catch (IOException | RuntimeException e)
+        {
+            maybeFail(close(segments, null));
+            throw e;
+        }
+        return new ScalableFilter(segments, null, 0, 0);
+    }
+
+    @Override
+    public ScalableFilter sharedCopy()
+    {
+        List<IFilter> copies = new ArrayList<>(segments.size());
+        for (IFilter segment : segments)
+            copies.add(segment.sharedCopy());
+        return new ScalableFilter(copies, type, capacity, fpChance);
+    }
+
+    @Override
+    public long offHeapSize()
+    {
+        long size = 0;
+        for (IFilter segment : segments)
+            size += segment.offHeapSize();
+        return size;
+    }
+
+    @Override
+    public boolean isInformative()
+    {
+        for (IFilter segment : segments)
+        {
+            if (!segment.isInformative())
+                return false;
+        }
+        return true;
+    }
+
+    @Override
+    public void close()
+    {
+        maybeFail(close(null));
+    }
+
+    @Override
+    public Throwable close(Throwable accumulate)
+    {
+        return close(segments, accumulate);
+    }
+
+    private static Throwable close(List<IFilter> segments, Throwable accumulate)
+    {
+        for (IFilter segment : segments)
+            accumulate = segment.close(accumulate);
+        return accumulate;
+    }
+
+    @Override
+    public void addTo(Ref.IdentityCollection identities)
+    {
+        for (IFilter segment : segments)
+            segment.addTo(identities);
+    }
+
+    @Override
+    public String toString()
+    {
+        return "ScalableFilter" + segments;
+    }
+}
@@ -22,6 +22,8 @@ package org.apache.cassandra.utils.memory;
 
 import java.util.Iterator;
 
+import com.google.common.collect.Iterators;
+
 import org.apache.cassandra.db.BufferDecoratedKey;
 import org.apache.cassandra.db.Clustering;
 import org.apache.cassandra.db.DecoratedKey;
@@ -33,6 +35,11 @@ import org.apache.cassandra.utils.SearchIterator;
 public abstract class EnsureOnHeap extends Transformation
 {
     public static final EnsureOnHeap NOOP = new NoOp();
+    /**
+     * Deserializes the {@link NativeRow}s once, for the memtables that remain in place while they are accessed (i.e.
+     * flushing) but whose rows would otherwise be deserialized on every access.
+     */
+    public static final EnsureOnHeap MATERIALIZE_NATIVE_ROWS = new MaterializeNativeRows();
 
     public abstract DecoratedKey applyToPartitionKey(DecoratedKey key);
     public abstract UnfilteredRowIterator applyToPartition(UnfilteredRowIterator partition);
@@ -164,4 +171,45 @@ public abstract class EnsureOnHeap extends Transformation
             return deletionInfo;
         }
     }
+
+    static class MaterializeNativeRows extends NoOp
+    {
+        @Override
+        protected BaseRowIterator<?> applyToPartition(BaseRowIterator partition)
+        {
+            return partition instanceof UnfilteredRowIterator
+                   ? Transformation.apply((UnfilteredRowIterator) partition, this)
+                   : Transformation.apply((RowIterator) partition, this);
+        }
+
+        @Override
+        public Row applyToRow(Row row)
+        {
+            return row instanceof NativeRow ? ((NativeRow) row).materialize() : row;
+        }
+
+        @Override
+        public Row applyToStatic(Row row)
+        {
+            return applyToRow(row);
+        }
+
+        @Override
+        public UnfilteredRowIterator applyToPartition(UnfilteredRowIterator partition)
+        {
+            return Transformation.apply(partition, this);
+        }
+
+        @Override
+        public SearchIterator<Clustering<?>, Row> applyToPartition(SearchIterator<Clustering<?>, Row> partition)
+        {
+            return key -> applyToRow(partition.next(key));
+        }
+
+        @Override
+        public Iterator<Row> applyToPartition(Iterator<Row> partition)
+        {
+            return Iterators.transform(partition, this::applyToRow);
+        }
+    }
 }
@@ -27,6 +27,7 @@ import java.util.Set;
 
 import com.google.common.util.concurrent.RateLimiter;
 
+import org.apache.cassandra.db.Clustering;
 import org.apache.cassandra.db.ColumnFamilyStore;
 import org.apache.cassandra.db.DataRange;
 import org.apache.cassandra.db.DecoratedKey;
@@ -111,6 +112,12 @@ public abstract class ForwardingSSTableReader extends SSTableReader
         return delegate.mayContainAssumingKeyIsInRange(key);
     }
 
+    @Override
+    public boolean mayContainAnyRow(DecoratedKey key, Collection<? extends Clustering<?>> clusterings)
+    {
+        return delegate.mayContainAnyRow(key, clusterings);
+    }
+
     @Override
     public void setupOnline()
     {
@@ -153,6 +160,12 @@ public abstract class ForwardingSSTableReader extends SSTableReader
         return delegate.cloneWithNewStart(newStart);
     }
 
+    @Override
+    public SSTableReader cloneWithExcludedPartitions(ExcludedPartitions excludedPartitions)
+    {
+        return delegate.cloneWithExcludedPartitions(excludedPartitions);
+    }
+
     @Override
     public RestorableMeter getReadMeter()
     {
@@ -327,6 +340,12 @@ public abstract class ForwardingSSTableReader extends SSTableReader
         return delegate.getScanner(ranges);
     }
 
+    @Override
+    public ISSTableScanner getScanner(Collection<Range<Token>> ranges, boolean bypassCache)
+    {
+        return delegate.getScanner(ranges, bypassCache);
+    }
+
     @Override
     public ISSTableScanner getScanner(Iterator<AbstractBounds<PartitionPosition>> rangeIterator)
     {
@@ -339,6 +358,12 @@ public abstract class ForwardingSSTableReader extends SSTableReader
         return delegate.partitionIterator(columns, dataRange, listener);
     }
 
+    @Override
+    public UnfilteredPartitionIterator partitionIterator(ColumnFilter columns, DataRange dataRange, SSTableReadsListener listener, boolean bypassCache)
+    {
+        return delegate.partitionIterator(columns, dataRange, listener, bypassCache);
+    }
+
     @Override
     public FileDataInput getFileDataInput(long position)
     {
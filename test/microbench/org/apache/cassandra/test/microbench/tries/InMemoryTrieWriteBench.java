@@ -19,7 +19,9 @@ package org.apache.cassandra.test.microbench.tries;
 
 import java.nio.ByteBuffer;
 import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.apache.cassandra.db.tries.InMemoryTrie;
 import org.apache.cassandra.io.compress.BufferType;
@@ -32,7 +34,7 @@ import org.openjdk.jmh.infra.Blackhole;
 @Warmup(iterations = 5, time = 1)
 @Measurement(iterations = 5, time = 1)
 @Fork(value = 1,jvmArgsAppend = { "-Xmx4G", "-Xms4G", "-Djmh.executor=CUSTOM", "-Djmh.executor.class=org.apache.cassandra.test.microbench.FastThreadExecutor"})
-@Threads(1) // no concurrent writes
+@Threads(1) // no concurrent writes, except for the benchmarks updating a shared trie
 @State(Scope.Benchmark)
 public class InMemoryTrieWriteBench
 {
@@ -47,10 +49,101 @@ public class InMemoryTrieWriteBench
 
     final static InMemoryTrie.UpsertTransformer<Byte, Byte> resolver = (x, y) -> y;
 
+    static final int UPDATES_PER_INVOCATION = 1000;
+
+    // A trie holding count sequential keys, updated by several threads in the update* benchmarks, like a memtable
+    // shard whose partitions are written by concurrent mutations.
+    InMemoryTrie<Byte> sharedTrie;
+    final ReentrantLock sharedTrieLock = new ReentrantLock();
+
     // Set this to true to print the trie sizes after insertions for sanity checking.
     // This might affect the timings, do not commit with this set to true.
     final static boolean PRINT_SIZES = false;
 
+    @Setup(Level.Trial)
+    public void setupSharedTrie() throws InMemoryTrie.SpaceExhaustedException
+    {
+        sharedTrie = new InMemoryTrie<>(bufferType);
+        ByteBuffer buf = ByteBuffer.allocate(keyLength);
+        for (long current = 0; current < count; ++current)
+        {
+            buf.putLong(keyLength - 8, current);
+            sharedTrie.putRecursive(ByteComparable.fixedLength(buf), Byte.valueOf((byte) current), resolver);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class UpdaterState
+    {
+        ByteBuffer buf;
+
+        @Setup(Level.Trial)
+        public void setup(InMemoryTrieWriteBench bench)
+        {
+            buf = ByteBuffer.allocate(bench.keyLength);
+        }
+
+        ByteComparable nextKey(int count)
+        {
+            buf.putLong(buf.capacity() - 8, ThreadLocalRandom.current().nextInt(count));
+            return ByteComparable.fixedLength(buf);
+        }
+    }
+
+    /**
+     * Updates existing keys of the shared trie from several threads, serialized by a lock like the writes to a
+     * memtable shard.
+     */
+    @Benchmark
+    @Threads(4)
+    @OperationsPerInvocation(UPDATES_PER_INVOCATION)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public void updateLocked(UpdaterState state) throws InMemoryTrie.SpaceExhaustedException
+    {
+        for (int i = 0; i < UPDATES_PER_INVOCATION; ++i)
+        {
+            ByteComparable key = state.nextKey(count);
+            sharedTrieLock.lock();
+            try
+            {
+                sharedTrie.putSingleton(key, Byte.valueOf((byte) i), resolver);
+            }
+            finally
+            {
+                sharedTrieLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Updates existing keys of the shared trie from several threads concurrently, only taking the lock to insert the
+     * keys which are not present, like the memtable shards with concurrent writes.
+     */
+    @Benchmark
+    @Threads(4)
+    @OperationsPerInvocation(UPDATES_PER_INVOCATION)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public void updateConcurrent(UpdaterState state) throws InMemoryTrie.SpaceExhaustedException
+    {
+        for (int i = 0; i < UPDATES_PER_INVOCATION; ++i)
+        {
+            ByteComparable key = state.nextKey(count);
+            Byte value = Byte.valueOf((byte) i);
+            if (sharedTrie.updateExisting(key, value, resolver))
+                continue;
+
+            sharedTrieLock.lock();
+            try
+            {
+                sharedTrie.putSingleton(key, value, resolver);
+            }
+            finally
+            {
+                sharedTrieLock.unlock();
+            }
+        }
+    }
+
     @Benchmark
     public void putSequential(Blackhole bh) throws InMemoryTrie.SpaceExhaustedException
     {
@@ -0,0 +1,203 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.cassandra.cache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class S3FifoCacheTest
+{
+    private final AtomicInteger loads = new AtomicInteger();
+    private final AtomicInteger evictions = new AtomicInteger();
+    private final AtomicInteger invalidations = new AtomicInteger();
+
+    private S3FifoCache<Integer, String> cache(long capacity)
+    {
+        return new S3FifoCache<>(capacity,
+                                 key -> { loads.incrementAndGet(); return "v" + key; },
+                                 value -> 1,
+                                 (key, value, evicted) -> (evicted ? evictions : invalidations).incrementAndGet());
+    }
+
+    @Test
+    public void testLoadsOnce()
+    {
+        S3FifoCache<Integer, String> cache = cache(10);
+        assertNull(cache.getIfPresent(1));
+        assertEquals("v1", cache.get(1));
+        assertEquals("v1", cache.get(1));
+        assertEquals("v1", cache.getIfPresent(1));
+        assertEquals(1, loads.get());
+        assertEquals(1, cache.size());
+        assertEquals(1, cache.weightedSize());
+    }
+
+    @Test
+    public void testRespectsCapacity()
+    {
+        S3FifoCache<Integer, String> cache = cache(100);
+        for (int i = 0; i < 1000; i++)
+            cache.get(i);
+
+        assertEquals(100, cache.size());
+        assertEquals(100, cache.weightedSize());
+        assertEquals(900, evictions.get());
+        assertEquals(0, invalidations.get());
+    }
+
+    @Test
+    public void testInvalidate()
+    {
+        S3FifoCache<Integer, String> cache = cache(100);
+        for (int i = 0; i < 50; i++)
+            cache.get(i);
+
+        cache.invalidate(3);
+        cache.invalidate(3);
+        assertNull(cache.getIfPresent(3));
+        assertEquals(1, invalidations.get());
+
+        cache.invalidateIf(k -> k % 2 == 0);
+        assertEquals(24, cache.size());
+        assertEquals(24, cache.weightedSize());
+
+        cache.invalidateAll();
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.weightedSize());
+        assertEquals(0, cache.smallWeightedSize());
+        assertEquals(50, invalidations.get());
+        assertEquals(0, evictions.get());
+    }
+
+    @Test
+    public void testInvalidatedEntriesArePurged()
+    {
+        // the cache never fills up, so invalidated entries never reach the head of their queue
+        S3FifoCache<Integer, String> cache = cache(100_000);
+        for (int i = 0; i < 10_000; i++)
+        {
+            cache.get(i);
+            cache.get(i % 10);
+            if (i >= 10)
+                cache.invalidate(i);
+        }
+
+        assertEquals(10, cache.size());
+        assertEquals(9_990, invalidations.get());
+        assertTrue(cache.queuedSize() <= 10 + 64 + 1);
+
+        cache.invalidateAll();
+        assertEquals(0, cache.size());
+        assertTrue(cache.queuedSize() <= 64 + 1);
+    }
+
+    @Test
+    public void testScanResistance()
+    {
+        S3FifoCache<Integer, String> cache = cache(100);
+        // Establish a working set that is read repeatedly.
+        for (int round = 0; round < 3; round++)
+            for (int i = 0; i < 50; i++)
+                cache.get(i);
+
+        // A scan reading many keys once each must not displace it.
+        for (int i = 1000; i < 11000; i++)
+            cache.get(i);
+
+        for (int i = 0; i < 50; i++)
+            assertNotNull("Hot key " + i + " was evicted by the scan", cache.getIfPresent(i));
+    }
+
+    @Test
+    public void testGhostAdmitsToMain()
+    {
+        S3FifoCache<Integer, String> cache = cache(100);
+        cache.get(0);
+        // push 0 out of the small queue without it being accessed again
+        for (int i = 1; i < 150; i++)
+            cache.get(i);
+        assertNull(cache.getIfPresent(0));
+
+        // reloading a recently evicted key places it in the main queue, where further one-off reads cannot reach it
+        cache.get(0);
+        for (int i = 1000; i < 1500; i++)
+            cache.get(i);
+        assertNotNull(cache.getIfPresent(0));
+        assertNull(cache.getIfPresent(149));
+    }
+
+    @Test
+    public void testConcurrentAccess() throws Throwable
+    {
+        S3FifoCache<Integer, String> cache = cache(1000);
+        ConcurrentHashMap<Integer, Boolean> seen = new ConcurrentHashMap<>();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        int threadCount = 8;
+        CountDownLatch done = new CountDownLatch(threadCount);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < threadCount; t++)
+        {
+            long seed = t;
+            threads.add(new Thread(() -> {
+                try
+                {
+                    Random random = new Random(seed);
+                    for (int i = 0; i < 100000; i++)
+                    {
+                        int key = random.nextInt(5000);
+                        assertEquals("v" + key, cache.get(key));
+                        seen.put(key, Boolean.TRUE);
+                        if (random.nextInt(100) == 0)
+                            cache.invalidate(key);
+                    }
+                }
+                catch (Throwable e)
+                {
+                    failure.set(e);
+                }
+                finally
+                {
+                    done.countDown();
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        done.await();
+        if (failure.get() != null)
+            throw failure.get();
+
+        assertFalse(seen.isEmpty());
+        assertTrue(cache.weightedSize() <= 1000 + threadCount);
+        assertEquals(cache.size(), cache.weightedSize());
+        assertEquals(loads.get(), evictions.get() + invalidations.get() + cache.size());
+    }
+}
@@ -87,9 +87,11 @@ public class DatabaseDescriptorRefTest
     "org.apache.cassandra.config.Config$DiskAccessMode",
     "org.apache.cassandra.config.Config$DiskFailurePolicy",
     "org.apache.cassandra.config.Config$DiskOptimizationStrategy",
+    "org.apache.cassandra.config.Config$FileCacheEvictionPolicy",
     "org.apache.cassandra.config.Config$FlushCompression",
     "org.apache.cassandra.config.Config$InternodeCompression",
     "org.apache.cassandra.config.Config$MemtableAllocationType",
+    "org.apache.cassandra.config.Config$MemtableFlushSchedulerType",
     "org.apache.cassandra.config.Config$PaxosOnLinearizabilityViolation",
     "org.apache.cassandra.config.Config$PaxosStatePurging",
     "org.apache.cassandra.config.Config$PaxosVariant",
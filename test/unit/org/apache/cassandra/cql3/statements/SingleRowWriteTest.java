@@ -0,0 +1,108 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.cassandra.cql3.statements;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+import com.google.common.collect.HashMultiset;
+import org.junit.Test;
+
+import org.apache.cassandra.cql3.CQLTester;
+import org.apache.cassandra.cql3.QueryOptions;
+import org.apache.cassandra.cql3.QueryProcessor;
+import org.apache.cassandra.db.ConsistencyLevel;
+import org.apache.cassandra.db.IMutation;
+import org.apache.cassandra.db.partitions.PartitionUpdate;
+import org.apache.cassandra.net.MessagingService;
+import org.apache.cassandra.service.ClientState;
+
+import static org.apache.cassandra.utils.ByteBufferUtil.bytes;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks that the mutations built by the single row write fast path of {@link ModificationStatement} are the same as
+ * the ones built by collecting the updates of the statement.
+ */
+public class SingleRowWriteTest extends CQLTester
+{
+    private static final long TIMESTAMP = 1000;
+    private static final long NOW_IN_SECONDS = 100;
+
+    @Test
+    public void testRegularRow()
+    {
+        createTable("CREATE TABLE %s (pk int, ck int, v1 int, v2 text, PRIMARY KEY (pk, ck))");
+        assertSameMutation("INSERT INTO %s (pk, ck, v1, v2) VALUES (?, ?, ?, ?)", bytes(1), bytes(2), bytes(3), bytes("v"));
+        assertSameMutation("INSERT INTO %s (pk, ck, v1) VALUES (?, ?, ?) USING TTL 100", bytes(1), bytes(2), bytes(3));
+        assertSameMutation("INSERT INTO %s (pk, ck, v1, v2) VALUES (?, ?, ?, null) USING TIMESTAMP 42", bytes(1), bytes(2), bytes(3));
+        assertSameMutation("INSERT INTO %s (pk, ck) VALUES (?, ?)", bytes(1), bytes(2));
+    }
+
+    @Test
+    public void testStaticAndCollectionColumns()
+    {
+        createTable("CREATE TABLE %s (pk int, ck int, s int static, st set<int>, m map<text, int>, PRIMARY KEY (pk, ck))");
+        assertSameMutation("INSERT INTO %s (pk, ck, s, st, m) VALUES (?, ?, ?, {1, 2}, {'a': 1})", bytes(1), bytes(2), bytes(3));
+        assertSameMutation("INSERT INTO %s (pk, s) VALUES (?, ?)", bytes(1), bytes(3));
+        assertSameMutation("INSERT INTO %s (pk, ck, st) VALUES (?, ?, null)", bytes(1), bytes(2));
+    }
+
+    @Test
+    public void testWithoutClustering()
+    {
+        createTable("CREATE TABLE %s (pk int PRIMARY KEY, v int)");
+        assertSameMutation("INSERT INTO %s (pk, v) VALUES (?, ?) USING TTL 10", bytes(1), bytes(2));
+        assertSameMutation("INSERT INTO %s JSON '{\"pk\": 1, \"v\": 2}'");
+    }
+
+    @Test
+    public void testCompactTable()
+    {
+        createTable("CREATE TABLE %s (pk int, ck int, v int, PRIMARY KEY (pk, ck)) WITH COMPACT STORAGE");
+        assertSameMutation("INSERT INTO %s (pk, ck, v) VALUES (?, ?, ?)", bytes(1), bytes(2), bytes(3));
+    }
+
+    private void assertSameMutation(String query, ByteBuffer... values)
+    {
+        ModificationStatement statement = (ModificationStatement) QueryProcessor.parseStatement(formatQuery(query))
+                                                                                .prepare(ClientState.forInternalCalls());
+        QueryOptions options = QueryOptions.forInternalCalls(ConsistencyLevel.ONE, Arrays.asList(values));
+        ClientState state = ClientState.forInternalCalls();
+
+        List<? extends IMutation> mutations = statement.getMutations(state, options, true, TIMESTAMP, NOW_IN_SECONDS, 0);
+
+        List<ByteBuffer> keys = statement.buildPartitionKeyNames(options, state);
+        SingleTableUpdatesCollector collector = new SingleTableUpdatesCollector(statement.metadata, statement.updatedColumns(), HashMultiset.create(keys));
+        statement.addUpdates(collector, keys, state, options, true, TIMESTAMP, NOW_IN_SECONDS, 0);
+        List<IMutation> expected = collector.toMutations();
+
+        assertEquals(1, mutations.size());
+        assertEquals(1, expected.size());
+        assertEquals(serialize(expected.get(0)), serialize(mutations.get(0)));
+    }
+
+    private static ByteBuffer serialize(IMutation mutation)
+    {
+        assertEquals(1, mutation.getPartitionUpdates().size());
+        // the serialized update includes the encoding stats of the partition
+        return PartitionUpdate.toBytes(mutation.getPartitionUpdates().iterator().next(), MessagingService.current_version);
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.cassandra.cql3.validation.operations;
+
+import org.junit.Test;
+
+import org.apache.cassandra.cache.ChunkCache;
+import org.apache.cassandra.cql3.CQLTester;
+import org.apache.cassandra.cql3.QueryOptions;
+import org.apache.cassandra.cql3.QueryProcessor;
+import org.apache.cassandra.cql3.statements.SelectStatement;
+import org.apache.cassandra.db.PartitionRangeReadCommand;
+import org.apache.cassandra.db.filter.DataLimits;
+import org.apache.cassandra.service.ClientState;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+public class SelectBypassCacheTest extends CQLTester
+{
+    @Test
+    public void testBypassCacheResults() throws Throwable
+    {
+        createTable("CREATE TABLE %s (k int, c int, v int, PRIMARY KEY (k, c))");
+        for (int k = 0; k < 10; k++)
+            for (int c = 0; c < 10; c++)
+                execute("INSERT INTO %s (k, c, v) VALUES (?, ?, ?)", k, c, k * c);
+        flush();
+        requireNetwork();
+
+        assertRowCount(execute("SELECT * FROM %s BYPASS CACHE"), 100);
+        assertRowCount(execute("SELECT * FROM %s WHERE v > 40 ALLOW FILTERING BYPASS CACHE"), 17);
+        assertRows(execute("SELECT v FROM %s WHERE token(k) = token(3) AND c = 4 ALLOW FILTERING BYPASS CACHE"), row(12));
+
+        // paging goes through copies of the command, which must keep reading the same data
+        assertRowsNet(executeNetWithPaging("SELECT * FROM %s WHERE token(k) = token(2) BYPASS CACHE", 3),
+                      row(2, 0, 0), row(2, 1, 2), row(2, 2, 4), row(2, 3, 6), row(2, 4, 8),
+                      row(2, 5, 10), row(2, 6, 12), row(2, 7, 14), row(2, 8, 16), row(2, 9, 18));
+        assertEquals(100, executeNetWithPaging("SELECT * FROM %s BYPASS CACHE", 7).all().size());
+    }
+
+    @Test
+    public void testBypassCacheRejectedForSinglePartitionQueries() throws Throwable
+    {
+        createTable("CREATE TABLE %s (k int, c int, v int, PRIMARY KEY (k, c))");
+        execute("INSERT INTO %s (k, c, v) VALUES (0, 0, 0)");
+
+        String message = "BYPASS CACHE is only supported by range queries";
+        assertInvalidMessage(message, "SELECT * FROM %s WHERE k = 0 BYPASS CACHE");
+        assertInvalidMessage(message, "SELECT * FROM %s WHERE k = 0 AND c = 0 BYPASS CACHE");
+        assertInvalidMessage(message, "SELECT * FROM %s WHERE k IN (0, 1) BYPASS CACHE");
+        assertInvalidMessage(message, "SELECT * FROM %s WHERE k = ? BYPASS CACHE", 0);
+        assertRows(execute("SELECT * FROM %s WHERE k = 0"), row(0, 0, 0));
+    }
+
+    @Test
+    public void testKeywordsAreUnreserved() throws Throwable
+    {
+        createTable("CREATE TABLE %s (bypass int PRIMARY KEY, cache int)");
+        execute("INSERT INTO %s (bypass, cache) VALUES (1, 2)");
+        assertRows(execute("SELECT bypass, cache FROM %s BYPASS CACHE"), row(1, 2));
+    }
+
+    @Test
+    public void testBypassCacheIsCarriedByRangeCommands()
+    {
+        createTable("CREATE TABLE %s (k int PRIMARY KEY, v int)");
+
+        PartitionRangeReadCommand command = rangeCommand("SELECT * FROM %s BYPASS CACHE");
+        assertTrue(command.isBypassingCache());
+        assertTrue(command.copy().isBypassingCache());
+        assertTrue(command.forSubRange(command.dataRange().keyRange(), false).isBypassingCache());
+        assertTrue(command.withUpdatedLimit(DataLimits.cqlLimits(10)).isBypassingCache());
+        assertTrue(command.createMessage(false).bypassCache());
+
+        command = rangeCommand("SELECT * FROM %s");
+        assertFalse(command.isBypassingCache());
+        assertFalse(command.createMessage(false).bypassCache());
+    }
+
+    @Test
+    public void testBypassCacheDoesNotLoadDataChunks() throws Throwable
+    {
+        assumeTrue(ChunkCache.instance != null);
+
+        createTable("CREATE TABLE %s (k int PRIMARY KEY, v text)");
+        for (int k = 0; k < 100; k++)
+            execute("INSERT INTO %s (k, v) VALUES (?, ?)", k, "value" + k);
+        flush();
+
+        ChunkCache.instance.clear();
+        execute("SELECT * FROM %s BYPASS CACHE");
+        int bypassed = ChunkCache.instance.size();
+
+        ChunkCache.instance.clear();
+        execute("SELECT * FROM %s");
+        int cached = ChunkCache.instance.size();
+
+        assertTrue(String.format("Scan bypassing the cache loaded %d chunks, normal scan %d", bypassed, cached),
+                   bypassed < cached);
+    }
+
+    private PartitionRangeReadCommand rangeCommand(String query)
+    {
+        SelectStatement statement = (SelectStatement) QueryProcessor.parseStatement(formatQuery(query))
+                                                                    .prepare(ClientState.forInternalCalls());
+        return (PartitionRangeReadCommand) statement.getQuery(QueryOptions.DEFAULT, 0);
+    }
+}
@@ -17,20 +17,34 @@
  */
 package org.apache.cassandra.db;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.google.common.util.concurrent.Uninterruptibles;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
 import org.apache.cassandra.Util;
 import org.apache.cassandra.schema.ColumnMetadata;
 import org.apache.cassandra.SchemaLoader;
+import org.apache.cassandra.concurrent.ExecutorPlus;
+import org.apache.cassandra.config.DatabaseDescriptor;
 import org.apache.cassandra.db.rows.Row;
 import org.apache.cassandra.db.context.CounterContext;
 import org.apache.cassandra.exceptions.ConfigurationException;
 import org.apache.cassandra.exceptions.WriteTimeoutException;
 import org.apache.cassandra.schema.KeyspaceParams;
 import org.apache.cassandra.utils.ByteBufferUtil;
+import org.apache.cassandra.utils.concurrent.Future;
+
+import static org.apache.cassandra.concurrent.ExecutorFactory.Global.executorFactory;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 public class CounterMutationTest
 {
@@ -215,4 +229,114 @@ public class CounterMutationTest
             ConsistencyLevel.ONE).apply();
         Util.assertEmpty(Util.cmd(cfs).includeRow("cc").columns("val", "val2").build());
     }
+
+    @Test
+    public void testCoalescedIncrements() throws Throwable
+    {
+        ColumnFamilyStore cfs = Keyspace.open(KEYSPACE1).getColumnFamilyStore(CF1);
+        cfs.truncateBlocking();
+        ColumnMetadata cOne = cfs.metadata().getColumn(ByteBufferUtil.bytes("val"));
+        ColumnMetadata cTwo = cfs.metadata().getColumn(ByteBufferUtil.bytes("val2"));
+
+        int threads = 8;
+        int increments = 200;
+        DatabaseDescriptor.setCounterWriteCoalescingEnabled(true);
+        ExecutorPlus executor = executorFactory().pooled("CounterMutationTest", threads);
+        try
+        {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++)
+            {
+                // half of the threads also increment the second counter, so that different groups contend
+                boolean both = t % 2 == 0;
+                futures.add(executor.submit(() -> {
+                    Uninterruptibles.awaitUninterruptibly(start);
+                    for (int i = 0; i < increments; i++)
+                    {
+                        // counter updates, as built by the CQL statements, are summed when merged
+                        RowUpdateBuilder builder = new RowUpdateBuilder(cfs.metadata(), 5, "key1")
+                                                   .clustering("cc")
+                                                   .add("val", CounterContext.instance().createUpdate(1L));
+                        if (both)
+                            builder.add("val2", CounterContext.instance().createUpdate(-1L));
+                        new CounterMutation(builder.build(), ConsistencyLevel.ONE).apply();
+                    }
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures)
+                future.get();
+        }
+        finally
+        {
+            DatabaseDescriptor.setCounterWriteCoalescingEnabled(false);
+            executor.shutdownNow();
+        }
+
+        Row row = Util.getOnlyRow(Util.cmd(cfs).includeRow("cc").columns("val", "val2").build());
+        assertEquals(threads * increments, CounterContext.instance().total(row.getCell(cOne)));
+        assertEquals(-threads * increments / 2, CounterContext.instance().total(row.getCell(cTwo)));
+
+        CBuilder cb = CBuilder.create(cfs.metadata().comparator);
+        cb.add("cc");
+        assertEquals(threads * increments, cfs.getCachedCounter(Util.dk("key1").getKey(), cb.build(), cOne, null).count);
+    }
+
+    @Test
+    public void testCoalescedIncrementsAreReplicatedOnce() throws Throwable
+    {
+        ColumnFamilyStore cfs = Keyspace.open(KEYSPACE1).getColumnFamilyStore(CF1);
+        cfs.truncateBlocking();
+        ColumnMetadata cOne = cfs.metadata().getColumn(ByteBufferUtil.bytes("val"));
+
+        int threads = 8;
+        int increments = 200;
+        AtomicInteger replications = new AtomicInteger();
+        Queue<Integer> replicated = new ConcurrentLinkedQueue<>();
+        DatabaseDescriptor.setCounterWriteCoalescingEnabled(true);
+        ExecutorPlus executor = executorFactory().pooled("CounterMutationTest", threads);
+        try
+        {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++)
+            {
+                int thread = t;
+                futures.add(executor.submit(() -> {
+                    Uninterruptibles.awaitUninterruptibly(start);
+                    for (int i = 0; i < increments; i++)
+                    {
+                        CounterMutation mutation = new CounterMutation(new RowUpdateBuilder(cfs.metadata(), 5, "key1")
+                                                                       .clustering("cc")
+                                                                       .add("val", CounterContext.instance().createUpdate(1L))
+                                                                       .build(), ConsistencyLevel.ONE);
+                        mutation.applyCounterMutation(thread * increments + i, (result, callbacks) -> {
+                            replications.incrementAndGet();
+                            replicated.addAll(callbacks);
+                        });
+                    }
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures)
+                future.get();
+        }
+        finally
+        {
+            DatabaseDescriptor.setCounterWriteCoalescingEnabled(false);
+            executor.shutdownNow();
+        }
+
+        Row row = Util.getOnlyRow(Util.cmd(cfs).includeRow("cc").columns("val").build());
+        assertEquals(threads * increments, CounterContext.instance().total(row.getCell(cOne)));
+
+        // every mutation is replicated exactly once, the coalesced ones together with the other mutations of their group
+        List<Integer> sorted = new ArrayList<>(replicated);
+        sorted.sort(Integer::compare);
+        assertEquals(threads * increments, sorted.size());
+        for (int i = 0; i < sorted.size(); i++)
+            assertEquals(i, (int) sorted.get(i));
+        assertTrue(replications.get() <= threads * increments);
+    }
 }
@@ -26,6 +26,7 @@ import java.util.Date;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicReference;
 
+import org.apache.commons.lang3.StringUtils;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.BeforeClass;
@@ -47,6 +48,7 @@ import org.apache.cassandra.db.commitlog.CommitLogArchiver;
 import org.apache.cassandra.db.commitlog.CommitLogReplayer;
 import org.apache.cassandra.db.context.CounterContext;
 import org.apache.cassandra.db.rows.*;
+import org.apache.cassandra.distributed.shared.WithProperties;
 import org.apache.cassandra.exceptions.ConfigurationException;
 import org.apache.cassandra.io.compress.DeflateCompressor;
 import org.apache.cassandra.io.compress.LZ4Compressor;
@@ -59,6 +61,7 @@ import org.apache.cassandra.security.EncryptionContextGenerator;
 import org.apache.cassandra.utils.ByteBufferUtil;
 import org.apache.cassandra.utils.concurrent.AsyncFuture;
 
+import static org.apache.cassandra.config.CassandraRelevantProperties.COMMITLOG_REPLAY_PARALLELISM;
 import static org.junit.Assert.assertEquals;
 
 @RunWith(Parameterized.class)
@@ -223,6 +226,35 @@ public class RecoveryManagerTest
         Assert.assertTrue(Util.sameContent(upd2, Util.getOnlyPartitionUnfiltered(Util.cmd(keyspace2.getColumnFamilyStore(CF_STANDARD3), dk).build()).unfilteredIterator()));
     }
 
+    @Test
+    public void testRecoverSegmentsInParallel() throws IOException
+    {
+        try (WithProperties properties = new WithProperties().set(COMMITLOG_REPLAY_PARALLELISM, 4))
+        {
+            CommitLog.instance.resetUnsafe(true);
+            ColumnFamilyStore cfs = Keyspace.open(KEYSPACE1).getColumnFamilyStore(CF_STANDARD1);
+            // enough to fill several segments
+            String value = StringUtils.repeat('x', 512 * 1024);
+            for (int i = 0; i < 20; ++i)
+            {
+                new RowUpdateBuilder(cfs.metadata(), 1L, "key" + i)
+                    .clustering("cc")
+                    .add("val", value)
+                    .build()
+                    .apply();
+            }
+            Assert.assertTrue(CommitLog.instance.getActiveSegmentNames().size() > 1);
+
+            cfs.clearUnsafe();
+            long replayedBefore = CommitLog.instance.metrics.replayedMutations.getCount();
+            CommitLog.instance.resetUnsafe(false);
+
+            assertEquals(20, Util.getAll(Util.cmd(cfs).build()).size());
+            Assert.assertTrue(CommitLog.instance.metrics.replayedMutations.getCount() - replayedBefore >= 20);
+            Assert.assertTrue(CommitLog.instance.metrics.replayThroughput.getValue() > 0);
+        }
+    }
+
     @Test
     public void testRecoverCounter() throws IOException
     {
@@ -0,0 +1,37 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.cassandra.db.commitlog;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class AdaptiveCommitLogServiceTest
+{
+    @Test
+    public void testWindow()
+    {
+        // no window when the writes are too rare to share a sync
+        assertEquals(0, AdaptiveCommitLogService.window(1_000_000, 100_000, 1e-6));
+        // the window leaves room for a sync in progress and the next one
+        assertEquals(800_000, AdaptiveCommitLogService.window(1_000_000, 100_000, 1e-5));
+        // no window when the syncs alone exceed the target
+        assertEquals(0, AdaptiveCommitLogService.window(1_000_000, 600_000, 1e-3));
+    }
+}
@@ -32,6 +32,7 @@ import org.junit.Test;
 import org.apache.cassandra.cql3.CQLTester;
 import org.apache.cassandra.cql3.QueryProcessor;
 import org.apache.cassandra.db.ColumnFamilyStore;
+import org.apache.cassandra.exceptions.ConfigurationException;
 
 public class CommitLogCQLTest extends CQLTester
 {
@@ -64,6 +65,60 @@ public class CommitLogCQLTest extends CQLTester
         assert active.isEmpty();
     }
     
+    @Test
+    public void testNonDurableTable() throws Throwable
+    {
+        String durableTable = createTable("CREATE TABLE %s (pk int PRIMARY KEY, v int)");
+        String nonDurableTable = createTable("CREATE TABLE %s (pk int PRIMARY KEY, v int) WITH durable_writes = false");
+        ColumnFamilyStore durable = getColumnFamilyStore(KEYSPACE, durableTable);
+        ColumnFamilyStore nonDurable = getColumnFamilyStore(KEYSPACE, nonDurableTable);
+        Assert.assertFalse(nonDurable.metadata().params.durableWrites);
+        Assert.assertTrue(nonDurable.writesShouldSkipCommitLog());
+
+        // a single mutation for both tables, of which only the durable part goes to the commit log
+        executeFormattedQuery(String.format("BEGIN UNLOGGED BATCH " +
+                                            "INSERT INTO %1$s.%2$s (pk, v) VALUES (0, 0); " +
+                                            "INSERT INTO %1$s.%3$s (pk, v) VALUES (0, 0); " +
+                                            "APPLY BATCH", KEYSPACE, durableTable, nonDurableTable));
+        executeFormattedQuery(String.format("INSERT INTO %s.%s (pk, v) VALUES (1, 1)", KEYSPACE, nonDurableTable));
+        for (CommitLogSegment segment : CommitLog.instance.segmentManager.getActiveSegments())
+            Assert.assertFalse(segment.getDirtyTableIds().contains(nonDurable.metadata.id));
+
+        // lose the memtables as in a crash; only the durable table is restored by replay
+        durable.dumpMemtable().get();
+        nonDurable.dumpMemtable().get();
+        CommitLog.instance.resetUnsafe(false);
+        assertRows(executeFormattedQuery(String.format("SELECT * FROM %s.%s", KEYSPACE, durableTable)), row(0, 0));
+        assertEmpty(executeFormattedQuery(String.format("SELECT * FROM %s.%s", KEYSPACE, nonDurableTable)));
+    }
+
+    @Test
+    public void testReenableDurableWrites() throws Throwable
+    {
+        createTable("CREATE TABLE %s (pk int PRIMARY KEY, v int) WITH durable_writes = false");
+        ColumnFamilyStore cfs = getCurrentColumnFamilyStore();
+        execute("INSERT INTO %s (pk, v) VALUES (0, 0)");
+
+        // the writes left out of the commit log are flushed once they are no longer left out
+        alterTable("ALTER TABLE %s WITH durable_writes = true");
+        Assert.assertFalse(cfs.writesShouldSkipCommitLog());
+        Assert.assertTrue(cfs.getTracker().getView().getCurrentMemtable().isClean());
+        execute("INSERT INTO %s (pk, v) VALUES (1, 1)");
+
+        // lose the memtable as in a crash; the first write was flushed, the second is restored by replay
+        cfs.dumpMemtable().get();
+        CommitLog.instance.resetUnsafe(false);
+        assertRows(execute("SELECT * FROM %s"), row(1, 1), row(0, 0));
+    }
+
+    @Test
+    public void testNonDurableTableWithCDC() throws Throwable
+    {
+        assertInvalidThrowMessage("CDC cannot work if writes skip the commit log", ConfigurationException.class,
+                                  String.format("CREATE TABLE %s.%s (pk int PRIMARY KEY, v int) WITH durable_writes = false AND cdc = true",
+                                                KEYSPACE, createTableName()));
+    }
+
     @Test
     public void testSwitchMemtable() throws Throwable
     {
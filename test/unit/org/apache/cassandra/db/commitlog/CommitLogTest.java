@@ -40,6 +40,7 @@ import java.util.Objects;
 import java.util.Random;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.function.BiConsumer;
 import java.util.stream.Collectors;
 import java.util.zip.CRC32;
@@ -115,6 +116,7 @@ import static org.apache.cassandra.db.commitlog.CommitLogSegment.ENTRY_OVERHEAD_
 import static org.apache.cassandra.utils.ByteBufferUtil.bytes;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
@@ -466,6 +468,103 @@ public abstract class CommitLogTest
                      segments.size());
     }
 
+    @Test
+    public void testRecycleSegmentFiles() throws Exception
+    {
+        ColumnFamilyStore cfs = Keyspace.open(KEYSPACE1).getColumnFamilyStore(STANDARD1);
+        AbstractCommitLogSegmentManager segmentManager = CommitLog.instance.segmentManager;
+        int recycledSegments = DatabaseDescriptor.getCommitLogRecycledSegments();
+        try
+        {
+            // each entry-with-overhead is just under half the CL size
+            Mutation rm = new RowUpdateBuilder(cfs.metadata(), 0, "k")
+                          .clustering("bytes")
+                          .add("val", ByteBuffer.allocate(DatabaseDescriptor.getMaxMutationSize() - 200))
+                          .build();
+            for (int i = 0; i < 3; i++)
+                CommitLog.instance.add(rm);
+            List<File> discarded = new ArrayList<>();
+            for (CommitLogSegment segment : segmentManager.getActiveSegments())
+                discarded.add(segment.logFile);
+
+            // the files of the discarded segments are kept instead of being deleted, and zero-filled in the background
+            DatabaseDescriptor.setCommitLogRecycledSegments(2);
+            CommitLog.instance.discardCompletedSegments(rm.getTableIds().iterator().next(), CommitLogPosition.NONE, CommitLog.instance.getCurrentPosition());
+            assertFalse(discarded.get(0).exists());
+            Util.spinAssertEquals(2, segmentManager::recycledFileCount, 10);
+            File[] recycled = new File(DatabaseDescriptor.getCommitLogLocation()).tryList((dir, name) -> name.startsWith(AbstractCommitLogSegmentManager.RECYCLED_FILE_PREFIX));
+            assertEquals(2, recycled.length);
+            for (File file : recycled)
+                assertTrue(file.length() >= DatabaseDescriptor.getCommitLogSegmentSize());
+
+            // new segments write over them, and can be replayed
+            for (int i = 0; i < 3; i++)
+                CommitLog.instance.add(rm);
+            Util.spinAssertEquals(2, segmentManager::recycledFileCount, 10);
+            // along with the last mutation of the segment which was still written to when discarding
+            assertEquals(4, CommitLog.instance.resetUnsafe(false));
+        }
+        finally
+        {
+            DatabaseDescriptor.setCommitLogRecycledSegments(recycledSegments);
+        }
+    }
+
+    private static File lnArchiveDir;
+    private static CommitLogArchiver lnArchiver;
+
+    @Test
+    public void testRecyclingKeepsArchivedSegments() throws Exception
+    {
+        ColumnFamilyStore cfs = Keyspace.open(KEYSPACE1).getColumnFamilyStore(STANDARD1);
+        int recycledSegments = DatabaseDescriptor.getCommitLogRecycledSegments();
+        // the archived files are hard links to the segment files, which must then not be recycled
+        // (the archiver is shared by the parameterized runs, as its executor is never shut down)
+        if (lnArchiver == null)
+        {
+            lnArchiveDir = new File(Files.createTempDir());
+            lnArchiver = new CommitLogArchiver("/bin/ln %path " + lnArchiveDir.absolutePath() + "/%name",
+                                               null, null, Long.MAX_VALUE, CommitLogPosition.NONE, TimeUnit.MICROSECONDS);
+        }
+        File archiveDir = lnArchiveDir;
+        CommitLog.instance.stopUnsafe(true);
+        CommitLog commitLog = new CommitLog(lnArchiver);
+        DatabaseDescriptor.setCommitLogRecycledSegments(2);
+        try
+        {
+            commitLog.start();
+            // each entry-with-overhead is just under half the CL size
+            Mutation rm = new RowUpdateBuilder(cfs.metadata(), 0, "k")
+                          .clustering("bytes")
+                          .add("val", ByteBuffer.allocate(DatabaseDescriptor.getMaxMutationSize() - 200))
+                          .build();
+            for (int i = 0; i < 3; i++)
+                commitLog.add(rm);
+            commitLog.discardCompletedSegments(rm.getTableIds().iterator().next(), CommitLogPosition.NONE, commitLog.getCurrentPosition());
+            for (int i = 0; i < 3; i++)
+                commitLog.add(rm);
+            commitLog.segmentManager.awaitManagementTasksCompletion();
+
+            File[] archived = archiveDir.tryList();
+            assertFalse(archived.length == 0);
+            for (File file : archived)
+            {
+                CommitLogDescriptor descriptor = CommitLogDescriptor.fromHeader(file, DatabaseDescriptor.getEncryptionContext());
+                assertNotNull(file.toString(), descriptor);
+                assertEquals(CommitLogDescriptor.fromFileName(file.name()).id, descriptor.id);
+            }
+            assertEquals(0, commitLog.segmentManager.recycledFileCount());
+        }
+        finally
+        {
+            commitLog.stopUnsafe(true);
+            DatabaseDescriptor.setCommitLogRecycledSegments(recycledSegments);
+            for (File file : archiveDir.tryList())
+                FileUtils.deleteWithConfirm(file);
+            CommitLog.instance.restartUnsafe();
+        }
+    }
+
     private String getDirtyCFIds(Collection<CommitLogSegment> segments)
     {
         return "Dirty tableIds: <"
@@ -39,6 +39,7 @@ import org.mockito.internal.creation.MockSettingsImpl;
 import sun.nio.ch.DirectBuffer;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doCallRealMethod;
@@ -75,6 +76,7 @@ public class DirectIOSegmentTest
         doCallRealMethod().when(manager).getConfiguration();
         when(bufferPool.createBuffer()).thenReturn(ByteBuffer.allocate(bufSize + fsBlockSize));
         doNothing().when(manager).addSize(anyLong());
+        doNothing().when(manager).reuseRecycledFile(any());
 
         qt().forAll(Generators.forwardRanges(0, bufSize))
             .checkAssert(startEnd -> {
@@ -125,6 +127,7 @@ public class DirectIOSegmentTest
         doCallRealMethod().when(manager).getConfiguration();
         when(bufferPool.createBuffer()).thenReturn(ByteBuffer.allocate(bufSize + fsBlockSize));
         doNothing().when(manager).addSize(anyLong());
+        doNothing().when(manager).reuseRecycledFile(any());
 
         FileChannel channel = mock(FileChannel.class);
         ThrowingFunction<Path, FileChannel, IOException> channelFactory = path -> channel;
@@ -0,0 +1,116 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.cassandra.db.commitlog;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class DirectIOWriteBufferTest
+{
+    private static final int BLOCK_SIZE = 32;
+
+    @Test
+    public void testWritesWholeAlignedBlocks() throws IOException
+    {
+        Random random = new Random();
+        byte[] expected = new byte[1 << 14];
+        byte[] file = new byte[expected.length + BLOCK_SIZE];
+        FileChannel channel = mockChannel(file);
+
+        long seed = random.nextLong();
+        random.setSeed(seed);
+        try (DirectIOWriteBuffer buffer = new DirectIOWriteBuffer(BLOCK_SIZE, 2 * BLOCK_SIZE))
+        {
+            int position = 0;
+            long written = 0;
+            while (position < expected.length - 100)
+            {
+                // like a segment section: a header written after the data which follows it
+                int length = 1 + random.nextInt(Math.min(300, expected.length - position - 8));
+                byte[] data = new byte[length];
+                random.nextBytes(data);
+                buffer.position(position + 8);
+                buffer.write(ByteBuffer.wrap(data));
+                System.arraycopy(data, 0, expected, position + 8, length);
+
+                buffer.position(position);
+                buffer.write(ByteBuffer.allocate(8).putLong(0, seed).duplicate());
+                ByteBuffer.wrap(expected).putLong(position, seed);
+                position += 8 + length;
+                assertThat(buffer.size()).isEqualTo(position);
+
+                if (random.nextInt(3) == 0)
+                {
+                    written = buffer.writeTo(channel);
+                    assertThat(written).isGreaterThanOrEqualTo(position);
+                    assertThat(written % BLOCK_SIZE).isZero();
+                    // what follows the data is padded with zeros
+                    assertThat(Arrays.copyOf(file, (int) written)).as("seed " + seed)
+                                                                 .isEqualTo(Arrays.copyOf(expected, (int) written));
+                }
+            }
+            written = buffer.writeTo(channel);
+            assertThat(Arrays.copyOf(file, (int) written)).as("seed " + seed)
+                                                         .isEqualTo(Arrays.copyOf(expected, (int) written));
+        }
+    }
+
+    @Test
+    public void testCannotSeekBeforeUnwrittenBlock() throws IOException
+    {
+        FileChannel channel = mockChannel(new byte[4 * BLOCK_SIZE]);
+        try (DirectIOWriteBuffer buffer = new DirectIOWriteBuffer(BLOCK_SIZE, BLOCK_SIZE))
+        {
+            buffer.write(ByteBuffer.allocate(BLOCK_SIZE + 1));
+            assertThat(buffer.writeTo(channel)).isEqualTo(2 * BLOCK_SIZE);
+            // the last block is written again with the following data
+            buffer.position(BLOCK_SIZE);
+            assertThatThrownBy(() -> buffer.position(BLOCK_SIZE - 1)).isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+
+    private static FileChannel mockChannel(byte[] file) throws IOException
+    {
+        FileChannel channel = mock(FileChannel.class);
+        when(channel.write(any(ByteBuffer.class), anyLong())).thenAnswer(invocation -> {
+            ByteBuffer src = invocation.getArgument(0);
+            long filePosition = invocation.getArgument(1);
+            // direct I/O only accepts whole blocks from aligned memory
+            assertThat(filePosition % BLOCK_SIZE).isZero();
+            assertThat(src.remaining() % BLOCK_SIZE).isZero();
+            assertThat(src.alignmentOffset(src.position(), BLOCK_SIZE)).isZero();
+            int length = src.remaining();
+            src.get(file, (int) filePosition, length);
+            return length;
+        });
+        return channel;
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.cassandra.db.compaction;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import com.google.common.collect.ImmutableMap;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import org.apache.cassandra.config.DatabaseDescriptor;
+import org.apache.cassandra.db.compaction.CompactionSimulation.Result;
+import org.apache.cassandra.db.compaction.CompactionSimulation.SSTable;
+import org.apache.cassandra.db.compaction.CompactionSimulation.Strategy;
+import org.apache.cassandra.db.compaction.CompactionSimulation.Workload;
+import org.apache.cassandra.utils.Pair;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class CompactionSimulationTest
+{
+    private static final long MiB = 1L << 20;
+
+    // size-tier the small flushes of the tests, which would otherwise all be in the same bucket
+    private static final Map<String, String> STCS_OPTIONS = ImmutableMap.of("min_sstable_size", "0");
+
+    @BeforeClass
+    public static void setup()
+    {
+        DatabaseDescriptor.daemonInitialization();
+    }
+
+    @Test
+    public void testOverlap()
+    {
+        List<SSTable> sstables = Arrays.asList(sstable(0, 0.5), sstable(0.5, 1), sstable(0.25, 0.75), sstable(0.3, 0.3));
+        assertEquals(1.5, CompactionSimulation.meanOverlap(sstables), 1e-9);
+
+        // adjacent sstables do not overlap, but a single position sstable does
+        Pair<Integer, Double> max = CompactionSimulation.maxOverlap(sstables);
+        assertEquals(3, (int) max.left);
+        assertEquals(0.3, max.right, 1e-9);
+
+        assertEquals(1, (int) CompactionSimulation.maxOverlap(Arrays.asList(sstable(0, 0.5), sstable(0.5, 1))).left);
+        assertEquals(0, (int) CompactionSimulation.maxOverlap(Collections.emptyList()).left);
+    }
+
+    @Test
+    public void testStrategyNames()
+    {
+        assertEquals(Strategy.STCS, Strategy.fromString("stcs"));
+        assertEquals(Strategy.LCS, Strategy.fromString("LeveledCompactionStrategy"));
+        assertEquals(Strategy.UCS, Strategy.fromString(UnifiedCompactionStrategy.class.getName()));
+    }
+
+    @Test
+    public void testSizeTiered()
+    {
+        // without overwrites, every byte is rewritten once per tier of min_threshold sstables
+        Result result = simulate(Strategy.STCS, STCS_OPTIONS, 256, 0);
+        assertEquals(64 + 16 + 4 + 1, result.compactions);
+        assertEquals(5, result.writeAmplification, 0.01);
+        assertEquals(1, result.meanSpaceAmplification, 1e-9);
+        assertEquals(2, result.maxSpaceAmplification, 1e-9);
+        assertTrue(result.maxSSTablesPerRead < 4 * 4);
+
+        // larger tiers compact less often, and leave more sstables to read
+        Result larger = simulate(Strategy.STCS, ImmutableMap.of("min_sstable_size", "0", "min_threshold", "8"), 256, 0);
+        assertTrue(larger.writeAmplification < result.writeAmplification);
+        assertTrue(larger.meanSSTablesPerRead > result.meanSSTablesPerRead);
+    }
+
+    @Test
+    public void testLeveled()
+    {
+        Map<String, String> options = ImmutableMap.of("sstable_size_in_mb", "16");
+        Result leveled = simulate(Strategy.LCS, options, 200, 1024 * MiB);
+        Result sizeTiered = simulate(Strategy.STCS, STCS_OPTIONS, 200, 1024 * MiB);
+
+        // leveling trades write amplification for fewer sstables per read and less space
+        assertTrue(leveled.writeAmplification > sizeTiered.writeAmplification);
+        assertTrue(leveled.meanSSTablesPerRead < sizeTiered.meanSSTablesPerRead);
+        assertTrue(leveled.meanSpaceAmplification < sizeTiered.meanSpaceAmplification);
+        assertTrue(leveled.meanSpaceAmplification >= 1);
+        // one sstable per level at most, and L0
+        assertTrue(leveled.maxSSTablesPerRead <= LeveledGenerations.MAX_LEVEL_COUNT + 1);
+    }
+
+    @Test
+    public void testTimeWindow()
+    {
+        Map<String, String> options = ImmutableMap.of("compaction_window_unit", "HOURS", "compaction_window_size", "1", "min_sstable_size", "0");
+        // 10 hours of flushes every minute
+        Result result = CompactionSimulation.simulate(Strategy.TWCS, options, Collections.emptyList(), new Workload(600, 4 * MiB, 60_000, 0));
+        // each closed window ends up in a single sstable, and the current one is size-tiered
+        assertTrue(result.sstables >= 10 && result.sstables < 10 + 4 * 4);
+        assertTrue(result.writeAmplification < 5);
+    }
+
+    @Test
+    public void testUnified()
+    {
+        Result tiered = simulate(Strategy.UCS, ImmutableMap.of("scaling_parameters", "T4"), 256, 0);
+        Result leveled = simulate(Strategy.UCS, ImmutableMap.of("scaling_parameters", "L10"), 256, 0);
+        assertTrue(tiered.writeAmplification < leveled.writeAmplification);
+        assertTrue(tiered.meanSSTablesPerRead > leveled.meanSSTablesPerRead);
+
+        // T4 compacts like STCS with min_threshold 4
+        Result sizeTiered = simulate(Strategy.STCS, STCS_OPTIONS, 256, 0);
+        assertEquals(sizeTiered.writeAmplification, tiered.writeAmplification, 0.5);
+    }
+
+    @Test
+    public void testInitialSSTables()
+    {
+        // a table with four non-overlapping levelled sstables and a few flushes in L0
+        List<SSTable> initial = Arrays.asList(new SSTable(0, 0.25, 16 * MiB, 0, 1000, 1),
+                                              new SSTable(0.25, 0.5, 16 * MiB, 0, 1000, 1),
+                                              new SSTable(0.5, 0.75, 16 * MiB, 0, 1000, 1),
+                                              new SSTable(0.75, 1, 16 * MiB, 0, 1000, 1),
+                                              new SSTable(0, 1, MiB, 1000, 2000, 0),
+                                              new SSTable(0, 1, MiB, 2000, 3000, 0));
+        Workload oneFlush = new Workload(1, MiB, 60_000, 0);
+        Result result = CompactionSimulation.simulate(Strategy.LCS, ImmutableMap.of("sstable_size_in_mb", "16"), initial, oneFlush);
+        // the three L0 sstables are compacted together, and stay in L0 as they do not make an sstable's worth of data
+        assertEquals(1, result.compactions);
+        assertEquals(5, result.sstables);
+        assertEquals(67 * MiB, result.liveSize, 1);
+
+        // all the initial data is overwritten by the writes if the data set is small enough
+        Result overwritten = CompactionSimulation.simulate(Strategy.STCS, STCS_OPTIONS, initial, new Workload(100, 16 * MiB, 60_000, 64 * MiB));
+        assertTrue(overwritten.liveSize <= 64 * MiB * overwritten.maxSpaceAmplification);
+        assertTrue(overwritten.meanSpaceAmplification >= 1);
+    }
+
+    private static Result simulate(Strategy strategy, Map<String, String> options, int flushes, double datasetSize)
+    {
+        return CompactionSimulation.simulate(strategy, options, Collections.emptyList(), new Workload(flushes, 4 * MiB, 60_000, datasetSize));
+    }
+
+    private static SSTable sstable(double first, double last)
+    {
+        return new SSTable(first, last, MiB, 0, 0, 0);
+    }
+}
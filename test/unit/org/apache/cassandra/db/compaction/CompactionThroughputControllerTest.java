@@ -0,0 +1,85 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.db.compaction;
+
+import org.junit.Test;
+
+import org.apache.cassandra.service.disk.usage.DiskUsageState;
+
+import static org.apache.cassandra.db.compaction.CompactionThroughputController.BACKLOG_DECREASE_FACTOR;
+import static org.apache.cassandra.db.compaction.CompactionThroughputController.DECREASE_FACTOR;
+import static org.apache.cassandra.db.compaction.CompactionThroughputController.INCREASE_STEP;
+import static org.apache.cassandra.db.compaction.CompactionThroughputController.decide;
+import static org.junit.Assert.assertEquals;
+
+public class CompactionThroughputControllerTest
+{
+    private static final double MIN = 16;
+    private static final double MAX = 256;
+    private static final long TARGET = 20_000;
+    private static final int BACKLOG = 16;
+    private static final double STEP = (MAX - MIN) * INCREASE_STEP;
+
+    @Test
+    public void testHighReadLatency()
+    {
+        assertDecision(CompactionThroughputController.Reason.read_latency, 128 * DECREASE_FACTOR,
+                       decide(0, 128, MIN, MAX, TARGET, 30_000, 1_000, 0, BACKLOG, DiskUsageState.SPACIOUS));
+        assertDecision(CompactionThroughputController.Reason.read_latency, 128 * DECREASE_FACTOR,
+                       decide(0, 128, MIN, MAX, TARGET, 1_000, 30_000, 0, BACKLOG, DiskUsageState.NOT_AVAILABLE));
+        // lowered less while the compactions are piling up
+        assertDecision(CompactionThroughputController.Reason.read_latency, 128 * BACKLOG_DECREASE_FACTOR,
+                       decide(0, 128, MIN, MAX, TARGET, 30_000, 1_000, BACKLOG, BACKLOG, DiskUsageState.SPACIOUS));
+        // but never below the minimum
+        assertDecision(CompactionThroughputController.Reason.read_latency, MIN,
+                       decide(0, MIN, MIN, MAX, TARGET, 30_000, 1_000, 0, BACKLOG, DiskUsageState.SPACIOUS));
+    }
+
+    @Test
+    public void testDiskUsage()
+    {
+        // compaction frees up space, so it is sped up even if the reads are slow
+        assertDecision(CompactionThroughputController.Reason.disk_usage, 128 + STEP,
+                       decide(0, 128, MIN, MAX, TARGET, 30_000, 1_000, 0, BACKLOG, DiskUsageState.STUFFED));
+        assertDecision(CompactionThroughputController.Reason.disk_usage, MAX,
+                       decide(0, MAX, MIN, MAX, TARGET, 10_000, 1_000, 0, BACKLOG, DiskUsageState.FULL));
+    }
+
+    @Test
+    public void testBacklog()
+    {
+        assertDecision(CompactionThroughputController.Reason.backlog, 128 + STEP,
+                       decide(0, 128, MIN, MAX, TARGET, 15_000, 1_000, BACKLOG, BACKLOG, DiskUsageState.SPACIOUS));
+    }
+
+    @Test
+    public void testLowReadLatency()
+    {
+        assertDecision(CompactionThroughputController.Reason.low_read_latency, 128 + STEP,
+                       decide(0, 128, MIN, MAX, TARGET, 5_000, 1_000, 0, BACKLOG, DiskUsageState.SPACIOUS));
+        assertDecision(CompactionThroughputController.Reason.steady, 128,
+                       decide(0, 128, MIN, MAX, TARGET, 15_000, 1_000, 0, BACKLOG, DiskUsageState.SPACIOUS));
+    }
+
+    private static void assertDecision(CompactionThroughputController.Reason reason, double throughput, CompactionThroughputController.Decision decision)
+    {
+        assertEquals(reason, decision.reason);
+        assertEquals(throughput, decision.throughputBytesPerSec, 0.001);
+        assertEquals(throughput / MAX, decision.streamingThroughputRatio, 0.001);
+    }
+}
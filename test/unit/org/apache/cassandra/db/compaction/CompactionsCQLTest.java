@@ -130,6 +130,37 @@ public class CompactionsCQLTest extends CQLTester
     }
 
 
+    @Test
+    public void testCompactionWithReadAhead() throws Throwable
+    {
+        createTable("CREATE TABLE %s (k int, c int, v text, PRIMARY KEY (k, c)) WITH compression = {'class': 'LZ4Compressor', 'chunk_length_in_kb': 4}");
+        ColumnFamilyStore cfs = getCurrentColumnFamilyStore();
+        cfs.disableAutoCompaction();
+        String value = StringUtils.repeat('x', 100);
+        for (int i = 0; i < 2; i++)
+        {
+            for (int k = 0; k < 100; k++)
+            {
+                for (int c = i; c < 50; c += 2)
+                    execute("INSERT INTO %s (k, c, v) VALUES (?, ?, ?)", k, c, value + c);
+            }
+            flush();
+        }
+        Object[][] expected = getRows(execute("SELECT * FROM %s"));
+
+        DatabaseDescriptor.setUncachedReadAheadChunks(4);
+        try
+        {
+            compact();
+        }
+        finally
+        {
+            DatabaseDescriptor.setUncachedReadAheadChunks(0);
+        }
+        assertEquals(1, cfs.getLiveSSTables().size());
+        assertRows(execute("SELECT * FROM %s"), expected);
+    }
+
     @Test
     public void testTriggerNoMinorCompactionSTCSDisabled() throws Throwable
     {
@@ -0,0 +1,241 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.cassandra.db.compaction;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.base.Throwables;
+import com.google.common.collect.Iterables;
+import com.google.common.util.concurrent.Uninterruptibles;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import org.apache.cassandra.cql3.CQLTester;
+import org.apache.cassandra.db.ColumnFamilyStore;
+import org.apache.cassandra.db.lifecycle.LifecycleTransaction;
+import org.apache.cassandra.io.sstable.ISSTableScanner;
+import org.apache.cassandra.io.sstable.format.ExcludedPartitions;
+import org.apache.cassandra.io.sstable.format.SSTableFormat.Components;
+import org.apache.cassandra.io.sstable.format.SSTableReader;
+import org.apache.cassandra.utils.FBUtilities;
+import org.jboss.byteman.contrib.bmunit.BMRule;
+import org.jboss.byteman.contrib.bmunit.BMUnitRunner;
+
+import static org.apache.cassandra.utils.ByteBufferUtil.bytes;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+@RunWith(BMUnitRunner.class)
+public class IncrementalTombstoneCompactionTest extends CQLTester
+{
+    private static final int PARTITIONS = 100;
+    private static final int ROWS = 5;
+
+    @Test
+    public void testRewritesOnlyPartitionsWithDroppableTombstones() throws Throwable
+    {
+        ColumnFamilyStore cfs = createTableWithTombstones(3, 7);
+        SSTableReader original = Iterables.getOnlyElement(cfs.getLiveSSTables());
+        Object[][] expected = getRows(execute("SELECT k, t, v FROM %s"));
+
+        execute(cfs, original, FBUtilities.nowInSeconds());
+
+        // the original is kept, without the rewritten partitions
+        assertEquals(2, cfs.getLiveSSTables().size());
+        SSTableReader kept = Iterables.getOnlyElement(Iterables.filter(cfs.getLiveSSTables(), s -> s.descriptor.equals(original.descriptor)));
+        SSTableReader delta = Iterables.getOnlyElement(Iterables.filter(cfs.getLiveSSTables(), s -> !s.descriptor.equals(original.descriptor)));
+        assertEquals(2, kept.getExcludedPartitions().size());
+        assertTrue(kept.isExcluded(cfs.decorateKey(bytes(3))));
+        assertFalse(kept.isExcluded(cfs.decorateKey(bytes(4))));
+        assertTrue(kept.descriptor.fileFor(Components.EXCLUDED).exists());
+        assertFalse(kept.descriptor.tmpFileFor(Components.EXCLUDED).exists());
+        assertEquals(PARTITIONS - 2, countPartitions(kept));
+        assertEquals(2, countPartitions(delta));
+        assertEquals(0, delta.getEstimatedDroppableTombstoneRatio(FBUtilities.nowInSeconds()), 0);
+
+        assertRows(execute("SELECT k, t, v FROM %s"), expected);
+        assertRows(execute("SELECT t, v FROM %s WHERE k = 3"), row(0, 0), row(2, 2), row(3, 3), row(4, 4));
+        assertRows(execute("SELECT t, v FROM %s WHERE k = 4"), row(0, 0), row(1, 1), row(2, 2), row(3, 3), row(4, 4));
+
+        // the exclusions are saved with the sstable
+        SSTableReader reopened = SSTableReader.open(cfs, original.descriptor);
+        try
+        {
+            assertEquals(2, reopened.getExcludedPartitions().size());
+            assertEquals(PARTITIONS - 2, countPartitions(reopened));
+        }
+        finally
+        {
+            reopened.selfRef().release();
+        }
+
+        // a full compaction drops the excluded partitions of the original, and keeps the rewritten ones
+        compact();
+        assertEquals(1, cfs.getLiveSSTables().size());
+        LifecycleTransaction.waitForDeletions();
+        assertFalse(original.descriptor.fileFor(Components.EXCLUDED).exists());
+        assertRows(execute("SELECT k, t, v FROM %s"), expected);
+    }
+
+    @Test
+    public void testRewritesEntirelyWithTooManyPartitions() throws Throwable
+    {
+        // the number of partitions of the sstable is estimated, so well over the ratio of them are deleted
+        int[] deleted = new int[(int) (PARTITIONS * IncrementalTombstoneCompactionTask.MAX_REWRITTEN_RATIO) * 3];
+        for (int i = 0; i < deleted.length; i++)
+            deleted[i] = i * 3;
+        ColumnFamilyStore cfs = createTableWithTombstones(deleted);
+        SSTableReader original = Iterables.getOnlyElement(cfs.getLiveSSTables());
+        Object[][] expected = getRows(execute("SELECT k, t, v FROM %s"));
+
+        execute(cfs, original, FBUtilities.nowInSeconds());
+
+        SSTableReader rewritten = Iterables.getOnlyElement(cfs.getLiveSSTables());
+        assertFalse(rewritten.descriptor.equals(original.descriptor));
+        assertNull(rewritten.getExcludedPartitions());
+        assertRows(execute("SELECT k, t, v FROM %s"), expected);
+    }
+
+    @Test
+    public void testRecordsCompactionWithoutDroppableTombstones() throws Throwable
+    {
+        ColumnFamilyStore cfs = createTableWithTombstones(3);
+        SSTableReader original = Iterables.getOnlyElement(cfs.getLiveSSTables());
+
+        // none of the tombstones is droppable yet
+        execute(cfs, original, 1);
+
+        SSTableReader kept = Iterables.getOnlyElement(cfs.getLiveSSTables());
+        assertEquals(original.descriptor, kept.descriptor);
+        assertEquals(0, kept.getExcludedPartitions().size());
+        assertEquals(1, kept.getExcludedPartitions().gcBefore);
+        assertEquals(PARTITIONS, countPartitions(kept));
+    }
+
+    @Test
+    @BMRule(name = "Fail the incremental compaction once the exclusions are staged",
+            targetClass = "SSTableRewriter",
+            targetMethod = "doPrepare",
+            targetLocation = "AT ENTRY",
+            action = "throw new java.lang.RuntimeException(\"Injected failure\");")
+    public void testAbortKeepsSavedExclusions() throws Throwable
+    {
+        ColumnFamilyStore cfs = createTableWithTombstones(3, 7);
+        SSTableReader original = Iterables.getOnlyElement(cfs.getLiveSSTables());
+        Object[][] expected = getRows(execute("SELECT k, t, v FROM %s"));
+        // saves exclusions without any partition
+        execute(cfs, original, 1);
+
+        try
+        {
+            execute(cfs, original, FBUtilities.nowInSeconds());
+            fail("Expected the compaction to fail");
+        }
+        catch (RuntimeException e)
+        {
+            assertTrue(Throwables.getRootCause(e).getMessage().contains("Injected failure"));
+        }
+
+        // the new exclusions are neither live nor saved
+        SSTableReader kept = Iterables.getOnlyElement(cfs.getLiveSSTables());
+        assertEquals(original.descriptor, kept.descriptor);
+        assertEquals(0, kept.getExcludedPartitions().size());
+        ExcludedPartitions saved = ExcludedPartitions.load(original.descriptor, cfs.getPartitioner());
+        assertEquals(0, saved.size());
+        assertEquals(1, saved.gcBefore);
+        assertFalse(original.descriptor.tmpFileFor(Components.EXCLUDED).exists());
+        assertRows(execute("SELECT k, t, v FROM %s"), expected);
+    }
+
+    @Test
+    public void testStrategyDoesNotRepeatIncrementalCompactions() throws Throwable
+    {
+        ColumnFamilyStore cfs = createTableWithTombstones(3, 7);
+        Map<String, String> options = new HashMap<>();
+        options.put(AbstractCompactionStrategy.INCREMENTAL_TOMBSTONE_COMPACTION_OPTION, "true");
+        options.put(AbstractCompactionStrategy.TOMBSTONE_THRESHOLD_OPTION, "0");
+        options.put(AbstractCompactionStrategy.TOMBSTONE_COMPACTION_INTERVAL_OPTION, "0");
+        options.put(AbstractCompactionStrategy.UNCHECKED_TOMBSTONE_COMPACTION_OPTION, "true");
+        SizeTieredCompactionStrategy stcs = new SizeTieredCompactionStrategy(cfs, options);
+        for (SSTableReader sstable : cfs.getLiveSSTables())
+            stcs.addSSTable(sstable);
+        stcs.startup();
+        // the deletion times of the estimated droppable tombstones are rounded up
+        long gcBefore = FBUtilities.nowInSeconds() + TimeUnit.HOURS.toSeconds(1);
+
+        AbstractCompactionTask task = stcs.getNextBackgroundTask(gcBefore);
+        assertNotNull(task);
+        assertTrue(task instanceof IncrementalTombstoneCompactionTask);
+        task.execute(ActiveCompactionsTracker.NOOP);
+        assertEquals(2, cfs.getLiveSSTables().size());
+
+        // the tombstones of the original sstable were droppable at its last incremental tombstone compaction
+        assertNull(stcs.getNextBackgroundTask(gcBefore));
+    }
+
+    /**
+     * Creates a table with a single sstable, where the given partitions have a deleted row.
+     */
+    private ColumnFamilyStore createTableWithTombstones(int... deleted) throws Throwable
+    {
+        createTable("CREATE TABLE %s (k int, t int, v int, PRIMARY KEY (k, t)) WITH gc_grace_seconds = 0");
+        ColumnFamilyStore cfs = getCurrentColumnFamilyStore();
+        cfs.disableAutoCompaction();
+
+        for (int k = 0; k < PARTITIONS; k++)
+        {
+            for (int t = 0; t < ROWS; t++)
+                execute("INSERT INTO %s (k, t, v) VALUES (?, ?, ?)", k, t, t);
+        }
+        for (int k : deleted)
+            execute("DELETE FROM %s WHERE k = ? AND t = 1", k);
+        flush();
+
+        // the tombstones are droppable once their local deletion time is before gcBefore
+        Uninterruptibles.sleepUninterruptibly(1, TimeUnit.SECONDS);
+        return cfs;
+    }
+
+    private static void execute(ColumnFamilyStore cfs, SSTableReader sstable, long gcBefore)
+    {
+        LifecycleTransaction txn = cfs.getTracker().tryModify(sstable, OperationType.COMPACTION);
+        assertNotNull(txn);
+        new IncrementalTombstoneCompactionTask(cfs, txn, gcBefore).execute(ActiveCompactionsTracker.NOOP);
+    }
+
+    private static int countPartitions(SSTableReader sstable)
+    {
+        int count = 0;
+        try (ISSTableScanner scanner = sstable.getScanner())
+        {
+            while (scanner.hasNext())
+            {
+                scanner.next().close();
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -539,6 +539,30 @@ public class ControllerTest
         assertEquals(Controller.ALLOW_UNSAFE_AGGRESSIVE_SSTABLE_EXPIRATION, controller.getIgnoreOverlapsInExpirationCheck());
     }
 
+    @Test
+    public void testParallelizeOutputShards()
+    {
+        Map<String, String> options = new HashMap<>();
+
+        Controller controller = testFromOptions(options);
+        assertEquals(Controller.DEFAULT_PARALLELIZE_OUTPUT_SHARDS, controller.parallelizeOutputShards());
+
+        options.put(Controller.PARALLELIZE_OUTPUT_SHARDS_OPTION, "true");
+        controller = testFromOptions(options);
+        assertTrue(controller.parallelizeOutputShards());
+
+        try
+        {
+            options.put(Controller.PARALLELIZE_OUTPUT_SHARDS_OPTION, "sometimes");
+            testFromOptions(options);
+            fail("Exception should be thrown");
+        }
+        catch (ConfigurationException e)
+        {
+            // valid path
+        }
+    }
+
     @Test
     public void testBaseShardCountDefault()
     {
@@ -0,0 +1,127 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.cassandra.db.compaction.unified;
+
+import java.util.List;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import org.apache.cassandra.config.DatabaseDescriptor;
+import org.apache.cassandra.cql3.CQLTester;
+import org.apache.cassandra.db.ColumnFamilyStore;
+import org.apache.cassandra.db.compaction.AbstractCompactionTask;
+import org.apache.cassandra.db.compaction.ActiveCompactionsTracker;
+import org.apache.cassandra.db.compaction.CompactionManager;
+import org.apache.cassandra.db.compaction.CompactionTasks;
+import org.apache.cassandra.db.compaction.OperationType;
+import org.apache.cassandra.dht.Range;
+import org.apache.cassandra.dht.Token;
+import org.apache.cassandra.io.sstable.format.SSTableReader;
+import org.apache.cassandra.service.StorageService;
+import org.apache.cassandra.utils.FBUtilities;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks that a compaction split into sub-ranges by {@link UnifiedCompactionTask} writes the same data as the input.
+ */
+public class ParallelCompactionTest extends CQLTester
+{
+    private static final String COMPACTION = "{'class': 'UnifiedCompactionStrategy', 'base_shard_count': '%d', " +
+                                             "'min_sstable_size': '0MiB', 'sstable_growth': '1', 'parallelize_output_shards': 'true'}";
+
+    @BeforeClass
+    public static void beforeClass()
+    {
+        StorageService.instance.initServer();
+    }
+
+    @Test
+    public void testParallelMajorCompaction() throws Throwable
+    {
+        testMajorCompaction();
+    }
+
+    @Test
+    public void testSubrangesWithoutThreads() throws Throwable
+    {
+        // the sub-ranges are compacted one after the other in the task's thread if the compaction threads are all busy
+        int threads = CompactionManager.instance.reserveSubtaskThreads(Integer.MAX_VALUE);
+        try
+        {
+            assertTrue(threads <= DatabaseDescriptor.getConcurrentCompactors());
+            assertEquals(0, CompactionManager.instance.reserveSubtaskThreads(1));
+            testMajorCompaction();
+        }
+        finally
+        {
+            CompactionManager.instance.releaseSubtaskThreads(threads);
+        }
+    }
+
+    private void testMajorCompaction() throws Throwable
+    {
+        // flush whole-ring sstables, so that they are compacted in a single task
+        createTable("CREATE TABLE %s (k int, t int, v int, PRIMARY KEY (k, t)) WITH compaction = " + String.format(COMPACTION, 1));
+        ColumnFamilyStore cfs = getCurrentColumnFamilyStore();
+        cfs.disableAutoCompaction();
+
+        for (int i = 0; i < 4; i++)
+        {
+            for (int k = 0; k < 200; k++)
+            {
+                for (int t = 0; t < 5; t++)
+                    execute("INSERT INTO %s (k, t, v) VALUES (?, ?, ?)", k, t, i * 10 + t);
+            }
+            execute("DELETE FROM %s WHERE k = ?", i);
+            execute("DELETE FROM %s WHERE k = ? AND t = ?", 100 + i, i);
+            flush();
+        }
+        assertEquals(4, cfs.getLiveSSTables().size());
+        Object[][] expected = getRows(execute("SELECT k, t, v FROM %s"));
+
+        alterTable("ALTER TABLE %s WITH compaction = " + String.format(COMPACTION, 8));
+        try (CompactionTasks tasks = cfs.getCompactionStrategyManager().getMaximalTasks(FBUtilities.nowInSeconds(), false, OperationType.MAJOR_COMPACTION))
+        {
+            assertEquals(1, tasks.size());
+            AbstractCompactionTask task = tasks.iterator().next();
+            assertTrue(task instanceof UnifiedCompactionTask);
+
+            // the 8 output shards are split in concurrent_compactors sub-ranges of consecutive shards
+            List<Range<Token>> subranges = ((UnifiedCompactionTask) task).getParallelSubranges(cfs.getLiveSSTables());
+            assertEquals(DatabaseDescriptor.getConcurrentCompactors(), subranges.size());
+            for (int i = 1; i < subranges.size(); i++)
+                assertEquals(subranges.get(i - 1).right, subranges.get(i).left);
+            assertEquals(subranges.get(0).left, subranges.get(subranges.size() - 1).right);
+
+            task.execute(ActiveCompactionsTracker.NOOP);
+        }
+
+        assertEquals(8, cfs.getLiveSSTables().size());
+        for (SSTableReader sstable : cfs.getLiveSSTables())
+        {
+            for (SSTableReader other : cfs.getLiveSSTables())
+                assertFalse(sstable != other && sstable.getFirst().compareTo(other.getFirst()) <= 0 && sstable.getLast().compareTo(other.getFirst()) >= 0);
+        }
+        assertRows(execute("SELECT k, t, v FROM %s"), expected);
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.cassandra.db.memtable;
+
+import java.util.List;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class MemtableFlushSchedulerTest
+{
+    @Test
+    public void testPrefersColdTables()
+    {
+        MemtableFlushScheduler.Candidate hot = candidate("hot", 0.30f, 1000, 4, 0);
+        MemtableFlushScheduler.Candidate cold = candidate("cold", 0.25f, 10, 4, 0);
+        List<MemtableFlushScheduler.Candidate> candidates = List.of(hot, cold);
+        MemtableFlushScheduler.score(candidates);
+        assertSame(cold, MemtableFlushScheduler.best(candidates));
+    }
+
+    @Test
+    public void testPrefersTablesWithFewSSTables()
+    {
+        MemtableFlushScheduler.Candidate fragmented = candidate("fragmented", 0.30f, 100, 20, 5);
+        MemtableFlushScheduler.Candidate compacted = candidate("compacted", 0.25f, 100, 2, 0);
+        List<MemtableFlushScheduler.Candidate> candidates = List.of(fragmented, compacted);
+        MemtableFlushScheduler.score(candidates);
+        assertSame(compacted, MemtableFlushScheduler.best(candidates));
+    }
+
+    @Test
+    public void testIgnoresSmallMemtables()
+    {
+        MemtableFlushScheduler.Candidate large = candidate("large", 0.40f, 1000, 30, 10);
+        MemtableFlushScheduler.Candidate small = candidate("small", 0.10f, 1, 0, 0);
+        List<MemtableFlushScheduler.Candidate> candidates = List.of(large, small);
+        MemtableFlushScheduler.score(candidates);
+        assertEquals(0, small.score, 0);
+        assertSame(large, MemtableFlushScheduler.best(candidates));
+    }
+
+    private static MemtableFlushScheduler.Candidate candidate(String table, float ownershipRatio, double writeRate,
+                                                             int liveSSTables, int pendingCompactions)
+    {
+        return new MemtableFlushScheduler.Candidate(null, "ks", table, ownershipRatio, writeRate, liveSSTables, pendingCompactions);
+    }
+}
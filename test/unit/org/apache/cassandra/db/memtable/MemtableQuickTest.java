@@ -63,7 +63,8 @@ public class MemtableQuickTest extends CQLTester
         return ImmutableList.of("skiplist",
                                 "skiplist_sharded",
                                 "skiplist_sharded_locking",
-                                "trie");
+                                "trie",
+                                "trie_concurrent");
     }
 
     @BeforeClass
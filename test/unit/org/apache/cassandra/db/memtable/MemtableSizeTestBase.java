@@ -70,7 +70,8 @@ public abstract class MemtableSizeTestBase extends CQLTester
     {
         return ImmutableList.of("skiplist",
                                 "skiplist_sharded",
-                                "trie");
+                                "trie",
+                                "trie_offheap_rows");
     }
 
     // Must be within 3% of the real usage. We are actually more precise than this, but the threshold is set higher to
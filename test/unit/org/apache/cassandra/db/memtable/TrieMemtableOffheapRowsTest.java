@@ -0,0 +1,162 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.cassandra.db.memtable;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import org.apache.cassandra.config.Config;
+import org.apache.cassandra.cql3.CQLTester;
+import org.apache.cassandra.db.ColumnFamilyStore;
+import org.apache.cassandra.db.marshal.Int32Type;
+import org.apache.cassandra.db.rows.NativeRow;
+import org.apache.cassandra.db.rows.UnfilteredRowIterator;
+import org.apache.cassandra.dht.Token;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class TrieMemtableOffheapRowsTest extends CQLTester
+{
+    // Overrides CQLTester.setUpClass to run before it
+    @BeforeClass
+    public static void setUpClass()
+    {
+        MemtableSizeTestBase.setup(Config.MemtableAllocationType.offheap_objects);
+    }
+
+    @Test
+    public void testRowsAreStoredOffHeap() throws Throwable
+    {
+        createTable("CREATE TABLE %s (pk int, ck int, s text static, v text, PRIMARY KEY (pk, ck)) WITH memtable = 'trie_offheap_rows'");
+        execute("INSERT INTO %s (pk, ck, s, v) VALUES (1, 1, 'static', 'a')");
+        execute("INSERT INTO %s (pk, ck, v) VALUES (1, 2, 'b')");
+
+        ColumnFamilyStore cfs = getCurrentColumnFamilyStore();
+        TrieMemtable memtable = (TrieMemtable) cfs.getTracker().getView().getCurrentMemtable();
+        Token token = cfs.decorateKey(Int32Type.instance.decompose(1)).getToken();
+        int rows = 0;
+        // the flush set deserializes the rows stored in native memory once, rather than on every access
+        for (TrieMemtable.MemtablePartition partition : memtable.getFlushSet(token.minKeyBound(), token.maxKeyBound()))
+        {
+            try (UnfilteredRowIterator iterator = partition.unfilteredIterator())
+            {
+                assertFalse(iterator.staticRow() instanceof NativeRow);
+                while (iterator.hasNext())
+                {
+                    assertFalse(iterator.next() instanceof NativeRow);
+                    rows++;
+                }
+            }
+        }
+        assertEquals(2, rows);
+
+        assertRows(execute("SELECT * FROM %s WHERE pk = 1"),
+                   row(1, 1, "static", "a"),
+                   row(1, 2, "static", "b"));
+    }
+
+    @Test
+    public void testUpdatesAndDeletions() throws Throwable
+    {
+        createTable("CREATE TABLE %s (pk int, ck int, s int static, v text, l list<int>, m map<text, int>, st set<int>, " +
+                    "PRIMARY KEY (pk, ck)) WITH memtable = 'trie_offheap_rows'");
+
+        for (int pk = 0; pk < 10; pk++)
+        {
+            execute("INSERT INTO %s (pk, s) VALUES (?, ?)", pk, pk);
+            for (int ck = 0; ck < 10; ck++)
+                execute("INSERT INTO %s (pk, ck, v, l, m, st) VALUES (?, ?, ?, [1, 2], {'a': 1}, {1})", pk, ck, "v" + ck);
+        }
+
+        execute("UPDATE %s SET v = 'updated', l = l + [3], m['b'] = 2 WHERE pk = 0 AND ck = 0");
+        execute("UPDATE %s SET s = 100 WHERE pk = 0");
+        execute("UPDATE %s USING TTL 1000 SET st = st + {2} WHERE pk = 0 AND ck = 1");
+        execute("DELETE m FROM %s WHERE pk = 0 AND ck = 2");
+        execute("DELETE FROM %s WHERE pk = 0 AND ck = 3");
+        execute("DELETE FROM %s WHERE pk = 0 AND ck > 7");
+        execute("DELETE FROM %s WHERE pk = 1");
+
+        beforeAndAfterFlush(() -> {
+            assertRows(execute("SELECT ck, s, v, l, m, st FROM %s WHERE pk = 0"),
+                       row(0, 100, "updated", list(1, 2, 3), map("a", 1, "b", 2), set(1)),
+                       row(1, 100, "v1", list(1, 2), map("a", 1), set(1, 2)),
+                       row(2, 100, "v2", list(1, 2), null, set(1)),
+                       row(4, 100, "v4", list(1, 2), map("a", 1), set(1)),
+                       row(5, 100, "v5", list(1, 2), map("a", 1), set(1)),
+                       row(6, 100, "v6", list(1, 2), map("a", 1), set(1)),
+                       row(7, 100, "v7", list(1, 2), map("a", 1), set(1)));
+            assertEmpty(execute("SELECT * FROM %s WHERE pk = 1"));
+            assertRowCount(execute("SELECT * FROM %s"), 8 * 10 + 7);
+            assertRows(execute("SELECT v FROM %s WHERE pk = 5 AND ck = 5"), row("v5"));
+        });
+    }
+
+    @Test
+    public void testColumnsAddedAfterMemtableCreation() throws Throwable
+    {
+        createTable("CREATE TABLE %s (pk int, ck int, v int, PRIMARY KEY (pk, ck)) WITH memtable = 'trie_offheap_rows'");
+        execute("INSERT INTO %s (pk, ck, v) VALUES (0, 0, 0)");
+        execute("ALTER TABLE %s ADD w text");
+        execute("INSERT INTO %s (pk, ck, w) VALUES (0, 1, 'w')");
+        execute("UPDATE %s SET w = 'x' WHERE pk = 0 AND ck = 0");
+
+        beforeAndAfterFlush(() -> assertRows(execute("SELECT * FROM %s"),
+                                             row(0, 0, 0, "x"),
+                                             row(0, 1, null, "w")));
+    }
+
+    @Test
+    public void testLargeRowUpdates() throws Throwable
+    {
+        createTable("CREATE TABLE %s (pk int, ck int, v int, m map<int, text>, PRIMARY KEY (pk, ck)) WITH memtable = 'trie_offheap_rows'");
+        String value = "x".repeat(100);
+        int entries = 100;
+        Map<Integer, String> expected = new HashMap<>();
+        // the row is kept on heap once larger than NativeRowPartitionUpdater.MAX_UPDATED_NATIVE_ROW_DATA_SIZE, and
+        // updated in place from then on
+        for (int i = 0; i < entries; i++)
+        {
+            execute("UPDATE %s SET v = ?, m[?] = ? WHERE pk = 0 AND ck = 0", i, i, value);
+            expected.put(i, value);
+        }
+        execute("UPDATE %s SET m[0] = 'updated' WHERE pk = 0 AND ck = 0");
+        execute("DELETE m[1] FROM %s WHERE pk = 0 AND ck = 0");
+        expected.put(0, "updated");
+        expected.remove(1);
+
+        beforeAndAfterFlush(() -> assertRows(execute("SELECT * FROM %s"),
+                                             row(0, 0, expected, entries - 1)));
+    }
+
+    @Test
+    public void testOptionIsPartOfTheFactory()
+    {
+        Map<String, String> options = ImmutableMap.of(TrieMemtable.OFFHEAP_ROWS_OPTION, "true");
+        Set<Memtable.Factory> factories = ImmutableSet.of(TrieMemtable.factory(new HashMap<>(options)),
+                                                          TrieMemtable.factory(new HashMap<>()));
+        assertEquals(2, factories.size());
+    }
+}
@@ -0,0 +1,194 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.db.partitions;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Test;
+
+import org.apache.cassandra.Util;
+import org.apache.cassandra.cql3.CQLTester;
+import org.apache.cassandra.db.Clustering;
+import org.apache.cassandra.db.ClusteringComparator;
+import org.apache.cassandra.db.ColumnFamilyStore;
+import org.apache.cassandra.db.Slice;
+import org.apache.cassandra.db.Slices;
+import org.apache.cassandra.db.filter.ColumnFilter;
+import org.apache.cassandra.db.rows.Row;
+import org.apache.cassandra.db.rows.Unfiltered;
+import org.apache.cassandra.db.rows.UnfilteredRowIterator;
+import org.apache.cassandra.io.util.DataOutputBuffer;
+import org.apache.cassandra.schema.ColumnMetadata;
+import org.apache.cassandra.schema.TableMetadata;
+import org.apache.cassandra.utils.ByteBufferUtil;
+import org.apache.cassandra.utils.FBUtilities;
+import org.apache.cassandra.utils.btree.BTreeSet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class SerializedCachedPartitionTest extends CQLTester
+{
+    @Test
+    public void testSameAsCachedBTreePartition() throws Throwable
+    {
+        createTable("CREATE TABLE %s (pk int, c int, s int static, v1 int, v2 text, PRIMARY KEY (pk, c))");
+        execute("INSERT INTO %s (pk, s) VALUES (0, 42)");
+        for (int c = 0; c < 100; c++)
+            execute("INSERT INTO %s (pk, c, v1, v2) VALUES (0, ?, ?, ?)", c, c, "value" + c);
+        execute("UPDATE %s USING TTL 1000 SET v1 = 0 WHERE pk = 0 AND c = 10");
+        execute("DELETE FROM %s WHERE pk = 0 AND c >= 40 AND c < 45");
+        execute("DELETE FROM %s WHERE pk = 0 AND c = 50");
+        execute("DELETE v2 FROM %s WHERE pk = 0 AND c = 60");
+
+        ColumnFamilyStore cfs = getCurrentColumnFamilyStore();
+        TableMetadata metadata = cfs.metadata();
+        ImmutableBTreePartition read = Util.getOnlyPartitionUnfiltered(Util.cmd(cfs, 0).build());
+        CachedBTreePartition cached = CachedBTreePartition.create(read.unfilteredIterator(), FBUtilities.nowInSeconds());
+
+        ByteBuffer serialized;
+        try (DataOutputBuffer out = new DataOutputBuffer())
+        {
+            SerializedCachedPartition.serializer.serialize(cached, out);
+            assertEquals(SerializedCachedPartition.serializer.serializedSize(cached), out.getLength());
+            // like in the memory of the cache
+            serialized = ByteBuffer.allocateDirect(out.getLength());
+            serialized.put(out.asNewBuffer()).flip();
+        }
+
+        AtomicBoolean closed = new AtomicBoolean();
+        try (SerializedCachedPartition partition = SerializedCachedPartition.open(serialized, () -> closed.set(true)))
+        {
+            assertEquals(cached.rowCount(), partition.rowCount());
+            assertEquals(cached.cachedLiveRows(), partition.cachedLiveRows());
+            assertEquals(cached.rowsWithNonExpiringCells(), partition.rowsWithNonExpiringCells());
+            assertEquals(cached.partitionKey(), partition.partitionKey());
+            assertEquals(cached.lastRow(), partition.lastRow());
+            for (int c : new int[]{ 0, 10, 42, 50, 60, 99, 100 })
+            {
+                Clustering<?> clustering = metadata.comparator.make(c);
+                assertEquals(cached.getRow(clustering), partition.getRow(clustering));
+            }
+            assertEquals(cached.getRow(Clustering.STATIC_CLUSTERING), partition.getRow(Clustering.STATIC_CLUSTERING));
+
+            ClusteringComparator comparator = metadata.comparator;
+            ColumnMetadata v1 = metadata.getColumn(ByteBufferUtil.bytes("v1"));
+            ColumnMetadata s = metadata.getColumn(ByteBufferUtil.bytes("s"));
+            List<ColumnFilter> columnFilters = List.of(ColumnFilter.all(metadata),
+                                                       ColumnFilter.selectionBuilder().add(v1).build(),
+                                                       ColumnFilter.selectionBuilder().add(v1).add(s).build());
+            List<Slices> slicesList = List.of(Slices.ALL,
+                                              Slices.NONE,
+                                              Slices.with(comparator, Slice.make(comparator.make(5), comparator.make(20))),
+                                              Slices.with(comparator, Slice.make(comparator.make(38), comparator.make(47))),
+                                              Slices.with(comparator, Slice.make(comparator.make(200), comparator.make(300))),
+                                              new Slices.Builder(comparator).add(Slice.make(comparator.make(0), comparator.make(2)))
+                                                                            .add(Slice.make(comparator.make(41), comparator.make(51)))
+                                                                            .add(Slice.make(comparator.make(97), comparator.make(120)))
+                                                                            .build());
+
+            for (ColumnFilter columns : columnFilters)
+            {
+                for (boolean reversed : new boolean[]{ false, true })
+                {
+                    for (Slices slices : slicesList)
+                        assertSameContent(cached.unfilteredIterator(columns, slices, reversed),
+                                          partition.unfilteredIterator(columns, slices, reversed));
+
+                    NavigableSet<Clustering<?>> clusterings = BTreeSet.<Clustering<?>>builder(comparator)
+                                                                      .add(comparator.make(5))
+                                                                      .add(comparator.make(42))
+                                                                      .add(comparator.make(50))
+                                                                      .add(comparator.make(60))
+                                                                      .add(comparator.make(150))
+                                                                      .build();
+                    // in query order
+                    if (reversed)
+                        clusterings = clusterings.descendingSet();
+                    assertSameContent(cached.unfilteredIterator(columns, clusterings, reversed),
+                                      partition.unfilteredIterator(columns, clusterings, reversed));
+                }
+            }
+        }
+        assertTrue(closed.get());
+    }
+
+    @Test
+    public void testFetchedButNotQueriedColumns() throws Throwable
+    {
+        createTable("CREATE TABLE %s (pk int, c int, v1 int, v2 text, PRIMARY KEY (pk, c))");
+        for (int c = 0; c < 10; c++)
+        {
+            execute("INSERT INTO %s (pk, c, v2) VALUES (0, ?, ?) USING TIMESTAMP 1", c, "value" + c);
+            execute("INSERT INTO %s (pk, c, v1) VALUES (0, ?, ?) USING TIMESTAMP 2", c, c);
+        }
+
+        ColumnFamilyStore cfs = getCurrentColumnFamilyStore();
+        TableMetadata metadata = cfs.metadata();
+        ImmutableBTreePartition read = Util.getOnlyPartitionUnfiltered(Util.cmd(cfs, 0).build());
+        CachedBTreePartition cached = CachedBTreePartition.create(read.unfilteredIterator(), FBUtilities.nowInSeconds());
+        ByteBuffer serialized;
+        try (DataOutputBuffer out = new DataOutputBuffer())
+        {
+            SerializedCachedPartition.serializer.serialize(cached, out);
+            serialized = out.asNewBuffer();
+        }
+
+        ColumnMetadata v1 = metadata.getColumn(ByteBufferUtil.bytes("v1"));
+        ColumnMetadata v2 = metadata.getColumn(ByteBufferUtil.bytes("v2"));
+        ColumnFilter columns = ColumnFilter.allRegularColumnsBuilder(metadata, false).add(v1).build();
+        try (SerializedCachedPartition partition = SerializedCachedPartition.open(serialized, null);
+             UnfilteredRowIterator iterator = partition.unfilteredIterator(columns, Slices.ALL, false))
+        {
+            int c = 0;
+            while (iterator.hasNext())
+            {
+                Row row = (Row) iterator.next();
+                assertEquals(metadata.comparator.make(c), row.clustering());
+                assertEquals(ByteBufferUtil.bytes(c), row.getCell(v1).buffer());
+                // the cells of the columns which are not queried are older than the row, so not even read
+                assertNull(row.getCell(v2));
+                c++;
+            }
+            assertEquals(10, c);
+        }
+    }
+
+    private static void assertSameContent(UnfilteredRowIterator expected, UnfilteredRowIterator actual)
+    {
+        try (UnfilteredRowIterator e = expected; UnfilteredRowIterator a = actual)
+        {
+            assertEquals(e.partitionLevelDeletion(), a.partitionLevelDeletion());
+            assertEquals(e.staticRow(), a.staticRow());
+            assertEquals(e.isReverseOrder(), a.isReverseOrder());
+            assertEquals(toList(e), toList(a));
+        }
+    }
+
+    private static List<Unfiltered> toList(UnfilteredRowIterator iterator)
+    {
+        List<Unfiltered> list = new ArrayList<>();
+        iterator.forEachRemaining(list::add);
+        return list;
+    }
+}
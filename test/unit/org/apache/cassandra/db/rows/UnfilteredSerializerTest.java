@@ -30,6 +30,7 @@ import org.junit.Test;
 
 import org.apache.cassandra.config.DatabaseDescriptor;
 import org.apache.cassandra.db.Clustering;
+import org.apache.cassandra.db.LivenessInfo;
 import org.apache.cassandra.db.SerializationHeader;
 import org.apache.cassandra.db.filter.ColumnFilter;
 import org.apache.cassandra.db.marshal.BytesType;
@@ -37,10 +38,13 @@ import org.apache.cassandra.db.marshal.IntegerType;
 import org.apache.cassandra.io.util.DataInputBuffer;
 import org.apache.cassandra.io.util.DataOutputBuffer;
 import org.apache.cassandra.net.MessagingService;
+import org.apache.cassandra.schema.ColumnMetadata;
 import org.apache.cassandra.schema.TableMetadata;
+import org.apache.cassandra.utils.ByteBufferUtil;
 
 import static org.assertj.core.api.Assertions.assertThatIOException;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 
 public class UnfilteredSerializerTest
 {
@@ -103,6 +107,56 @@ public class UnfilteredSerializerTest
         }
     }
 
+    @Test
+    public void testFetchedButNotQueriedCells() throws IOException
+    {
+        TableMetadata metadata = TableMetadata.builder("ks", "wide")
+                                              .addPartitionKeyColumn("pk", IntegerType.instance)
+                                              .addRegularColumn("v1", BytesType.instance)
+                                              .addRegularColumn("v2", BytesType.instance)
+                                              .addRegularColumn("v3", BytesType.instance)
+                                              .addRegularColumn("v4", BytesType.instance)
+                                              .build();
+        ColumnMetadata v1 = metadata.getColumn(ByteBufferUtil.bytes("v1"));
+        ColumnMetadata v2 = metadata.getColumn(ByteBufferUtil.bytes("v2"));
+        ColumnMetadata v3 = metadata.getColumn(ByteBufferUtil.bytes("v3"));
+        ColumnMetadata v4 = metadata.getColumn(ByteBufferUtil.bytes("v4"));
+        long timestamp = 1000;
+
+        Row.Builder builder = BTreeRow.sortedBuilder();
+        builder.newRow(Clustering.EMPTY);
+        builder.addPrimaryKeyLivenessInfo(LivenessInfo.create(timestamp, 0));
+        builder.addCell(BufferCell.live(v1, timestamp - 1, ByteBufferUtil.bytes(1)));
+        builder.addCell(BufferCell.live(v2, timestamp - 1, ByteBufferUtil.bytes(2)));
+        builder.addCell(BufferCell.live(v3, timestamp, ByteBufferUtil.bytes(3)));
+        builder.addCell(BufferCell.live(v4, timestamp + 1, ByteBufferUtil.bytes(4)));
+        Row writtenRow = builder.build();
+
+        // only v1 is queried, but all columns are fetched to know if the row exists
+        ColumnFilter filter = ColumnFilter.allRegularColumnsBuilder(metadata, false).add(v1).build();
+        SerializationHeader header = SerializationHeader.makeWithoutStats(metadata);
+        try (DataOutputBuffer out = new DataOutputBuffer())
+        {
+            UnfilteredSerializer.serializer.serialize(writtenRow, new SerializationHelper(header), out, 0, MessagingService.current_version);
+            try (DataInputBuffer in = new DataInputBuffer(out.asNewBuffer(), false))
+            {
+                DeserializationHelper helper = new DeserializationHelper(metadata, MessagingService.current_version, DeserializationHelper.Flag.LOCAL, filter);
+                Row readRow = (Row) UnfilteredSerializer.serializer.deserialize(in, header, helper, BTreeRow.sortedBuilder());
+
+                // the queried cell is read whole
+                assertEquals(ByteBufferUtil.bytes(1), readRow.getCell(v1).buffer());
+                // the other cells older than the row are skipped, as the row timestamp proves its liveness
+                assertNull(readRow.getCell(v2));
+                // and the others are read without their value
+                assertEquals(timestamp, readRow.getCell(v3).timestamp());
+                assertEquals(0, readRow.getCell(v3).valueSize());
+                assertEquals(timestamp + 1, readRow.getCell(v4).timestamp());
+                assertEquals(0, readRow.getCell(v4).valueSize());
+                assertEquals(0, in.available());
+            }
+        }
+    }
+
     private ByteBuffer getSerializedRow(int cellSize) throws IOException
     {
         AtomicReference<ByteBuffer> rowData = new AtomicReference<>();
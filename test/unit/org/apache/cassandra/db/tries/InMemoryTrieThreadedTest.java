@@ -26,6 +26,7 @@ import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.junit.Assert;
 import org.junit.Test;
@@ -43,6 +44,8 @@ public class InMemoryTrieThreadedTest
     private static final int PROGRESS_UPDATE = COUNT / 15;
     private static final int READERS = 8;
     private static final int WALKERS = 2;
+    private static final int UPDATERS = 4;
+    private static final int UPDATED_KEYS = COUNT / 30;
     private static final Random rand = new Random();
 
     static String value(ByteComparable b)
@@ -158,4 +161,102 @@ public class InMemoryTrieThreadedTest
         if (!errors.isEmpty())
             Assert.fail("Got errors:\n" + errors);
     }
+
+    @Test
+    public void testConcurrentUpdates() throws InterruptedException
+    {
+        ByteComparable[] src = generateKeys(rand, UPDATED_KEYS);
+        InMemoryTrie<Long> trie = new InMemoryTrie<>(BufferType.OFF_HEAP);
+        InMemoryTrie.UpsertTransformer<Long, Long> adder = (x, y) -> x == null ? y : x + y;
+        ConcurrentLinkedQueue<Throwable> errors = new ConcurrentLinkedQueue<>();
+        List<Thread> threads = new ArrayList<>();
+        AtomicBoolean writeCompleted = new AtomicBoolean(false);
+        AtomicLong added = new AtomicLong();
+
+        for (int i = 0; i < UPDATERS; ++i)
+        {
+            threads.add(new Thread(() -> {
+                try
+                {
+                    Random r = ThreadLocalRandom.current();
+                    while (!writeCompleted.get())
+                    {
+                        // keys not inserted yet by the mutator are not updated
+                        if (trie.updateExisting(src[r.nextInt(UPDATED_KEYS)], 1L, adder))
+                            added.incrementAndGet();
+                    }
+                }
+                catch (Throwable t)
+                {
+                    t.printStackTrace();
+                    errors.add(t);
+                }
+            }));
+        }
+
+        threads.add(new Thread(() -> {
+            try
+            {
+                // inserts all keys, then keeps updating them like the updaters, but through the structural writes
+                for (int i = 0; i < COUNT; i++)
+                {
+                    ByteComparable b = src[i % UPDATED_KEYS];
+                    if (i % 2 == 0)
+                        trie.apply(Trie.singleton(b, 1L), adder);
+                    else
+                        trie.putRecursive(b, 1L, adder);
+                    added.incrementAndGet();
+                }
+            }
+            catch (Throwable t)
+            {
+                t.printStackTrace();
+                errors.add(t);
+            }
+            finally
+            {
+                writeCompleted.set(true);
+            }
+        }));
+
+        for (Thread t : threads)
+            t.start();
+
+        for (Thread t : threads)
+            t.join();
+
+        if (!errors.isEmpty())
+            Assert.fail("Got errors:\n" + errors);
+
+        // no increment must have been lost
+        long sum = 0;
+        for (Long value : trie.valuesUnordered())
+            sum += value;
+        Assert.assertEquals(UPDATED_KEYS, trie.valuesCount());
+        Assert.assertEquals(added.get(), sum);
+    }
+
+    @Test
+    public void testBoundedUpdateAttempts() throws InMemoryTrie.SpaceExhaustedException
+    {
+        ByteComparable key = generateKeys(rand, 1)[0];
+        InMemoryTrie<Long> trie = new InMemoryTrie<>(BufferType.OFF_HEAP);
+        InMemoryTrie.UpsertTransformer<Long, Long> adder = (x, y) -> x == null ? y : x + y;
+        trie.putRecursive(key, 0L, adder);
+
+        // another writer replaces the content each time the update is merged, so it never gets stored
+        AtomicInteger attempts = new AtomicInteger();
+        InMemoryTrie.UpsertTransformer<Long, Long> contended = (x, y) -> {
+            attempts.incrementAndGet();
+            trie.updateExisting(key, 1L, adder);
+            return x + y;
+        };
+        Assert.assertFalse(trie.updateExisting(key, 100L, contended, 3));
+        Assert.assertEquals(3, attempts.get());
+        Assert.assertEquals(3L, (long) trie.get(key));
+
+        Assert.assertTrue(trie.updateExisting(key, 100L, adder, 1));
+        Assert.assertEquals(103L, (long) trie.get(key));
+        Assert.assertFalse(trie.updateExisting(generateKeys(rand, 1)[0], 1L, adder, 1));
+    }
 }
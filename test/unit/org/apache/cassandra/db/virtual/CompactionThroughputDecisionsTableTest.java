@@ -0,0 +1,93 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.db.virtual;
+
+import java.util.List;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.apache.cassandra.config.DatabaseDescriptor;
+import org.apache.cassandra.cql3.CQLTester;
+import org.apache.cassandra.cql3.UntypedResultSet;
+import org.apache.cassandra.db.compaction.CompactionManager;
+import org.apache.cassandra.db.compaction.CompactionThroughputController;
+import org.apache.cassandra.streaming.StreamManager;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class CompactionThroughputDecisionsTableTest extends CQLTester
+{
+    private static final String KS_NAME = "vts";
+
+    @Before
+    public void config()
+    {
+        CompactionThroughputDecisionsTable table = new CompactionThroughputDecisionsTable(KS_NAME);
+        VirtualKeyspaceRegistry.instance.register(new VirtualKeyspace(KS_NAME, ImmutableList.of(table)));
+        CompactionThroughputController.instance.clearDecisions();
+    }
+
+    @After
+    public void disableAdaptiveThroughput()
+    {
+        DatabaseDescriptor.setCompactionThroughputAdaptiveEnabled(false);
+        CompactionThroughputController.instance.update();
+    }
+
+    @Test
+    public void testSelectAll() throws Throwable
+    {
+        double configured = DatabaseDescriptor.getCompactionThroughputBytesPerSec();
+        double streaming = StreamManager.StreamRateLimiter.getRateLimiterRateInBytes();
+
+        // nothing is decided while disabled
+        CompactionThroughputController.instance.update();
+        assertEquals(0, CompactionThroughputController.instance.recentDecisions().size());
+
+        DatabaseDescriptor.setCompactionThroughputAdaptiveEnabled(true);
+        DatabaseDescriptor.setCompactionThroughputAdaptiveBoundsMebibytesPerSec(16, 256);
+        CompactionThroughputController.instance.update();
+
+        List<CompactionThroughputController.Decision> decisions = CompactionThroughputController.instance.recentDecisions();
+        assertEquals(1, decisions.size());
+        CompactionThroughputController.Decision decision = decisions.get(0);
+        assertTrue(decision.throughputBytesPerSec >= DatabaseDescriptor.getCompactionThroughputAdaptiveMinBytesPerSec());
+        assertTrue(decision.throughputBytesPerSec <= DatabaseDescriptor.getCompactionThroughputAdaptiveMaxBytesPerSec());
+        assertEquals(decision.throughputBytesPerSec, CompactionManager.instance.getRateLimiter().getRate(), 0);
+        assertEquals(decision.throughputBytesPerSec, CompactionThroughputController.instance.getCompactionThroughputBytesPerSec(), 0);
+
+        UntypedResultSet rows = execute("SELECT * FROM vts.compaction_throughput_decisions");
+        assertEquals(1, rows.size());
+        UntypedResultSet.Row row = rows.one();
+        assertEquals(decision.reason.toString(), row.getString("reason"));
+        assertEquals(decision.pendingCompactions, row.getInt("pending_compactions"));
+        assertEquals(decision.diskUsage.toString(), row.getString("disk_usage"));
+        assertEquals(decision.throughputBytesPerSec, row.getDouble("compaction_throughput_bytes_per_second"), 0);
+        assertEquals(decision.streamingThroughputRatio, row.getDouble("streaming_throughput_ratio"), 0);
+
+        // the configured throughputs are restored once disabled
+        DatabaseDescriptor.setCompactionThroughputAdaptiveEnabled(false);
+        CompactionThroughputController.instance.update();
+        assertEquals(configured, CompactionThroughputController.instance.getCompactionThroughputBytesPerSec(), 0);
+        assertEquals(streaming, StreamManager.StreamRateLimiter.getRateLimiterRateInBytes(), 0);
+    }
+}
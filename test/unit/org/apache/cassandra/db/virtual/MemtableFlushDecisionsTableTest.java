@@ -0,0 +1,115 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.cassandra.db.virtual;
+
+import java.util.List;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.apache.cassandra.config.Config;
+import org.apache.cassandra.config.DatabaseDescriptor;
+import org.apache.cassandra.cql3.CQLTester;
+import org.apache.cassandra.cql3.UntypedResultSet;
+import org.apache.cassandra.db.memtable.AbstractAllocatorMemtable;
+import org.apache.cassandra.db.memtable.MemtableFlushScheduler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class MemtableFlushDecisionsTableTest extends CQLTester
+{
+    private static final String KS_NAME = "vts";
+
+    @Before
+    public void config()
+    {
+        MemtableFlushDecisionsTable table = new MemtableFlushDecisionsTable(KS_NAME);
+        VirtualKeyspaceRegistry.instance.register(new VirtualKeyspace(KS_NAME, ImmutableList.of(table)));
+        MemtableFlushScheduler.clearDecisions();
+    }
+
+    @After
+    public void resetScheduler()
+    {
+        DatabaseDescriptor.setMemtableFlushScheduler(Config.MemtableFlushSchedulerType.largest);
+    }
+
+    @Test
+    public void testSelectAll() throws Throwable
+    {
+        createTable("CREATE TABLE %s (pk int PRIMARY KEY, v text)");
+        for (int i = 0; i < 100; i++)
+            execute("INSERT INTO %s (pk, v) VALUES (?, ?)", i, "value" + i);
+
+        DatabaseDescriptor.setMemtableFlushScheduler(Config.MemtableFlushSchedulerType.adaptive);
+        assertTrue(AbstractAllocatorMemtable.flushLargestMemtable().get());
+
+        List<MemtableFlushScheduler.Decision> decisions = MemtableFlushScheduler.recentDecisions();
+        assertEquals(1, decisions.size());
+        MemtableFlushScheduler.Decision decision = decisions.get(0);
+        assertTrue(decision.score > 0);
+        assertTrue(decision.candidates > 0);
+
+        UntypedResultSet rows = execute("SELECT * FROM vts.memtable_flush_decisions");
+        assertEquals(1, rows.size());
+        UntypedResultSet.Row row = rows.one();
+        assertEquals(decision.keyspace, row.getString("keyspace_name"));
+        assertEquals(decision.table, row.getString("table_name"));
+        assertEquals("adaptive", row.getString("scheduler"));
+        assertEquals(decision.score, row.getDouble("score"), 0);
+        assertEquals(decision.liveSSTables, row.getInt("live_sstables"));
+        assertEquals(decision.largestTable, row.getString("largest_table"));
+        assertEquals(decision.adaptiveTable, row.getString("adaptive_table"));
+    }
+
+    @Test
+    public void testLargestSchedulerRecordsTheSameColumns() throws Throwable
+    {
+        createTable("CREATE TABLE %s (pk int PRIMARY KEY, v text)");
+        for (int i = 0; i < 100; i++)
+            execute("INSERT INTO %s (pk, v) VALUES (?, ?)", i, "value" + i);
+        flush();
+        for (int i = 0; i < 100; i++)
+            execute("INSERT INTO %s (pk, v) VALUES (?, ?)", i, "value" + i);
+
+        // decisions made in the same millisecond are all kept
+        assertTrue(AbstractAllocatorMemtable.flushLargestMemtable().get());
+        assertTrue(AbstractAllocatorMemtable.flushLargestMemtable().get());
+
+        UntypedResultSet rows = execute("SELECT * FROM vts.memtable_flush_decisions");
+        assertEquals(2, rows.size());
+        for (UntypedResultSet.Row row : rows)
+        {
+            assertEquals("largest", row.getString("scheduler"));
+            assertTrue(row.getDouble("score") > 0);
+            assertEquals(row.getString("largest_table"), row.getString("keyspace_name") + '.' + row.getString("table_name"));
+            assertTrue(row.has("adaptive_table"));
+        }
+
+        // the compaction state of the chosen table is recorded with the largest scheduler too
+        for (MemtableFlushScheduler.Decision decision : MemtableFlushScheduler.recentDecisions())
+        {
+            if (decision.table.equals(currentTable()))
+                assertTrue(decision.liveSSTables > 0);
+        }
+    }
+}
@@ -45,6 +45,7 @@ import org.apache.cassandra.utils.SyncUtil;
 import org.assertj.core.api.Assertions;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertSame;
@@ -229,6 +230,58 @@ public class CompressedRandomAccessReaderTest
         assert f.exists();
     }
 
+    @Test
+    public void testUncachedReadAhead() throws IOException
+    {
+        File file = FileUtils.createTempFile("testUncachedReadAhead", "1");
+        File metadata = new File(file.path() + ".meta");
+
+        // alternate compressible and random chunks, the latter stored uncompressed, over several read ahead blocks
+        int chunkLength = 4096;
+        Random random = new Random(42);
+        byte[] content = new byte[DatabaseDescriptor.getUncachedReadAheadSize() * 4 + 100];
+        for (int offset = 0; offset < content.length; offset += chunkLength)
+        {
+            int end = Math.min(offset + chunkLength, content.length);
+            if (random.nextBoolean())
+                Arrays.fill(content, offset, end, (byte) offset);
+            else
+                for (int i = offset; i < end; i++)
+                    content[i] = (byte) random.nextInt();
+        }
+
+        MetadataCollector sstableMetadataCollector = new MetadataCollector(new ClusteringComparator(BytesType.instance));
+        try (SequentialWriter writer = new CompressedSequentialWriter(file, metadata,
+                                                                      null, SequentialWriterOption.DEFAULT,
+                                                                      CompressionParams.lz4(chunkLength), sstableMetadataCollector))
+        {
+            writer.write(content);
+            writer.finish();
+        }
+
+        for (double crcCheckChance : new double[]{ 0, 1 })
+        {
+            try (CompressionMetadata meta = CompressionMetadata.open(metadata, file.length(), true);
+                 FileHandle fh = new FileHandle.Builder(file).withCompressionMetadata(meta).withCrcCheckChance(() -> crcCheckChance).complete();
+                 RandomAccessReader reader = fh.createUncachedReader(null))
+            {
+                byte[] read = new byte[content.length];
+                reader.readFully(read);
+                assertArrayEquals(content, read);
+
+                // reads moving backwards read the block of their position again
+                for (int i = 0; i < 100; i++)
+                {
+                    int position = random.nextInt(content.length - 1000);
+                    reader.seek(position);
+                    read = new byte[1000];
+                    reader.readFully(read);
+                    assertArrayEquals(Arrays.copyOfRange(content, position, position + 1000), read);
+                }
+            }
+        }
+    }
+
     /**
      * If the data read out doesn't match the checksum, an exception should be thrown
      */
@@ -33,6 +33,7 @@ import org.junit.Assert;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
+import org.apache.cassandra.concurrent.ExecutorPlus;
 import org.apache.cassandra.config.DatabaseDescriptor;
 import org.apache.cassandra.db.ClusteringComparator;
 import org.apache.cassandra.db.marshal.BytesType;
@@ -49,6 +50,7 @@ import org.apache.cassandra.io.util.SequentialWriterTest;
 import org.apache.cassandra.schema.CompressionParams;
 import org.apache.cassandra.utils.ByteBufferUtil;
 
+import static org.apache.cassandra.concurrent.ExecutorFactory.Global.executorFactory;
 import static org.apache.cassandra.schema.CompressionParams.DEFAULT_CHUNK_LENGTH;
 import static org.apache.commons.io.FileUtils.readFileToByteArray;
 import static org.junit.Assert.assertEquals;
@@ -57,6 +59,8 @@ import static org.junit.Assert.assertTrue;
 public class CompressedSequentialWriterTest extends SequentialWriterTest
 {
     private CompressionParams compressionParameters;
+    // compresses the chunks in the background like for flushes, if set
+    private ExecutorPlus compressionExecutor;
 
     @BeforeClass
     public static void setupDD()
@@ -120,6 +124,26 @@ public class CompressedSequentialWriterTest extends SequentialWriterTest
         runTests("Noop");
     }
 
+    @Test
+    public void testPipelinedWriter() throws IOException
+    {
+        compressionExecutor = executorFactory().pooled("CompressedSequentialWriterTest", 2);
+        compressionParameters = CompressionParams.lz4();
+        runTests("PipelinedLZ4");
+        compressionParameters = CompressionParams.zstd();
+        runTests("PipelinedZSTD");
+        compressionParameters = CompressionParams.noop();
+        runTests("PipelinedNoop");
+    }
+
+    @Test
+    public void testPipelinedUncompressedChunks() throws IOException
+    {
+        compressionExecutor = executorFactory().pooled("CompressedSequentialWriterTest", 2);
+        testUncompressedChunks(1.25);
+        testUncompressedChunks(1.0);
+    }
+
     private void testWrite(File f, int bytesToTest, boolean useMemmap) throws IOException
     {
         final String filename = f.absolutePath();
@@ -130,7 +154,8 @@ public class CompressedSequentialWriterTest extends SequentialWriterTest
         try (CompressedSequentialWriter writer = new CompressedSequentialWriter(f, new File(filename + ".metadata"),
                 null, SequentialWriterOption.DEFAULT,
                 compressionParameters,
-                sstableMetadataCollector))
+                sstableMetadataCollector,
+                compressionExecutor, 2))
         {
             Random r = new Random(42);
 
@@ -149,7 +174,10 @@ public class CompressedSequentialWriterTest extends SequentialWriterTest
             {
                 writer.write((byte)i);
             }
-            if (bytesToTest <= DEFAULT_CHUNK_LENGTH)
+            // the flush offset only covers the chunks written, which may lag when they are compressed in the background
+            if (compressionExecutor != null)
+                assertTrue(writer.getLastFlushOffset() % DEFAULT_CHUNK_LENGTH == 0 && writer.getLastFlushOffset() <= bytesToTest + DEFAULT_CHUNK_LENGTH);
+            else if (bytesToTest <= DEFAULT_CHUNK_LENGTH)
                 assertEquals(writer.getLastFlushOffset(), DEFAULT_CHUNK_LENGTH);
             else
                 assertTrue(writer.getLastFlushOffset() % DEFAULT_CHUNK_LENGTH == 0);
@@ -230,7 +258,8 @@ public class CompressedSequentialWriterTest extends SequentialWriterTest
         try (CompressedSequentialWriter writer = new CompressedSequentialWriter(f, new File(f.path() + ".metadata"),
                                                                                 null, SequentialWriterOption.DEFAULT,
                                                                                 compressionParameters,
-                                                                                sstableMetadataCollector))
+                                                                                sstableMetadataCollector,
+                                                                                compressionExecutor, 2))
         {
             writer.write(b);
             writer.finish();
@@ -275,6 +304,11 @@ public class CompressedSequentialWriterTest extends SequentialWriterTest
         for (TestableCSW sw : writers)
             sw.cleanup();
         writers.clear();
+        if (compressionExecutor != null)
+        {
+            compressionExecutor.shutdownNow();
+            compressionExecutor = null;
+        }
     }
 
     @Test
@@ -0,0 +1,142 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.cassandra.io.sstable;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Test;
+
+import org.apache.cassandra.cql3.CQLTester;
+import org.apache.cassandra.cql3.CqlBuilder;
+import org.apache.cassandra.db.ColumnFamilyStore;
+import org.apache.cassandra.db.marshal.Int32Type;
+import org.apache.cassandra.exceptions.ConfigurationException;
+import org.apache.cassandra.io.sstable.format.FilterComponent;
+import org.apache.cassandra.io.sstable.format.SSTableReader;
+import org.apache.cassandra.schema.SchemaKeyspace;
+import org.apache.cassandra.schema.TableMetadata;
+import org.apache.cassandra.utils.BlockedBloomFilter;
+import org.apache.cassandra.utils.BloomFilter;
+import org.apache.cassandra.utils.BloomFilterType;
+import org.apache.cassandra.utils.IFilter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class BloomFilterTypeTest extends CQLTester
+{
+    @Test
+    public void testFilterTypeOption() throws Throwable
+    {
+        createTable("CREATE TABLE %s (k int PRIMARY KEY, v int) WITH bloom_filter_type = 'blocked'");
+        assertEquals(BloomFilterType.BLOCKED, getCurrentColumnFamilyStore().metadata().params.bloomFilterType);
+        assertRows(execute("SELECT bloom_filter_type FROM system_schema.tables WHERE keyspace_name = ? AND table_name = ?", keyspace(), currentTable()),
+                   row("blocked"));
+        assertTrue(tableOptionsCql().contains("AND bloom_filter_type = 'blocked'"));
+
+        alterTable("ALTER TABLE %s WITH bloom_filter_type = 'standard'");
+        assertEquals(BloomFilterType.STANDARD, getCurrentColumnFamilyStore().metadata().params.bloomFilterType);
+        assertFalse(tableOptionsCql().contains("bloom_filter_type"));
+
+        assertInvalidThrowMessage("Invalid bloom_filter_type 'ribbon'", ConfigurationException.class,
+                                  "ALTER TABLE %s WITH bloom_filter_type = 'ribbon'");
+    }
+
+    @Test
+    public void testSchemaRoundTrip()
+    {
+        createTable("CREATE TABLE %s (k int PRIMARY KEY, v int) WITH bloom_filter_type = 'blocked'");
+        TableMetadata metadata = getCurrentColumnFamilyStore().metadata();
+        TableMetadata fromSchema = SchemaKeyspace.fetchNonSystemKeyspaces().getNullable(keyspace()).tables.getNullable(currentTable());
+        assertEquals(metadata.params, fromSchema.params);
+    }
+
+    @Test
+    public void testMixedFilterTypes() throws Throwable
+    {
+        createTable("CREATE TABLE %s (k int PRIMARY KEY, v int) WITH bloom_filter_type = 'blocked'");
+        ColumnFamilyStore cfs = getCurrentColumnFamilyStore();
+        for (int k = 0; k < 100; k += 2)
+            execute("INSERT INTO %s (k, v) VALUES (?, ?)", k, k);
+        flush();
+        Set<SSTableReader> blocked = new HashSet<>(cfs.getLiveSSTables());
+        assertFilterType(blocked, BlockedBloomFilter.class);
+
+        alterTable("ALTER TABLE %s WITH bloom_filter_type = 'standard'");
+        for (int k = 1; k < 100; k += 2)
+            execute("INSERT INTO %s (k, v) VALUES (?, ?)", k, k);
+        flush();
+        Set<SSTableReader> standard = new HashSet<>(cfs.getLiveSSTables());
+        standard.removeAll(blocked);
+        assertFilterType(standard, BloomFilter.class);
+
+        // both kinds of filters are loaded back, and each lets through the keys of its sstable only
+        assertEquals(2, cfs.getLiveSSTables().size());
+        for (SSTableReader live : cfs.getLiveSSTables())
+        {
+            int first = blocked.contains(live) ? 0 : 1;
+            SSTableReader sstable = SSTableReader.open(cfs, live.descriptor);
+            try
+            {
+                int falsePositives = 0;
+                for (int k = 0; k < 100; k++)
+                {
+                    boolean present = sstable.mayContainAssumingKeyIsInRange(cfs.decorateKey(Int32Type.instance.decompose(k)));
+                    if (k % 2 == first)
+                        assertTrue(present);
+                    else if (present)
+                        falsePositives++;
+                }
+                assertTrue(falsePositives < 5);
+            }
+            finally
+            {
+                sstable.selfRef().release();
+            }
+        }
+        for (int k = 0; k < 100; k++)
+            assertRows(execute("SELECT v FROM %s WHERE k = ?", k), row(k));
+
+        compact();
+        assertFilterType(cfs.getLiveSSTables(), BloomFilter.class);
+        for (int k = 0; k < 100; k++)
+            assertRows(execute("SELECT v FROM %s WHERE k = ?", k), row(k));
+    }
+
+    private static void assertFilterType(Set<SSTableReader> sstables, Class<? extends IFilter> type) throws Exception
+    {
+        assertFalse(sstables.isEmpty());
+        for (SSTableReader sstable : sstables)
+        {
+            try (IFilter filter = FilterComponent.load(sstable.descriptor))
+            {
+                assertTrue(filter.toString(), type.isInstance(filter));
+            }
+        }
+    }
+
+    private String tableOptionsCql()
+    {
+        CqlBuilder builder = new CqlBuilder();
+        getCurrentColumnFamilyStore().metadata().params.appendCqlTo(builder, false);
+        return builder.toString();
+    }
+}
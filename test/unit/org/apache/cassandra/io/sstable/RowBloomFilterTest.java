@@ -0,0 +1,250 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.cassandra.io.sstable;
+
+import java.math.BigInteger;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Test;
+
+import org.apache.cassandra.cql3.CQLTester;
+import org.apache.cassandra.cql3.CqlBuilder;
+import org.apache.cassandra.db.Clustering;
+import org.apache.cassandra.db.ColumnFamilyStore;
+import org.apache.cassandra.db.DecoratedKey;
+import org.apache.cassandra.db.marshal.Int32Type;
+import org.apache.cassandra.db.marshal.UTF8Type;
+import org.apache.cassandra.io.sstable.format.SSTableFormat.Components;
+import org.apache.cassandra.io.sstable.format.SSTableReader;
+import org.apache.cassandra.schema.SchemaKeyspace;
+import org.apache.cassandra.schema.TableMetadata;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class RowBloomFilterTest extends CQLTester
+{
+    @Test
+    public void testRowFilterOption()
+    {
+        createTable("CREATE TABLE %s (k int, c int, v int, PRIMARY KEY (k, c)) WITH row_bloom_filter = true");
+        TableMetadata metadata = getCurrentColumnFamilyStore().metadata();
+        assertTrue(metadata.params.rowBloomFilter);
+        assertTrue(tableOptionsCql().contains("AND row_bloom_filter = true"));
+
+        TableMetadata fromSchema = SchemaKeyspace.fetchNonSystemKeyspaces().getNullable(keyspace()).tables.getNullable(currentTable());
+        assertEquals(metadata.params, fromSchema.params);
+
+        alterTable("ALTER TABLE %s WITH row_bloom_filter = false");
+        assertFalse(getCurrentColumnFamilyStore().metadata().params.rowBloomFilter);
+        assertFalse(tableOptionsCql().contains("row_bloom_filter"));
+    }
+
+    @Test
+    public void testRowFilterOnlyWrittenWhenUseful() throws Throwable
+    {
+        createTable("CREATE TABLE %s (k int, c int, v int, PRIMARY KEY (k, c))");
+        execute("INSERT INTO %s (k, c, v) VALUES (0, 0, 0)");
+        flush();
+        assertNoRowFilter();
+
+        // without clustering columns, the partition filter already tells everything
+        createTable("CREATE TABLE %s (k int PRIMARY KEY, v int) WITH row_bloom_filter = true");
+        execute("INSERT INTO %s (k, v) VALUES (0, 0)");
+        flush();
+        assertNoRowFilter();
+    }
+
+    @Test
+    public void testSkipsSSTablesWithoutRequestedRows() throws Throwable
+    {
+        createTable("CREATE TABLE %s (k int, c int, v int, PRIMARY KEY (k, c)) WITH row_bloom_filter = true");
+        ColumnFamilyStore cfs = getCurrentColumnFamilyStore();
+        cfs.disableAutoCompaction();
+
+        for (int c = 0; c < 200; c += 2)
+            execute("INSERT INTO %s (k, c, v) VALUES (0, ?, ?)", c, c);
+        flush();
+        Set<SSTableReader> even = new HashSet<>(cfs.getLiveSSTables());
+
+        for (int c = 1; c < 200; c += 2)
+            execute("INSERT INTO %s (k, c, v) VALUES (0, ?, ?)", c, c);
+        flush();
+
+        assertEquals(2, cfs.getLiveSSTables().size());
+        for (SSTableReader live : cfs.getLiveSSTables())
+        {
+            assertTrue(live.getComponents().contains(Components.ROW_FILTER));
+            int first = even.contains(live) ? 0 : 1;
+            assertRowFilter(live, first);
+
+            // the filter is loaded back when opening the sstable
+            SSTableReader sstable = SSTableReader.open(cfs, live.descriptor);
+            try
+            {
+                assertRowFilter(sstable, first);
+            }
+            finally
+            {
+                sstable.selfRef().release();
+            }
+        }
+
+        for (int c = 0; c < 200; c++)
+            assertRows(execute("SELECT v FROM %s WHERE k = 0 AND c = ?", c), row(c));
+        assertRows(execute("SELECT c, v FROM %s WHERE k = 0 AND c IN (4, 7)"), row(4, 4), row(7, 7));
+        assertEmpty(execute("SELECT v FROM %s WHERE k = 0 AND c = 500"));
+
+        compact();
+        for (SSTableReader live : cfs.getLiveSSTables())
+            assertTrue(live.getComponents().contains(Components.ROW_FILTER));
+        for (int c = 0; c < 200; c++)
+            assertRows(execute("SELECT v FROM %s WHERE k = 0 AND c = ?", c), row(c));
+    }
+
+    @Test
+    public void testDeletionsAndStatics() throws Throwable
+    {
+        createTable("CREATE TABLE %s (k int, c int, s int static, v int, PRIMARY KEY (k, c)) WITH row_bloom_filter = true");
+        ColumnFamilyStore cfs = getCurrentColumnFamilyStore();
+        cfs.disableAutoCompaction();
+
+        for (int k = 0; k < 3; k++)
+            for (int c = 0; c < 20; c++)
+                execute("INSERT INTO %s (k, c, v) VALUES (?, ?, ?) USING TIMESTAMP 1", k, c, c);
+        flush();
+
+        // none of these sstables has the selected rows themselves
+        execute("DELETE FROM %s USING TIMESTAMP 2 WHERE k = 0 AND c >= 10 AND c < 15");
+        flush();
+        execute("DELETE FROM %s USING TIMESTAMP 2 WHERE k = 1");
+        flush();
+        execute("UPDATE %s USING TIMESTAMP 2 SET s = 42 WHERE k = 2");
+        flush();
+
+        SSTableReader rangeTombstones = null;
+        for (SSTableReader sstable : cfs.getLiveSSTables())
+        {
+            if (sstable.getFirst().equals(key(cfs, 0)) && sstable.getMaxTimestamp() == 2)
+                rangeTombstones = sstable;
+        }
+        assertTrue(rangeTombstones.mayContainAnyRow(key(cfs, 0), Collections.singleton(Clustering.make(Int32Type.instance.decompose(12)))));
+
+        assertEmpty(execute("SELECT v FROM %s WHERE k = 0 AND c = 12"));
+        assertRows(execute("SELECT v FROM %s WHERE k = 0 AND c = 15"), row(15));
+        assertEmpty(execute("SELECT v FROM %s WHERE k = 1 AND c = 5"));
+        assertRows(execute("SELECT s, v FROM %s WHERE k = 2 AND c = 5"), row(42, 5));
+        assertRows(execute("SELECT s, v FROM %s WHERE k = 2 AND c IN (5, 30)"), row(42, 5));
+    }
+
+    @Test
+    public void testValuesWithSeveralSerializations() throws Throwable
+    {
+        // 1.0 and 1.00 are different decimal serializations of the same clustering, and so are 0x01 and 0x0001 for
+        // varints: whichever is used to query the row must find it in the row filter
+        createTable("CREATE TABLE %s (k int, c1 decimal, c2 varint, v int, PRIMARY KEY (k, c1, c2)) WITH row_bloom_filter = true");
+        ColumnFamilyStore cfs = getCurrentColumnFamilyStore();
+        cfs.disableAutoCompaction();
+
+        execute("INSERT INTO %s (k, c1, c2, v) VALUES (0, 1.0, blobAsVarint(0x01), 1)");
+        flush();
+        execute("INSERT INTO %s (k, c1, c2, v) VALUES (0, 2.0, blobAsVarint(0x02), 2)");
+        flush();
+        assertEquals(2, cfs.getLiveSSTables().size());
+
+        assertRows(execute("SELECT v FROM %s WHERE k = 0 AND c1 = 1.0 AND c2 = 1"), row(1));
+        assertRows(execute("SELECT v FROM %s WHERE k = 0 AND c1 = 1.00 AND c2 = 1"), row(1));
+        assertRows(execute("SELECT v FROM %s WHERE k = 0 AND c1 = 1 AND c2 = blobAsVarint(0x0001)"), row(1));
+        assertRows(execute("SELECT v FROM %s WHERE k = 0 AND c1 = 2.000 AND c2 = blobAsVarint(0x0002)"), row(2));
+        assertRows(execute("SELECT c2, v FROM %s WHERE k = 0 AND c1 IN (1.00, 2.00) AND c2 IN (1, 2)"), row(BigInteger.ONE, 1), row(BigInteger.valueOf(2), 2));
+    }
+
+    @Test
+    public void testLongClusterings() throws Throwable
+    {
+        // the clusterings share a prefix longer than the initial buffer they are decoded in to be hashed
+        createTable("CREATE TABLE %s (k int, c text, v int, PRIMARY KEY (k, c)) WITH row_bloom_filter = true");
+        ColumnFamilyStore cfs = getCurrentColumnFamilyStore();
+        cfs.disableAutoCompaction();
+        String prefix = "x".repeat(500);
+
+        for (int c = 0; c < 200; c++)
+            execute("INSERT INTO %s (k, c, v) VALUES (0, ?, ?)", prefix + c, c);
+        flush();
+
+        SSTableReader sstable = cfs.getLiveSSTables().iterator().next();
+        DecoratedKey key = key(cfs, 0);
+        int falsePositives = 0;
+        for (int c = 0; c < 400; c++)
+        {
+            boolean present = sstable.mayContainAnyRow(key, Collections.singleton(Clustering.make(UTF8Type.instance.decompose(prefix + c))));
+            if (c < 200)
+                assertTrue(present);
+            else if (present)
+                falsePositives++;
+        }
+        assertTrue("False positives: " + falsePositives, falsePositives < 10);
+        assertRows(execute("SELECT v FROM %s WHERE k = 0 AND c = ?", prefix + 42), row(42));
+    }
+
+    private static void assertRowFilter(SSTableReader sstable, int first)
+    {
+        DecoratedKey key = key(sstable.metadata(), 0);
+        int falsePositives = 0;
+        for (int c = 0; c < 200; c++)
+        {
+            boolean present = sstable.mayContainAnyRow(key, Collections.singleton(Clustering.make(Int32Type.instance.decompose(c))));
+            if (c % 2 == first)
+                assertTrue(present);
+            else if (present)
+                falsePositives++;
+        }
+        assertTrue("False positives: " + falsePositives, falsePositives < 5);
+    }
+
+    private void assertNoRowFilter()
+    {
+        for (SSTableReader sstable : getCurrentColumnFamilyStore().getLiveSSTables())
+        {
+            assertFalse(sstable.getComponents().contains(Components.ROW_FILTER));
+            assertTrue(sstable.mayContainAnyRow(key(getCurrentColumnFamilyStore(), 0),
+                                                Collections.singleton(Clustering.make(Int32Type.instance.decompose(1)))));
+        }
+    }
+
+    private static DecoratedKey key(ColumnFamilyStore cfs, int k)
+    {
+        return cfs.decorateKey(Int32Type.instance.decompose(k));
+    }
+
+    private static DecoratedKey key(TableMetadata metadata, int k)
+    {
+        return metadata.partitioner.decorateKey(Int32Type.instance.decompose(k));
+    }
+
+    private String tableOptionsCql()
+    {
+        CqlBuilder builder = new CqlBuilder();
+        getCurrentColumnFamilyStore().metadata().params.appendCqlTo(builder, false);
+        return builder.toString();
+    }
+}
@@ -57,6 +57,7 @@ import org.apache.cassandra.dht.Range;
 import org.apache.cassandra.dht.Token;
 import org.apache.cassandra.io.sstable.format.SSTableReader;
 import org.apache.cassandra.io.sstable.format.SSTableWriter;
+import org.apache.cassandra.io.sstable.keycache.KeyCacheSupport;
 import org.apache.cassandra.io.util.File;
 import org.apache.cassandra.io.util.FileUtils;
 import org.apache.cassandra.metrics.StorageMetrics;
@@ -69,8 +70,10 @@ import static org.apache.cassandra.utils.FBUtilities.nowInSeconds;
 import static org.apache.cassandra.utils.TimeUUID.Generator.nextTimeUUID;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
+import static org.junit.Assume.assumeTrue;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -867,6 +870,62 @@ public class SSTableRewriterTest extends SSTableWriterTestBase
 
     }
 
+    @Test
+    public void testHotKeysCachedForNewSSTables()
+    {
+        testHotKeysCachedForNewSSTables(true);
+        testHotKeysCachedForNewSSTables(false);
+    }
+
+    private void testHotKeysCachedForNewSSTables(boolean earlyOpen)
+    {
+        Keyspace keyspace = Keyspace.open(KEYSPACE);
+        ColumnFamilyStore cfs = keyspace.getColumnFamilyStore(CF);
+        truncate(cfs);
+
+        for (int j = 0; j < 100; j++)
+        {
+            new RowUpdateBuilder(cfs.metadata(), j, String.valueOf(j))
+                .clustering("0")
+                .add("val", ByteBufferUtil.EMPTY_BYTE_BUFFER)
+                .build()
+                .apply();
+        }
+        Util.flush(cfs);
+        Set<SSTableReader> sstables = new HashSet<>(cfs.getLiveSSTables());
+        assumeTrue(sstables.iterator().next() instanceof KeyCacheSupport);
+
+        // reading a partition caches its key
+        for (int j = 0; j < 10; j++)
+            Util.getAll(Util.cmd(cfs, String.valueOf(j)).build());
+
+        long nowInSec = FBUtilities.nowInSeconds();
+        try (AbstractCompactionStrategy.ScannerList scanners = cfs.getCompactionStrategyManager().getScanners(sstables);
+             LifecycleTransaction txn = cfs.getTracker().tryModify(sstables, OperationType.UNKNOWN);
+             SSTableRewriter writer = new SSTableRewriter(txn, 1000, earlyOpen ? 10000000 : Long.MAX_VALUE, false, true);
+             CompactionController controller = new CompactionController(cfs, sstables, cfs.gcBefore(nowInSec));
+             CompactionIterator ci = new CompactionIterator(COMPACTION, scanners.scanners, controller, nowInSec, nextTimeUUID()))
+        {
+            writer.switchWriter(getWriter(cfs, sstables.iterator().next().descriptor.directory, txn));
+            while (ci.hasNext())
+                writer.append(ci.next());
+            writer.finish();
+        }
+
+        SSTableReader compacted = Iterables.getOnlyElement(cfs.getLiveSSTables());
+        assertFalse(sstables.contains(compacted));
+        for (int j = 0; j < 100; j++)
+        {
+            DecoratedKey key = Util.dk(String.valueOf(j));
+            AbstractRowIndexEntry cached = ((KeyCacheSupport<?>) compacted).getCachedPosition(key, false);
+            if (j < 10)
+                assertEquals(compacted.getPosition(key, SSTableReader.Operator.EQ), cached.position);
+            else
+                assertNull(cached);
+        }
+        truncate(cfs);
+    }
+
     /**
      * tests SSTableRewriter ctor arg controlling whether writers metadata buffers are released.
      * Verifies that writers trip an assert when updated after cleared on switch
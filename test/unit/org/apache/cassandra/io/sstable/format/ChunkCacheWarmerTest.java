@@ -0,0 +1,216 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.io.sstable.format;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.apache.cassandra.Util;
+import org.apache.cassandra.cache.ChunkCache;
+import org.apache.cassandra.config.DatabaseDescriptor;
+import org.apache.cassandra.cql3.CQLTester;
+import org.apache.cassandra.db.ColumnFamilyStore;
+import org.apache.cassandra.io.util.File;
+import org.apache.cassandra.io.util.FileHandle;
+import org.apache.cassandra.io.util.FileUtils;
+import org.apache.cassandra.io.util.RandomAccessReader;
+import org.apache.cassandra.metrics.ChunkCacheMetrics.TableChunkCacheMetrics;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+public class ChunkCacheWarmerTest extends CQLTester
+{
+    private static final int PARTITIONS = 200;
+
+    @Before
+    public void checkChunkCache()
+    {
+        assumeTrue(ChunkCache.instance != null);
+    }
+
+    @After
+    public void resetConfig()
+    {
+        DatabaseDescriptor.setFileCacheWarmOnFlush(false);
+        DatabaseDescriptor.setFileCacheWarmOnCompaction(false);
+    }
+
+    @Test
+    public void testWarmOnFlush() throws Throwable
+    {
+        long coldMisses = readMissesAfterFlush(false);
+        long warmed = ChunkCache.instance.metrics.warmed.getCount();
+        long warmMisses = readMissesAfterFlush(true);
+
+        assertTrue(ChunkCache.instance.metrics.warmed.getCount() > warmed);
+        assertEquals(0, warmMisses);
+        assertTrue(coldMisses > 0);
+    }
+
+    @Test
+    public void testWarmOnCompactionOnlyLoadsHotPartitions() throws Throwable
+    {
+        testWarmOnCompaction("");
+    }
+
+    @Test
+    public void testWarmOnCompactionWithReadAhead() throws Throwable
+    {
+        // compactions read their input bypassing the cache, but still tell the partitions that were cached; without
+        // the key cache, which also tells the hot partitions, the chunks read are all that does
+        DatabaseDescriptor.setUncachedReadAheadChunks(4);
+        try
+        {
+            testWarmOnCompaction(" AND caching = {'keys': 'NONE'}");
+        }
+        finally
+        {
+            DatabaseDescriptor.setUncachedReadAheadChunks(0);
+        }
+    }
+
+    private void testWarmOnCompaction(String options) throws Throwable
+    {
+        createCompressedTable(options);
+        ColumnFamilyStore cfs = getCurrentColumnFamilyStore();
+        insert();
+        flush();
+
+        // make a few of the partitions hot
+        ChunkCache.instance.clear();
+        for (int k = 0; k < 10; k++)
+            execute("SELECT v FROM %s WHERE k = ?", k);
+
+        DatabaseDescriptor.setFileCacheWarmOnCompaction(true);
+        long warmedBefore = ChunkCache.instance.metrics.warmed.getCount();
+        compact();
+        awaitWarming();
+        long warmed = ChunkCache.instance.metrics.warmed.getCount() - warmedBefore;
+
+        SSTableReader compacted = cfs.getLiveSSTables().iterator().next();
+        long chunks = compacted.uncompressedLength() / compacted.getCompressionMetadata().chunkLength();
+        assertTrue(String.format("Warmed %d chunks out of %d", warmed, chunks), warmed > 0 && warmed < chunks / 2);
+
+        // the hot partitions were loaded, the others were not
+        TableChunkCacheMetrics metrics = ChunkCache.instance.metrics.forTable(keyspace(), currentTable());
+        long misses = metrics.misses.getCount();
+        for (int k = 0; k < 10; k++)
+            execute("SELECT v FROM %s WHERE k = ?", k);
+        assertEquals(misses, metrics.misses.getCount());
+
+        for (int k = 100; k < 110; k++)
+            execute("SELECT v FROM %s WHERE k = ?", k);
+        assertTrue(metrics.misses.getCount() > misses);
+    }
+
+    @Test
+    public void testEarlyOpenedChunksNotServedToLaterHandles() throws Throwable
+    {
+        File file = FileUtils.createDeletableTempFile("chunkcache", "db");
+        byte[] data = new byte[2000];
+        new Random(42).nextBytes(data);
+        Files.write(file.toPath(), Arrays.copyOf(data, 1000));
+
+        // an early opened handle reads an incomplete chunk, and stays open while the file is completed
+        FileHandle early = new FileHandle.Builder(file).bufferSize(4096).withLengthOverride(1000).withChunkCache(ChunkCache.instance).complete();
+        try (RandomAccessReader reader = early.createReader())
+        {
+            byte[] read = new byte[1000];
+            reader.readFully(read);
+            assertArrayEquals(Arrays.copyOf(data, 1000), read);
+            assertTrue(ChunkCache.instance.isCached(early, 0));
+
+            Files.write(file.toPath(), Arrays.copyOfRange(data, 1000, 2000), StandardOpenOption.APPEND);
+            try (FileHandle complete = new FileHandle.Builder(file).bufferSize(4096).withChunkCache(ChunkCache.instance).complete();
+                 RandomAccessReader completeReader = complete.createReader())
+            {
+                // the chunk read through the early opened handle is dropped once the complete one is opened
+                assertFalse(ChunkCache.instance.isCached(early, 0));
+
+                read = new byte[2000];
+                completeReader.readFully(read);
+                assertArrayEquals(data, read);
+                assertTrue(ChunkCache.instance.isCached(complete, 0));
+
+                // and if it is read again through the early opened handle, once that handle is closed
+                try (RandomAccessReader again = early.createReader())
+                {
+                    again.readFully(new byte[1000]);
+                }
+                assertTrue(ChunkCache.instance.isCached(early, 0));
+                reader.close();
+                early.close();
+                assertFalse(ChunkCache.instance.isCached(early, 0));
+                assertTrue(ChunkCache.instance.isCached(complete, 0));
+            }
+        }
+        finally
+        {
+            early.close();
+        }
+    }
+
+    private long readMissesAfterFlush(boolean warmOnFlush) throws Throwable
+    {
+        createCompressedTable("");
+        insert();
+        DatabaseDescriptor.setFileCacheWarmOnFlush(warmOnFlush);
+        flush();
+        awaitWarming();
+
+        TableChunkCacheMetrics metrics = ChunkCache.instance.metrics.forTable(keyspace(), currentTable());
+        long misses = metrics.misses.getCount();
+        for (int k = 0; k < PARTITIONS; k++)
+            execute("SELECT v FROM %s WHERE k = ?", k);
+        return metrics.misses.getCount() - misses;
+    }
+
+    private static void awaitWarming()
+    {
+        Util.spinAssertEquals(0L, ChunkCacheWarmer::pendingBytes, 10);
+    }
+
+    private void createCompressedTable(String options)
+    {
+        // partitions of about a chunk each, which compression does not shrink
+        createTable("CREATE TABLE %s (k int PRIMARY KEY, v blob) WITH compression = {'class': 'LZ4Compressor', 'chunk_length_in_kb': 4}" + options);
+        getCurrentColumnFamilyStore().disableAutoCompaction();
+    }
+
+    private void insert() throws Throwable
+    {
+        Random random = new Random(42);
+        for (int k = 0; k < PARTITIONS; k++)
+        {
+            byte[] value = new byte[4000];
+            random.nextBytes(value);
+            execute("INSERT INTO %s (k, v) VALUES (?, ?)", k, ByteBuffer.wrap(value));
+        }
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.cassandra.io.util;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import org.apache.cassandra.cache.ChunkCache;
+import org.apache.cassandra.config.DatabaseDescriptor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+public class AsyncChunkReaderTest
+{
+    @BeforeClass
+    public static void setupDD()
+    {
+        DatabaseDescriptor.daemonInitialization();
+    }
+
+    @Test
+    public void testPrefetchLoadsChunkCache() throws Exception
+    {
+        assumeTrue(ChunkCache.instance != null);
+
+        File f = FileUtils.createTempFile("testPrefetch", "1");
+        try (SequentialWriter writer = new SequentialWriter(f))
+        {
+            for (int i = 0; i < 4 * PageAware.PAGE_SIZE; i++)
+                writer.write(i);
+            writer.finish();
+        }
+
+        AsyncChunkReader reader = new AsyncChunkReader(2);
+        try (FileHandle fh = new FileHandle.Builder(f).bufferSize(PageAware.PAGE_SIZE).withChunkCache(ChunkCache.instance).complete())
+        {
+            int sizeBefore = ChunkCache.instance.size();
+            CountDownLatch done = new CountDownLatch(2);
+            reader.submit(() -> fh.rebuffererFactory().prefetch(0), done::countDown);
+            reader.submit(() -> fh.rebuffererFactory().prefetch(2 * PageAware.PAGE_SIZE + 7), done::countDown);
+            assertTrue(done.await(1, TimeUnit.MINUTES));
+            assertEquals(sizeBefore + 2, ChunkCache.instance.size());
+
+            // prefetching an already loaded chunk must not load it again
+            reader.prefetch(fh.rebuffererFactory(), 5);
+            reader.shutdownAndWait(1, TimeUnit.MINUTES);
+            assertEquals(sizeBefore + 2, ChunkCache.instance.size());
+        }
+        finally
+        {
+            ChunkCache.instance.invalidateFile(f.path());
+        }
+    }
+
+    @Test
+    public void testCompletionRunsOnFailureAndRejection() throws Exception
+    {
+        AsyncChunkReader reader = new AsyncChunkReader(1);
+        AtomicInteger completed = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(1);
+        reader.submit(() -> { throw new RuntimeException("test"); },
+                      () -> { completed.incrementAndGet(); done.countDown(); });
+        assertTrue(done.await(1, TimeUnit.MINUTES));
+
+        reader.shutdownAndWait(1, TimeUnit.MINUTES);
+        reader.submit(() -> {}, completed::incrementAndGet);
+        assertEquals(2, completed.get());
+    }
+}
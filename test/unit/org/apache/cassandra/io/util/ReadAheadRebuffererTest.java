@@ -0,0 +1,225 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.cassandra.io.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.google.common.util.concurrent.Uninterruptibles;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import org.apache.cassandra.config.DatabaseDescriptor;
+import org.apache.cassandra.io.compress.BufferType;
+import org.apache.cassandra.utils.memory.BufferPool;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ReadAheadRebuffererTest
+{
+    private static final int CHUNKS = 10;
+    private static final int LENGTH = CHUNKS * PageAware.PAGE_SIZE + 123;
+
+    private static File file;
+
+    @BeforeClass
+    public static void setup() throws IOException
+    {
+        DatabaseDescriptor.daemonInitialization();
+
+        file = FileUtils.createTempFile("testReadAhead", "1");
+        try (SequentialWriter writer = new SequentialWriter(file))
+        {
+            for (int i = 0; i < LENGTH; i++)
+                writer.write(i);
+            writer.finish();
+        }
+    }
+
+    @AfterClass
+    public static void cleanup()
+    {
+        file.deleteIfExists();
+    }
+
+    @Test
+    public void testSequentialReads() throws Exception
+    {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        AtomicInteger readsAhead = new AtomicInteger();
+        try (ChannelProxy channel = new ChannelProxy(file);
+             RandomAccessReader reader = reader(channel, 3, task -> { readsAhead.incrementAndGet(); executor.execute(task); }))
+        {
+            for (int i = 0; i < LENGTH; i++)
+                assertEquals((byte) i, reader.readByte());
+            assertTrue(reader.isEOF());
+        }
+        finally
+        {
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+        }
+
+        // all the chunks but the first one are read ahead
+        assertEquals(CHUNKS, readsAhead.get());
+    }
+
+    @Test
+    public void testSeeks() throws Exception
+    {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try (ChannelProxy channel = new ChannelProxy(file);
+             RandomAccessReader reader = reader(channel, 2, executor))
+        {
+            // backwards, within the chunks read ahead, past them, and to the last chunk
+            long[] positions = { 5 * PageAware.PAGE_SIZE + 17, 3, PageAware.PAGE_SIZE * 2 - 1, 7 * PageAware.PAGE_SIZE, LENGTH - 10, 0 };
+            for (long position : positions)
+            {
+                reader.seek(position);
+                for (long i = position; i < Math.min(position + PageAware.PAGE_SIZE + 1, LENGTH); i++)
+                    assertEquals((byte) i, reader.readByte());
+            }
+        }
+        finally
+        {
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+        }
+    }
+
+    @Test
+    public void testRejectedReadsAheadAreReadSynchronously() throws IOException
+    {
+        try (ChannelProxy channel = new ChannelProxy(file);
+             RandomAccessReader reader = reader(channel, 4, task -> { throw new RejectedExecutionException(); }))
+        {
+            for (int i = 0; i < LENGTH; i++)
+                assertEquals((byte) i, reader.readByte());
+        }
+    }
+
+    @Test
+    public void testFailedReadsAheadAreRetried() throws IOException
+    {
+        AtomicInteger failures = new AtomicInteger();
+        try (ChannelProxy channel = new ChannelProxy(file))
+        {
+            ChunkReader source = new SimpleChunkReader(channel, LENGTH, BufferType.OFF_HEAP, PageAware.PAGE_SIZE)
+            {
+                @Override
+                public void readChunk(long position, ByteBuffer buffer)
+                {
+                    // fail the reads ahead, which are run by the threads started below
+                    if (Thread.currentThread().getName().equals("failing"))
+                    {
+                        failures.incrementAndGet();
+                        throw new RuntimeException("test");
+                    }
+                    super.readChunk(position, buffer);
+                }
+            };
+            try (RandomAccessReader reader = new RandomAccessReader(new ReadAheadRebufferer(source, 2, task -> new Thread(task, "failing").start())))
+            {
+                for (int i = 0; i < LENGTH; i++)
+                    assertEquals((byte) i, reader.readByte());
+            }
+        }
+        assertEquals(CHUNKS, failures.get());
+    }
+
+    @Test
+    public void testCloseWaitsForReadsAhead() throws IOException
+    {
+        AtomicInteger readsInProgress = new AtomicInteger();
+        AtomicInteger readsAhead = new AtomicInteger();
+        Thread readingThread = Thread.currentThread();
+        try (ChannelProxy channel = new ChannelProxy(file))
+        {
+            ChunkReader source = new SimpleChunkReader(channel, LENGTH, BufferType.OFF_HEAP, PageAware.PAGE_SIZE)
+            {
+                @Override
+                public void readChunk(long position, ByteBuffer buffer)
+                {
+                    if (Thread.currentThread() == readingThread)
+                    {
+                        super.readChunk(position, buffer);
+                        return;
+                    }
+                    // slow reads ahead, still running when the reader is closed
+                    readsInProgress.incrementAndGet();
+                    Uninterruptibles.sleepUninterruptibly(100, TimeUnit.MILLISECONDS);
+                    super.readChunk(position, buffer);
+                    readsInProgress.decrementAndGet();
+                }
+            };
+            Executor executor = task -> { readsAhead.incrementAndGet(); new Thread(task).start(); };
+            try (RandomAccessReader reader = new RandomAccessReader(new ReadAheadRebufferer(source, 4, executor)))
+            {
+                assertEquals((byte) 0, reader.readByte());
+            }
+            // the reads ahead started before closing the reader, which must not outlive it
+            assertEquals(4, readsAhead.get());
+            assertEquals(0, readsInProgress.get());
+        }
+    }
+
+    @Test
+    public void testUncachedReaderReadsAhead() throws IOException
+    {
+        DatabaseDescriptor.setUncachedReadAheadChunks(4);
+        try (FileHandle fh = new FileHandle.Builder(file).bufferSize(PageAware.PAGE_SIZE).complete();
+             RandomAccessReader reader = fh.createUncachedReader(null))
+        {
+            // the blocks of uncached_read_ahead_size are capped to the size of the buffers of the pool to be read ahead
+            assertTrue(DatabaseDescriptor.getUncachedReadAheadSize() > BufferPool.NORMAL_CHUNK_SIZE);
+            assertTrue(reader.rebufferer instanceof ReadAheadRebufferer);
+            for (int i = 0; i < LENGTH; i++)
+                assertEquals((byte) i, reader.readByte());
+        }
+        finally
+        {
+            DatabaseDescriptor.setUncachedReadAheadChunks(0);
+        }
+    }
+
+    @Test
+    public void testOnlyPooledChunkSizesAreReadAhead()
+    {
+        try (ChannelProxy channel = new ChannelProxy(file))
+        {
+            assertTrue(ReadAheadRebufferer.canReadAhead(new SimpleChunkReader(channel, LENGTH, BufferType.OFF_HEAP, BufferPool.NORMAL_CHUNK_SIZE)));
+            assertFalse(ReadAheadRebufferer.canReadAhead(new SimpleChunkReader(channel, LENGTH, BufferType.OFF_HEAP, 2 * BufferPool.NORMAL_CHUNK_SIZE)));
+        }
+    }
+
+    private static RandomAccessReader reader(ChannelProxy channel, int depth, Executor executor)
+    {
+        ChunkReader source = new SimpleChunkReader(channel, LENGTH, BufferType.OFF_HEAP, PageAware.PAGE_SIZE);
+        return new RandomAccessReader(new ReadAheadRebufferer(source, depth, executor));
+    }
+}
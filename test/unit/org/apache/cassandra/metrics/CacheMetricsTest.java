@@ -28,7 +28,10 @@ import org.apache.cassandra.cache.CacheSize;
 import org.apache.cassandra.cache.ICache;
 import org.apache.cassandra.cache.InstrumentingCache;
 
+import static org.apache.cassandra.metrics.CassandraMetricsRegistry.Metrics;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 public class CacheMetricsTest
 {
@@ -62,6 +65,17 @@ public class CacheMetricsTest
         assertCacheMetrics(metrics, expect(mockedCache));
     }
 
+    @Test
+    public void testReleaseTableChunkCacheMetrics()
+    {
+        ChunkCacheMetrics.TableChunkCacheMetrics metrics = new ChunkCacheMetrics.TableChunkCacheMetrics("ks.released");
+        assertTrue(Metrics.getNames().stream().anyMatch(name -> name.contains("ks.released")));
+
+        // all the metrics registered for the table are unregistered
+        metrics.release();
+        assertFalse(Metrics.getNames().stream().anyMatch(name -> name.contains("ks.released")));
+    }
+
     private void getFromCache(InstrumentingCache<String,Object> cache, String key, int times)
     {
         for (int ix = 0; ix < times; ix++)
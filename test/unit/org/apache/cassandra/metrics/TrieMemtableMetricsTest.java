@@ -97,9 +97,14 @@ public class TrieMemtableMetricsTest extends SchemaLoader
     }
 
     private ColumnFamilyStore recreateTable(String table)
+    {
+        return recreateTable(table, "test_memtable_metrics");
+    }
+
+    private ColumnFamilyStore recreateTable(String table, String memtable)
     {
         session.execute(String.format("DROP TABLE IF EXISTS %s.%s", KEYSPACE, table));
-        session.execute(String.format("CREATE TABLE IF NOT EXISTS %s.%s (id int, val1 text, val2 text, PRIMARY KEY(id, val1)) WITH MEMTABLE = 'test_memtable_metrics';", KEYSPACE, table));
+        session.execute(String.format("CREATE TABLE IF NOT EXISTS %s.%s (id int, val1 text, val2 text, PRIMARY KEY(id, val1)) WITH MEMTABLE = '%s';", KEYSPACE, table, memtable));
         return ColumnFamilyStore.getIfExists(KEYSPACE, table);
     }
 
@@ -125,6 +130,26 @@ public class TrieMemtableMetricsTest extends SchemaLoader
                         "triememtable.metricstest", "counter", String.valueOf(metrics.uncontendedPuts.getCount())));
     }
 
+    @Test
+    public void testLockFreePutsAreCounted()
+    {
+        ColumnFamilyStore cfs = recreateTable(TABLE, "test_memtable_metrics_concurrent");
+        TrieMemtableMetricsView metrics = getMemtableMetrics(cfs);
+
+        // new partitions are inserted under the lock, the updates of existing ones don't take it
+        for (int i = 0; i < 10; i++)
+            session.execute(String.format("INSERT INTO %s.%s (id, val1, val2) VALUES (%d, '%s', '%s')", KEYSPACE, TABLE, i, "val" + i, "val" + i));
+        for (int i = 0; i < 10; i++)
+            session.execute(String.format("INSERT INTO %s.%s (id, val1, val2) VALUES (%d, '%s', '%s')", KEYSPACE, TABLE, i, "other" + i, "val" + i));
+
+        assertEquals(10, metrics.contendedPuts.getCount() + metrics.uncontendedPuts.getCount());
+        assertEquals(10, metrics.lockFreePuts.getCount());
+        assertRowsContains(cluster, session.execute("SELECT * FROM system_metrics.trie_memtable_group"),
+                row("org.apache.cassandra.metrics.TrieMemtable.Lock-free memtable puts.triememtable.metricstest",
+                        "triememtable.metricstest", "counter", String.valueOf(metrics.lockFreePuts.getCount())));
+        assertEquals(20, session.execute(String.format("SELECT * FROM %s.%s", KEYSPACE, TABLE)).all().size());
+    }
+
     @Test
     public void testFlushRelatedMetrics() throws IOException, ExecutionException, InterruptedException
     {
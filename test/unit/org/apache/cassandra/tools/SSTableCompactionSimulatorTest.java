@@ -0,0 +1,108 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.cassandra.tools;
+
+import java.io.IOException;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import org.apache.cassandra.tools.ToolRunner.ToolResult;
+import org.assertj.core.api.Assertions;
+
+public class SSTableCompactionSimulatorTest extends OfflineToolUtils
+{
+    private static String sstable;
+    private static String directory;
+
+    @BeforeClass
+    public static void setupTest() throws IOException
+    {
+        sstable = findOneSSTable("legacy_sstables", "legacy_ma_simple");
+        directory = sstableDirName("legacy_sstables", "legacy_ma_simple");
+    }
+
+    @Test
+    public void testNoArgsPrintsHelp()
+    {
+        ToolResult tool = ToolRunner.invokeClass(SSTableCompactionSimulator.class);
+        Assertions.assertThat(tool.getExitCode()).isOne();
+        Assertions.assertThat(tool.getCleanedStderr()).contains("You must supply at least one sstable or directory");
+        Assertions.assertThat(tool.getStdout()).contains("usage: sstablecompactionsim");
+        assertSchemaNotLoaded();
+        assertCLSMNotLoaded();
+        assertSystemKSNotLoaded();
+        assertKeyspaceNotLoaded();
+        assertServerNotLoaded();
+    }
+
+    @Test
+    public void testAllStrategies()
+    {
+        ToolResult tool = ToolRunner.invokeClass(SSTableCompactionSimulator.class, "-n", "50", "-f", "1MiB", sstable);
+        tool.assertOnCleanExit();
+        Assertions.assertThat(tool.getStdout())
+                  .contains("Simulating 50 flushes of 1.000MiB every 60s over 1 sstables")
+                  .contains("Write amp.")
+                  .contains("STCS")
+                  .contains("LCS")
+                  .contains("TWCS")
+                  .contains("UCS");
+        assertSchemaNotLoaded();
+        assertKeyspaceNotLoaded();
+        assertServerNotLoaded();
+    }
+
+    @Test
+    public void testStrategyAndOptions()
+    {
+        ToolResult tool = ToolRunner.invokeClass(SSTableCompactionSimulator.class,
+                                                 "-s", "UnifiedCompactionStrategy",
+                                                 "-s", "LCS",
+                                                 "-o", "scaling_parameters=L4",
+                                                 "-o", "sstable_size_in_mb=16",
+                                                 "-n", "20",
+                                                 "-f", "4MiB",
+                                                 "-d", "64MiB",
+                                                 directory);
+        tool.assertOnCleanExit();
+        Assertions.assertThat(tool.getStdout())
+                  .contains("overwriting 64.000MiB of data")
+                  .contains("scaling_parameters=L4")
+                  .contains("sstable_size_in_mb=16")
+                  .contains("UCS")
+                  .contains("LCS")
+                  .doesNotContain("STCS");
+    }
+
+    @Test
+    public void testInvalidArguments()
+    {
+        ToolResult tool = ToolRunner.invokeClass(SSTableCompactionSimulator.class, "-s", "foo", sstable);
+        Assertions.assertThat(tool.getExitCode()).isOne();
+        Assertions.assertThat(tool.getCleanedStderr()).contains("Unknown compaction strategy foo");
+
+        tool = ToolRunner.invokeClass(SSTableCompactionSimulator.class, "-n", "0", sstable);
+        Assertions.assertThat(tool.getExitCode()).isOne();
+
+        tool = ToolRunner.invokeClass(SSTableCompactionSimulator.class, "-o", "scaling_parameters", sstable);
+        Assertions.assertThat(tool.getExitCode()).isOne();
+        Assertions.assertThat(tool.getCleanedStderr()).contains("expected key=value");
+    }
+}
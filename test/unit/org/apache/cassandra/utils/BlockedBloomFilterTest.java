@@ -0,0 +1,170 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.utils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.junit.Test;
+
+import org.apache.cassandra.Util;
+import org.apache.cassandra.io.util.DataInputPlus.DataInputStreamPlus;
+import org.apache.cassandra.io.util.DataOutputBuffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class BlockedBloomFilterTest
+{
+    private static final double FP_CHANCE = 0.01;
+
+    private static DataInputStreamPlus serialize(IFilter filter) throws IOException
+    {
+        DataOutputBuffer out = new DataOutputBuffer();
+        filter.serialize(out, false);
+        assertEquals(filter.serializedSize(false), out.getLength());
+        return Util.DataInputStreamPlusImpl.wrap(new ByteArrayInputStream(out.getData(), 0, out.getLength()));
+    }
+
+    @Test
+    public void testOne()
+    {
+        try (IFilter filter = FilterFactory.getFilter(FilterTestHelper.ELEMENTS, FP_CHANCE, BloomFilterType.BLOCKED))
+        {
+            assertTrue(filter instanceof BlockedBloomFilter);
+            filter.add(FilterTestHelper.bytes("a"));
+            assertTrue(filter.isPresent(FilterTestHelper.bytes("a")));
+            assertFalse(filter.isPresent(FilterTestHelper.bytes("b")));
+        }
+    }
+
+    @Test
+    public void testFalsePositives()
+    {
+        try (IFilter filter = FilterFactory.getFilter(FilterTestHelper.ELEMENTS, FP_CHANCE, BloomFilterType.BLOCKED))
+        {
+            ResetableIterator<ByteBuffer> keys = FilterTestHelper.randomKeys();
+            while (keys.hasNext())
+                filter.add(FilterTestHelper.wrap(keys.next()));
+
+            keys.reset();
+            while (keys.hasNext())
+                assertTrue(filter.isPresent(FilterTestHelper.wrap(keys.next())));
+
+            int falsePositives = 0;
+            ResetableIterator<ByteBuffer> others = FilterTestHelper.randomKeys2();
+            while (others.hasNext())
+            {
+                if (filter.isPresent(FilterTestHelper.wrap(others.next())))
+                    falsePositives++;
+            }
+            double rate = falsePositives / (double) others.size();
+            assertTrue("False positive rate " + rate, rate < FP_CHANCE * 1.5);
+        }
+    }
+
+    @Test
+    public void testFalsePositiveRateWithinTarget()
+    {
+        int elements = 100000;
+        int probes = 1000000;
+        for (double fpChance : new double[]{ 0.1, 0.01, 0.001 })
+        {
+            try (IFilter filter = FilterFactory.getFilter(elements, fpChance, BloomFilterType.BLOCKED))
+            {
+                for (int i = 0; i < elements; i++)
+                    filter.add(FilterTestHelper.bytes("key" + i));
+
+                int falsePositives = 0;
+                for (int i = 0; i < probes; i++)
+                {
+                    if (filter.isPresent(FilterTestHelper.bytes("other" + i)))
+                        falsePositives++;
+                }
+                double rate = falsePositives / (double) probes;
+                assertTrue("False positive rate " + rate + " for a target of " + fpChance, rate <= fpChance);
+            }
+        }
+    }
+
+    @Test
+    public void testSizing()
+    {
+        assertTrue(BlockedBloomFilter.bitsPerElement(0.1) < BlockedBloomFilter.bitsPerElement(0.01));
+        assertEquals(64, BlockedBloomFilter.bitsPerElement(1e-15), 0);
+        for (double fpChance : new double[]{ 0.5, 0.1, 0.01, 0.001, 0.0001 })
+            assertTrue(BlockedBloomFilter.falsePositiveChance(BlockedBloomFilter.bitsPerElement(fpChance)) <= fpChance);
+
+        try (IFilter filter = FilterFactory.getFilter(0, FP_CHANCE, BloomFilterType.BLOCKED))
+        {
+            assertEquals(BlockedBloomFilter.BITS_PER_BLOCK / 8, filter.offHeapSize());
+        }
+        assertFalse(FilterFactory.getFilter(100, 1.0, BloomFilterType.BLOCKED).isInformative());
+    }
+
+    @Test
+    public void testSerialization() throws IOException
+    {
+        try (IFilter filter = FilterFactory.getFilter(FilterTestHelper.ELEMENTS, FP_CHANCE, BloomFilterType.BLOCKED))
+        {
+            ResetableIterator<ByteBuffer> keys = FilterTestHelper.intKeys();
+            while (keys.hasNext())
+                filter.add(FilterTestHelper.wrap(keys.next()));
+
+            try (IFilter deserialized = FilterFactory.deserialize(serialize(filter), false))
+            {
+                assertTrue(deserialized instanceof BlockedBloomFilter);
+                assertEquals(filter.offHeapSize(), deserialized.offHeapSize());
+                BloomFilterTest.compare(((BlockedBloomFilter) filter).bitset, ((BlockedBloomFilter) deserialized).bitset);
+            }
+        }
+    }
+
+    @Test
+    public void testStandardFilterStillDeserialized() throws IOException
+    {
+        try (IFilter filter = FilterFactory.getFilter(FilterTestHelper.ELEMENTS, FP_CHANCE, BloomFilterType.STANDARD))
+        {
+            filter.add(FilterTestHelper.bytes("a"));
+            try (IFilter deserialized = FilterFactory.deserialize(serialize(filter), false))
+            {
+                assertTrue(deserialized instanceof BloomFilter);
+                assertTrue(deserialized.isPresent(FilterTestHelper.bytes("a")));
+                assertFalse(deserialized.isPresent(FilterTestHelper.bytes("b")));
+            }
+        }
+    }
+
+    @Test
+    public void testReadAsBloomFilterLetsAllKeysThrough() throws IOException
+    {
+        // what a node only knowing about Bloom filters reads
+        try (IFilter filter = FilterFactory.getFilter(FilterTestHelper.ELEMENTS, FP_CHANCE, BloomFilterType.BLOCKED))
+        {
+            filter.add(FilterTestHelper.bytes("a"));
+            try (BloomFilter deserialized = BloomFilterSerializer.forVersion(false).deserialize(serialize(filter)))
+            {
+                assertEquals(0, deserialized.hashCount);
+                assertTrue(deserialized.isPresent(FilterTestHelper.bytes("a")));
+                assertTrue(deserialized.isPresent(FilterTestHelper.bytes("b")));
+            }
+        }
+    }
+}
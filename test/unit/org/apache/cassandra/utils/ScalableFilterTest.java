@@ -0,0 +1,115 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.utils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.junit.Test;
+
+import org.apache.cassandra.Util;
+import org.apache.cassandra.io.util.DataInputPlus.DataInputStreamPlus;
+import org.apache.cassandra.io.util.DataOutputBuffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ScalableFilterTest
+{
+    private static final double FP_CHANCE = 0.01;
+
+    @Test
+    public void testGrowth()
+    {
+        for (BloomFilterType type : BloomFilterType.values())
+        {
+            // 10000 elements from an initial capacity of 100 need segments of 100, 400, 1600 and 6400 elements
+            try (ScalableFilter filter = ScalableFilter.create(100, FP_CHANCE, type))
+            {
+                assertEquals(1, filter.segmentCount());
+                long initialSize = filter.offHeapSize();
+
+                ResetableIterator<ByteBuffer> keys = FilterTestHelper.randomKeys();
+                while (keys.hasNext())
+                    filter.add(FilterTestHelper.wrap(keys.next()));
+                assertEquals(5, filter.segmentCount());
+                assertTrue(filter.offHeapSize() > initialSize * ScalableFilter.GROWTH);
+
+                keys.reset();
+                while (keys.hasNext())
+                    assertTrue(filter.isPresent(FilterTestHelper.wrap(keys.next())));
+
+                int falsePositives = 0;
+                ResetableIterator<ByteBuffer> others = FilterTestHelper.randomKeys2();
+                while (others.hasNext())
+                {
+                    if (filter.isPresent(FilterTestHelper.wrap(others.next())))
+                        falsePositives++;
+                }
+                double rate = falsePositives / (double) others.size();
+                assertTrue(type + " false positive rate " + rate, rate < FP_CHANCE * 1.5);
+            }
+        }
+    }
+
+    @Test
+    public void testSerialization() throws IOException
+    {
+        try (ScalableFilter filter = ScalableFilter.create(10, FP_CHANCE, BloomFilterType.BLOCKED))
+        {
+            ResetableIterator<ByteBuffer> keys = FilterTestHelper.intKeys();
+            while (keys.hasNext())
+                filter.add(FilterTestHelper.wrap(keys.next()));
+
+            DataOutputBuffer out = new DataOutputBuffer();
+            filter.serialize(out, false);
+            assertEquals(filter.serializedSize(false), out.getLength());
+
+            DataInputStreamPlus in = Util.DataInputStreamPlusImpl.wrap(new ByteArrayInputStream(out.getData(), 0, out.getLength()));
+            try (ScalableFilter deserialized = ScalableFilter.deserialize(in, false))
+            {
+                assertEquals(filter.segmentCount(), deserialized.segmentCount());
+                assertEquals(filter.offHeapSize(), deserialized.offHeapSize());
+                assertTrue(deserialized.isInformative());
+
+                keys.reset();
+                while (keys.hasNext())
+                    assertTrue(deserialized.isPresent(FilterTestHelper.wrap(keys.next())));
+            }
+        }
+    }
+
+    @Test
+    public void testSharedCopy()
+    {
+        ScalableFilter filter = ScalableFilter.create(1, FP_CHANCE, BloomFilterType.STANDARD);
+        filter.add(FilterTestHelper.bytes("a"));
+        filter.add(FilterTestHelper.bytes("b"));
+
+        try (ScalableFilter copy = filter.sharedCopy())
+        {
+            filter.close();
+            assertEquals(2, copy.segmentCount());
+            assertTrue(copy.isPresent(FilterTestHelper.bytes("a")));
+            assertTrue(copy.isPresent(FilterTestHelper.bytes("b")));
+            assertFalse(copy.isPresent(FilterTestHelper.bytes("c")));
+        }
+    }
+}